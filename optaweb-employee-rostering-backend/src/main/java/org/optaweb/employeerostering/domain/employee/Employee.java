@@ -12,6 +12,7 @@ import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 import javax.persistence.UniqueConstraint;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Pattern;
@@ -21,6 +22,9 @@ import org.optaweb.employeerostering.domain.common.AbstractPersistable;
 import org.optaweb.employeerostering.domain.common.HighContrastColor;
 import org.optaweb.employeerostering.domain.contract.Contract;
 import org.optaweb.employeerostering.domain.skill.Skill;
+import org.optaweb.employeerostering.domain.skill.SkillMask;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 @Entity
 @Table(uniqueConstraints = @UniqueConstraint(columnNames = { "tenantId", "name" }))
@@ -52,6 +56,10 @@ public class Employee extends AbstractPersistable {
             inverseJoinColumns = @JoinColumn(name = "skillId", referencedColumnName = "id"))
     private Set<Skill> skillProficiencySet;
 
+    // Null until the roster indexes its skills, and again after the skill proficiency set changes
+    @Transient
+    private SkillMask skillProficiencyMask = null;
+
     @SuppressWarnings("unused")
     public Employee() {
     }
@@ -109,6 +117,16 @@ public class Employee extends AbstractPersistable {
 
     public void setSkillProficiencySet(Set<Skill> skillProficiencySet) {
         this.skillProficiencySet = skillProficiencySet;
+        this.skillProficiencyMask = null;
+    }
+
+    @JsonIgnore
+    public SkillMask getSkillProficiencyMask() {
+        return skillProficiencyMask;
+    }
+
+    public void setSkillProficiencyMask(SkillMask skillProficiencyMask) {
+        this.skillProficiencyMask = skillProficiencyMask;
     }
 
     public Contract getContract() {
@@ -137,6 +155,9 @@ public class Employee extends AbstractPersistable {
 
     @Override
     public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
         if (o instanceof Employee) {
             Employee other = (Employee) o;
             return this.name.equals(other.getName()) &&
@@ -147,8 +168,9 @@ public class Employee extends AbstractPersistable {
         }
     }
 
+    // Only the name, which equal employees share, so hashing an employee never hashes its contract and skill set
     @Override
     public int hashCode() {
-        return Objects.hash(name, contract, skillProficiencySet);
+        return Objects.hashCode(name);
     }
 }
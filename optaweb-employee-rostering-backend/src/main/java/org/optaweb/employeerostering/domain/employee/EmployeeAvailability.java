@@ -3,11 +3,13 @@ package org.optaweb.employeerostering.domain.employee;
 import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 import javax.persistence.UniqueConstraint;
 import javax.validation.constraints.AssertTrue;
 import javax.validation.constraints.NotNull;
@@ -22,6 +24,13 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 // TODO: Single Responsibility Principle - acts as both domain entity and JSON-serializable entity
 public class EmployeeAvailability extends AbstractPersistable {
 
+    private static final long UNKNOWN_EPOCH_MINUTE = Long.MIN_VALUE;
+
+    @Transient
+    private final AtomicLong startEpochMinute = new AtomicLong(UNKNOWN_EPOCH_MINUTE);
+    @Transient
+    private final AtomicLong endEpochMinute = new AtomicLong(UNKNOWN_EPOCH_MINUTE);
+
     @NotNull
     @ManyToOne(fetch = FetchType.EAGER)
     private Employee employee;
@@ -67,6 +76,32 @@ public class EmployeeAvailability extends AbstractPersistable {
         return Duration.between(startDateTime, endDateTime);
     }
 
+    /**
+     * @return the start date time in minutes since the epoch, so the constraints compare longs instead of date times
+     */
+    @JsonIgnore
+    public long getStartEpochMinute() { // Thread-safe cache.
+        return getEpochMinute(startEpochMinute, startDateTime);
+    }
+
+    /**
+     * @return the end date time in minutes since the epoch
+     */
+    @JsonIgnore
+    public long getEndEpochMinute() { // Thread-safe cache.
+        return getEpochMinute(endEpochMinute, endDateTime);
+    }
+
+    private static long getEpochMinute(AtomicLong epochMinute, OffsetDateTime dateTime) {
+        long currentEpochMinute = epochMinute.get();
+        if (currentEpochMinute != UNKNOWN_EPOCH_MINUTE) {
+            return currentEpochMinute;
+        }
+        long newEpochMinute = Math.floorDiv(dateTime.toEpochSecond(), 60L);
+        epochMinute.set(newEpochMinute);
+        return newEpochMinute;
+    }
+
     @Override
     public String toString() {
         return employee + ":" + startDateTime + "-" + endDateTime;
@@ -90,6 +125,7 @@ public class EmployeeAvailability extends AbstractPersistable {
 
     public void setStartDateTime(OffsetDateTime startDateTime) {
         this.startDateTime = startDateTime;
+        this.startEpochMinute.set(UNKNOWN_EPOCH_MINUTE);
     }
 
     public OffsetDateTime getEndDateTime() {
@@ -98,6 +134,7 @@ public class EmployeeAvailability extends AbstractPersistable {
 
     public void setEndDateTime(OffsetDateTime endDateTime) {
         this.endDateTime = endDateTime;
+        this.endEpochMinute.set(UNKNOWN_EPOCH_MINUTE);
     }
 
     public EmployeeAvailabilityState getState() {
@@ -0,0 +1,148 @@
+package org.optaweb.employeerostering.domain.employee;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.optaplanner.core.api.domain.lookup.PlanningId;
+
+/**
+ * The availabilities of each employee of a roster, per {@link EmployeeAvailabilityState state},
+ * sorted by their start, so the availabilities that overlap a shift are found with a binary search.
+ * Immutable: a roster gets a new one when its availabilities change.
+ */
+public class EmployeeAvailabilityIndex {
+
+    // A roster has only one, so a problem change can look up the one it replaces
+    private static final Long ID = 0L;
+
+    private final Map<EmployeeAvailabilityState, Map<Long, AvailabilityWindows>> stateToWindowsMap =
+            new EnumMap<>(EmployeeAvailabilityState.class);
+
+    /**
+     * @param employeeAvailabilityList never null
+     */
+    public EmployeeAvailabilityIndex(Collection<EmployeeAvailability> employeeAvailabilityList) {
+        Map<EmployeeAvailabilityState, Map<Long, List<EmployeeAvailability>>> stateToAvailabilityListMap =
+                new EnumMap<>(EmployeeAvailabilityState.class);
+        for (EmployeeAvailability employeeAvailability : employeeAvailabilityList) {
+            stateToAvailabilityListMap.computeIfAbsent(employeeAvailability.getState(), k -> new HashMap<>())
+                    .computeIfAbsent(employeeAvailability.getEmployee().getId(), k -> new ArrayList<>())
+                    .add(employeeAvailability);
+        }
+        stateToAvailabilityListMap.forEach((state, employeeIdToAvailabilityListMap) -> {
+            Map<Long, AvailabilityWindows> employeeIdToWindowsMap = new HashMap<>();
+            employeeIdToAvailabilityListMap.forEach((employeeId, availabilityList) -> employeeIdToWindowsMap
+                    .put(employeeId, new AvailabilityWindows(availabilityList)));
+            stateToWindowsMap.put(state, employeeIdToWindowsMap);
+        });
+    }
+
+    @PlanningId
+    public Long getId() {
+        return ID;
+    }
+
+    /**
+     * @param employee never null
+     * @param startEpochMinute the start of the interval
+     * @param endEpochMinute the end of the interval, exclusive
+     * @return true if the interval overlaps an unavailable availability of the employee
+     */
+    public boolean isUnavailable(Employee employee, long startEpochMinute, long endEpochMinute) {
+        return hasOverlappingAvailability(employee, EmployeeAvailabilityState.UNAVAILABLE, startEpochMinute,
+                endEpochMinute);
+    }
+
+    /**
+     * @param employee never null
+     * @param state never null
+     * @param startEpochMinute the start of the interval
+     * @param endEpochMinute the end of the interval, exclusive
+     * @return true if the interval overlaps an availability of the employee in that state
+     */
+    public boolean hasOverlappingAvailability(Employee employee, EmployeeAvailabilityState state,
+            long startEpochMinute, long endEpochMinute) {
+        AvailabilityWindows windows = getWindows(employee, state);
+        if (windows == null) {
+            return false;
+        }
+        int last = windows.getLastStartingBefore(endEpochMinute);
+        return last >= 0 && windows.maxEndEpochMinutes[last] > startEpochMinute;
+    }
+
+    /**
+     * @param employee never null
+     * @param state never null
+     * @param startEpochMinute the start of the interval
+     * @param endEpochMinute the end of the interval, exclusive
+     * @return never null, the availabilities of the employee in that state that overlap the interval,
+     * sorted by their start
+     */
+    public List<EmployeeAvailability> getOverlappingAvailabilityList(Employee employee,
+            EmployeeAvailabilityState state, long startEpochMinute, long endEpochMinute) {
+        AvailabilityWindows windows = getWindows(employee, state);
+        if (windows == null) {
+            return Collections.emptyList();
+        }
+        List<EmployeeAvailability> out = new ArrayList<>();
+        // Stops once none of the earlier availabilities ends after the start
+        for (int i = windows.getLastStartingBefore(endEpochMinute);
+                i >= 0 && windows.maxEndEpochMinutes[i] > startEpochMinute; i--) {
+            if (windows.availabilities[i].getEndEpochMinute() > startEpochMinute) {
+                out.add(windows.availabilities[i]);
+            }
+        }
+        Collections.reverse(out);
+        return out;
+    }
+
+    private AvailabilityWindows getWindows(Employee employee, EmployeeAvailabilityState state) {
+        Map<Long, AvailabilityWindows> employeeIdToWindowsMap = stateToWindowsMap.get(state);
+        return (employeeIdToWindowsMap == null) ? null : employeeIdToWindowsMap.get(employee.getId());
+    }
+
+    private static final class AvailabilityWindows {
+
+        private final EmployeeAvailability[] availabilities;
+        private final long[] startEpochMinutes;
+        // The maximum end of each availability and the ones before it, since they might overlap
+        private final long[] maxEndEpochMinutes;
+
+        private AvailabilityWindows(List<EmployeeAvailability> availabilityList) {
+            availabilities = availabilityList.toArray(new EmployeeAvailability[0]);
+            Arrays.sort(availabilities, Comparator.comparingLong(EmployeeAvailability::getStartEpochMinute));
+            startEpochMinutes = new long[availabilities.length];
+            maxEndEpochMinutes = new long[availabilities.length];
+            long maxEndEpochMinute = Long.MIN_VALUE;
+            for (int i = 0; i < availabilities.length; i++) {
+                startEpochMinutes[i] = availabilities[i].getStartEpochMinute();
+                maxEndEpochMinute = Math.max(maxEndEpochMinute, availabilities[i].getEndEpochMinute());
+                maxEndEpochMinutes[i] = maxEndEpochMinute;
+            }
+        }
+
+        // The index of the last availability that starts before the epoch minute, or -1
+        private int getLastStartingBefore(long epochMinute) {
+            int low = 0;
+            int high = startEpochMinutes.length - 1;
+            int last = -1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (startEpochMinutes[middle] < epochMinute) {
+                    last = middle;
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return last;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.optaweb.employeerostering.domain.employee;
+
+import java.util.Comparator;
+
+import org.optaplanner.core.impl.heuristic.selector.common.decorator.SelectionSorterWeightFactory;
+import org.optaweb.employeerostering.domain.contract.Contract;
+import org.optaweb.employeerostering.domain.roster.Roster;
+import org.optaweb.employeerostering.domain.shift.Shift;
+
+/**
+ * An employee is stronger if their contract leaves more minutes per week,
+ * after the shifts the roster already assigns to them,
+ * so a construction heuristic tries the employees who can still take the most work first.
+ */
+public class EmployeeStrengthWeightFactory implements SelectionSorterWeightFactory<Roster, Employee> {
+
+    private static final long WEEKS_PER_YEAR = 52L;
+
+    @Override
+    public EmployeeStrengthWeight createSorterWeight(Roster roster, Employee employee) {
+        long maximumMinutesPerWeek = getMaximumMinutesPerWeek(employee.getContract());
+        if (maximumMinutesPerWeek == Long.MAX_VALUE) {
+            return new EmployeeStrengthWeight(employee, Long.MAX_VALUE);
+        }
+        long assignedMinutes = 0L;
+        int firstDayKey = Integer.MAX_VALUE;
+        int lastDayKey = Integer.MIN_VALUE;
+        for (Shift shift : roster.getShiftList()) {
+            firstDayKey = Math.min(firstDayKey, shift.getStartDayKey());
+            lastDayKey = Math.max(lastDayKey, shift.getStartDayKey());
+            if (employee.equals(shift.getEmployee())) {
+                assignedMinutes += shift.getLengthInMinutes();
+            }
+        }
+        if (assignedMinutes == 0L) {
+            return new EmployeeStrengthWeight(employee, maximumMinutesPerWeek);
+        }
+        // Spread over the weeks of the roster
+        long weekCount = (lastDayKey - firstDayKey) / 7 + 1;
+        return new EmployeeStrengthWeight(employee, maximumMinutesPerWeek - assignedMinutes / weekCount);
+    }
+
+    // The tightest limit of the contract, as minutes per week
+    private static long getMaximumMinutesPerWeek(Contract contract) {
+        long maximumMinutesPerWeek = Long.MAX_VALUE;
+        if (contract == null) {
+            return maximumMinutesPerWeek;
+        }
+        if (contract.getMaximumMinutesPerDay() != null) {
+            maximumMinutesPerWeek = Math.min(maximumMinutesPerWeek, contract.getMaximumMinutesPerDay() * 7L);
+        }
+        if (contract.getMaximumMinutesPerWeek() != null) {
+            maximumMinutesPerWeek = Math.min(maximumMinutesPerWeek, contract.getMaximumMinutesPerWeek());
+        }
+        if (contract.getMaximumMinutesPerMonth() != null) {
+            maximumMinutesPerWeek = Math.min(maximumMinutesPerWeek,
+                    contract.getMaximumMinutesPerMonth() * 12L / WEEKS_PER_YEAR);
+        }
+        if (contract.getMaximumMinutesPerYear() != null) {
+            maximumMinutesPerWeek = Math.min(maximumMinutesPerWeek,
+                    contract.getMaximumMinutesPerYear() / WEEKS_PER_YEAR);
+        }
+        return maximumMinutesPerWeek;
+    }
+
+    public static class EmployeeStrengthWeight implements Comparable<EmployeeStrengthWeight> {
+
+        private static final Comparator<EmployeeStrengthWeight> COMPARATOR =
+                Comparator.comparingLong((EmployeeStrengthWeight weight) -> weight.headroomMinutesPerWeek)
+                        .thenComparing(weight -> weight.employee.getId(),
+                                Comparator.nullsFirst(Comparator.<Long>naturalOrder()));
+
+        private final Employee employee;
+        private final long headroomMinutesPerWeek;
+
+        public EmployeeStrengthWeight(Employee employee, long headroomMinutesPerWeek) {
+            this.employee = employee;
+            this.headroomMinutesPerWeek = headroomMinutesPerWeek;
+        }
+
+        @Override
+        public int compareTo(EmployeeStrengthWeight other) {
+            return COMPARATOR.compare(this, other);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package org.optaweb.employeerostering.domain.roster;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.optaplanner.core.api.domain.lookup.PlanningId;
+import org.optaweb.employeerostering.domain.employee.Employee;
+import org.optaweb.employeerostering.domain.shift.Shift;
+import org.optaweb.employeerostering.domain.violation.ContractMinutesViolation;
+
+/**
+ * The working minutes of the shifts that are left out of a {@link Roster} because they start outside its horizon,
+ * per employee and per weekly, monthly and yearly contract period.
+ * The contract minutes constraints add them to the minutes of the shifts in the roster in the same period.
+ * <p>
+ * Daily periods are never needed, since the horizon starts at the beginning of a day
+ * that is before any shift the solver may change, and ends at the beginning of a day after them.
+ * <p>
+ * Never modify the one of a roster that is being solved, since it is shared with the best solution clones:
+ * a problem change replaces it with a modified {@link #HistoricWorkingTime(HistoricWorkingTime) copy}.
+ */
+public class HistoricWorkingTime {
+
+    // A roster has only one, so a problem change can look up the one it replaces
+    private static final Long ID = 0L;
+
+    private final DayOfWeek weekStartDay;
+    // Null if no shift is left out before the horizon
+    private final OffsetDateTime horizonStartDateTime;
+    // Null if no shift is left out after the horizon
+    private final OffsetDateTime horizonEndDateTime;
+    private final Map<Long, Map<ContractMinutesViolation.Type, Map<Integer, Long>>> employeeIdToMinutesMap =
+            new HashMap<>();
+
+    /**
+     * A roster with all of its shifts.
+     */
+    public HistoricWorkingTime() {
+        this(DayOfWeek.MONDAY, null);
+    }
+
+    /**
+     * @param weekStartDay never null
+     * @param horizonStartDateTime sometimes null, the shifts that start before it are left out of the roster
+     */
+    public HistoricWorkingTime(DayOfWeek weekStartDay, OffsetDateTime horizonStartDateTime) {
+        this(weekStartDay, horizonStartDateTime, null);
+    }
+
+    /**
+     * @param weekStartDay never null
+     * @param horizonStartDateTime sometimes null, the shifts that start before it are left out of the roster
+     * @param horizonEndDateTime sometimes null, the shifts that start at or after it are left out of the roster
+     */
+    public HistoricWorkingTime(DayOfWeek weekStartDay, OffsetDateTime horizonStartDateTime,
+            OffsetDateTime horizonEndDateTime) {
+        this.weekStartDay = weekStartDay;
+        this.horizonStartDateTime = horizonStartDateTime;
+        this.horizonEndDateTime = horizonEndDateTime;
+    }
+
+    /**
+     * @param historicWorkingTime never null, the copy does not share any map with it
+     */
+    public HistoricWorkingTime(HistoricWorkingTime historicWorkingTime) {
+        this(historicWorkingTime.weekStartDay, historicWorkingTime.horizonStartDateTime,
+                historicWorkingTime.horizonEndDateTime);
+        historicWorkingTime.employeeIdToMinutesMap.forEach((employeeId, typeToMinutesMap) -> {
+            Map<ContractMinutesViolation.Type, Map<Integer, Long>> typeToMinutesMapCopy =
+                    new EnumMap<>(ContractMinutesViolation.Type.class);
+            typeToMinutesMap.forEach((type, periodToMinutesMap) -> typeToMinutesMapCopy.put(type,
+                    new HashMap<>(periodToMinutesMap)));
+            employeeIdToMinutesMap.put(employeeId, typeToMinutesMapCopy);
+        });
+    }
+
+    @PlanningId
+    public Long getId() {
+        return ID;
+    }
+
+    /**
+     * @param type never null
+     * @param weekStartDay never null
+     * @param dateTime never null
+     * @return the key of the period of that type that contains the date time, as grouped by the
+     * contract minutes constraints, see {@link Shift#getStartPeriodKey(ContractMinutesViolation.Type, DayOfWeek)}
+     */
+    public static int getPeriod(ContractMinutesViolation.Type type, DayOfWeek weekStartDay,
+            OffsetDateTime dateTime) {
+        switch (type) {
+            case DAY:
+                return Shift.getDayKey(dateTime);
+            case WEEK:
+                return Shift.getWeekKey(Shift.getDayKey(dateTime), weekStartDay);
+            case MONTH:
+                return Shift.getMonthKey(dateTime);
+            case YEAR:
+                return dateTime.getYear();
+            default:
+                throw new IllegalStateException("Unhandled contract minutes violation type (" + type + ").");
+        }
+    }
+
+    /**
+     * @param employeeId never null
+     * @param startDateTime never null, outside the horizon
+     * @param endDateTime never null
+     */
+    public void addShift(Long employeeId, OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
+        addMinutes(employeeId, startDateTime, Duration.between(startDateTime, endDateTime).toMinutes());
+    }
+
+    /**
+     * Undoes {@link #addShift(Long, OffsetDateTime, OffsetDateTime)} with the same arguments.
+     * @param employeeId never null
+     * @param startDateTime never null, outside the horizon
+     * @param endDateTime never null
+     */
+    public void removeShift(Long employeeId, OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
+        addMinutes(employeeId, startDateTime, -Duration.between(startDateTime, endDateTime).toMinutes());
+    }
+
+    private void addMinutes(Long employeeId, OffsetDateTime startDateTime, long minutes) {
+        Map<ContractMinutesViolation.Type, Map<Integer, Long>> typeToMinutesMap = employeeIdToMinutesMap
+                .computeIfAbsent(employeeId, k -> new EnumMap<>(ContractMinutesViolation.Type.class));
+        for (ContractMinutesViolation.Type type : new ContractMinutesViolation.Type[] {
+                ContractMinutesViolation.Type.WEEK, ContractMinutesViolation.Type.MONTH,
+                ContractMinutesViolation.Type.YEAR }) {
+            typeToMinutesMap.computeIfAbsent(type, k -> new HashMap<>())
+                    .merge(getPeriod(type, weekStartDay, startDateTime), minutes, Long::sum);
+        }
+    }
+
+    /**
+     * @param employee never null
+     * @param type never null
+     * @param period see {@link #getPeriod(ContractMinutesViolation.Type, DayOfWeek, OffsetDateTime)}
+     * @return at least 0
+     */
+    public long getMinutes(Employee employee, ContractMinutesViolation.Type type, int period) {
+        Map<ContractMinutesViolation.Type, Map<Integer, Long>> typeToMinutesMap =
+                employeeIdToMinutesMap.get(employee.getId());
+        if (typeToMinutesMap == null) {
+            return 0L;
+        }
+        Map<Integer, Long> periodToMinutesMap = typeToMinutesMap.get(type);
+        return (periodToMinutesMap == null) ? 0L : periodToMinutesMap.getOrDefault(period, 0L);
+    }
+
+    /**
+     * @param employee never null
+     * @param type never null
+     * @param dateTime never null
+     * @return at least 0, the minutes in the period of that type that contains the date time
+     */
+    public long getMinutesOfPeriodContaining(Employee employee, ContractMinutesViolation.Type type,
+            OffsetDateTime dateTime) {
+        return getMinutes(employee, type, getPeriod(type, weekStartDay, dateTime));
+    }
+
+    /**
+     * @param shift never null
+     * @return true if the shift starts outside the horizon, so it belongs in this instead of in the roster
+     */
+    public boolean isOutsideHorizon(Shift shift) {
+        return isOutsideHorizon(shift.getStartDateTime());
+    }
+
+    /**
+     * @param startDateTime never null
+     * @return true if a shift that starts then is left out of the roster
+     */
+    public boolean isOutsideHorizon(OffsetDateTime startDateTime) {
+        return (horizonStartDateTime != null && startDateTime.isBefore(horizonStartDateTime))
+                || (horizonEndDateTime != null && !startDateTime.isBefore(horizonEndDateTime));
+    }
+
+    // ************************************************************************
+    // Simple getters
+    // ************************************************************************
+
+    public DayOfWeek getWeekStartDay() {
+        return weekStartDay;
+    }
+
+    public OffsetDateTime getHorizonStartDateTime() {
+        return horizonStartDateTime;
+    }
+
+    public OffsetDateTime getHorizonEndDateTime() {
+        return horizonEndDateTime;
+    }
+}
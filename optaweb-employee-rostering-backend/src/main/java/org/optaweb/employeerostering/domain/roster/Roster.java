@@ -1,5 +1,6 @@
 package org.optaweb.employeerostering.domain.roster;
 
+import java.time.DayOfWeek;
 import java.time.OffsetDateTime;
 import java.util.List;
 
@@ -14,8 +15,10 @@ import org.optaplanner.core.api.score.buildin.hardmediumsoftlong.HardMediumSoftL
 import org.optaweb.employeerostering.domain.common.AbstractPersistable;
 import org.optaweb.employeerostering.domain.employee.Employee;
 import org.optaweb.employeerostering.domain.employee.EmployeeAvailability;
+import org.optaweb.employeerostering.domain.employee.EmployeeAvailabilityIndex;
 import org.optaweb.employeerostering.domain.shift.Shift;
 import org.optaweb.employeerostering.domain.skill.Skill;
+import org.optaweb.employeerostering.domain.skill.SkillIndex;
 import org.optaweb.employeerostering.domain.spot.Spot;
 import org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration;
 
@@ -37,6 +40,8 @@ public class Roster extends AbstractPersistable {
 
     @ProblemFactProperty
     private RosterState rosterState;
+    @ProblemFactProperty
+    private HistoricWorkingTime historicWorkingTime = new HistoricWorkingTime();
 
     @PlanningEntityCollectionProperty
     private List<Shift> shiftList;
@@ -44,8 +49,14 @@ public class Roster extends AbstractPersistable {
     @PlanningScore
     private HardMediumSoftLongScore score = null;
 
+    // A problem fact of the availability constraints, see getEmployeeAvailabilityIndex()
+    private EmployeeAvailabilityIndex employeeAvailabilityIndex = null;
+
     private boolean isNondisruptivePlanning;
     private OffsetDateTime nondisruptiveReplanFrom;
+    // Both null, unless only the shifts that start from the window start and before the window end may change
+    private OffsetDateTime planningWindowStartDateTime;
+    private OffsetDateTime planningWindowEndDateTime;
 
     @SuppressWarnings("unused")
     public Roster() {
@@ -76,6 +87,44 @@ public class Roster extends AbstractPersistable {
         this.nondisruptiveReplanFrom = nondisruptiveReplanFrom;
     }
 
+    /**
+     * Maps the skills of the employees, spots and shifts to a new {@link SkillIndex} and sets their skill masks,
+     * so {@link Shift#hasRequiredSkills(Employee)} compares bitsets instead of skill sets.
+     * The skill list is not needed, because some rosters only have the skills of their shifts.
+     */
+    public void indexSkills() {
+        SkillIndex skillIndex = new SkillIndex();
+        for (Employee employee : employeeList) {
+            employee.setSkillProficiencyMask(skillIndex.getMask(employee.getSkillProficiencySet()));
+        }
+        for (Spot spot : spotList) {
+            spot.setRequiredSkillMask(skillIndex.getMask(spot.getRequiredSkillSet()));
+        }
+        for (Shift shift : shiftList) {
+            shift.setRequiredSkillMask(skillIndex.getMask(shift.getRequiredSkillSet()));
+        }
+    }
+
+    /**
+     * Sets the week start day of the configuration on the shifts, see {@link Shift#getStartWeekKey()}.
+     * Call it again after the week start day changes.
+     */
+    public void indexWeekStartDay() {
+        DayOfWeek weekStartDay = rosterConstraintConfiguration.getWeekStartDay();
+        for (Shift shift : shiftList) {
+            shift.setWeekStartDay(weekStartDay);
+        }
+    }
+
+    /**
+     * Replaces the {@link EmployeeAvailabilityIndex} with one of the current availabilities.
+     * Call it again after the availabilities change, unless the roster is being solved:
+     * the score director must then be told that the index fact is replaced.
+     */
+    public void indexEmployeeAvailabilities() {
+        employeeAvailabilityIndex = new EmployeeAvailabilityIndex(employeeAvailabilityList);
+    }
+
     // ************************************************************************
     // Simple getters and setters
     // ************************************************************************
@@ -120,6 +169,22 @@ public class Roster extends AbstractPersistable {
         this.employeeAvailabilityList = employeeAvailabilityList;
     }
 
+    /**
+     * Indexes the availabilities on first use, so a roster built with setters scores the same.
+     * @return null if the availability list is null
+     */
+    @ProblemFactProperty
+    public EmployeeAvailabilityIndex getEmployeeAvailabilityIndex() {
+        if (employeeAvailabilityIndex == null && employeeAvailabilityList != null) {
+            indexEmployeeAvailabilities();
+        }
+        return employeeAvailabilityIndex;
+    }
+
+    public void setEmployeeAvailabilityIndex(EmployeeAvailabilityIndex employeeAvailabilityIndex) {
+        this.employeeAvailabilityIndex = employeeAvailabilityIndex;
+    }
+
     public RosterState getRosterState() {
         return rosterState;
     }
@@ -128,6 +193,14 @@ public class Roster extends AbstractPersistable {
         this.rosterState = rosterState;
     }
 
+    public HistoricWorkingTime getHistoricWorkingTime() {
+        return historicWorkingTime;
+    }
+
+    public void setHistoricWorkingTime(HistoricWorkingTime historicWorkingTime) {
+        this.historicWorkingTime = historicWorkingTime;
+    }
+
     public List<Shift> getShiftList() {
         return shiftList;
     }
@@ -159,4 +232,20 @@ public class Roster extends AbstractPersistable {
     public void setNondisruptiveReplanFrom(OffsetDateTime undistruptiveReplanFrom) {
         this.nondisruptiveReplanFrom = undistruptiveReplanFrom;
     }
+
+    public OffsetDateTime getPlanningWindowStartDateTime() {
+        return planningWindowStartDateTime;
+    }
+
+    public void setPlanningWindowStartDateTime(OffsetDateTime planningWindowStartDateTime) {
+        this.planningWindowStartDateTime = planningWindowStartDateTime;
+    }
+
+    public OffsetDateTime getPlanningWindowEndDateTime() {
+        return planningWindowEndDateTime;
+    }
+
+    public void setPlanningWindowEndDateTime(OffsetDateTime planningWindowEndDateTime) {
+        this.planningWindowEndDateTime = planningWindowEndDateTime;
+    }
 }
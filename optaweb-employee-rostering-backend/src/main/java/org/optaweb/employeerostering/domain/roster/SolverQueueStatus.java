@@ -0,0 +1,46 @@
+package org.optaweb.employeerostering.domain.roster;
+
+import java.time.OffsetDateTime;
+
+import org.optaplanner.core.api.solver.SolverStatus;
+
+public class SolverQueueStatus {
+
+    private SolverStatus solverStatus;
+    private Integer queuePosition; // 1 for the next solve to start, null unless waiting
+    private OffsetDateTime estimatedStartDateTime; // Null unless waiting
+
+    @SuppressWarnings("unused")
+    public SolverQueueStatus() {
+    }
+
+    public SolverQueueStatus(SolverStatus solverStatus, Integer queuePosition, OffsetDateTime estimatedStartDateTime) {
+        this.solverStatus = solverStatus;
+        this.queuePosition = queuePosition;
+        this.estimatedStartDateTime = estimatedStartDateTime;
+    }
+
+    public SolverStatus getSolverStatus() {
+        return solverStatus;
+    }
+
+    public void setSolverStatus(SolverStatus solverStatus) {
+        this.solverStatus = solverStatus;
+    }
+
+    public Integer getQueuePosition() {
+        return queuePosition;
+    }
+
+    public void setQueuePosition(Integer queuePosition) {
+        this.queuePosition = queuePosition;
+    }
+
+    public OffsetDateTime getEstimatedStartDateTime() {
+        return estimatedStartDateTime;
+    }
+
+    public void setEstimatedStartDateTime(OffsetDateTime estimatedStartDateTime) {
+        this.estimatedStartDateTime = estimatedStartDateTime;
+    }
+}
@@ -0,0 +1,98 @@
+package org.optaweb.employeerostering.domain.roster.view;
+
+import java.util.List;
+
+import javax.validation.constraints.NotNull;
+
+import org.optaplanner.core.api.score.buildin.hardmediumsoftlong.HardMediumSoftLongScore;
+import org.optaplanner.core.api.solver.SolverStatus;
+import org.optaweb.employeerostering.domain.shift.view.ShiftView;
+import org.optaweb.employeerostering.domain.violation.IndictmentSummary;
+
+public class SolverEventView {
+
+    @NotNull
+    private Integer tenantId;
+    @NotNull
+    private SolverStatus solverStatus;
+    @NotNull
+    // Only the shifts that were added, or whose times, spot, employee, version or indictment score changed
+    // since the previous event
+    private List<ShiftView> shiftViewList;
+    @NotNull
+    // The shifts that were removed since the previous event
+    private List<Long> removedShiftIdList;
+
+    // Null if the event has no new best solution
+    private IndictmentSummary indictmentSummary;
+    private HardMediumSoftLongScore score = null;
+
+    @SuppressWarnings("unused")
+    public SolverEventView() {
+    }
+
+    public SolverEventView(Integer tenantId, SolverStatus solverStatus, List<ShiftView> shiftViewList,
+            List<Long> removedShiftIdList) {
+        this.tenantId = tenantId;
+        this.solverStatus = solverStatus;
+        this.shiftViewList = shiftViewList;
+        this.removedShiftIdList = removedShiftIdList;
+    }
+
+    @Override
+    public String toString() {
+        return solverStatus + " (" + score + ")";
+    }
+
+    // ************************************************************************
+    // Simple getters and setters
+    // ************************************************************************
+
+    public Integer getTenantId() {
+        return tenantId;
+    }
+
+    public void setTenantId(Integer tenantId) {
+        this.tenantId = tenantId;
+    }
+
+    public SolverStatus getSolverStatus() {
+        return solverStatus;
+    }
+
+    public void setSolverStatus(SolverStatus solverStatus) {
+        this.solverStatus = solverStatus;
+    }
+
+    public List<ShiftView> getShiftViewList() {
+        return shiftViewList;
+    }
+
+    public void setShiftViewList(List<ShiftView> shiftViewList) {
+        this.shiftViewList = shiftViewList;
+    }
+
+    public List<Long> getRemovedShiftIdList() {
+        return removedShiftIdList;
+    }
+
+    public void setRemovedShiftIdList(List<Long> removedShiftIdList) {
+        this.removedShiftIdList = removedShiftIdList;
+    }
+
+    public IndictmentSummary getIndictmentSummary() {
+        return indictmentSummary;
+    }
+
+    public void setIndictmentSummary(IndictmentSummary indictmentSummary) {
+        this.indictmentSummary = indictmentSummary;
+    }
+
+    public HardMediumSoftLongScore getScore() {
+        return score;
+    }
+
+    public void setScore(HardMediumSoftLongScore score) {
+        this.score = score;
+    }
+}
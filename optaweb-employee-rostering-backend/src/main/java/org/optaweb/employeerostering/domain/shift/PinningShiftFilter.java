@@ -10,6 +10,12 @@ public class PinningShiftFilter implements PinningFilter<Roster, Shift> {
     public boolean accept(Roster roster, Shift shift) {
         RosterState rosterState = roster.getRosterState();
 
+        if (roster.getPlanningWindowStartDateTime() != null
+                && (shift.getStartDateTime().isBefore(roster.getPlanningWindowStartDateTime())
+                        || !shift.getStartDateTime().isBefore(roster.getPlanningWindowEndDateTime()))) {
+            // Context for the constraints of the shifts in the planning window
+            return true;
+        }
         if (roster.isNondisruptivePlanning()) {
             return shift.getStartDateTime().isBefore(roster.getNondisruptiveReplanFrom());
         } else {
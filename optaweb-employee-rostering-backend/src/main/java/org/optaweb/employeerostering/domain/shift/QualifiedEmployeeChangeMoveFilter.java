@@ -0,0 +1,38 @@
+package org.optaweb.employeerostering.domain.shift;
+
+import org.optaplanner.core.api.score.director.ScoreDirector;
+import org.optaplanner.core.impl.heuristic.selector.common.decorator.SelectionFilter;
+import org.optaplanner.core.impl.heuristic.selector.move.generic.ChangeMove;
+import org.optaweb.employeerostering.domain.employee.Employee;
+import org.optaweb.employeerostering.domain.employee.EmployeeAvailabilityIndex;
+import org.optaweb.employeerostering.domain.roster.Roster;
+
+/**
+ * Skips the moves that assign a shift to an employee without its required skills or who is unavailable
+ * during it, so the solver does not spend time on assignments that break those hard constraints.
+ */
+public class QualifiedEmployeeChangeMoveFilter implements SelectionFilter<Roster, ChangeMove<Roster>> {
+
+    @Override
+    public boolean accept(ScoreDirector<Roster> scoreDirector, ChangeMove<Roster> move) {
+        Shift shift = (Shift) move.getEntity();
+        Employee employee = (Employee) move.getToPlanningValue();
+        return employee == null || isQualified(scoreDirector.getWorkingSolution(), shift, employee);
+    }
+
+    /**
+     * @param roster never null
+     * @param shift never null
+     * @param employee never null
+     * @return true if the employee has the required skills of the shift and is not unavailable during it,
+     * as far as the roster's {@link EmployeeAvailabilityIndex} knows
+     */
+    static boolean isQualified(Roster roster, Shift shift, Employee employee) {
+        if (!shift.hasRequiredSkills(employee)) {
+            return false;
+        }
+        EmployeeAvailabilityIndex employeeAvailabilityIndex = roster.getEmployeeAvailabilityIndex();
+        return employeeAvailabilityIndex == null || !employeeAvailabilityIndex.isUnavailable(employee,
+                shift.getStartEpochMinute(), shift.getEndEpochMinute());
+    }
+}
@@ -0,0 +1,26 @@
+package org.optaweb.employeerostering.domain.shift;
+
+import org.optaplanner.core.api.score.director.ScoreDirector;
+import org.optaplanner.core.impl.heuristic.selector.common.decorator.SelectionFilter;
+import org.optaplanner.core.impl.heuristic.selector.move.generic.SwapMove;
+import org.optaweb.employeerostering.domain.employee.Employee;
+import org.optaweb.employeerostering.domain.roster.Roster;
+
+/**
+ * Skips the moves that swap the employees of two shifts if either employee is not qualified for the other shift,
+ * see {@link QualifiedEmployeeChangeMoveFilter}.
+ */
+public class QualifiedEmployeeSwapMoveFilter implements SelectionFilter<Roster, SwapMove<Roster>> {
+
+    @Override
+    public boolean accept(ScoreDirector<Roster> scoreDirector, SwapMove<Roster> move) {
+        Roster roster = scoreDirector.getWorkingSolution();
+        Shift leftShift = (Shift) move.getLeftEntity();
+        Shift rightShift = (Shift) move.getRightEntity();
+        Employee leftEmployee = leftShift.getEmployee();
+        Employee rightEmployee = rightShift.getEmployee();
+        return (leftEmployee == null || QualifiedEmployeeChangeMoveFilter.isQualified(roster, rightShift, leftEmployee))
+                && (rightEmployee == null
+                        || QualifiedEmployeeChangeMoveFilter.isQualified(roster, leftShift, rightEmployee));
+    }
+}
@@ -1,12 +1,12 @@
 package org.optaweb.employeerostering.domain.shift;
 
+import java.time.DayOfWeek;
 import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicLong;
 
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
@@ -23,17 +23,37 @@ import org.optaplanner.core.api.domain.entity.PlanningPin;
 import org.optaplanner.core.api.domain.variable.PlanningVariable;
 import org.optaweb.employeerostering.domain.common.AbstractPersistable;
 import org.optaweb.employeerostering.domain.employee.Employee;
+import org.optaweb.employeerostering.domain.employee.EmployeeStrengthWeightFactory;
 import org.optaweb.employeerostering.domain.shift.view.ShiftView;
 import org.optaweb.employeerostering.domain.skill.Skill;
+import org.optaweb.employeerostering.domain.skill.SkillMask;
 import org.optaweb.employeerostering.domain.spot.Spot;
+import org.optaweb.employeerostering.domain.violation.ContractMinutesViolation;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 @Entity
-@PlanningEntity(pinningFilter = PinningShiftFilter.class)
+@PlanningEntity(pinningFilter = PinningShiftFilter.class,
+        difficultyWeightFactoryClass = ShiftDifficultyWeightFactory.class)
 public class Shift extends AbstractPersistable {
+
+    private static final long UNKNOWN_EPOCH_MINUTE = Long.MIN_VALUE;
+    private static final long UNKNOWN_PERIOD_KEY = Long.MIN_VALUE;
+
+    // The caches are plain fields, so the solution cloner copies their values and a clone never shares them
+    @Transient
+    private volatile long lengthInMinutes = -1;
+    @Transient
+    private volatile long startEpochMinute = UNKNOWN_EPOCH_MINUTE;
     @Transient
-    private final AtomicLong lengthInMinutes = new AtomicLong(-1);
+    private volatile long endEpochMinute = UNKNOWN_EPOCH_MINUTE;
+    @Transient
+    private volatile long startDayKey = UNKNOWN_PERIOD_KEY;
+    @Transient
+    private volatile long startMonthKey = UNKNOWN_PERIOD_KEY;
+    // The week start day of the roster of this shift, null until Roster#indexWeekStartDay() sets it
+    @Transient
+    private DayOfWeek weekStartDay;
     @ManyToOne
     private Employee rotationEmployee;
     @NotNull
@@ -45,6 +65,9 @@ public class Shift extends AbstractPersistable {
             joinColumns = @JoinColumn(name = "shiftId", referencedColumnName = "id"),
             inverseJoinColumns = @JoinColumn(name = "skillId", referencedColumnName = "id"))
     private Set<Skill> requiredSkillSet;
+    // Null until the roster indexes its skills, and again after the required skill set changes
+    @Transient
+    private SkillMask requiredSkillMask = null;
     @NotNull
     private OffsetDateTime startDateTime;
     @NotNull
@@ -53,7 +76,8 @@ public class Shift extends AbstractPersistable {
     private boolean pinnedByUser = false;
 
     @ManyToOne
-    @PlanningVariable(valueRangeProviderRefs = "employeeRange", nullable = true)
+    @PlanningVariable(valueRangeProviderRefs = "employeeRange", nullable = true,
+            strengthWeightFactoryClass = EmployeeStrengthWeightFactory.class)
     private Employee employee = null;
 
     @ManyToOne
@@ -123,21 +147,177 @@ public class Shift extends AbstractPersistable {
     }
 
     public long getLengthInMinutes() { // Thread-safe cache.
-        long currentLengthInMinutes = lengthInMinutes.get();
+        long currentLengthInMinutes = lengthInMinutes;
         if (currentLengthInMinutes >= 0) {
             return currentLengthInMinutes;
         }
         long newLengthInMinutes = startDateTime.until(endDateTime, ChronoUnit.MINUTES);
-        lengthInMinutes.set(newLengthInMinutes);
+        lengthInMinutes = newLengthInMinutes;
         return newLengthInMinutes;
     }
 
+    /**
+     * @return the start date time in minutes since the epoch, so the constraints compare longs instead of date times
+     */
+    @JsonIgnore
+    public long getStartEpochMinute() { // Thread-safe cache.
+        long currentStartEpochMinute = startEpochMinute;
+        if (currentStartEpochMinute != UNKNOWN_EPOCH_MINUTE) {
+            return currentStartEpochMinute;
+        }
+        long newStartEpochMinute = getEpochMinute(startDateTime);
+        startEpochMinute = newStartEpochMinute;
+        return newStartEpochMinute;
+    }
+
+    /**
+     * @return the end date time in minutes since the epoch
+     */
+    @JsonIgnore
+    public long getEndEpochMinute() { // Thread-safe cache.
+        long currentEndEpochMinute = endEpochMinute;
+        if (currentEndEpochMinute != UNKNOWN_EPOCH_MINUTE) {
+            return currentEndEpochMinute;
+        }
+        long newEndEpochMinute = getEpochMinute(endDateTime);
+        endEpochMinute = newEndEpochMinute;
+        return newEndEpochMinute;
+    }
+
+    private static long getEpochMinute(OffsetDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(), 60L);
+    }
+
+    /**
+     * @return the epoch day of the start date, the key of the contract period of a day
+     */
+    @JsonIgnore
+    public int getStartDayKey() { // Thread-safe cache.
+        long currentStartDayKey = startDayKey;
+        if (currentStartDayKey != UNKNOWN_PERIOD_KEY) {
+            return (int) currentStartDayKey;
+        }
+        int newStartDayKey = getDayKey(startDateTime);
+        startDayKey = newStartDayKey;
+        return newStartDayKey;
+    }
+
+    /**
+     * @param weekStartDay never null
+     * @return the epoch day of the first day of the week of the start date
+     */
+    public int getStartWeekKey(DayOfWeek weekStartDay) {
+        return getWeekKey(getStartDayKey(), weekStartDay);
+    }
+
+    /**
+     * @return as {@link #getStartWeekKey(DayOfWeek)} with the week start day of the roster of this shift,
+     * so the weekly contract minutes constraint doesn't join the configuration
+     * @throws IllegalStateException if the week start day isn't set,
+     *         see {@link org.optaweb.employeerostering.domain.roster.Roster#indexWeekStartDay()}
+     */
+    @JsonIgnore
+    public int getStartWeekKey() {
+        if (weekStartDay == null) {
+            throw new IllegalStateException("The shift (" + this + ") has no weekStartDay."
+                    + " Call Roster.indexWeekStartDay() on the roster of the shift first.");
+        }
+        return getWeekKey(getStartDayKey(), weekStartDay);
+    }
+
+    /**
+     * @return the number of months from year 0 to the start month
+     */
+    @JsonIgnore
+    public int getStartMonthKey() { // Thread-safe cache.
+        long currentStartMonthKey = startMonthKey;
+        if (currentStartMonthKey != UNKNOWN_PERIOD_KEY) {
+            return (int) currentStartMonthKey;
+        }
+        int newStartMonthKey = getMonthKey(startDateTime);
+        startMonthKey = newStartMonthKey;
+        return newStartMonthKey;
+    }
+
+    /**
+     * @return the start year
+     */
+    @JsonIgnore
+    public int getStartYearKey() {
+        return Math.floorDiv(getStartMonthKey(), 12);
+    }
+
+    /**
+     * @param type never null
+     * @param weekStartDay never null
+     * @return the key of the contract period of that type that contains the start,
+     * as grouped by the contract minutes constraints
+     */
+    public int getStartPeriodKey(ContractMinutesViolation.Type type, DayOfWeek weekStartDay) {
+        switch (type) {
+            case DAY:
+                return getStartDayKey();
+            case WEEK:
+                return getStartWeekKey(weekStartDay);
+            case MONTH:
+                return getStartMonthKey();
+            case YEAR:
+                return getStartYearKey();
+            default:
+                throw new IllegalStateException("Unhandled contract minutes violation type (" + type + ").");
+        }
+    }
+
+    /**
+     * @param dateTime never null
+     * @return see {@link #getStartDayKey()}
+     */
+    public static int getDayKey(OffsetDateTime dateTime) {
+        return (int) dateTime.toLocalDate().toEpochDay();
+    }
+
+    /**
+     * @param dayKey see {@link #getDayKey(OffsetDateTime)}
+     * @param weekStartDay never null
+     * @return see {@link #getStartWeekKey(DayOfWeek)}
+     */
+    public static int getWeekKey(int dayKey, DayOfWeek weekStartDay) {
+        // The epoch day 0 is a Thursday
+        int daysSinceWeekStart = Math.floorMod(dayKey + DayOfWeek.THURSDAY.ordinal() - weekStartDay.ordinal(), 7);
+        return dayKey - daysSinceWeekStart;
+    }
+
+    /**
+     * @param dateTime never null
+     * @return see {@link #getStartMonthKey()}
+     */
+    public static int getMonthKey(OffsetDateTime dateTime) {
+        return dateTime.getYear() * 12 + dateTime.getMonthValue() - 1;
+    }
+
     @JsonIgnore
     public boolean isMoved() {
         return originalEmployee != null && originalEmployee != employee;
     }
 
     public boolean hasRequiredSkills() {
+        return hasRequiredSkills(employee);
+    }
+
+    /**
+     * Compares the {@link SkillMask}s if the roster indexed the skills of the employee, the spot and this,
+     * otherwise the skill sets.
+     * @param employee never null, not necessarily the employee of this
+     * @return true if the employee has the skills required by the spot and by this
+     */
+    public boolean hasRequiredSkills(Employee employee) {
+        SkillMask skillProficiencyMask = employee.getSkillProficiencyMask();
+        SkillMask spotRequiredSkillMask = spot.getRequiredSkillMask();
+        if (skillProficiencyMask != null && skillProficiencyMask.isComparableTo(spotRequiredSkillMask)
+                && skillProficiencyMask.isComparableTo(requiredSkillMask)) {
+            return skillProficiencyMask.containsAll(spotRequiredSkillMask) &&
+                    skillProficiencyMask.containsAll(requiredSkillMask);
+        }
         return employee.getSkillProficiencySet().containsAll(spot.getRequiredSkillSet()) &&
                 employee.getSkillProficiencySet().containsAll(requiredSkillSet);
     }
@@ -160,7 +340,10 @@ public class Shift extends AbstractPersistable {
 
     public void setStartDateTime(OffsetDateTime startDateTime) {
         this.startDateTime = startDateTime;
-        this.lengthInMinutes.set(-1);
+        this.lengthInMinutes = -1;
+        this.startEpochMinute = UNKNOWN_EPOCH_MINUTE;
+        this.startDayKey = UNKNOWN_PERIOD_KEY;
+        this.startMonthKey = UNKNOWN_PERIOD_KEY;
     }
 
     public OffsetDateTime getEndDateTime() {
@@ -169,7 +352,8 @@ public class Shift extends AbstractPersistable {
 
     public void setEndDateTime(OffsetDateTime endDateTime) {
         this.endDateTime = endDateTime;
-        this.lengthInMinutes.set(-1);
+        this.lengthInMinutes = -1;
+        this.endEpochMinute = UNKNOWN_EPOCH_MINUTE;
     }
 
     public boolean isPinnedByUser() {
@@ -210,12 +394,32 @@ public class Shift extends AbstractPersistable {
 
     public void setRequiredSkillSet(Set<Skill> requiredSkillSet) {
         this.requiredSkillSet = requiredSkillSet;
+        this.requiredSkillMask = null;
+    }
+
+    @JsonIgnore
+    public DayOfWeek getWeekStartDay() {
+        return weekStartDay;
+    }
+
+    public void setWeekStartDay(DayOfWeek weekStartDay) {
+        this.weekStartDay = weekStartDay;
+    }
+
+    @JsonIgnore
+    public SkillMask getRequiredSkillMask() {
+        return requiredSkillMask;
+    }
+
+    public void setRequiredSkillMask(SkillMask requiredSkillMask) {
+        this.requiredSkillMask = requiredSkillMask;
     }
 
     public Shift inTimeZone(ZoneId zoneId) {
         Shift out = new Shift(zoneId, new ShiftView(zoneId, this), getSpot(), getRotationEmployee(),
                 getRequiredSkillSet(), getOriginalEmployee());
         out.setEmployee(getEmployee());
+        out.setWeekStartDay(getWeekStartDay());
         return out;
     }
 }
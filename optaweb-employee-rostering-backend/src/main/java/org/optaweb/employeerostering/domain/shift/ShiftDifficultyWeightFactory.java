@@ -0,0 +1,53 @@
+package org.optaweb.employeerostering.domain.shift;
+
+import java.util.Comparator;
+
+import org.optaplanner.core.impl.heuristic.selector.common.decorator.SelectionSorterWeightFactory;
+import org.optaweb.employeerostering.domain.employee.Employee;
+import org.optaweb.employeerostering.domain.employee.EmployeeAvailabilityIndex;
+import org.optaweb.employeerostering.domain.roster.Roster;
+
+/**
+ * A shift is more difficult if fewer employees are qualified for it, as {@link QualifiedEmployeeChangeMoveFilter}
+ * decides, and then if it starts earlier,
+ * so a construction heuristic assigns the shifts that are hard to fill before their candidates are taken.
+ */
+public class ShiftDifficultyWeightFactory implements SelectionSorterWeightFactory<Roster, Shift> {
+
+    @Override
+    public ShiftDifficultyWeight createSorterWeight(Roster roster, Shift shift) {
+        EmployeeAvailabilityIndex employeeAvailabilityIndex = roster.getEmployeeAvailabilityIndex();
+        int qualifiedEmployeeCount = 0;
+        for (Employee employee : roster.getEmployeeList()) {
+            if (shift.hasRequiredSkills(employee) && (employeeAvailabilityIndex == null
+                    || !employeeAvailabilityIndex.isUnavailable(employee, shift.getStartEpochMinute(),
+                            shift.getEndEpochMinute()))) {
+                qualifiedEmployeeCount++;
+            }
+        }
+        return new ShiftDifficultyWeight(shift, qualifiedEmployeeCount);
+    }
+
+    public static class ShiftDifficultyWeight implements Comparable<ShiftDifficultyWeight> {
+
+        private static final Comparator<ShiftDifficultyWeight> COMPARATOR =
+                Comparator.comparingInt((ShiftDifficultyWeight weight) -> weight.qualifiedEmployeeCount)
+                        .thenComparingLong(weight -> weight.shift.getStartEpochMinute())
+                        .reversed()
+                        .thenComparing(weight -> weight.shift.getId(),
+                                Comparator.nullsFirst(Comparator.<Long>naturalOrder()));
+
+        private final Shift shift;
+        private final int qualifiedEmployeeCount;
+
+        public ShiftDifficultyWeight(Shift shift, int qualifiedEmployeeCount) {
+            this.shift = shift;
+            this.qualifiedEmployeeCount = qualifiedEmployeeCount;
+        }
+
+        @Override
+        public int compareTo(ShiftDifficultyWeight other) {
+            return COMPARATOR.compare(this, other);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.optaweb.employeerostering.domain.skill;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maps the skills of a roster to dense indexes, so sets of those skills become {@link SkillMask}s.
+ * Skills that are not indexed yet get the next index when a mask first contains them.
+ * Not thread-safe: all masks are created while the roster is built, before it is solved.
+ */
+public class SkillIndex {
+
+    private final Map<Skill, Integer> skillToIndexMap = new HashMap<>();
+
+    /**
+     * @param skillSet never null
+     * @return never null
+     */
+    public SkillMask getMask(Set<Skill> skillSet) {
+        int[] indexes = new int[skillSet.size()];
+        int maxIndex = -1;
+        int i = 0;
+        for (Skill skill : skillSet) {
+            int index = skillToIndexMap.computeIfAbsent(skill, s -> skillToIndexMap.size());
+            indexes[i++] = index;
+            maxIndex = Math.max(maxIndex, index);
+        }
+        long[] words = new long[(maxIndex >> 6) + 1];
+        for (int index : indexes) {
+            words[index >> 6] |= 1L << index;
+        }
+        return new SkillMask(this, words);
+    }
+}
@@ -0,0 +1,39 @@
+package org.optaweb.employeerostering.domain.skill;
+
+/**
+ * An immutable set of skills as a bitset of their indexes in a {@link SkillIndex}.
+ * Only masks of the same index can be compared.
+ */
+public final class SkillMask {
+
+    private final SkillIndex skillIndex;
+    private final long[] words;
+
+    SkillMask(SkillIndex skillIndex, long[] words) {
+        this.skillIndex = skillIndex;
+        this.words = words;
+    }
+
+    /**
+     * @param other sometimes null
+     * @return true if the other mask is not null and has the same index as this
+     */
+    public boolean isComparableTo(SkillMask other) {
+        return other != null && other.skillIndex == skillIndex;
+    }
+
+    /**
+     * @param other never null, {@link #isComparableTo(SkillMask) comparable} to this
+     * @return true if this contains every skill of the other mask
+     */
+    public boolean containsAll(SkillMask other) {
+        long[] otherWords = other.words;
+        for (int i = 0; i < otherWords.length; i++) {
+            long word = (i < words.length) ? words[i] : 0L;
+            if ((otherWords[i] & ~word) != 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -8,6 +8,7 @@ import javax.persistence.JoinColumn;
 import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 import javax.persistence.UniqueConstraint;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Pattern;
@@ -15,6 +16,9 @@ import javax.validation.constraints.Size;
 
 import org.optaweb.employeerostering.domain.common.AbstractPersistable;
 import org.optaweb.employeerostering.domain.skill.Skill;
+import org.optaweb.employeerostering.domain.skill.SkillMask;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 @Entity
 @Table(uniqueConstraints = { @UniqueConstraint(columnNames = { "tenantId", "name" }),
@@ -33,6 +37,10 @@ public class Spot extends AbstractPersistable {
             inverseJoinColumns = @JoinColumn(name = "skillId", referencedColumnName = "id"))
     private Set<Skill> requiredSkillSet;
 
+    // Null until the roster indexes its skills, and again after the required skill set changes
+    @Transient
+    private SkillMask requiredSkillMask = null;
+
     @SuppressWarnings("unused")
     public Spot() {
     }
@@ -66,5 +74,15 @@ public class Spot extends AbstractPersistable {
 
     public void setRequiredSkillSet(Set<Skill> requiredSkillSet) {
         this.requiredSkillSet = requiredSkillSet;
+        this.requiredSkillMask = null;
+    }
+
+    @JsonIgnore
+    public SkillMask getRequiredSkillMask() {
+        return requiredSkillMask;
+    }
+
+    public void setRequiredSkillMask(SkillMask requiredSkillMask) {
+        this.requiredSkillMask = requiredSkillMask;
     }
 }
@@ -3,6 +3,7 @@ package org.optaweb.employeerostering.domain.tenant;
 import java.time.DayOfWeek;
 
 import javax.persistence.Entity;
+import javax.persistence.PostLoad;
 import javax.validation.constraints.NotNull;
 
 import org.optaplanner.core.api.domain.constraintweight.ConstraintConfiguration;
@@ -34,6 +35,9 @@ public class RosterConstraintConfiguration extends AbstractPersistable {
     public static final String CONSTRAINT_UNDESIRED_TIME_SLOT_FOR_AN_EMPLOYEE = "Undesired time slot for an employee";
     public static final String CONSTRAINT_DESIRED_TIME_SLOT_FOR_AN_EMPLOYEE = "Desired time slot for an employee";
     public static final String CONSTRAINT_EMPLOYEE_IS_NOT_ROTATION_EMPLOYEE = "Employee is not rotation employee";
+    public static final String CONSTRAINT_BALANCE_EMPLOYEE_WORKLOAD = "Balance employee workload";
+
+    private static final HardMediumSoftLongScore DEFAULT_EMPLOYEE_WORKLOAD_BALANCE = HardMediumSoftLongScore.ofSoft(1);
 
     @NotNull
     private DayOfWeek weekStartDay = DayOfWeek.MONDAY;
@@ -68,12 +72,23 @@ public class RosterConstraintConfiguration extends AbstractPersistable {
     private HardMediumSoftLongScore desiredTimeSlot = HardMediumSoftLongScore.ofSoft(10);
     @ConstraintWeight(CONSTRAINT_EMPLOYEE_IS_NOT_ROTATION_EMPLOYEE)
     private HardMediumSoftLongScore notRotationEmployee = HardMediumSoftLongScore.ofSoft(50);
+    @ConstraintWeight(CONSTRAINT_BALANCE_EMPLOYEE_WORKLOAD)
+    private HardMediumSoftLongScore employeeWorkloadBalance = DEFAULT_EMPLOYEE_WORKLOAD_BALANCE;
 
     @SuppressWarnings("unused")
     public RosterConstraintConfiguration() {
         super(-1);
     }
 
+    // A schema update adds the columns of new weights without filling them in for the existing rows,
+    // so such a row gets the default weight when it is read, which the transaction that read it writes back
+    @PostLoad
+    protected void fillInNewConstraintWeights() {
+        if (employeeWorkloadBalance == null) {
+            employeeWorkloadBalance = DEFAULT_EMPLOYEE_WORKLOAD_BALANCE;
+        }
+    }
+
     public RosterConstraintConfiguration(Integer tenantId, DayOfWeek weekStartDay) {
         super(tenantId);
         this.weekStartDay = weekStartDay;
@@ -203,4 +218,12 @@ public class RosterConstraintConfiguration extends AbstractPersistable {
     public void setNotRotationEmployee(HardMediumSoftLongScore notRotationEmployee) {
         this.notRotationEmployee = notRotationEmployee;
     }
+
+    public HardMediumSoftLongScore getEmployeeWorkloadBalance() {
+        return employeeWorkloadBalance;
+    }
+
+    public void setEmployeeWorkloadBalance(HardMediumSoftLongScore employeeWorkloadBalance) {
+        this.employeeWorkloadBalance = employeeWorkloadBalance;
+    }
 }
@@ -0,0 +1,19 @@
+package org.optaweb.employeerostering.domain.tenant;
+
+/**
+ * A phase of a {@link SolverProfile}, configured as the phase of the same kind in solverConfig.xml,
+ * or for {@link #PARTITIONED_SEARCH} in partitionedSolverConfig.xml.
+ */
+public enum SolverPhase {
+    /**
+     * Assigns the unassigned shifts to their rotation employee where that breaks no hard constraint.
+     */
+    ROTATION_EMPLOYEE_SEEDING,
+    CONSTRUCTION_HEURISTIC,
+    /**
+     * Solves each time window and spot group in parallel, for very large rosters.
+     * A {@link #LOCAL_SEARCH} should follow, to fix the constraints between them.
+     */
+    PARTITIONED_SEARCH,
+    LOCAL_SEARCH
+}
@@ -0,0 +1,121 @@
+package org.optaweb.employeerostering.domain.tenant;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.CollectionTable;
+import javax.persistence.ElementCollection;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
+import javax.persistence.ForeignKey;
+import javax.persistence.JoinColumn;
+import javax.persistence.OrderColumn;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
+
+import org.optaweb.employeerostering.domain.common.AbstractPersistable;
+
+/**
+ * How the solver solves a tenant's roster. Every null or empty property falls back to the application's solver config,
+ * so a tenant only overrides what it needs, such as a short unimproved time limit for a small roster.
+ */
+@Entity
+public class SolverProfile extends AbstractPersistable {
+
+    // NONE (the solver thread does everything), AUTO or a positive number
+    public static final String MOVE_THREAD_COUNT_REGEX = "NONE|AUTO|[1-9][0-9]*";
+    // A HardMediumSoftLongScore, such as 0hard/0medium/-1000soft
+    public static final String BEST_SCORE_LIMIT_REGEX = "-?[0-9]+hard/-?[0-9]+medium/-?[0-9]+soft";
+
+    @Min(1)
+    private Long secondsSpentLimit = null;
+    @Min(1)
+    private Long unimprovedSecondsSpentLimit = null;
+    @Pattern(regexp = BEST_SCORE_LIMIT_REGEX)
+    private String bestScoreLimit = null;
+
+    @Pattern(regexp = MOVE_THREAD_COUNT_REGEX)
+    private String moveThreadCount = null;
+
+    // Higher starts first among the waiting solves and keeps solving longer while others wait
+    @Min(1)
+    private int priority = 1;
+
+    @NotNull
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "solver_profile_phase_list",
+            joinColumns = {
+                    @JoinColumn(name = "solver_profile_id",
+                            referencedColumnName = "id",
+                            foreignKey = @ForeignKey(name = "SOLVER_PROFILE_FK",
+                                    foreignKeyDefinition = "FOREIGN KEY (solver_profile_id) references " +
+                                            "public.solver_profile (id) ON UPDATE NO ACTION ON DELETE CASCADE"))
+            })
+    @OrderColumn
+    @Enumerated(EnumType.STRING)
+    private List<SolverPhase> phaseList = new ArrayList<>();
+
+    @SuppressWarnings("unused")
+    public SolverProfile() {
+        super(-1);
+    }
+
+    public SolverProfile(Integer tenantId) {
+        super(tenantId);
+    }
+
+    // ************************************************************************
+    // Simple getters and setters
+    // ************************************************************************
+
+    public Long getSecondsSpentLimit() {
+        return secondsSpentLimit;
+    }
+
+    public void setSecondsSpentLimit(Long secondsSpentLimit) {
+        this.secondsSpentLimit = secondsSpentLimit;
+    }
+
+    public Long getUnimprovedSecondsSpentLimit() {
+        return unimprovedSecondsSpentLimit;
+    }
+
+    public void setUnimprovedSecondsSpentLimit(Long unimprovedSecondsSpentLimit) {
+        this.unimprovedSecondsSpentLimit = unimprovedSecondsSpentLimit;
+    }
+
+    public String getBestScoreLimit() {
+        return bestScoreLimit;
+    }
+
+    public void setBestScoreLimit(String bestScoreLimit) {
+        this.bestScoreLimit = bestScoreLimit;
+    }
+
+    public String getMoveThreadCount() {
+        return moveThreadCount;
+    }
+
+    public void setMoveThreadCount(String moveThreadCount) {
+        this.moveThreadCount = moveThreadCount;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
+
+    public List<SolverPhase> getPhaseList() {
+        return phaseList;
+    }
+
+    public void setPhaseList(List<SolverPhase> phaseList) {
+        this.phaseList = phaseList;
+    }
+}
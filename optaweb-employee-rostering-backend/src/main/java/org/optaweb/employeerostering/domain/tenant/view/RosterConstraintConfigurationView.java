@@ -26,6 +26,7 @@ public class RosterConstraintConfigurationView extends AbstractPersistable {
     private HardMediumSoftLongScore undesiredTimeSlot = HardMediumSoftLongScore.ofSoft(1);
     private HardMediumSoftLongScore desiredTimeSlot = HardMediumSoftLongScore.ofSoft(1);
     private HardMediumSoftLongScore notRotationEmployee = HardMediumSoftLongScore.ofSoft(1);
+    private HardMediumSoftLongScore employeeWorkloadBalance = HardMediumSoftLongScore.ofSoft(1);
 
     @SuppressWarnings("unused")
     public RosterConstraintConfigurationView() {
@@ -162,4 +163,12 @@ public class RosterConstraintConfigurationView extends AbstractPersistable {
     public void setNotRotationEmployee(HardMediumSoftLongScore notRotationEmployee) {
         this.notRotationEmployee = notRotationEmployee;
     }
+
+    public HardMediumSoftLongScore getEmployeeWorkloadBalance() {
+        return employeeWorkloadBalance;
+    }
+
+    public void setEmployeeWorkloadBalance(HardMediumSoftLongScore employeeWorkloadBalance) {
+        this.employeeWorkloadBalance = employeeWorkloadBalance;
+    }
 }
@@ -0,0 +1,93 @@
+package org.optaweb.employeerostering.domain.tenant.view;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
+
+import org.optaweb.employeerostering.domain.common.AbstractPersistable;
+import org.optaweb.employeerostering.domain.tenant.SolverPhase;
+import org.optaweb.employeerostering.domain.tenant.SolverProfile;
+
+public class SolverProfileView extends AbstractPersistable {
+
+    @Min(1)
+    private Long secondsSpentLimit = null;
+    @Min(1)
+    private Long unimprovedSecondsSpentLimit = null;
+    @Pattern(regexp = SolverProfile.BEST_SCORE_LIMIT_REGEX)
+    private String bestScoreLimit = null;
+
+    @Pattern(regexp = SolverProfile.MOVE_THREAD_COUNT_REGEX)
+    private String moveThreadCount = null;
+
+    // Higher starts first among the waiting solves and keeps solving longer while others wait
+    @Min(1)
+    private int priority = 1;
+
+    @NotNull
+    private List<SolverPhase> phaseList = new ArrayList<>();
+
+    @SuppressWarnings("unused")
+    public SolverProfileView() {
+        super(-1);
+    }
+
+    public SolverProfileView(Integer tenantId) {
+        super(tenantId);
+    }
+
+    // ************************************************************************
+    // Simple getters and setters
+    // ************************************************************************
+
+    public Long getSecondsSpentLimit() {
+        return secondsSpentLimit;
+    }
+
+    public void setSecondsSpentLimit(Long secondsSpentLimit) {
+        this.secondsSpentLimit = secondsSpentLimit;
+    }
+
+    public Long getUnimprovedSecondsSpentLimit() {
+        return unimprovedSecondsSpentLimit;
+    }
+
+    public void setUnimprovedSecondsSpentLimit(Long unimprovedSecondsSpentLimit) {
+        this.unimprovedSecondsSpentLimit = unimprovedSecondsSpentLimit;
+    }
+
+    public String getBestScoreLimit() {
+        return bestScoreLimit;
+    }
+
+    public void setBestScoreLimit(String bestScoreLimit) {
+        this.bestScoreLimit = bestScoreLimit;
+    }
+
+    public String getMoveThreadCount() {
+        return moveThreadCount;
+    }
+
+    public void setMoveThreadCount(String moveThreadCount) {
+        this.moveThreadCount = moveThreadCount;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
+
+    public List<SolverPhase> getPhaseList() {
+        return phaseList;
+    }
+
+    public void setPhaseList(List<SolverPhase> phaseList) {
+        this.phaseList = phaseList;
+    }
+}
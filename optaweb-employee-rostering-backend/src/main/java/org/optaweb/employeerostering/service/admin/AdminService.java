@@ -7,6 +7,7 @@ import javax.transaction.Transactional;
 import org.optaweb.employeerostering.service.contract.ContractRepository;
 import org.optaweb.employeerostering.service.employee.EmployeeAvailabilityRepository;
 import org.optaweb.employeerostering.service.employee.EmployeeRepository;
+import org.optaweb.employeerostering.service.roster.RosterCache;
 import org.optaweb.employeerostering.service.roster.RosterGenerator;
 import org.optaweb.employeerostering.service.roster.RosterStateRepository;
 import org.optaweb.employeerostering.service.rotation.TimeBucketRepository;
@@ -14,6 +15,7 @@ import org.optaweb.employeerostering.service.shift.ShiftRepository;
 import org.optaweb.employeerostering.service.skill.SkillRepository;
 import org.optaweb.employeerostering.service.spot.SpotRepository;
 import org.optaweb.employeerostering.service.tenant.RosterConstraintConfigurationRepository;
+import org.optaweb.employeerostering.service.tenant.SolverProfileRepository;
 import org.optaweb.employeerostering.service.tenant.TenantRepository;
 
 @ApplicationScoped
@@ -27,10 +29,12 @@ public class AdminService {
     private SpotRepository spotRepository;
     private SkillRepository skillRepository;
     private RosterConstraintConfigurationRepository rosterConstraintConfigurationRepository;
+    private SolverProfileRepository solverProfileRepository;
     private RosterStateRepository rosterStateRepository;
     private TenantRepository tenantRepository;
 
     private RosterGenerator rosterGenerator;
+    private RosterCache rosterCache;
 
     @Inject
     public AdminService(ShiftRepository shiftRepository,
@@ -41,9 +45,11 @@ public class AdminService {
             SpotRepository spotRepository,
             SkillRepository skillRepository,
             RosterConstraintConfigurationRepository rosterConstraintConfigurationRepository,
+            SolverProfileRepository solverProfileRepository,
             RosterStateRepository rosterStateRepository,
             TenantRepository tenantRepository,
-            RosterGenerator rosterGenerator) {
+            RosterGenerator rosterGenerator,
+            RosterCache rosterCache) {
         this.shiftRepository = shiftRepository;
         this.employeeAvailabilityRepository = employeeAvailabilityRepository;
         this.timeBucketRepository = timeBucketRepository;
@@ -52,14 +58,17 @@ public class AdminService {
         this.spotRepository = spotRepository;
         this.skillRepository = skillRepository;
         this.rosterConstraintConfigurationRepository = rosterConstraintConfigurationRepository;
+        this.solverProfileRepository = solverProfileRepository;
         this.rosterStateRepository = rosterStateRepository;
         this.tenantRepository = tenantRepository;
         this.rosterGenerator = rosterGenerator;
+        this.rosterCache = rosterCache;
     }
 
     @Transactional
     public void resetApplication() {
         deleteAllEntities();
+        rosterCache.invalidateAll();
         rosterGenerator.setUpGeneratedData();
     }
 
@@ -73,6 +82,7 @@ public class AdminService {
         spotRepository.deleteAll();
         skillRepository.deleteAll();
         rosterConstraintConfigurationRepository.deleteAll();
+        solverProfileRepository.deleteAll();
         rosterStateRepository.deleteAll();
         tenantRepository.deleteAll();
     }
@@ -0,0 +1,295 @@
+package org.optaweb.employeerostering.service.common;
+
+import static org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration.CONSTRAINT_ASSIGN_EVERY_SHIFT;
+import static org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration.CONSTRAINT_BREAK_BETWEEN_NON_CONSECUTIVE_SHIFTS;
+import static org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration.CONSTRAINT_DAILY_MINUTES_MUST_NOT_EXCEED_CONTRACT_MAXIMUM;
+import static org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration.CONSTRAINT_DESIRED_TIME_SLOT_FOR_AN_EMPLOYEE;
+import static org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration.CONSTRAINT_EMPLOYEE_IS_NOT_ORIGINAL_EMPLOYEE;
+import static org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration.CONSTRAINT_EMPLOYEE_IS_NOT_ROTATION_EMPLOYEE;
+import static org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration.CONSTRAINT_MONTHLY_MINUTES_MUST_NOT_EXCEED_CONTRACT_MAXIMUM;
+import static org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration.CONSTRAINT_NO_MORE_THAN_2_CONSECUTIVE_SHIFTS;
+import static org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration.CONSTRAINT_NO_OVERLAPPING_SHIFTS;
+import static org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration.CONSTRAINT_REQUIRED_SKILL_FOR_A_SHIFT;
+import static org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration.CONSTRAINT_UNAVAILABLE_TIME_SLOT_FOR_AN_EMPLOYEE;
+import static org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration.CONSTRAINT_UNDESIRED_TIME_SLOT_FOR_AN_EMPLOYEE;
+import static org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration.CONSTRAINT_WEEKLY_MINUTES_MUST_NOT_EXCEED_CONTRACT_MAXIMUM;
+import static org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration.CONSTRAINT_YEARLY_MINUTES_MUST_NOT_EXCEED_CONTRACT_MAXIMUM;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.optaplanner.core.api.score.ScoreExplanation;
+import org.optaplanner.core.api.score.buildin.hardmediumsoftlong.HardMediumSoftLongScore;
+import org.optaplanner.core.api.score.constraint.ConstraintMatch;
+import org.optaplanner.core.api.score.constraint.ConstraintMatchTotal;
+import org.optaweb.employeerostering.domain.employee.Employee;
+import org.optaweb.employeerostering.domain.employee.EmployeeAvailability;
+import org.optaweb.employeerostering.domain.roster.HistoricWorkingTime;
+import org.optaweb.employeerostering.domain.roster.Roster;
+import org.optaweb.employeerostering.domain.shift.Shift;
+import org.optaweb.employeerostering.domain.violation.ContractMinutesViolation;
+import org.optaweb.employeerostering.domain.violation.DesiredTimeslotForEmployeeReward;
+import org.optaweb.employeerostering.domain.violation.NoBreakViolation;
+import org.optaweb.employeerostering.domain.violation.PublishedShiftReassignedPenalty;
+import org.optaweb.employeerostering.domain.violation.RequiredSkillViolation;
+import org.optaweb.employeerostering.domain.violation.RotationViolationPenalty;
+import org.optaweb.employeerostering.domain.violation.ShiftEmployeeConflict;
+import org.optaweb.employeerostering.domain.violation.UnassignedShiftPenalty;
+import org.optaweb.employeerostering.domain.violation.UnavailableEmployeeViolation;
+import org.optaweb.employeerostering.domain.violation.UndesiredTimeslotForEmployeePenalty;
+
+/**
+ * The constraint matches of a {@link ScoreExplanation}, grouped in a single pass by the shift (or, for the contract
+ * minutes constraints, the employee and period) they justify.
+ * The constraint of a {@link ConstraintMatchTotal} is resolved once, not once per match and shift.
+ * Immutable once built, so it can be shared by every view built from the same explanation.
+ */
+public final class IndictmentIndex {
+
+    private final ScoreExplanation<Roster, HardMediumSoftLongScore> scoreExplanation;
+    private final Map<Shift, ShiftIndictment> shiftToIndictmentMap = new HashMap<>();
+    private final Map<Long, Map<ContractMinutesViolation.Type, Map<Integer, List<ContractMinutesViolation>>>>
+            employeeIdToContractMinutesViolationMap = new HashMap<>();
+
+    public IndictmentIndex(ScoreExplanation<Roster, HardMediumSoftLongScore> scoreExplanation) {
+        this.scoreExplanation = scoreExplanation;
+        for (ConstraintMatchTotal<HardMediumSoftLongScore> constraintMatchTotal : scoreExplanation
+                .getConstraintMatchTotalMap().values()) {
+            boolean isRosterConstraint =
+                    constraintMatchTotal.getConstraintPackage().equals(IndictmentUtils.CONSTRAINT_MATCH_PACKAGE);
+            for (ConstraintMatch<HardMediumSoftLongScore> constraintMatch : constraintMatchTotal
+                    .getConstraintMatchSet()) {
+                addToShiftScores(constraintMatch);
+                if (isRosterConstraint) {
+                    addViolation(constraintMatchTotal.getConstraintName(), constraintMatch);
+                }
+            }
+        }
+    }
+
+    private void addToShiftScores(ConstraintMatch<HardMediumSoftLongScore> constraintMatch) {
+        List<Object> justificationList = constraintMatch.getJustificationList();
+        for (int i = 0; i < justificationList.size(); i++) {
+            Object justification = justificationList.get(i);
+            // A shift is indicted once per constraint match, even if it justifies it more than once
+            if (justification instanceof Shift && justificationList.indexOf(justification) == i) {
+                ShiftIndictment shiftIndictment = getOrCreateShiftIndictment((Shift) justification);
+                shiftIndictment.score = shiftIndictment.score.add(constraintMatch.getScore());
+            }
+        }
+    }
+
+    /**
+     * @param justificationList never null
+     * @param justificationClass never null
+     * @return the first justification of that class, in whatever order the constraint justifies its match
+     */
+    private static <Justification_> Justification_ getJustification(List<Object> justificationList,
+            Class<Justification_> justificationClass) {
+        for (Object justification : justificationList) {
+            if (justificationClass.isInstance(justification)) {
+                return justificationClass.cast(justification);
+            }
+        }
+        throw new IllegalStateException("The justification list (" + justificationList + ") has no "
+                + justificationClass.getSimpleName() + ".");
+    }
+
+    private void addViolation(String constraintName, ConstraintMatch<HardMediumSoftLongScore> constraintMatch) {
+        List<Object> justificationList = constraintMatch.getJustificationList();
+        HardMediumSoftLongScore score = constraintMatch.getScore();
+        switch (constraintName) {
+            case CONSTRAINT_REQUIRED_SKILL_FOR_A_SHIFT: {
+                Shift shift = (Shift) justificationList.get(0);
+                getOrCreateShiftIndictment(shift).requiredSkillViolationList
+                        .add(new RequiredSkillViolation(shift, score));
+                break;
+            }
+            case CONSTRAINT_UNAVAILABLE_TIME_SLOT_FOR_AN_EMPLOYEE: {
+                Shift shift = getJustification(justificationList, Shift.class);
+                getOrCreateShiftIndictment(shift).unavailableEmployeeViolationList
+                        .add(new UnavailableEmployeeViolation(shift,
+                                getJustification(justificationList, EmployeeAvailability.class), score));
+                break;
+            }
+            case CONSTRAINT_DESIRED_TIME_SLOT_FOR_AN_EMPLOYEE: {
+                Shift shift = getJustification(justificationList, Shift.class);
+                getOrCreateShiftIndictment(shift).desiredTimeslotForEmployeeRewardList
+                        .add(new DesiredTimeslotForEmployeeReward(shift,
+                                getJustification(justificationList, EmployeeAvailability.class), score));
+                break;
+            }
+            case CONSTRAINT_UNDESIRED_TIME_SLOT_FOR_AN_EMPLOYEE: {
+                Shift shift = getJustification(justificationList, Shift.class);
+                getOrCreateShiftIndictment(shift).undesiredTimeslotForEmployeePenaltyList
+                        .add(new UndesiredTimeslotForEmployeePenalty(shift,
+                                getJustification(justificationList, EmployeeAvailability.class), score));
+                break;
+            }
+            case CONSTRAINT_BREAK_BETWEEN_NON_CONSECUTIVE_SHIFTS:
+            case CONSTRAINT_NO_OVERLAPPING_SHIFTS: {
+                Shift leftShift = (Shift) justificationList.get(0);
+                Shift rightShift = (Shift) justificationList.get(1);
+                ShiftEmployeeConflict shiftEmployeeConflict = new ShiftEmployeeConflict(leftShift, rightShift, score);
+                getOrCreateShiftIndictment(leftShift).shiftEmployeeConflictList.add(shiftEmployeeConflict);
+                getOrCreateShiftIndictment(rightShift).shiftEmployeeConflictList.add(shiftEmployeeConflict);
+                break;
+            }
+            case CONSTRAINT_NO_MORE_THAN_2_CONSECUTIVE_SHIFTS: {
+                Shift firstShift = (Shift) justificationList.get(0);
+                Shift secondShift = (Shift) justificationList.get(1);
+                Shift thirdShift = (Shift) justificationList.get(2);
+                NoBreakViolation noBreakViolation = new NoBreakViolation(firstShift, secondShift, thirdShift, score);
+                getOrCreateShiftIndictment(firstShift).noBreakViolationList.add(noBreakViolation);
+                getOrCreateShiftIndictment(secondShift).noBreakViolationList.add(noBreakViolation);
+                getOrCreateShiftIndictment(thirdShift).noBreakViolationList.add(noBreakViolation);
+                break;
+            }
+            case CONSTRAINT_EMPLOYEE_IS_NOT_ROTATION_EMPLOYEE: {
+                Shift shift = (Shift) justificationList.get(0);
+                getOrCreateShiftIndictment(shift).rotationViolationPenaltyList
+                        .add(new RotationViolationPenalty(shift, score));
+                break;
+            }
+            case CONSTRAINT_ASSIGN_EVERY_SHIFT: {
+                Shift shift = (Shift) justificationList.get(0);
+                getOrCreateShiftIndictment(shift).unassignedShiftPenaltyList
+                        .add(new UnassignedShiftPenalty(shift, score));
+                break;
+            }
+            case CONSTRAINT_EMPLOYEE_IS_NOT_ORIGINAL_EMPLOYEE: {
+                Shift shift = (Shift) justificationList.get(0);
+                getOrCreateShiftIndictment(shift).publishedShiftReassignedPenaltyList
+                        .add(new PublishedShiftReassignedPenalty(shift, score));
+                break;
+            }
+            case CONSTRAINT_DAILY_MINUTES_MUST_NOT_EXCEED_CONTRACT_MAXIMUM:
+            case CONSTRAINT_WEEKLY_MINUTES_MUST_NOT_EXCEED_CONTRACT_MAXIMUM:
+            case CONSTRAINT_MONTHLY_MINUTES_MUST_NOT_EXCEED_CONTRACT_MAXIMUM:
+            case CONSTRAINT_YEARLY_MINUTES_MUST_NOT_EXCEED_CONTRACT_MAXIMUM: {
+                Employee employee = (Employee) justificationList.get(0);
+                ContractMinutesViolation.Type type = ContractMinutesViolation.Type.getTypeForViolation(constraintName);
+                int period = ((Number) justificationList.get(1)).intValue();
+                long minutesWorked = ((Number) justificationList.get(2)).longValue();
+                if (justificationList.size() > 3 && justificationList.get(3) instanceof HistoricWorkingTime) {
+                    minutesWorked +=
+                            ((HistoricWorkingTime) justificationList.get(3)).getMinutes(employee, type, period);
+                }
+                employeeIdToContractMinutesViolationMap
+                        .computeIfAbsent(employee.getId(), k -> new EnumMap<>(ContractMinutesViolation.Type.class))
+                        .computeIfAbsent(type, k -> new HashMap<>())
+                        .computeIfAbsent(period, k -> new ArrayList<>())
+                        .add(new ContractMinutesViolation(employee, type, minutesWorked, score));
+                break;
+            }
+            default:
+                // Not shown on the shift
+                break;
+        }
+    }
+
+    private ShiftIndictment getOrCreateShiftIndictment(Shift shift) {
+        return shiftToIndictmentMap.computeIfAbsent(shift, k -> new ShiftIndictment());
+    }
+
+    public ScoreExplanation<Roster, HardMediumSoftLongScore> getScoreExplanation() {
+        return scoreExplanation;
+    }
+
+    /**
+     * @param shift never null
+     * @return never null, {@link ShiftIndictment#EMPTY} if the shift does not justify any constraint match
+     */
+    public ShiftIndictment getShiftIndictment(Shift shift) {
+        return shiftToIndictmentMap.getOrDefault(shift, ShiftIndictment.EMPTY);
+    }
+
+    /**
+     * @param shift never null
+     * @param weekStartDay never null
+     * @return never null, the contract minutes violations of the shift's employee in the periods containing the shift
+     */
+    public List<ContractMinutesViolation> getContractMinutesViolationList(Shift shift, DayOfWeek weekStartDay) {
+        if (shift.getEmployee() == null) {
+            return Collections.emptyList();
+        }
+        Map<ContractMinutesViolation.Type, Map<Integer, List<ContractMinutesViolation>>> typeToViolationMap =
+                employeeIdToContractMinutesViolationMap.get(shift.getEmployee().getId());
+        if (typeToViolationMap == null) {
+            return Collections.emptyList();
+        }
+        List<ContractMinutesViolation> out = new ArrayList<>();
+        typeToViolationMap.forEach((type, periodToViolationListMap) -> out.addAll(periodToViolationListMap
+                .getOrDefault(shift.getStartPeriodKey(type, weekStartDay), Collections.emptyList())));
+        return out;
+    }
+
+    public static final class ShiftIndictment {
+
+        public static final ShiftIndictment EMPTY = new ShiftIndictment();
+
+        private final List<RequiredSkillViolation> requiredSkillViolationList = new ArrayList<>(0);
+        private final List<UnavailableEmployeeViolation> unavailableEmployeeViolationList = new ArrayList<>(0);
+        private final List<ShiftEmployeeConflict> shiftEmployeeConflictList = new ArrayList<>(0);
+        private final List<DesiredTimeslotForEmployeeReward> desiredTimeslotForEmployeeRewardList =
+                new ArrayList<>(0);
+        private final List<UndesiredTimeslotForEmployeePenalty> undesiredTimeslotForEmployeePenaltyList =
+                new ArrayList<>(0);
+        private final List<RotationViolationPenalty> rotationViolationPenaltyList = new ArrayList<>(0);
+        private final List<UnassignedShiftPenalty> unassignedShiftPenaltyList = new ArrayList<>(0);
+        private final List<NoBreakViolation> noBreakViolationList = new ArrayList<>(0);
+        private final List<PublishedShiftReassignedPenalty> publishedShiftReassignedPenaltyList = new ArrayList<>(0);
+        private HardMediumSoftLongScore score = HardMediumSoftLongScore.ZERO;
+
+        private ShiftIndictment() {
+        }
+
+        public List<RequiredSkillViolation> getRequiredSkillViolationList() {
+            return Collections.unmodifiableList(requiredSkillViolationList);
+        }
+
+        public List<UnavailableEmployeeViolation> getUnavailableEmployeeViolationList() {
+            return Collections.unmodifiableList(unavailableEmployeeViolationList);
+        }
+
+        public List<ShiftEmployeeConflict> getShiftEmployeeConflictList() {
+            return Collections.unmodifiableList(shiftEmployeeConflictList);
+        }
+
+        public List<DesiredTimeslotForEmployeeReward> getDesiredTimeslotForEmployeeRewardList() {
+            return Collections.unmodifiableList(desiredTimeslotForEmployeeRewardList);
+        }
+
+        public List<UndesiredTimeslotForEmployeePenalty> getUndesiredTimeslotForEmployeePenaltyList() {
+            return Collections.unmodifiableList(undesiredTimeslotForEmployeePenaltyList);
+        }
+
+        public List<RotationViolationPenalty> getRotationViolationPenaltyList() {
+            return Collections.unmodifiableList(rotationViolationPenaltyList);
+        }
+
+        public List<UnassignedShiftPenalty> getUnassignedShiftPenaltyList() {
+            return Collections.unmodifiableList(unassignedShiftPenaltyList);
+        }
+
+        public List<NoBreakViolation> getNoBreakViolationList() {
+            return Collections.unmodifiableList(noBreakViolationList);
+        }
+
+        public List<PublishedShiftReassignedPenalty> getPublishedShiftReassignedPenaltyList() {
+            return Collections.unmodifiableList(publishedShiftReassignedPenaltyList);
+        }
+
+        /**
+         * @return never null, the total impact on the score of the constraint matches justified by the shift
+         */
+        public HardMediumSoftLongScore getScore() {
+            return score;
+        }
+    }
+}
@@ -12,17 +12,22 @@ import javax.validation.Validator;
 import org.optaweb.employeerostering.domain.contract.Contract;
 import org.optaweb.employeerostering.domain.contract.view.ContractView;
 import org.optaweb.employeerostering.service.common.AbstractRestService;
+import org.optaweb.employeerostering.service.roster.RosterCache;
 
 @ApplicationScoped
 public class ContractService extends AbstractRestService {
 
     final private ContractRepository contractRepository;
 
+    final private RosterCache rosterCache;
+
     @Inject
     public ContractService(Validator validator,
-            ContractRepository contractRepository) {
+            ContractRepository contractRepository,
+            RosterCache rosterCache) {
         super(validator);
         this.contractRepository = contractRepository;
+        this.rosterCache = rosterCache;
     }
 
     public Contract convertFromView(Integer tenantId, ContractView contractView) {
@@ -61,6 +66,7 @@ public class ContractService extends AbstractRestService {
 
         validateBean(tenantId, contractOptional.get());
         contractRepository.deleteById(id);
+        rosterCache.invalidate(tenantId);
         return true;
     }
 
@@ -68,6 +74,7 @@ public class ContractService extends AbstractRestService {
     public Contract createContract(Integer tenantId, ContractView contractView) {
         Contract contract = convertFromView(tenantId, contractView);
         contractRepository.persist(contract);
+        rosterCache.invalidate(tenantId);
         return contract;
     }
 
@@ -91,6 +98,7 @@ public class ContractService extends AbstractRestService {
         oldContract.setMaximumMinutesPerMonth(newContract.getMaximumMinutesPerMonth());
         oldContract.setMaximumMinutesPerYear(newContract.getMaximumMinutesPerYear());
         contractRepository.persist(oldContract);
+        rosterCache.invalidate(tenantId);
         return oldContract;
     }
 
@@ -20,6 +20,17 @@ public class EmployeeAvailabilityRepository implements PanacheRepository<Employe
         return find("tenantId", Sort.ascending("employee.name", "startDateTime"), tenantId).list();
     }
 
+    public List<EmployeeAvailability> findAllByTenantIdEndingAfter(Integer tenantId, OffsetDateTime fromDateTime) {
+        return find("tenantId = ?1 and endDateTime > ?2", Sort.ascending("employee.name", "startDateTime"),
+                tenantId, fromDateTime).list();
+    }
+
+    public List<EmployeeAvailability> findAllByTenantIdOverlapping(Integer tenantId, OffsetDateTime fromDateTime,
+            OffsetDateTime toDateTime) {
+        return find("tenantId = ?1 and endDateTime > ?2 and startDateTime < ?3",
+                Sort.ascending("employee.name", "startDateTime"), tenantId, fromDateTime, toDateTime).list();
+    }
+
     public void deleteForTenant(Integer tenantId) {
         delete("tenantId", tenantId);
     }
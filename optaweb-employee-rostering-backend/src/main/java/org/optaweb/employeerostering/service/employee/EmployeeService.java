@@ -22,7 +22,11 @@ import org.optaweb.employeerostering.domain.employee.view.EmployeeView;
 import org.optaweb.employeerostering.domain.roster.RosterState;
 import org.optaweb.employeerostering.domain.skill.Skill;
 import org.optaweb.employeerostering.service.common.AbstractRestService;
+import org.optaweb.employeerostering.service.roster.RosterCache;
+import org.optaweb.employeerostering.service.roster.RosterService;
 import org.optaweb.employeerostering.service.roster.RosterStateRepository;
+import org.optaweb.employeerostering.service.roster.change.PutEmployeeAvailabilityProblemChange;
+import org.optaweb.employeerostering.service.roster.change.RemoveEmployeeAvailabilityProblemChange;
 import org.optaweb.employeerostering.util.EmployeeListXlsxFileIO;
 
 @ApplicationScoped
@@ -36,17 +40,25 @@ public class EmployeeService extends AbstractRestService {
 
     EmployeeListXlsxFileIO employeeListXlsxFileIO;
 
+    RosterCache rosterCache;
+
+    RosterService rosterService;
+
     @Inject
     public EmployeeService(Validator validator,
             EmployeeRepository employeeRepository,
             EmployeeAvailabilityRepository employeeAvailabilityRepository,
             RosterStateRepository rosterStateRepository,
-            EmployeeListXlsxFileIO employeeListXlsxFileIO) {
+            EmployeeListXlsxFileIO employeeListXlsxFileIO,
+            RosterCache rosterCache,
+            RosterService rosterService) {
         super(validator);
         this.employeeRepository = employeeRepository;
         this.employeeAvailabilityRepository = employeeAvailabilityRepository;
         this.rosterStateRepository = rosterStateRepository;
         this.employeeListXlsxFileIO = employeeListXlsxFileIO;
+        this.rosterCache = rosterCache;
+        this.rosterService = rosterService;
     }
 
     // ************************************************************************
@@ -88,6 +100,7 @@ public class EmployeeService extends AbstractRestService {
 
         validateEmployee(tenantId, employeeOptional.get());
         employeeRepository.deleteById(id);
+        rosterCache.invalidate(tenantId);
         return true;
     }
 
@@ -97,6 +110,7 @@ public class EmployeeService extends AbstractRestService {
         validateEmployee(tenantId, employee);
 
         employeeRepository.persist(employee);
+        rosterCache.invalidate(tenantId);
         return employee;
     }
 
@@ -122,6 +136,7 @@ public class EmployeeService extends AbstractRestService {
         oldEmployee.setShortId(newEmployee.getShortId());
         oldEmployee.setColor(newEmployee.getColor());
         employeeRepository.persist(oldEmployee);
+        rosterCache.invalidate(tenantId);
         return oldEmployee;
     }
 
@@ -220,6 +235,9 @@ public class EmployeeService extends AbstractRestService {
                 .findByTenantId(tenantId)
                 .orElseThrow(() -> new EntityNotFoundException("No RosterState entity found with tenantId (" +
                         tenantId + ")."));
+        rosterCache.putEmployeeAvailability(tenantId, employeeAvailability.inTimeZone(rosterState.getTimeZone()));
+        rosterService.addProblemChange(tenantId,
+                new PutEmployeeAvailabilityProblemChange(employeeAvailability.inTimeZone(rosterState.getTimeZone())));
         return new EmployeeAvailabilityView(rosterState.getTimeZone(), employeeAvailability);
     }
 
@@ -254,6 +272,9 @@ public class EmployeeService extends AbstractRestService {
                 .findByTenantId(tenantId)
                 .orElseThrow(() -> new EntityNotFoundException("No RosterState entity found with tenantId (" +
                         tenantId + ")."));
+        rosterCache.putEmployeeAvailability(tenantId, oldEmployeeAvailability.inTimeZone(rosterState.getTimeZone()));
+        rosterService.addProblemChange(tenantId,
+                new PutEmployeeAvailabilityProblemChange(oldEmployeeAvailability.inTimeZone(rosterState.getTimeZone())));
         return new EmployeeAvailabilityView(rosterState.getTimeZone(), oldEmployeeAvailability);
     }
 
@@ -272,6 +293,9 @@ public class EmployeeService extends AbstractRestService {
 
         validateBean(tenantId, employeeAvailabilityOptional.get().inTimeZone(rosterState.getTimeZone()));
         employeeAvailabilityRepository.deleteById(id);
+        rosterCache.removeEmployeeAvailability(tenantId, id);
+        rosterService.addProblemChange(tenantId,
+                new RemoveEmployeeAvailabilityProblemChange(employeeAvailabilityOptional.get()));
         return true;
     }
 }
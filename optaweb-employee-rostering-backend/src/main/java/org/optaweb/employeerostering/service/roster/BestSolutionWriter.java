@@ -0,0 +1,158 @@
+package org.optaweb.employeerostering.service.roster;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.optaweb.employeerostering.domain.roster.Roster;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Writes the best solutions of all solving tenants with a fixed number of threads.
+ * <p>
+ * Only the latest best solution of a tenant is written: a best solution that arrives while an older one is
+ * still waiting replaces it. Writes of the same tenant never overlap and start at least
+ * {@value #MINIMUM_INTERVAL_PROPERTY} after the previous one ended.
+ */
+@ApplicationScoped
+public class BestSolutionWriter {
+
+    public static final String THREAD_COUNT_PROPERTY = "optaweb.best-solution-writer.thread-count";
+    public static final String MINIMUM_INTERVAL_PROPERTY = "optaweb.best-solution-writer.minimum-interval";
+
+    public static final String QUEUED_METRIC = "optaweb.roster.best.solution.writes.queued";
+    public static final String DROPPED_METRIC = "optaweb.roster.best.solution.writes.dropped";
+    public static final String FAILED_METRIC = "optaweb.roster.best.solution.writes.failed";
+    public static final String LATENCY_METRIC = "optaweb.roster.best.solution.writes.latency";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BestSolutionWriter.class);
+
+    private final ScheduledExecutorService executorService;
+    private final long minimumIntervalNanos;
+    private final Map<Integer, TenantWriter> tenantIdToTenantWriterMap = new ConcurrentHashMap<>();
+
+    private final AtomicInteger queuedCount;
+    private final Counter droppedCounter;
+    private final Counter failedCounter;
+    private final Timer latencyTimer;
+
+    @Inject
+    public BestSolutionWriter(MeterRegistry meterRegistry,
+            @ConfigProperty(name = THREAD_COUNT_PROPERTY, defaultValue = "4") int threadCount,
+            @ConfigProperty(name = MINIMUM_INTERVAL_PROPERTY, defaultValue = "1s") Duration minimumInterval) {
+        if (threadCount < 1) {
+            throw new IllegalStateException("The property (" + THREAD_COUNT_PROPERTY + ") has an invalid value ("
+                    + threadCount + ").");
+        }
+        if (minimumInterval.isNegative()) {
+            throw new IllegalStateException("The property (" + MINIMUM_INTERVAL_PROPERTY + ") has an invalid value ("
+                    + minimumInterval + ").");
+        }
+        AtomicInteger threadIndex = new AtomicInteger(0);
+        this.executorService = new ScheduledThreadPoolExecutor(threadCount,
+                runnable -> {
+                    Thread thread = new Thread(runnable, "BestSolutionWriter-" + threadIndex.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.minimumIntervalNanos = minimumInterval.toNanos();
+        this.queuedCount = meterRegistry.gauge(QUEUED_METRIC, new AtomicInteger(0));
+        this.droppedCounter = meterRegistry.counter(DROPPED_METRIC);
+        this.failedCounter = meterRegistry.counter(FAILED_METRIC);
+        this.latencyTimer = meterRegistry.timer(LATENCY_METRIC);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executorService.shutdownNow();
+    }
+
+    /**
+     * @param newRoster never null, the latest best solution of its tenant
+     * @param rosterWriter never null, called from a writer thread, it must start its own transaction
+     */
+    public void write(Roster newRoster, Consumer<Roster> rosterWriter) {
+        TenantWriter tenantWriter = tenantIdToTenantWriterMap.computeIfAbsent(newRoster.getTenantId(),
+                TenantWriter::new);
+        synchronized (tenantWriter) {
+            if (tenantWriter.pendingRoster != null) {
+                droppedCounter.increment();
+            } else {
+                queuedCount.incrementAndGet();
+            }
+            tenantWriter.pendingRoster = newRoster;
+            tenantWriter.rosterWriter = rosterWriter;
+            if (!tenantWriter.scheduled) {
+                tenantWriter.scheduled = true;
+                schedule(tenantWriter);
+            }
+        }
+    }
+
+    // Must be called while holding the lock of the tenantWriter
+    private void schedule(TenantWriter tenantWriter) {
+        long delayNanos = Math.max(0L, tenantWriter.lastWriteEndNanos.get() + minimumIntervalNanos - System.nanoTime());
+        executorService.schedule(() -> write(tenantWriter), delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void write(TenantWriter tenantWriter) {
+        Roster roster;
+        Consumer<Roster> rosterWriter;
+        synchronized (tenantWriter) {
+            roster = tenantWriter.pendingRoster;
+            rosterWriter = tenantWriter.rosterWriter;
+            tenantWriter.pendingRoster = null;
+            tenantWriter.rosterWriter = null;
+        }
+        queuedCount.decrementAndGet();
+        long startNanos = System.nanoTime();
+        try {
+            rosterWriter.accept(roster);
+        } catch (RuntimeException e) {
+            failedCounter.increment();
+            LOGGER.error("Failed to write the best solution of the roster with tenantId ({}).",
+                    tenantWriter.tenantId, e);
+        } finally {
+            long endNanos = System.nanoTime();
+            latencyTimer.record(endNanos - startNanos, TimeUnit.NANOSECONDS);
+            synchronized (tenantWriter) {
+                tenantWriter.lastWriteEndNanos.set(endNanos);
+                if (tenantWriter.pendingRoster != null) {
+                    schedule(tenantWriter);
+                } else {
+                    tenantWriter.scheduled = false;
+                }
+            }
+        }
+    }
+
+    private static final class TenantWriter {
+
+        private final Integer tenantId;
+        private final AtomicLong lastWriteEndNanos = new AtomicLong(Long.MIN_VALUE / 2);
+        private Roster pendingRoster = null;
+        private Consumer<Roster> rosterWriter = null;
+        // True while a write of this tenant is scheduled or running
+        private boolean scheduled = false;
+
+        private TenantWriter(Integer tenantId) {
+            this.tenantId = tenantId;
+        }
+    }
+}
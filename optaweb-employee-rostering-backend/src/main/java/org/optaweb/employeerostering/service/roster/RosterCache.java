@@ -0,0 +1,291 @@
+package org.optaweb.employeerostering.service.roster;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+import org.optaweb.employeerostering.domain.common.AbstractPersistable;
+import org.optaweb.employeerostering.domain.employee.EmployeeAvailability;
+import org.optaweb.employeerostering.domain.roster.Roster;
+import org.optaweb.employeerostering.domain.shift.Shift;
+import org.optaweb.employeerostering.service.common.IndictmentIndex;
+
+/**
+ * Keeps the last built {@link Roster} of each tenant, so views and shift edits don't reload the whole tenant.
+ * <p>
+ * Every write path must either patch the cached roster (shifts and availabilities) or invalidate it (anything else).
+ * A cached roster is never mutated: a patch creates a shallow copy with the changed list, so readers can keep using
+ * the roster they obtained. A patch done inside a transaction is only visible to that transaction until it commits.
+ * It is published then, unless another write of the same tenant was published in the meantime, in which case
+ * the roster is built again on the next read.
+ */
+@ApplicationScoped
+public class RosterCache {
+
+    private static final Object TRANSACTION_RESOURCE_KEY = new Object();
+
+    private TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+    private final Map<Integer, CachedRoster> tenantIdToCachedRosterMap = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> tenantIdToVersionMap = new ConcurrentHashMap<>();
+    private final AtomicLong invalidateAllCount = new AtomicLong(0L);
+
+    @Inject
+    public RosterCache(TransactionSynchronizationRegistry transactionSynchronizationRegistry) {
+        this.transactionSynchronizationRegistry = transactionSynchronizationRegistry;
+    }
+
+    /**
+     * Explains and indexes the cached roster of the tenant at most once per version of that roster,
+     * so all the views built from it share the same constraint matches.
+     * @param tenantId never null
+     * @param rosterBuilder never null, called on a cache miss
+     * @param rosterExplainer never null, called at most once per cached roster
+     * @return never null, the solution of its score explanation is shared with other callers,
+     * so it must not be modified
+     */
+    public IndictmentIndex getOrExplain(Integer tenantId,
+            Function<Integer, Roster> rosterBuilder,
+            Function<Roster, IndictmentIndex> rosterExplainer) {
+        CachedRoster cachedRoster = getOrBuildCachedRoster(tenantId, rosterBuilder);
+        synchronized (cachedRoster.roster) {
+            if (cachedRoster.indictmentIndex == null) {
+                cachedRoster.indictmentIndex = rosterExplainer.apply(cachedRoster.roster);
+            }
+            return cachedRoster.indictmentIndex;
+        }
+    }
+
+    private CachedRoster getOrBuildCachedRoster(Integer tenantId, Function<Integer, Roster> rosterBuilder) {
+        Map<Integer, PendingWrite> pendingWriteMap = getPendingWriteMap(false);
+        PendingWrite pendingWrite = (pendingWriteMap == null) ? null : pendingWriteMap.get(tenantId);
+        if (pendingWrite != null) {
+            // This transaction reads its own writes, which no other transaction sees yet
+            if (pendingWrite.patchedRoster == null) {
+                pendingWrite.patchedRoster = new CachedRoster(rosterBuilder.apply(tenantId));
+            }
+            return pendingWrite.patchedRoster;
+        }
+        CachedRoster cachedRoster = tenantIdToCachedRosterMap.get(tenantId);
+        if (cachedRoster != null) {
+            return cachedRoster;
+        }
+        long expectedInvalidateAllCount = invalidateAllCount.get();
+        long expectedVersion = tenantIdToVersionMap.getOrDefault(tenantId, 0L);
+        CachedRoster builtRoster = new CachedRoster(rosterBuilder.apply(tenantId));
+        CachedRoster[] out = { builtRoster };
+        tenantIdToVersionMap.compute(tenantId, (id, version) -> {
+            if (invalidateAllCount.get() == expectedInvalidateAllCount
+                    && (version == null ? 0L : version) == expectedVersion) {
+                CachedRoster existingRoster = tenantIdToCachedRosterMap.putIfAbsent(id, builtRoster);
+                if (existingRoster != null) {
+                    out[0] = existingRoster;
+                }
+            }
+            return version;
+        });
+        return out[0];
+    }
+
+    public void invalidate(Integer tenantId) {
+        patch(tenantId, null);
+    }
+
+    public void invalidateAll() {
+        doInvalidateAll();
+        if (isTransactionActive()) {
+            transactionSynchronizationRegistry.registerInterposedSynchronization(new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    doInvalidateAll();
+                }
+            });
+        }
+    }
+
+    /**
+     * @param tenantId never null
+     * @param shift never null, already converted to the tenant's time zone
+     */
+    public void putShift(Integer tenantId, Shift shift) {
+        patch(tenantId, roster -> {
+            shift.setWeekStartDay(roster.getRosterConstraintConfiguration().getWeekStartDay());
+            return copyOf(roster, replaceById(roster.getShiftList(), shift), roster.getEmployeeAvailabilityList());
+        });
+    }
+
+    public void removeShift(Integer tenantId, Long shiftId) {
+        patch(tenantId, roster -> copyOf(roster, removeById(roster.getShiftList(), shiftId),
+                roster.getEmployeeAvailabilityList()));
+    }
+
+    /**
+     * @param tenantId never null
+     * @param employeeAvailability never null, already converted to the tenant's time zone
+     */
+    public void putEmployeeAvailability(Integer tenantId, EmployeeAvailability employeeAvailability) {
+        patch(tenantId, roster -> copyOf(roster, roster.getShiftList(),
+                replaceById(roster.getEmployeeAvailabilityList(), employeeAvailability)));
+    }
+
+    public void removeEmployeeAvailability(Integer tenantId, Long employeeAvailabilityId) {
+        patch(tenantId, roster -> copyOf(roster, roster.getShiftList(),
+                removeById(roster.getEmployeeAvailabilityList(), employeeAvailabilityId)));
+    }
+
+    private void patch(Integer tenantId, UnaryOperator<Roster> rosterPatcher) {
+        Map<Integer, PendingWrite> pendingWriteMap = getPendingWriteMap(true);
+        if (pendingWriteMap == null) {
+            // Not in a transaction, so the write is already committed
+            tenantIdToVersionMap.compute(tenantId, (id, version) -> {
+                CachedRoster cachedRoster = tenantIdToCachedRosterMap.get(id);
+                if (cachedRoster != null && rosterPatcher != null) {
+                    tenantIdToCachedRosterMap.put(id, new CachedRoster(rosterPatcher.apply(cachedRoster.roster)));
+                } else {
+                    tenantIdToCachedRosterMap.remove(id);
+                }
+                return (version == null ? 0L : version) + 1L;
+            });
+            return;
+        }
+        PendingWrite pendingWrite = pendingWriteMap.get(tenantId);
+        if (pendingWrite == null) {
+            PendingWrite[] out = new PendingWrite[1];
+            tenantIdToVersionMap.compute(tenantId, (id, version) -> {
+                out[0] = new PendingWrite(tenantIdToCachedRosterMap.get(id), version == null ? 0L : version,
+                        invalidateAllCount.get());
+                return version;
+            });
+            pendingWrite = out[0];
+            pendingWriteMap.put(tenantId, pendingWrite);
+        }
+        pendingWrite.patchedRoster = (pendingWrite.patchedRoster != null && rosterPatcher != null)
+                ? new CachedRoster(rosterPatcher.apply(pendingWrite.patchedRoster.roster))
+                : null;
+    }
+
+    private void afterCompletion(Map<Integer, PendingWrite> pendingWriteMap, boolean committed) {
+        pendingWriteMap.forEach((tenantId, pendingWrite) -> tenantIdToVersionMap.compute(tenantId,
+                (id, version) -> {
+                    CachedRoster cachedRoster = tenantIdToCachedRosterMap.get(id);
+                    // Anything cached since the first write of this transaction might be built from stale data
+                    boolean unchanged = cachedRoster == pendingWrite.baseRoster
+                            && (version == null ? 0L : version) == pendingWrite.baseVersion
+                            && invalidateAllCount.get() == pendingWrite.baseInvalidateAllCount;
+                    if (committed && unchanged && pendingWrite.baseRoster != null
+                            && pendingWrite.patchedRoster != null) {
+                        tenantIdToCachedRosterMap.put(id, pendingWrite.patchedRoster);
+                    } else if (committed || !unchanged) {
+                        tenantIdToCachedRosterMap.remove(id);
+                    }
+                    return (version == null ? 0L : version) + 1L;
+                }));
+    }
+
+    private void doInvalidateAll() {
+        invalidateAllCount.incrementAndGet();
+        tenantIdToCachedRosterMap.clear();
+    }
+
+    private boolean isTransactionActive() {
+        return transactionSynchronizationRegistry.getTransactionKey() != null
+                && transactionSynchronizationRegistry.getTransactionStatus() == Status.STATUS_ACTIVE;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Integer, PendingWrite> getPendingWriteMap(boolean create) {
+        if (!isTransactionActive()) {
+            return null;
+        }
+        Map<Integer, PendingWrite> pendingWriteMap =
+                (Map<Integer, PendingWrite>) transactionSynchronizationRegistry.getResource(TRANSACTION_RESOURCE_KEY);
+        if (pendingWriteMap == null && create) {
+            Map<Integer, PendingWrite> newPendingWriteMap = new HashMap<>();
+            transactionSynchronizationRegistry.putResource(TRANSACTION_RESOURCE_KEY, newPendingWriteMap);
+            transactionSynchronizationRegistry.registerInterposedSynchronization(new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    RosterCache.this.afterCompletion(newPendingWriteMap, status == Status.STATUS_COMMITTED);
+                }
+            });
+            pendingWriteMap = newPendingWriteMap;
+        }
+        return pendingWriteMap;
+    }
+
+    private static <T extends AbstractPersistable> List<T> replaceById(List<T> list, T replacement) {
+        List<T> newList = removeById(list, replacement.getId());
+        newList.add(replacement);
+        return newList;
+    }
+
+    private static <T extends AbstractPersistable> List<T> removeById(List<T> list, Long id) {
+        List<T> newList = new ArrayList<>(list.size() + 1);
+        for (T persistable : list) {
+            if (!persistable.getId().equals(id)) {
+                newList.add(persistable);
+            }
+        }
+        return newList;
+    }
+
+    private static Roster copyOf(Roster roster, List<Shift> shiftList,
+            List<EmployeeAvailability> employeeAvailabilityList) {
+        Roster copy = new Roster(roster.getId(), roster.getTenantId(), roster.getRosterConstraintConfiguration(),
+                roster.getSkillList(), roster.getSpotList(), roster.getEmployeeList(), employeeAvailabilityList,
+                roster.getRosterState(), shiftList, roster.isNondisruptivePlanning(),
+                roster.getNondisruptiveReplanFrom());
+        copy.setHistoricWorkingTime(roster.getHistoricWorkingTime());
+        copy.setPlanningWindowStartDateTime(roster.getPlanningWindowStartDateTime());
+        copy.setPlanningWindowEndDateTime(roster.getPlanningWindowEndDateTime());
+        return copy;
+    }
+
+    /**
+     * The writes of one transaction to the roster of one tenant.
+     */
+    private static final class PendingWrite {
+
+        private final CachedRoster baseRoster;
+        private final long baseVersion;
+        private final long baseInvalidateAllCount;
+        // Null if the roster was invalidated, or if no roster was cached when this transaction first wrote
+        private CachedRoster patchedRoster;
+
+        private PendingWrite(CachedRoster baseRoster, long baseVersion, long baseInvalidateAllCount) {
+            this.baseRoster = baseRoster;
+            this.baseVersion = baseVersion;
+            this.baseInvalidateAllCount = baseInvalidateAllCount;
+            this.patchedRoster = baseRoster;
+        }
+    }
+
+    private static final class CachedRoster {
+
+        private final Roster roster;
+        private IndictmentIndex indictmentIndex = null;
+
+        private CachedRoster(Roster roster) {
+            this.roster = roster;
+        }
+    }
+}
@@ -11,13 +11,18 @@ import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseEventSink;
 
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
@@ -25,6 +30,7 @@ import org.optaplanner.core.api.solver.SolverStatus;
 import org.optaweb.employeerostering.domain.employee.Employee;
 import org.optaweb.employeerostering.domain.roster.PublishResult;
 import org.optaweb.employeerostering.domain.roster.RosterState;
+import org.optaweb.employeerostering.domain.roster.SolverQueueStatus;
 import org.optaweb.employeerostering.domain.roster.view.AvailabilityRosterView;
 import org.optaweb.employeerostering.domain.roster.view.ShiftRosterView;
 import org.optaweb.employeerostering.domain.spot.Spot;
@@ -88,6 +94,25 @@ public class RosterController {
                 startDateString, endDateString);
     }
 
+    @GET
+    @Path("/shiftRosterView/page")
+    @Operation(summary = "View Shift Roster Page",
+            description = "Get a shift roster view between two dates for the spots after a given spot id")
+    public ShiftRosterView getShiftRosterViewPage(@PathParam("tenantId") @Min(0) Integer tenantId,
+            @QueryParam("afterSpotId") Long afterSpotId,
+            @QueryParam("n") @NotNull @Min(1) Integer numberOfSpots,
+            @QueryParam("startDate") String startDateString,
+            @QueryParam("endDate") String endDateString) {
+        if (startDateString == null) {
+            throw new IllegalArgumentException("query parameter startDate is required");
+        }
+        if (endDateString == null) {
+            throw new IllegalArgumentException("query parameter endDate is required");
+        }
+        return rosterService.getShiftRosterViewPage(tenantId, afterSpotId, numberOfSpots,
+                startDateString, endDateString);
+    }
+
     // TODO: find out if there a way to pass lists in GET requests
     // TODO naming "for" is too abstract: we might add a sibling rest method that filters on another type than spots too
     @POST
@@ -214,6 +239,22 @@ public class RosterController {
         rosterService.solveRoster(tenantId);
     }
 
+    @POST
+    @Path("/solve/window")
+    @Operation(summary = "Solve Roster Window",
+            description = "Start solving the draft shifts that start from fromDate (inclusive) until toDate (exclusive)."
+                    + " The other shifts do not change.")
+    public void solveRosterWindow(@PathParam("tenantId") @Min(0) Integer tenantId,
+            @QueryParam("fromDate") String fromDate, @QueryParam("toDate") String toDate) {
+        if (fromDate == null) {
+            throw new IllegalArgumentException("query parameter fromDate is required");
+        }
+        if (toDate == null) {
+            throw new IllegalArgumentException("query parameter toDate is required");
+        }
+        rosterService.solveRosterWindow(tenantId, LocalDate.parse(fromDate), LocalDate.parse(toDate));
+    }
+
     @POST
     @Path("/replan")
     @Operation(summary = "Replan Roster",
@@ -239,6 +280,25 @@ public class RosterController {
         return rosterService.getSolverStatus(tenantId);
     }
 
+    @GET
+    @Path("/status/queue")
+    @Operation(summary = "Solver Queue Status",
+            description = "Get the status of the Solver, and while it waits for others its queue position and"
+                    + " estimated start")
+    public SolverQueueStatus getSolverQueueStatus(@PathParam("tenantId") @Min(0) Integer tenantId) {
+        return rosterService.getSolverQueueStatus(tenantId);
+    }
+
+    @GET
+    @Path("/solverEvents")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @Operation(summary = "Solver Events",
+            description = "Stream the shifts changed by each best solution and its score, until solving ends")
+    public void getSolverEvents(@PathParam("tenantId") @Min(0) Integer tenantId,
+            @Context SseEventSink sseEventSink, @Context Sse sse) {
+        rosterService.registerSolverEventSink(tenantId, sse, sseEventSink);
+    }
+
     // ************************************************************************
     // Publish
     // ************************************************************************
@@ -45,6 +45,7 @@ import org.optaweb.employeerostering.domain.shift.Shift;
 import org.optaweb.employeerostering.domain.skill.Skill;
 import org.optaweb.employeerostering.domain.spot.Spot;
 import org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration;
+import org.optaweb.employeerostering.domain.tenant.SolverProfile;
 import org.optaweb.employeerostering.domain.tenant.Tenant;
 import org.optaweb.employeerostering.service.admin.SystemPropertiesRetriever;
 import org.optaweb.employeerostering.service.common.generator.StringDataGenerator;
@@ -452,6 +453,7 @@ public class RosterGenerator {
         Integer tenantId = tenant.getId();
         RosterConstraintConfiguration rosterConstraintConfiguration = createTenantConfiguration(generatorType,
                 tenantId, zoneId);
+        createSolverProfile(tenantId);
         RosterState rosterState = createRosterState(generatorType, tenant, zoneId, lengthInDays);
 
         List<Skill> skillList = createSkillList(generatorType, tenantId, skillListSize);
@@ -470,8 +472,12 @@ public class RosterGenerator {
         List<EmployeeAvailability> employeeAvailabilityList = createEmployeeAvailabilityList(
                 generatorType, tenantId, rosterConstraintConfiguration, rosterState, employeeList, shiftList);
 
-        return new Roster((long) tenantId, tenantId, rosterConstraintConfiguration, skillList, spotList, employeeList,
-                employeeAvailabilityList, rosterState, shiftList);
+        Roster roster = new Roster((long) tenantId, tenantId, rosterConstraintConfiguration, skillList, spotList,
+                employeeList, employeeAvailabilityList, rosterState, shiftList);
+        roster.indexSkills();
+        roster.indexWeekStartDay();
+        roster.indexEmployeeAvailabilities();
+        return roster;
     }
 
     @Transactional
@@ -498,6 +504,13 @@ public class RosterGenerator {
         return rosterConstraintConfiguration;
     }
 
+    @Transactional
+    public SolverProfile createSolverProfile(Integer tenantId) {
+        SolverProfile solverProfile = new SolverProfile(tenantId);
+        entityManager.persist(solverProfile);
+        return solverProfile;
+    }
+
     @Transactional
     public RosterState createRosterState(GeneratorType generatorType, Tenant tenant, ZoneId zoneId, int lengthInDays) {
         RosterState rosterState = new RosterState();
@@ -3,16 +3,18 @@ package org.optaweb.employeerostering.service.roster;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -23,24 +25,33 @@ import javax.transaction.HeuristicMixedException;
 import javax.transaction.HeuristicRollbackException;
 import javax.transaction.NotSupportedException;
 import javax.transaction.RollbackException;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
 import javax.transaction.SystemException;
+import javax.transaction.TransactionSynchronizationRegistry;
 import javax.transaction.Transactional;
 import javax.transaction.UserTransaction;
 import javax.validation.Validator;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseEventSink;
 
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.optaplanner.core.api.score.ScoreManager;
 import org.optaplanner.core.api.score.buildin.hardmediumsoftlong.HardMediumSoftLongScore;
 import org.optaplanner.core.api.score.constraint.ConstraintMatchTotal;
-import org.optaplanner.core.api.score.constraint.Indictment;
-import org.optaplanner.core.api.solver.SolverManager;
 import org.optaplanner.core.api.solver.SolverStatus;
+import org.optaplanner.core.api.solver.change.ProblemChange;
+import org.optaweb.employeerostering.domain.common.AbstractPersistable;
+import org.optaweb.employeerostering.domain.common.DateTimeUtils;
 import org.optaweb.employeerostering.domain.employee.Employee;
 import org.optaweb.employeerostering.domain.employee.EmployeeAvailability;
 import org.optaweb.employeerostering.domain.employee.view.EmployeeAvailabilityView;
+import org.optaweb.employeerostering.domain.roster.HistoricWorkingTime;
 import org.optaweb.employeerostering.domain.roster.Pagination;
 import org.optaweb.employeerostering.domain.roster.PublishResult;
 import org.optaweb.employeerostering.domain.roster.Roster;
 import org.optaweb.employeerostering.domain.roster.RosterState;
+import org.optaweb.employeerostering.domain.roster.SolverQueueStatus;
 import org.optaweb.employeerostering.domain.roster.view.AvailabilityRosterView;
 import org.optaweb.employeerostering.domain.roster.view.ShiftRosterView;
 import org.optaweb.employeerostering.domain.rotation.TimeBucket;
@@ -49,7 +60,9 @@ import org.optaweb.employeerostering.domain.shift.view.ShiftView;
 import org.optaweb.employeerostering.domain.skill.Skill;
 import org.optaweb.employeerostering.domain.spot.Spot;
 import org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration;
+import org.optaweb.employeerostering.domain.tenant.SolverProfile;
 import org.optaweb.employeerostering.service.common.AbstractRestService;
+import org.optaweb.employeerostering.service.common.IndictmentIndex;
 import org.optaweb.employeerostering.service.common.IndictmentUtils;
 import org.optaweb.employeerostering.service.employee.EmployeeAvailabilityRepository;
 import org.optaweb.employeerostering.service.employee.EmployeeRepository;
@@ -58,10 +71,26 @@ import org.optaweb.employeerostering.service.shift.ShiftRepository;
 import org.optaweb.employeerostering.service.skill.SkillRepository;
 import org.optaweb.employeerostering.service.spot.SpotRepository;
 import org.optaweb.employeerostering.service.tenant.RosterConstraintConfigurationRepository;
+import org.optaweb.employeerostering.service.tenant.SolverProfileRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.panache.common.Sort;
 
 @ApplicationScoped
 public class RosterService extends AbstractRestService {
 
+    public static final String BEST_SOLUTION_SHIFTS_WRITTEN_METRIC = "optaweb.roster.best.solution.shifts.written";
+
+    public static final String PLANNING_HORIZON_PROPERTY = "optaweb.solver.planning-horizon.enabled";
+    public static final String PLANNING_HORIZON_LOOKBACK_DAYS_PROPERTY = "optaweb.solver.planning-horizon.lookback-days";
+
+    private static final Comparator<Shift> SHIFT_COMPARATOR = Comparator.comparing(Shift::getStartDateTime)
+            .thenComparing(shift -> shift.getSpot().getName());
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RosterService.class);
+
     private RosterStateRepository rosterStateRepository;
     private SkillRepository skillRepository;
     private SpotRepository spotRepository;
@@ -69,16 +98,27 @@ public class RosterService extends AbstractRestService {
     private EmployeeAvailabilityRepository employeeAvailabilityRepository;
     private ShiftRepository shiftRepository;
     private RosterConstraintConfigurationRepository rosterConstraintConfigurationRepository;
+    private SolverProfileRepository solverProfileRepository;
     private TimeBucketRepository timeBucketRepository;
 
-    private SolverManager<Roster, Integer> solverManager;
+    private TenantSolverManager solverManager;
+    private SolverJobScheduler solverJobScheduler;
     private ScoreManager<Roster, HardMediumSoftLongScore> scoreManager;
     private IndictmentUtils indictmentUtils;
     private UserTransaction transaction;
-
-    private ExecutorService rosterUpdateExecutorService = Executors.newCachedThreadPool();
-    private Map<Integer, Future<?>> tenantIdToRosterUpdateFutureMap = new ConcurrentHashMap<>();
-    private Map<Integer, Roster> tenantIdToNextRosterMap = new ConcurrentHashMap<>();
+    private TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+    private RosterCache rosterCache;
+    private MeterRegistry meterRegistry;
+    private BestSolutionWriter bestSolutionWriter;
+    private SolverEventBroadcaster solverEventBroadcaster;
+    private boolean planningHorizonEnabled;
+    private int planningHorizonLookbackDays;
+
+    private Map<Integer, Map<Long, Integer>> tenantIdToPendingShiftIdCountMap = new ConcurrentHashMap<>();
+    // The latest best solution of each tenant that is solving, the roster views are built from it while solving
+    private Map<Integer, BestSolution> tenantIdToBestSolutionMap = new ConcurrentHashMap<>();
+    // The employee id of each shift as last written from a best solution, to only write the shifts that changed
+    private Map<Integer, Map<Long, Long>> tenantIdToPersistedShiftIdToEmployeeIdMap = new ConcurrentHashMap<>();
 
     @Inject
     public RosterService(Validator validator,
@@ -87,12 +127,26 @@ public class RosterService extends AbstractRestService {
             EmployeeAvailabilityRepository employeeAvailabilityRepository,
             ShiftRepository shiftRepository,
             RosterConstraintConfigurationRepository rosterConstraintConfigurationRepository,
+            SolverProfileRepository solverProfileRepository,
             TimeBucketRepository timeBucketRepository,
-            SolverManager<Roster, Integer> solverManager,
+            TenantSolverManager solverManager,
+            SolverJobScheduler solverJobScheduler,
             ScoreManager<Roster, HardMediumSoftLongScore> scoreManager,
             UserTransaction transaction,
-            IndictmentUtils indictmentUtils) {
+            TransactionSynchronizationRegistry transactionSynchronizationRegistry,
+            IndictmentUtils indictmentUtils,
+            RosterCache rosterCache,
+            MeterRegistry meterRegistry,
+            BestSolutionWriter bestSolutionWriter,
+            SolverEventBroadcaster solverEventBroadcaster,
+            @ConfigProperty(name = PLANNING_HORIZON_PROPERTY, defaultValue = "true") boolean planningHorizonEnabled,
+            @ConfigProperty(name = PLANNING_HORIZON_LOOKBACK_DAYS_PROPERTY,
+                    defaultValue = "2") int planningHorizonLookbackDays) {
         super(validator);
+        if (planningHorizonLookbackDays < 1) {
+            throw new IllegalStateException("The property (" + PLANNING_HORIZON_LOOKBACK_DAYS_PROPERTY
+                    + ") has an invalid value (" + planningHorizonLookbackDays + ").");
+        }
         this.rosterStateRepository = rosterStateRepository;
         this.skillRepository = skillRepository;
         this.spotRepository = spotRepository;
@@ -100,11 +154,20 @@ public class RosterService extends AbstractRestService {
         this.employeeAvailabilityRepository = employeeAvailabilityRepository;
         this.shiftRepository = shiftRepository;
         this.rosterConstraintConfigurationRepository = rosterConstraintConfigurationRepository;
+        this.solverProfileRepository = solverProfileRepository;
         this.timeBucketRepository = timeBucketRepository;
         this.solverManager = solverManager;
+        this.solverJobScheduler = solverJobScheduler;
         this.scoreManager = scoreManager;
         this.indictmentUtils = indictmentUtils;
         this.transaction = transaction;
+        this.transactionSynchronizationRegistry = transactionSynchronizationRegistry;
+        this.rosterCache = rosterCache;
+        this.meterRegistry = meterRegistry;
+        this.bestSolutionWriter = bestSolutionWriter;
+        this.solverEventBroadcaster = solverEventBroadcaster;
+        this.planningHorizonEnabled = planningHorizonEnabled;
+        this.planningHorizonLookbackDays = planningHorizonLookbackDays;
     }
 
     // ************************************************************************
@@ -148,8 +211,11 @@ public class RosterService extends AbstractRestService {
             final LocalDate endDate,
             final Pagination pagination) {
 
-        final List<Spot> spots = spotRepository.find("tenantId", tenantId)
-                .page(pagination.getPageNumber(), pagination.getNumberOfItemsPerPage()).list();
+        BestSolution bestSolution = tenantIdToBestSolutionMap.get(tenantId);
+        final List<Spot> spots = (bestSolution != null)
+                ? page(bestSolution.roster.getSpotList(), pagination)
+                : spotRepository.find("tenantId", Sort.ascending("id"), tenantId)
+                        .page(pagination.getPageNumber(), pagination.getNumberOfItemsPerPage()).list();
 
         return getShiftRosterView(tenantId, startDate, endDate, spots);
     }
@@ -166,39 +232,173 @@ public class RosterService extends AbstractRestService {
         return getShiftRosterView(tenantId, startDate, endDate, spotList);
     }
 
+    /**
+     * Unlike {@link #getShiftRosterView(Integer, Integer, Integer, String, String)}, the work done does not grow with
+     * the number of spots, employees or shifts of the tenant: only the shifts of the spots and dates of the page,
+     * and the shifts of their employees that can share a constraint match with them, are loaded and explained.
+     * So the score and the indictment summary of the view are those of that part of the roster.
+     * @param tenantId never null
+     * @param afterSpotId sometimes null, the id of the last spot of the previous page, null for the first page
+     * @param numberOfSpots never null, at least 1
+     * @param startDateString never null
+     * @param endDateString never null
+     * @return never null, the spots are sorted by id, so the id of the last spot is the afterSpotId of the next page
+     */
+    @Transactional
+    public ShiftRosterView getShiftRosterViewPage(Integer tenantId, Long afterSpotId, Integer numberOfSpots,
+            String startDateString, String endDateString) {
+        LocalDate startDate = LocalDate.parse(startDateString);
+        LocalDate endDate = LocalDate.parse(endDateString);
+        if (numberOfSpots == null || numberOfSpots < 1) {
+            throw new IllegalArgumentException("The numberOfSpots (" + numberOfSpots + ") must be at least 1.");
+        }
+        long afterId = (afterSpotId == null) ? Long.MIN_VALUE : afterSpotId;
+
+        BestSolution bestSolution = tenantIdToBestSolutionMap.get(tenantId);
+        if (bestSolution != null) {
+            // The best solution is already in memory and explained
+            List<Spot> spotList = bestSolution.roster.getSpotList().stream()
+                    .filter(spot -> spot.getId() > afterId)
+                    .sorted(Comparator.comparing(Spot::getId))
+                    .limit(numberOfSpots)
+                    .collect(Collectors.toList());
+            return getShiftRosterView(tenantId, startDate, endDate, spotList);
+        }
+
+        RosterState rosterState = getRosterState(tenantId);
+        ZoneId timeZone = rosterState.getTimeZone();
+        RosterConstraintConfiguration configuration = rosterConstraintConfigurationRepository.findByTenantId(tenantId)
+                .orElseThrow(() -> new EntityNotFoundException(
+                        "No RosterConstraintConfiguration entity found with tenantId(" + tenantId + ")."));
+        List<Spot> spotList = spotRepository.findPageByTenantIdAfterId(tenantId, afterId, numberOfSpots);
+        List<Shift> shiftList = shiftRepository.filterWithSpots(tenantId, new HashSet<>(spotList),
+                startDate.atStartOfDay(timeZone).toOffsetDateTime(), endDate.atStartOfDay(timeZone).toOffsetDateTime());
+
+        // Employee equality is not by id, so key them by id
+        Map<Long, Employee> employeeIdToEmployeeMap = new HashMap<>();
+        for (Shift shift : shiftList) {
+            if (shift.getEmployee() != null) {
+                employeeIdToEmployeeMap.putIfAbsent(shift.getEmployee().getId(), shift.getEmployee());
+            }
+        }
+        List<Employee> employeeList = new ArrayList<>(employeeIdToEmployeeMap.values());
+        employeeList.sort(Comparator.comparing(Employee::getName));
+
+        Roster partialRoster = buildPartialRoster(tenantId, startDate, endDate, rosterState, configuration,
+                spotList, employeeList, shiftList);
+        return getShiftRosterView(tenantId, startDate, endDate, rosterState, spotList, employeeList, shiftList,
+                configuration, explainRoster(partialRoster));
+    }
+
+    /**
+     * Builds the part of the roster that decides the constraint matches of the shifts of a page: those shifts,
+     * and the shifts and availabilities of their employees in the periods of the contract maximums that overlap
+     * the dates of the page.
+     */
+    private Roster buildPartialRoster(Integer tenantId, LocalDate startDate, LocalDate endDate,
+            RosterState rosterState, RosterConstraintConfiguration configuration, List<Spot> spotList,
+            List<Employee> employeeList, List<Shift> shiftList) {
+        ZoneId timeZone = rosterState.getTimeZone();
+        LocalDate lastDate = endDate.isAfter(startDate) ? endDate.minusDays(1) : startDate;
+        LocalDate fromDate = startDate;
+        LocalDate toDate = lastDate.plusDays(1);
+        if (employeeList.stream().anyMatch(employee -> employee.getContract().getMaximumMinutesPerYear() != null)) {
+            fromDate = startDate.with(TemporalAdjusters.firstDayOfYear());
+            toDate = lastDate.with(TemporalAdjusters.firstDayOfNextYear());
+        } else if (employeeList.stream()
+                .anyMatch(employee -> employee.getContract().getMaximumMinutesPerMonth() != null)) {
+            fromDate = startDate.with(TemporalAdjusters.firstDayOfMonth());
+            toDate = lastDate.with(TemporalAdjusters.firstDayOfNextMonth());
+        }
+        // Whole weeks for the weekly maximums, and a margin for the consecutive shift and break constraints
+        fromDate = fromDate.with(TemporalAdjusters.previousOrSame(configuration.getWeekStartDay())).minusDays(2);
+        toDate = toDate.with(TemporalAdjusters.nextOrSame(configuration.getWeekStartDay())).plusDays(2);
+        OffsetDateTime fromDateTime = fromDate.atStartOfDay(timeZone).toOffsetDateTime();
+        OffsetDateTime toDateTime = toDate.atStartOfDay(timeZone).toOffsetDateTime();
+
+        Set<Employee> employeeSet = new HashSet<>(employeeList);
+        Map<Long, Shift> shiftIdToShiftMap = new LinkedHashMap<>();
+        for (Shift shift : shiftList) {
+            shiftIdToShiftMap.put(shift.getId(), shift.inTimeZone(timeZone));
+        }
+        for (Shift shift : shiftRepository.filterWithEmployees(tenantId, employeeSet, fromDateTime, toDateTime)) {
+            shiftIdToShiftMap.putIfAbsent(shift.getId(), shift.inTimeZone(timeZone));
+        }
+        List<Shift> partialShiftList = new ArrayList<>(shiftIdToShiftMap.values());
+
+        Map<Long, Spot> spotIdToSpotMap = new LinkedHashMap<>();
+        spotList.forEach(spot -> spotIdToSpotMap.put(spot.getId(), spot));
+        partialShiftList.forEach(shift -> spotIdToSpotMap.putIfAbsent(shift.getSpot().getId(), shift.getSpot()));
+
+        List<EmployeeAvailability> employeeAvailabilityList = employeeAvailabilityRepository
+                .filterWithEmployee(tenantId, employeeSet, fromDateTime, toDateTime)
+                .stream()
+                .map(employeeAvailability -> employeeAvailability.inTimeZone(timeZone))
+                .collect(Collectors.toList());
+
+        // No constraint matches skills, the required skills are read from the shifts and the employees
+        Roster roster = new Roster((long) tenantId, tenantId, configuration, Collections.emptyList(),
+                new ArrayList<>(spotIdToSpotMap.values()), employeeList, employeeAvailabilityList,
+                rosterState, partialShiftList);
+        roster.indexSkills();
+        roster.indexWeekStartDay();
+        return roster;
+    }
+
     private ShiftRosterView getShiftRosterView(Integer tenantId, LocalDate startDate, LocalDate endDate,
             List<Spot> spotList) {
+        RosterState rosterState = getRosterState(tenantId);
+        ZoneId timeZone = rosterState.getTimeZone();
+        OffsetDateTime startDateTime = startDate.atStartOfDay(timeZone).toOffsetDateTime();
+        OffsetDateTime endDateTime = endDate.atStartOfDay(timeZone).toOffsetDateTime();
+        BestSolution bestSolution = tenantIdToBestSolutionMap.get(tenantId);
+        if (bestSolution != null) {
+            Set<Long> spotIdSet = spotList.stream().map(Spot::getId).collect(Collectors.toSet());
+            List<Shift> shiftList = bestSolution.roster.getShiftList().stream()
+                    .filter(shift -> spotIdSet.contains(shift.getSpot().getId())
+                            && overlaps(shift.getStartDateTime(), shift.getEndDateTime(), startDateTime, endDateTime))
+                    .collect(Collectors.toList());
+            HistoricWorkingTime historicWorkingTime = bestSolution.roster.getHistoricWorkingTime();
+            if (isOutsideHorizon(historicWorkingTime, startDateTime, endDateTime)) {
+                // The solver never changes the shifts outside the horizon, so they are read from the database
+                shiftRepository.filterWithSpots(tenantId, new HashSet<>(spotList), startDateTime, endDateTime).stream()
+                        .filter(historicWorkingTime::isOutsideHorizon)
+                        .forEach(shiftList::add);
+            }
+            shiftList.sort(SHIFT_COMPARATOR);
+            return getShiftRosterView(tenantId, startDate, endDate, rosterState, spotList,
+                    bestSolution.roster.getEmployeeList(), shiftList,
+                    bestSolution.roster.getRosterConstraintConfiguration(), getIndictmentIndex(bestSolution));
+        }
+
+        List<Employee> employeeList = employeeRepository.findAllByTenantId(tenantId);
+        List<Shift> shiftList = shiftRepository.filterWithSpots(tenantId, new HashSet<>(spotList),
+                startDateTime, endDateTime);
+        IndictmentIndex indictmentIndex = getRosterIndictmentIndex(tenantId);
+        RosterConstraintConfiguration configuration = rosterConstraintConfigurationRepository.findByTenantId(tenantId).get();
+        return getShiftRosterView(tenantId, startDate, endDate, rosterState, spotList, employeeList, shiftList,
+                configuration, indictmentIndex);
+    }
+
+    private ShiftRosterView getShiftRosterView(Integer tenantId, LocalDate startDate, LocalDate endDate,
+            RosterState rosterState, List<Spot> spotList, List<Employee> employeeList, List<Shift> shiftList,
+            RosterConstraintConfiguration configuration, IndictmentIndex indictmentIndex) {
         ShiftRosterView shiftRosterView = new ShiftRosterView(tenantId, startDate, endDate);
         shiftRosterView.setSpotList(spotList);
-        List<Employee> employeeList = employeeRepository.findAllByTenantId(tenantId);
         shiftRosterView.setEmployeeList(employeeList);
 
-        Set<Spot> spotSet = new HashSet<>(spotList);
-        ZoneId timeZone = getRosterState(tenantId).getTimeZone();
-
-        List<Shift> shiftList = shiftRepository.filterWithSpots(tenantId, spotSet,
-                startDate.atStartOfDay(timeZone).toOffsetDateTime(),
-                endDate.atStartOfDay(timeZone).toOffsetDateTime());
-
+        ZoneId timeZone = rosterState.getTimeZone();
         Map<Long, List<ShiftView>> spotIdToShiftViewListMap = new LinkedHashMap<>(spotList.size());
-        // TODO FIXME race condition solverManager's bestSolution might differ from the one we just fetched, so the
-        //  score might be inaccurate
-        Roster roster = buildRoster(tenantId);
-        Map<Object, Indictment<HardMediumSoftLongScore>> indictmentMap = indictmentUtils.getIndictmentMapForRoster(roster);
-        RosterConstraintConfiguration configuration = rosterConstraintConfigurationRepository.findByTenantId(tenantId).get();
         for (Shift shift : shiftList) {
-            Employee employee = shift.getEmployee();
-            Indictment<HardMediumSoftLongScore> shiftIndictment = indictmentMap.get(shift);
-            Indictment<HardMediumSoftLongScore> employeeIndictment = (employee != null) ? indictmentMap.get(employee) : null;
             spotIdToShiftViewListMap.computeIfAbsent(shift.getSpot().getId(), k -> new ArrayList<>())
-                    .add(indictmentUtils.getShiftViewWithIndictment(timeZone, shift, configuration, shiftIndictment,
-                            employeeIndictment));
+                    .add(indictmentUtils.getShiftViewWithIndictment(timeZone, shift, configuration, indictmentIndex));
         }
         shiftRosterView.setSpotIdToShiftViewListMap(spotIdToShiftViewListMap);
 
-        shiftRosterView.setScore(roster == null ? null : roster.getScore());
-        shiftRosterView.setRosterState(getRosterState(tenantId));
-        shiftRosterView.setIndictmentSummary(indictmentUtils.getIndictmentSummaryForRoster(roster));
+        // The shifts and the score come from the same solution, either the database or the solver's best solution
+        shiftRosterView.setScore(indictmentIndex.getScoreExplanation().getScore());
+        shiftRosterView.setRosterState(rosterState);
+        shiftRosterView.setIndictmentSummary(indictmentUtils.getIndictmentSummary(indictmentIndex.getScoreExplanation()));
 
         return shiftRosterView;
     }
@@ -246,8 +446,11 @@ public class RosterService extends AbstractRestService {
             final LocalDate endDate,
             final Pagination pagination) {
 
-        final List<Employee> employeeList = employeeRepository.find("tenantId", tenantId)
-                .page(pagination.getPageNumber(), pagination.getNumberOfItemsPerPage()).list();
+        BestSolution bestSolution = tenantIdToBestSolutionMap.get(tenantId);
+        final List<Employee> employeeList = (bestSolution != null)
+                ? page(bestSolution.roster.getEmployeeList(), pagination)
+                : employeeRepository.find("tenantId", Sort.ascending("id"), tenantId)
+                        .page(pagination.getPageNumber(), pagination.getNumberOfItemsPerPage()).list();
 
         return getAvailabilityRosterView(tenantId, startDate, endDate, employeeList);
     }
@@ -256,47 +459,94 @@ public class RosterService extends AbstractRestService {
             LocalDate startDate,
             LocalDate endDate,
             List<Employee> employeeList) {
-        AvailabilityRosterView availabilityRosterView = new AvailabilityRosterView(tenantId, startDate, endDate);
+        RosterState rosterState = getRosterState(tenantId);
+        ZoneId timeZone = rosterState.getTimeZone();
+        OffsetDateTime startDateTime = startDate.atStartOfDay(timeZone).toOffsetDateTime();
+        OffsetDateTime endDateTime = endDate.atStartOfDay(timeZone).toOffsetDateTime();
+        BestSolution bestSolution = tenantIdToBestSolutionMap.get(tenantId);
+        if (bestSolution != null) {
+            Set<Long> employeeIdSet = employeeList.stream().map(Employee::getId).collect(Collectors.toSet());
+            List<Shift> shiftList = bestSolution.roster.getShiftList().stream()
+                    .filter(shift -> shift.getEmployee() != null
+                            && employeeIdSet.contains(shift.getEmployee().getId())
+                            && overlaps(shift.getStartDateTime(), shift.getEndDateTime(), startDateTime, endDateTime))
+                    .collect(Collectors.toList());
+            List<EmployeeAvailability> employeeAvailabilityList =
+                    bestSolution.roster.getEmployeeAvailabilityList().stream()
+                            .filter(employeeAvailability -> employeeIdSet.contains(employeeAvailability.getEmployee()
+                                    .getId())
+                                    && overlaps(employeeAvailability.getStartDateTime(),
+                                            employeeAvailability.getEndDateTime(), startDateTime, endDateTime))
+                            .sorted(Comparator.comparing(
+                                    (EmployeeAvailability employeeAvailability) -> employeeAvailability.getEmployee()
+                                            .getName())
+                                    .thenComparing(EmployeeAvailability::getStartDateTime))
+                            .collect(Collectors.toList());
+            HistoricWorkingTime historicWorkingTime = bestSolution.roster.getHistoricWorkingTime();
+            if (isOutsideHorizon(historicWorkingTime, startDateTime, endDateTime)) {
+                // The solver never changes the shifts outside the horizon, so they are read from the database
+                Set<Employee> employeeSet = new HashSet<>(employeeList);
+                shiftRepository.filterWithEmployees(tenantId, employeeSet, startDateTime, endDateTime).stream()
+                        .filter(historicWorkingTime::isOutsideHorizon)
+                        .forEach(shiftList::add);
+                employeeAvailabilityRepository.filterWithEmployee(tenantId, employeeSet, startDateTime, endDateTime)
+                        .stream()
+                        .filter(employeeAvailability -> isOutsideHorizon(historicWorkingTime, employeeAvailability))
+                        .forEach(employeeAvailabilityList::add);
+                employeeAvailabilityList.sort(Comparator.comparing(
+                        (EmployeeAvailability employeeAvailability) -> employeeAvailability.getEmployee().getName())
+                        .thenComparing(EmployeeAvailability::getStartDateTime));
+            }
+            shiftList.sort(SHIFT_COMPARATOR);
+            return getAvailabilityRosterView(tenantId, startDate, endDate, rosterState,
+                    bestSolution.roster.getSpotList(), employeeList, shiftList, employeeAvailabilityList,
+                    bestSolution.roster.getRosterConstraintConfiguration(), getIndictmentIndex(bestSolution));
+        }
+
         List<Spot> spotList = spotRepository.findAllByTenantId(tenantId);
-        availabilityRosterView.setSpotList(spotList);
+        Set<Employee> employeeSet = new HashSet<>(employeeList);
+        List<Shift> shiftList = shiftRepository.filterWithEmployees(tenantId, employeeSet,
+                startDateTime, endDateTime);
+        List<EmployeeAvailability> employeeAvailabilityList =
+                employeeAvailabilityRepository.filterWithEmployee(tenantId, employeeSet,
+                        startDateTime, endDateTime);
+        IndictmentIndex indictmentIndex = getRosterIndictmentIndex(tenantId);
+        RosterConstraintConfiguration configuration = rosterConstraintConfigurationRepository.findByTenantId(tenantId).get();
+        return getAvailabilityRosterView(tenantId, startDate, endDate, rosterState, spotList, employeeList, shiftList,
+                employeeAvailabilityList, configuration, indictmentIndex);
+    }
 
+    private AvailabilityRosterView getAvailabilityRosterView(Integer tenantId,
+            LocalDate startDate,
+            LocalDate endDate,
+            RosterState rosterState,
+            List<Spot> spotList,
+            List<Employee> employeeList,
+            List<Shift> shiftList,
+            List<EmployeeAvailability> employeeAvailabilityList,
+            RosterConstraintConfiguration configuration,
+            IndictmentIndex indictmentIndex) {
+        AvailabilityRosterView availabilityRosterView = new AvailabilityRosterView(tenantId, startDate, endDate);
+        availabilityRosterView.setSpotList(spotList);
         availabilityRosterView.setEmployeeList(employeeList);
 
+        ZoneId timeZone = rosterState.getTimeZone();
         Map<Long, List<ShiftView>> employeeIdToShiftViewListMap = new LinkedHashMap<>(employeeList.size());
         List<ShiftView> unassignedShiftViewList = new ArrayList<>();
-        Set<Employee> employeeSet = new HashSet<>(employeeList);
-        ZoneId timeZone = getRosterState(tenantId).getTimeZone();
-
-        List<Shift> shiftList = shiftRepository.filterWithEmployees(tenantId, employeeSet,
-                startDate.atStartOfDay(timeZone).toOffsetDateTime(),
-                endDate.atStartOfDay(timeZone).toOffsetDateTime());
-
-        Roster roster = buildRoster(tenantId);
-        Map<Object, Indictment<HardMediumSoftLongScore>> indictmentMap = indictmentUtils.getIndictmentMapForRoster(roster);
-        RosterConstraintConfiguration configuration = rosterConstraintConfigurationRepository.findByTenantId(tenantId).get();
-
         for (Shift shift : shiftList) {
-            Indictment<HardMediumSoftLongScore> shiftIndictment = indictmentMap.get(shift);
             if (shift.getEmployee() != null) {
-                Indictment<HardMediumSoftLongScore> employeeIndictment = indictmentMap.get(shift.getEmployee());
                 employeeIdToShiftViewListMap.computeIfAbsent(shift.getEmployee().getId(),
                         k -> new ArrayList<>())
-                        .add(indictmentUtils.getShiftViewWithIndictment(timeZone, shift, configuration, shiftIndictment,
-                                employeeIndictment));
+                        .add(indictmentUtils.getShiftViewWithIndictment(timeZone, shift, configuration, indictmentIndex));
             } else {
                 unassignedShiftViewList
-                        .add(indictmentUtils.getShiftViewWithIndictment(timeZone, shift, configuration, shiftIndictment, null));
+                        .add(indictmentUtils.getShiftViewWithIndictment(timeZone, shift, configuration, indictmentIndex));
             }
         }
         availabilityRosterView.setEmployeeIdToShiftViewListMap(employeeIdToShiftViewListMap);
         availabilityRosterView.setUnassignedShiftViewList(unassignedShiftViewList);
         Map<Long, List<EmployeeAvailabilityView>> employeeIdToAvailabilityViewListMap = new LinkedHashMap<>(
                 employeeList.size());
-        List<EmployeeAvailability> employeeAvailabilityList =
-                employeeAvailabilityRepository.filterWithEmployee(tenantId, employeeSet,
-                        startDate.atStartOfDay(timeZone).toOffsetDateTime(),
-                        endDate.atStartOfDay(timeZone).toOffsetDateTime());
-
         for (EmployeeAvailability employeeAvailability : employeeAvailabilityList) {
             employeeIdToAvailabilityViewListMap.computeIfAbsent(employeeAvailability.getEmployee().getId(),
                     k -> new ArrayList<>())
@@ -304,19 +554,103 @@ public class RosterService extends AbstractRestService {
         }
         availabilityRosterView.setEmployeeIdToAvailabilityViewListMap(employeeIdToAvailabilityViewListMap);
 
-        // TODO FIXME race condition solverManager's bestSolution might differ from the one we just fetched so the
-        //  score might be inaccurate.
-        availabilityRosterView.setScore(roster.getScore());
-        availabilityRosterView.setRosterState(getRosterState(tenantId));
-        availabilityRosterView.setIndictmentSummary(indictmentUtils.getIndictmentSummaryForRoster(roster));
+        // The shifts and the score come from the same solution, either the database or the solver's best solution
+        availabilityRosterView.setScore(indictmentIndex.getScoreExplanation().getScore());
+        availabilityRosterView.setRosterState(rosterState);
+        availabilityRosterView.setIndictmentSummary(
+                indictmentUtils.getIndictmentSummary(indictmentIndex.getScoreExplanation()));
 
         return availabilityRosterView;
     }
 
+    private static <T extends AbstractPersistable> List<T> page(List<T> list, Pagination pagination) {
+        // Same order as the database pages
+        List<T> sortedList = new ArrayList<>(list);
+        sortedList.sort(Comparator.comparing(AbstractPersistable::getId));
+        int fromIndex = Math.min(pagination.getFirstResultIndex(), sortedList.size());
+        int toIndex = Math.min(fromIndex + pagination.getNumberOfItemsPerPage(), sortedList.size());
+        return sortedList.subList(fromIndex, toIndex);
+    }
+
+    private static boolean isOutsideHorizon(HistoricWorkingTime historicWorkingTime, OffsetDateTime startDateTime,
+            OffsetDateTime endDateTime) {
+        return (historicWorkingTime.getHorizonStartDateTime() != null
+                && startDateTime.isBefore(historicWorkingTime.getHorizonStartDateTime()))
+                || (historicWorkingTime.getHorizonEndDateTime() != null
+                        && endDateTime.isAfter(historicWorkingTime.getHorizonEndDateTime()));
+    }
+
+    private static boolean isOutsideHorizon(HistoricWorkingTime historicWorkingTime,
+            EmployeeAvailability employeeAvailability) {
+        // The planning rosters only load the availabilities that overlap their horizon
+        return (historicWorkingTime.getHorizonStartDateTime() != null
+                && !employeeAvailability.getEndDateTime().isAfter(historicWorkingTime.getHorizonStartDateTime()))
+                || (historicWorkingTime.getHorizonEndDateTime() != null
+                        && !employeeAvailability.getStartDateTime()
+                                .isBefore(historicWorkingTime.getHorizonEndDateTime()));
+    }
+
+    private static boolean overlaps(OffsetDateTime startDateTime, OffsetDateTime endDateTime,
+            OffsetDateTime fromDateTime, OffsetDateTime toDateTime) {
+        return !endDateTime.isBefore(fromDateTime) && startDateTime.isBefore(toDateTime);
+    }
+
     // ************************************************************************
     // Roster
     // ************************************************************************
 
+    /**
+     * @param tenantId never null
+     * @return never null, computed once per version of the cached roster of the tenant, or once per best solution
+     * while the tenant is solving, so the indictments and the indictment summary of a view come from the same
+     * explanation. Its solution is shared with other callers, so it must not be modified.
+     * Use {@link #buildRoster(Integer)} to get a roster that can be solved or changed.
+     */
+    @Transactional
+    public IndictmentIndex getRosterIndictmentIndex(Integer tenantId) {
+        BestSolution bestSolution = tenantIdToBestSolutionMap.get(tenantId);
+        if (bestSolution != null) {
+            return getIndictmentIndex(bestSolution);
+        }
+        return rosterCache.getOrExplain(tenantId, this::buildRoster, this::explainRoster);
+    }
+
+    /**
+     * Explains only the part of the roster that decides the constraint matches of the shift,
+     * so the view returned by a shift edit doesn't explain the whole roster again.
+     * @param tenantId never null
+     * @param shift never null, already written in this transaction
+     * @return never null, only complete for that shift, or the explanation of the best solution while solving
+     */
+    @Transactional
+    public IndictmentIndex getShiftIndictmentIndex(Integer tenantId, Shift shift) {
+        BestSolution bestSolution = tenantIdToBestSolutionMap.get(tenantId);
+        if (bestSolution != null) {
+            return getIndictmentIndex(bestSolution);
+        }
+        RosterState rosterState = getRosterState(tenantId);
+        ZoneId timeZone = rosterState.getTimeZone();
+        RosterConstraintConfiguration configuration = rosterConstraintConfigurationRepository.findByTenantId(tenantId)
+                .orElseThrow(() -> new EntityNotFoundException(
+                        "No RosterConstraintConfiguration entity found with tenantId(" + tenantId + ")."));
+        LocalDate startDate = DateTimeUtils.toLocalDateTimeInZone(shift.getStartDateTime(), timeZone).toLocalDate();
+        LocalDate endDate = DateTimeUtils.toLocalDateTimeInZone(shift.getEndDateTime(), timeZone).toLocalDate()
+                .plusDays(1);
+        List<Employee> employeeList = (shift.getEmployee() == null) ? Collections.emptyList()
+                : Collections.singletonList(shift.getEmployee());
+        Roster partialRoster = buildPartialRoster(tenantId, startDate, endDate, rosterState, configuration,
+                Collections.singletonList(shift.getSpot()), employeeList, Collections.singletonList(shift));
+        return explainRoster(partialRoster);
+    }
+
+    private IndictmentIndex getIndictmentIndex(BestSolution bestSolution) {
+        return bestSolution.getOrExplain(this::explainRoster);
+    }
+
+    private IndictmentIndex explainRoster(Roster roster) {
+        return new IndictmentIndex(scoreManager.explainScore(roster));
+    }
+
     @Transactional
     public Roster buildRoster(Integer tenantId) {
         ZoneId zoneId = getRosterState(tenantId).getTimeZone();
@@ -339,102 +673,448 @@ public class RosterService extends AbstractRestService {
                         "No RosterConstraintConfiguration entity found with tenantId(" + tenantId + ").")),
                 skillList, spotList, employeeList, employeeAvailabilityList,
                 getRosterState(tenantId), shiftList);
+        roster.indexSkills();
+        roster.indexWeekStartDay();
+        roster.indexEmployeeAvailabilities();
 
         scoreManager.updateScore(roster);
         return roster;
     }
 
+    /**
+     * As {@link #buildRoster(Integer)}, but for solving: the shifts that start more than
+     * {@value #PLANNING_HORIZON_LOOKBACK_DAYS_PROPERTY} days before the first draft date are left out,
+     * and the ones that share a weekly, monthly or yearly contract period with the remaining shifts
+     * are folded into the {@link HistoricWorkingTime} of the roster.
+     * @param tenantId never null
+     * @return never null
+     */
     @Transactional
-    public void updateShiftsOfRoster(Roster newRoster) {
-        Integer tenantId = newRoster.getTenantId();
-        // TODO HACK avoids optimistic locking exception while solve(), but it circumvents optimistic locking completely
-        Map<Long, Employee> employeeIdMap = employeeRepository.findAllByTenantId(tenantId)
-                .stream()
-                .collect(Collectors.toMap(Employee::getId, Function.identity()));
+    public Roster buildPlanningRoster(Integer tenantId) {
+        return buildPlanningRoster(tenantId, getRosterState(tenantId).getFirstDraftDate(), null);
+    }
 
-        Map<Long, Shift> shiftIdMap = shiftRepository.findAllByTenantId(tenantId)
+    /**
+     * As {@link #buildPlanningRoster(Integer)}, but only the draft shifts that start from the from date and before
+     * the to date may change. The shifts that start less than {@value #PLANNING_HORIZON_LOOKBACK_DAYS_PROPERTY} days
+     * before or after those are pinned, so the consecutive shift and break constraints still see them,
+     * the ones further away that share a weekly, monthly or yearly contract period with the remaining shifts
+     * are folded into the {@link HistoricWorkingTime} of the roster, and the others are left out.
+     * @param tenantId never null
+     * @param fromDate never null
+     * @param toDate never null, after the from date
+     * @return never null
+     */
+    @Transactional
+    public Roster buildPlanningWindowRoster(Integer tenantId, LocalDate fromDate, LocalDate toDate) {
+        ZoneId zoneId = getRosterState(tenantId).getTimeZone();
+        Roster roster = buildPlanningRoster(tenantId, fromDate, toDate);
+        roster.setPlanningWindowStartDateTime(fromDate.atStartOfDay(zoneId).toOffsetDateTime());
+        roster.setPlanningWindowEndDateTime(toDate.atStartOfDay(zoneId).toOffsetDateTime());
+        return roster;
+    }
+
+    /**
+     * As {@link #buildPlanningRoster(Integer)}, but for a nondisruptive replan from now: the published shifts that
+     * start from now may change too, and the shifts that are not pinned by a user are unassigned from the employees
+     * that are unavailable for them.
+     * @param tenantId never null
+     * @return never null
+     */
+    @Transactional
+    public Roster buildReplanningRoster(Integer tenantId) {
+        OffsetDateTime replanFrom = OffsetDateTime.now();
+        RosterState rosterState = getRosterState(tenantId);
+        LocalDate replanFromDate = replanFrom.atZoneSameInstant(rosterState.getTimeZone()).toLocalDate();
+        // Replanning may change draft shifts and published shifts that start from now
+        Roster roster = buildPlanningRoster(tenantId, replanFromDate.isBefore(rosterState.getFirstDraftDate())
+                ? replanFromDate
+                : rosterState.getFirstDraftDate(), null);
+        roster.setNondisruptivePlanning(true);
+        roster.setNondisruptiveReplanFrom(replanFrom);
+
+        // Help Optaplanner by unassigning any shifts where the employee is unavailable
+        Map<String, ConstraintMatchTotal<HardMediumSoftLongScore>> constraintMatchTotalMap = scoreManager.explainScore(roster)
+                .getConstraintMatchTotalMap();
+        final String CONSTRAINT_ID = ConstraintMatchTotal.composeConstraintId(IndictmentUtils.CONSTRAINT_MATCH_PACKAGE,
+                RosterConstraintConfiguration.CONSTRAINT_UNAVAILABLE_TIME_SLOT_FOR_AN_EMPLOYEE);
+        constraintMatchTotalMap.get(CONSTRAINT_ID)
+                .getConstraintMatchSet()
+                .forEach(constraintMatch -> constraintMatch.getJustificationList().stream().filter(o -> o instanceof Shift)
+                        .forEach(justification -> {
+                            Shift shift = (Shift) justification;
+                            if (!shift.isPinnedByUser()) {
+                                shift.setEmployee(null);
+                            }
+                        }));
+        return roster;
+    }
+
+    /**
+     * @param planningEndDate sometimes null, if not null the shifts that start long enough after it are left out too
+     */
+    private Roster buildPlanningRoster(Integer tenantId, LocalDate planningStartDate, LocalDate planningEndDate) {
+        if (!planningHorizonEnabled) {
+            return buildRoster(tenantId);
+        }
+        RosterState rosterState = getRosterState(tenantId);
+        ZoneId zoneId = rosterState.getTimeZone();
+        RosterConstraintConfiguration configuration = rosterConstraintConfigurationRepository
+                .findByTenantId(tenantId)
+                .orElseThrow(() -> new EntityNotFoundException(
+                        "No RosterConstraintConfiguration entity found with tenantId(" + tenantId + ")."));
+        // Enough for the consecutive shift and break constraints between the shifts the solver may change
+        // and the shifts before them
+        LocalDate horizonStartDate = planningStartDate.minusDays(planningHorizonLookbackDays);
+        OffsetDateTime horizonStartDateTime = horizonStartDate.atStartOfDay(zoneId).toOffsetDateTime();
+
+        // The first week or year that contains the horizon start is the earliest period that matters
+        LocalDate firstDayOfWeek = horizonStartDate.with(TemporalAdjusters.previousOrSame(
+                configuration.getWeekStartDay()));
+        LocalDate firstDayOfYear = horizonStartDate.with(TemporalAdjusters.firstDayOfYear());
+        LocalDate foldFromDate = firstDayOfWeek.isBefore(firstDayOfYear) ? firstDayOfWeek : firstDayOfYear;
+        OffsetDateTime horizonEndDateTime = null;
+        if (planningEndDate != null) {
+            // Likewise between the shifts the solver may change and the shifts after them
+            LocalDate horizonEndDate = planningEndDate.plusDays(planningHorizonLookbackDays);
+            horizonEndDateTime = horizonEndDate.atStartOfDay(zoneId).toOffsetDateTime();
+        }
+        HistoricWorkingTime historicWorkingTime =
+                new HistoricWorkingTime(configuration.getWeekStartDay(), horizonStartDateTime, horizonEndDateTime);
+        foldShifts(tenantId, zoneId, historicWorkingTime, foldFromDate.atStartOfDay(zoneId).toOffsetDateTime(),
+                horizonStartDateTime);
+        if (horizonEndDateTime != null) {
+            // The last week or year that contains the day before the horizon end is the latest period that matters
+            LocalDate lastHorizonDate = planningEndDate.plusDays(planningHorizonLookbackDays - 1);
+            LocalDate firstDayOfNextWeek = lastHorizonDate.with(TemporalAdjusters.next(
+                    configuration.getWeekStartDay()));
+            LocalDate firstDayOfNextYear = lastHorizonDate.with(TemporalAdjusters.firstDayOfNextYear());
+            LocalDate foldToDate = firstDayOfNextWeek.isAfter(firstDayOfNextYear) ? firstDayOfNextWeek
+                    : firstDayOfNextYear;
+            foldShifts(tenantId, zoneId, historicWorkingTime, horizonEndDateTime,
+                    foldToDate.atStartOfDay(zoneId).toOffsetDateTime());
+        }
+
+        List<Skill> skillList = skillRepository.findAllByTenantId(tenantId);
+        List<Spot> spotList = spotRepository.findAllByTenantId(tenantId);
+        List<Employee> employeeList = employeeRepository.findAllByTenantId(tenantId);
+        List<EmployeeAvailability> employeeAvailabilityList = ((horizonEndDateTime == null)
+                ? employeeAvailabilityRepository.findAllByTenantIdEndingAfter(tenantId, horizonStartDateTime)
+                : employeeAvailabilityRepository.findAllByTenantIdOverlapping(tenantId, horizonStartDateTime,
+                        horizonEndDateTime))
                 .stream()
-                .collect(Collectors.toMap(Shift::getId, Function.identity()));
+                .map(ea -> ea.inTimeZone(zoneId))
+                .collect(Collectors.toList());
+        List<Shift> shiftList = ((horizonEndDateTime == null)
+                ? shiftRepository.findAllByTenantIdStartingFrom(tenantId, horizonStartDateTime)
+                : shiftRepository.findAllByTenantIdStartingBetween(tenantId, horizonStartDateTime,
+                        horizonEndDateTime))
+                .stream()
+                .map(s -> s.inTimeZone(zoneId))
+                .collect(Collectors.toList());
 
+        Roster roster = new Roster((long) tenantId, tenantId, configuration,
+                skillList, spotList, employeeList, employeeAvailabilityList, rosterState, shiftList);
+        roster.setHistoricWorkingTime(historicWorkingTime);
+        roster.indexSkills();
+        roster.indexWeekStartDay();
+        roster.indexEmployeeAvailabilities();
+        scoreManager.updateScore(roster);
+        return roster;
+    }
+
+    private void foldShifts(Integer tenantId, ZoneId zoneId, HistoricWorkingTime historicWorkingTime,
+            OffsetDateTime fromDateTime, OffsetDateTime toDateTime) {
+        shiftRepository.findEmployeeIdToShiftIntervalListMapByTenantIdStartingBetween(tenantId, fromDateTime,
+                toDateTime)
+                .forEach((employeeId, intervalList) -> intervalList.forEach(
+                        interval -> historicWorkingTime.addShift(employeeId,
+                                interval[0].atZoneSameInstant(zoneId).toOffsetDateTime(),
+                                interval[1].atZoneSameInstant(zoneId).toOffsetDateTime())));
+    }
+
+    @Transactional
+    public void updateShiftsOfRoster(Roster newRoster) {
+        Integer tenantId = newRoster.getTenantId();
+        // Writes the employee of the attached shifts without comparing the version of the solved shifts.
+        // Edits made while solving reach the solver as problem changes, and the shifts they edit are skipped here
+        // until a best solution contains the edit. Those pending edits are tracked in this instance only, so an edit
+        // made through another instance of the application can still be overwritten by a best solution.
+        Map<Long, Integer> pendingShiftIdCountMap =
+                tenantIdToPendingShiftIdCountMap.getOrDefault(tenantId, Collections.emptyMap());
+        Map<Long, Long> persistedShiftIdToEmployeeIdMap = tenantIdToPersistedShiftIdToEmployeeIdMap.get(tenantId);
+        if (persistedShiftIdToEmployeeIdMap == null) {
+            persistedShiftIdToEmployeeIdMap = shiftRepository.findShiftIdToEmployeeIdMapByTenantId(tenantId);
+        }
+
+        Map<Long, Long> changedShiftIdToEmployeeIdMap = new HashMap<>();
         for (Shift shift : newRoster.getShiftList()) {
-            Shift attachedShift = shiftIdMap.get(shift.getId());
-            if (attachedShift == null) {
+            Long employeeId = (shift.getEmployee() == null) ? null : shift.getEmployee().getId();
+            if (pendingShiftIdCountMap.containsKey(shift.getId())
+                    || (persistedShiftIdToEmployeeIdMap.containsKey(shift.getId())
+                            && Objects.equals(persistedShiftIdToEmployeeIdMap.get(shift.getId()), employeeId))) {
                 continue;
             }
-            attachedShift.setEmployee((shift.getEmployee() == null) ? null : employeeIdMap.get(shift.getEmployee().getId()));
+            changedShiftIdToEmployeeIdMap.put(shift.getId(), employeeId);
         }
+
+        if (changedShiftIdToEmployeeIdMap.isEmpty()) {
+            tenantIdToPersistedShiftIdToEmployeeIdMap.putIfAbsent(tenantId, persistedShiftIdToEmployeeIdMap);
+            return;
+        }
+        rosterCache.invalidate(tenantId);
+        Map<Long, Long> newPersistedShiftIdToEmployeeIdMap = new HashMap<>(persistedShiftIdToEmployeeIdMap);
+        // Shifts deleted in the meantime are not found, so they are not written
+        List<Shift> changedShiftList = shiftRepository.findAllByTenantIdAndIds(tenantId,
+                changedShiftIdToEmployeeIdMap.keySet());
+        for (Shift attachedShift : changedShiftList) {
+            Long employeeId = changedShiftIdToEmployeeIdMap.get(attachedShift.getId());
+            attachedShift.setEmployee((employeeId == null) ? null
+                    : employeeRepository.getEntityManager().getReference(Employee.class, employeeId));
+            newPersistedShiftIdToEmployeeIdMap.put(attachedShift.getId(), employeeId);
+        }
+        shiftRepository.flush();
+        meterRegistry.counter(BEST_SOLUTION_SHIFTS_WRITTEN_METRIC, "tenantId", tenantId.toString())
+                .increment(changedShiftList.size());
+        setPersistedShiftIdToEmployeeIdMapAfterCommit(tenantId, newPersistedShiftIdToEmployeeIdMap);
+    }
+
+    private void setPersistedShiftIdToEmployeeIdMapAfterCommit(Integer tenantId,
+            Map<Long, Long> persistedShiftIdToEmployeeIdMap) {
+        transactionSynchronizationRegistry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    tenantIdToPersistedShiftIdToEmployeeIdMap.put(tenantId, persistedShiftIdToEmployeeIdMap);
+                } else {
+                    // Reload the persisted assignments on the next best solution
+                    tenantIdToPersistedShiftIdToEmployeeIdMap.remove(tenantId);
+                }
+            }
+        });
     }
 
-    @Transactional
     public void scheduleUpdateOfRoster(Roster newRoster) {
-        tenantIdToRosterUpdateFutureMap.compute(newRoster.getTenantId(),
-                (tenantId, task) -> {
-                    if (task != null && !task.isDone()) {
-                        tenantIdToNextRosterMap.put(tenantId, newRoster);
-                        return task;
-                    } else {
-                        // Remove any stale old best solution that were put in
-                        // JUST AFTER the tenantIdToNextRosterMap.containsKey(tenantId)
-                        // return false BUT BEFORE the task finished,
-                        // since it'll be a worse solution than this one
-                        tenantIdToNextRosterMap.remove(tenantId);
-                        return rosterUpdateExecutorService.submit(() -> {
-                            try {
-                                transaction.begin();
-                                updateShiftsOfRoster(newRoster);
-                                transaction.commit();
-
-                                tenantIdToRosterUpdateFutureMap.remove(tenantId);
-                                if (tenantIdToNextRosterMap.containsKey(tenantId)) {
-                                    scheduleUpdateOfRoster(tenantIdToNextRosterMap.remove(tenantId));
-                                }
-                            } catch (NotSupportedException | SystemException | RollbackException | HeuristicMixedException
-                                    | HeuristicRollbackException e) {
-                                throw new IllegalStateException(e);
-                            }
-                        });
-                    }
-                });
+        bestSolutionWriter.write(newRoster, this::writeBestSolution);
+    }
+
+    private void writeBestSolution(Roster newRoster) {
+        try {
+            writeShiftsOfRoster(newRoster);
+        } finally {
+            Integer tenantId = newRoster.getTenantId();
+            BestSolution bestSolution = tenantIdToBestSolutionMap.get(tenantId);
+            // Skip a best solution that is already replaced, the writer will write the new one next
+            if (bestSolution != null && bestSolution.roster == newRoster) {
+                if (solverEventBroadcaster.hasSubscribers(tenantId)) {
+                    // A preempted solve continues later, so its subscriptions stay open
+                    solverEventBroadcaster.broadcast(newRoster, getIndictmentIndex(bestSolution),
+                            bestSolution.isFinal && !solverJobScheduler.isPreempted(tenantId));
+                }
+                if (bestSolution.isFinal) {
+                    // Once the final best solution is written (or failed to), the views read the database again
+                    tenantIdToBestSolutionMap.remove(tenantId, bestSolution);
+                    solverJobScheduler.finish(tenantId);
+                }
+            }
+        }
+    }
+
+    private void writeShiftsOfRoster(Roster newRoster) {
+        try {
+            transaction.begin();
+            try {
+                updateShiftsOfRoster(newRoster);
+            } catch (RuntimeException e) {
+                transaction.rollback();
+                throw e;
+            }
+            transaction.commit();
+        } catch (NotSupportedException | SystemException | RollbackException | HeuristicMixedException
+                | HeuristicRollbackException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     // ************************************************************************
     // Solver
     // ************************************************************************
 
+    /**
+     * Queues solving the roster, every time it starts (again, if it was preempted) it reads the roster again.
+     * @param tenantId never null
+     */
     @Transactional
     public void solveRoster(Integer tenantId) {
-        solverManager.solveAndListen(tenantId, this::buildRoster, this::scheduleUpdateOfRoster);
+        SolverProfile solverProfile = solverProfileRepository.findByTenantId(tenantId).orElse(null);
+        solverJobScheduler.submit(tenantId, SolverJobScheduler.JobType.BATCH, solverProfile,
+                sliceSolverProfile -> startSolving(tenantId, sliceSolverProfile, this::buildPlanningRoster));
     }
 
+    /**
+     * As {@link #solveRoster(Integer)}, but only the draft shifts that start from the from date and before the to date
+     * may change, see {@link #buildPlanningWindowRoster(Integer, LocalDate, LocalDate)}.
+     * @param tenantId never null
+     * @param fromDate never null
+     * @param toDate never null
+     */
+    @Transactional
+    public void solveRosterWindow(Integer tenantId, LocalDate fromDate, LocalDate toDate) {
+        if (!toDate.isAfter(fromDate)) {
+            throw new IllegalArgumentException("toDate (" + toDate + ") must be after fromDate (" + fromDate + ").");
+        }
+        SolverProfile solverProfile = solverProfileRepository.findByTenantId(tenantId).orElse(null);
+        solverJobScheduler.submit(tenantId, SolverJobScheduler.JobType.BATCH, solverProfile,
+                sliceSolverProfile -> startSolving(tenantId, sliceSolverProfile,
+                        id -> buildPlanningWindowRoster(id, fromDate, toDate)));
+    }
+
+    /**
+     * Queues replanning the roster, every time it starts (again, if it was preempted) it reads the roster again,
+     * see {@link #buildReplanningRoster(Integer)}.
+     * @param tenantId never null
+     */
     @Transactional
     public void replanRoster(Integer tenantId) {
-        Roster roster = buildRoster(tenantId);
-        roster.setNondisruptivePlanning(true);
-        roster.setNondisruptiveReplanFrom(OffsetDateTime.now());
+        SolverProfile solverProfile = solverProfileRepository.findByTenantId(tenantId).orElse(null);
+        // A user is waiting for the replan, so it goes before the solves nobody waits for
+        solverJobScheduler.submit(tenantId, SolverJobScheduler.JobType.INTERACTIVE, solverProfile,
+                sliceSolverProfile -> startSolving(tenantId, sliceSolverProfile, this::buildReplanningRoster));
+    }
 
-        // Help Optaplanner by unassigning any shifts where the employee is unavailable
-        Map<String, ConstraintMatchTotal<HardMediumSoftLongScore>> constraintMatchTotalMap = scoreManager.explainScore(roster)
-                .getConstraintMatchTotalMap();
-        final String CONSTRAINT_ID = ConstraintMatchTotal.composeConstraintId(IndictmentUtils.CONSTRAINT_MATCH_PACKAGE,
-                RosterConstraintConfiguration.CONSTRAINT_UNAVAILABLE_TIME_SLOT_FOR_AN_EMPLOYEE);
-        constraintMatchTotalMap.get(CONSTRAINT_ID)
-                .getConstraintMatchSet()
-                .forEach(constraintMatch -> constraintMatch.getJustificationList().stream().filter(o -> o instanceof Shift)
-                        .forEach(justification -> {
-                            Shift shift = (Shift) justification;
-                            if (!shift.isPinnedByUser()) {
-                                shift.setEmployee(null);
-                            }
-                        }));
-        solverManager.solveAndListen(tenantId, id -> roster, this::scheduleUpdateOfRoster);
+    private void startSolving(Integer tenantId, SolverProfile solverProfile, Function<Integer, Roster> problemFinder) {
+        tenantIdToPersistedShiftIdToEmployeeIdMap.remove(tenantId);
+        tenantIdToBestSolutionMap.remove(tenantId);
+        solverManager.solveAndListen(tenantId, solverProfile, problemFinder, this::onBestSolution,
+                this::onFinalBestSolution, this::onSolverException);
+    }
+
+    private void onBestSolution(Roster newRoster) {
+        solverJobScheduler.bestSolutionChanged(newRoster.getTenantId());
+        tenantIdToBestSolutionMap.put(newRoster.getTenantId(), new BestSolution(newRoster, false));
+        scheduleUpdateOfRoster(newRoster);
+    }
+
+    private void onFinalBestSolution(Roster newRoster) {
+        // Kept until it is written, so the views don't go back to an older solution in the meantime
+        tenantIdToBestSolutionMap.put(newRoster.getTenantId(), new BestSolution(newRoster, true));
+        scheduleUpdateOfRoster(newRoster);
+    }
+
+    private void onSolverException(Integer tenantId, Throwable exception) {
+        tenantIdToBestSolutionMap.remove(tenantId);
+        LOGGER.error("Solving failed for the roster with tenantId ({}).", tenantId, exception);
+        solverJobScheduler.finish(tenantId);
+    }
+
+    /**
+     * Submits a change to the solver of the tenant once the current transaction commits,
+     * so the solver keeps solving from its current state instead of being restarted.
+     * Does nothing if the tenant is not being solved, since the next solve loads the edit from the database.
+     * @param tenantId never null
+     * @param problemChange never null
+     */
+    public void addProblemChange(Integer tenantId, ProblemChange<Roster> problemChange) {
+        addProblemChange(tenantId, null, problemChange);
+    }
+
+    /**
+     * As {@link #addProblemChange(Integer, ProblemChange)}, but the employee of the shift is not written back from
+     * the best solutions of the solver until one of them contains the change.
+     * @param tenantId never null
+     * @param shiftId never null, the id of the shift the change edits
+     * @param problemChange never null
+     */
+    public void addShiftProblemChange(Integer tenantId, Long shiftId, ProblemChange<Roster> problemChange) {
+        forgetPersistedEmployee(tenantId, shiftId);
+        addProblemChange(tenantId, shiftId, problemChange);
+    }
+
+    private void addProblemChange(Integer tenantId, Long pendingShiftId, ProblemChange<Roster> problemChange) {
+        if (solverManager.getSolverStatus(tenantId) == SolverStatus.NOT_SOLVING) {
+            return;
+        }
+        if (transactionSynchronizationRegistry.getTransactionKey() == null) {
+            submitProblemChange(tenantId, pendingShiftId, problemChange);
+            return;
+        }
+        transactionSynchronizationRegistry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    submitProblemChange(tenantId, pendingShiftId, problemChange);
+                }
+            }
+        });
+    }
+
+    private void submitProblemChange(Integer tenantId, Long pendingShiftId, ProblemChange<Roster> problemChange) {
+        if (pendingShiftId != null) {
+            tenantIdToPendingShiftIdCountMap.computeIfAbsent(tenantId, k -> new ConcurrentHashMap<>())
+                    .merge(pendingShiftId, 1, Integer::sum);
+        }
+        try {
+            solverManager.addProblemChange(tenantId, problemChange)
+                    .whenComplete((result, exception) -> removePendingShiftId(tenantId, pendingShiftId));
+        } catch (IllegalStateException e) {
+            // The solver terminated in the meantime, so the next solve loads the edit from the database
+            removePendingShiftId(tenantId, pendingShiftId);
+        }
+    }
+
+    private void forgetPersistedEmployee(Integer tenantId, Long shiftId) {
+        // The shift was written outside of the solver, so its next best solution employee must be written even if it
+        // is the same as the last one the solver wrote
+        tenantIdToPersistedShiftIdToEmployeeIdMap.computeIfPresent(tenantId, (id, persistedShiftIdToEmployeeIdMap) -> {
+            Map<Long, Long> newPersistedShiftIdToEmployeeIdMap = new HashMap<>(persistedShiftIdToEmployeeIdMap);
+            newPersistedShiftIdToEmployeeIdMap.remove(shiftId);
+            return newPersistedShiftIdToEmployeeIdMap;
+        });
+    }
+
+    private void removePendingShiftId(Integer tenantId, Long pendingShiftId) {
+        Map<Long, Integer> pendingShiftIdCountMap = tenantIdToPendingShiftIdCountMap.get(tenantId);
+        if (pendingShiftId != null && pendingShiftIdCountMap != null) {
+            pendingShiftIdCountMap.computeIfPresent(pendingShiftId, (shiftId, count) -> (count == 1) ? null : count - 1);
+        }
     }
 
     public SolverStatus getSolverStatus(Integer tenantId) {
-        return solverManager.getSolverStatus(tenantId);
+        return solverJobScheduler.getSolverStatus(tenantId);
+    }
+
+    public SolverQueueStatus getSolverQueueStatus(Integer tenantId) {
+        return solverJobScheduler.getSolverQueueStatus(tenantId);
+    }
+
+    /**
+     * Sends the shifts changed by each best solution of the tenant to the sink, until the tenant stops solving.
+     * @param tenantId never null
+     * @param sse never null
+     * @param sseEventSink never null
+     */
+    public void registerSolverEventSink(Integer tenantId, Sse sse, SseEventSink sseEventSink) {
+        solverEventBroadcaster.register(tenantId, sse, sseEventSink);
+        // Checked after registering, so the final event is either sent to the sink or already sent
+        if (solverJobScheduler.getSolverStatus(tenantId) == SolverStatus.NOT_SOLVING
+                && !tenantIdToBestSolutionMap.containsKey(tenantId)) {
+            solverEventBroadcaster.broadcastNotSolving(tenantId);
+        }
     }
 
     public void terminateRosterEarly(Integer tenantId) {
-        solverManager.terminateEarly(tenantId);
+        if (solverJobScheduler.terminateEarly(tenantId)) {
+            // It never started, so no final best solution closes the subscriptions
+            solverEventBroadcaster.broadcastNotSolving(tenantId);
+        }
     }
 
     // ************************************************************************
@@ -444,6 +1124,7 @@ public class RosterService extends AbstractRestService {
     public void provision(Integer tenantId, Integer startRotationOffset, LocalDate fromDate,
             LocalDate toDate, List<Long> timeBucketIdList) {
         RosterState rosterState = getRosterState(tenantId);
+        rosterCache.invalidate(tenantId);
         List<TimeBucket> timeBucketList = timeBucketRepository.find("id in ?1",
                 timeBucketIdList).list();
         if (timeBucketList.stream().anyMatch(tb -> !tb.getTenantId().equals(tenantId))) {
@@ -479,6 +1160,7 @@ public class RosterService extends AbstractRestService {
     @Transactional
     public PublishResult publishAndProvision(Integer tenantId) {
         RosterState rosterState = getRosterState(tenantId);
+        rosterCache.invalidate(tenantId);
         LocalDate publishFrom = rosterState.getFirstDraftDate();
         LocalDate publishTo = publishFrom.plusDays(rosterState.getPublishLength());
         LocalDate firstUnplannedDate = rosterState.getFirstUnplannedDate();
@@ -505,6 +1187,7 @@ public class RosterService extends AbstractRestService {
     @Transactional
     public void commitChanges(Integer tenantId) {
         RosterState rosterState = getRosterState(tenantId);
+        rosterCache.invalidate(tenantId);
         LocalDate publishFrom = LocalDate.now();
         LocalDate publishTo = rosterState.getFirstDraftDate();
 
@@ -517,4 +1200,23 @@ public class RosterService extends AbstractRestService {
         publishedShifts.forEach(s -> s.setOriginalEmployee(s.getEmployee()));
         shiftRepository.persist(publishedShifts);
     }
+
+    private static final class BestSolution {
+
+        private final Roster roster;
+        private final boolean isFinal;
+        private IndictmentIndex indictmentIndex = null;
+
+        private BestSolution(Roster roster, boolean isFinal) {
+            this.roster = roster;
+            this.isFinal = isFinal;
+        }
+
+        private synchronized IndictmentIndex getOrExplain(Function<Roster, IndictmentIndex> rosterExplainer) {
+            if (indictmentIndex == null) {
+                indictmentIndex = rosterExplainer.apply(roster);
+            }
+            return indictmentIndex;
+        }
+    }
 }
@@ -0,0 +1,161 @@
+package org.optaweb.employeerostering.service.roster;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.sse.OutboundSseEvent;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseEventSink;
+
+import org.optaplanner.core.api.solver.SolverStatus;
+import org.optaweb.employeerostering.domain.roster.Roster;
+import org.optaweb.employeerostering.domain.roster.view.SolverEventView;
+import org.optaweb.employeerostering.domain.shift.Shift;
+import org.optaweb.employeerostering.domain.shift.view.ShiftView;
+import org.optaweb.employeerostering.service.common.IndictmentIndex;
+import org.optaweb.employeerostering.service.common.IndictmentUtils;
+
+/**
+ * Sends the best solutions of a solving tenant to its subscribed clients as {@link SolverEventView}s.
+ * <p>
+ * Each event only contains the shifts that were added, or whose times, spot, employee, version or indictment score
+ * changed since the previous event of that tenant, and the ids of the shifts that were removed since then.
+ * A client that subscribes first and then loads its roster view never misses a change,
+ * since the previous event is at most as recent as the view.
+ */
+@ApplicationScoped
+public class SolverEventBroadcaster {
+
+    public static final String SOLVER_EVENT_NAME = "solverEvent";
+
+    private IndictmentUtils indictmentUtils;
+
+    private final Map<Integer, TenantBroadcaster> tenantIdToTenantBroadcasterMap = new ConcurrentHashMap<>();
+
+    @Inject
+    public SolverEventBroadcaster(IndictmentUtils indictmentUtils) {
+        this.indictmentUtils = indictmentUtils;
+    }
+
+    public void register(Integer tenantId, Sse sse, SseEventSink sseEventSink) {
+        tenantIdToTenantBroadcasterMap.computeIfAbsent(tenantId, id -> new TenantBroadcaster(sse))
+                .sseEventSinkSet.add(sseEventSink);
+    }
+
+    public boolean hasSubscribers(Integer tenantId) {
+        TenantBroadcaster tenantBroadcaster = tenantIdToTenantBroadcasterMap.get(tenantId);
+        return tenantBroadcaster != null && !tenantBroadcaster.sseEventSinkSet.isEmpty();
+    }
+
+    /**
+     * @param roster never null, a best solution of the tenant
+     * @param indictmentIndex never null, the explanation of that best solution
+     * @param isFinal true if the tenant stopped solving, which closes the subscriptions
+     */
+    public void broadcast(Roster roster, IndictmentIndex indictmentIndex, boolean isFinal) {
+        TenantBroadcaster tenantBroadcaster = tenantIdToTenantBroadcasterMap.get(roster.getTenantId());
+        if (tenantBroadcaster == null) {
+            return;
+        }
+        synchronized (tenantBroadcaster) {
+            if (tenantBroadcaster.sseEventSinkSet.isEmpty()) {
+                // The next subscriber gets every shift
+                tenantBroadcaster.lastShiftIdToShiftViewMap = Collections.emptyMap();
+                return;
+            }
+            ZoneId timeZone = roster.getRosterState().getTimeZone();
+            Map<Long, ShiftView> shiftIdToShiftViewMap = new HashMap<>(roster.getShiftList().size());
+            List<ShiftView> changedShiftViewList = new ArrayList<>();
+            for (Shift shift : roster.getShiftList()) {
+                ShiftView shiftView = indictmentUtils.getShiftViewWithIndictment(timeZone, shift,
+                        roster.getRosterConstraintConfiguration(), indictmentIndex);
+                shiftIdToShiftViewMap.put(shift.getId(), shiftView);
+                ShiftView lastShiftView = tenantBroadcaster.lastShiftIdToShiftViewMap.get(shift.getId());
+                if (lastShiftView == null || isChanged(lastShiftView, shiftView)) {
+                    changedShiftViewList.add(shiftView);
+                }
+            }
+            List<Long> removedShiftIdList = new ArrayList<>();
+            for (Long lastShiftId : tenantBroadcaster.lastShiftIdToShiftViewMap.keySet()) {
+                if (!shiftIdToShiftViewMap.containsKey(lastShiftId)) {
+                    removedShiftIdList.add(lastShiftId);
+                }
+            }
+            tenantBroadcaster.lastShiftIdToShiftViewMap = isFinal ? Collections.emptyMap() : shiftIdToShiftViewMap;
+
+            SolverEventView solverEventView = new SolverEventView(roster.getTenantId(),
+                    isFinal ? SolverStatus.NOT_SOLVING : SolverStatus.SOLVING_ACTIVE, changedShiftViewList,
+                    removedShiftIdList);
+            solverEventView.setScore(indictmentIndex.getScoreExplanation().getScore());
+            solverEventView.setIndictmentSummary(
+                    indictmentUtils.getIndictmentSummary(indictmentIndex.getScoreExplanation()));
+            tenantBroadcaster.send(solverEventView, isFinal);
+        }
+    }
+
+    // The version covers the edits of the other fields, which reach the solver as problem changes
+    private static boolean isChanged(ShiftView lastShiftView, ShiftView shiftView) {
+        return !Objects.equals(lastShiftView.getStartDateTime(), shiftView.getStartDateTime())
+                || !Objects.equals(lastShiftView.getEndDateTime(), shiftView.getEndDateTime())
+                || !Objects.equals(lastShiftView.getSpotId(), shiftView.getSpotId())
+                || !Objects.equals(lastShiftView.getEmployeeId(), shiftView.getEmployeeId())
+                || !Objects.equals(lastShiftView.getVersion(), shiftView.getVersion())
+                || !Objects.equals(lastShiftView.getIndictmentScore(), shiftView.getIndictmentScore());
+    }
+
+    /**
+     * Tells the subscribers of the tenant that it is not solving, for those that subscribed after its final event.
+     * @param tenantId never null
+     */
+    public void broadcastNotSolving(Integer tenantId) {
+        TenantBroadcaster tenantBroadcaster = tenantIdToTenantBroadcasterMap.get(tenantId);
+        if (tenantBroadcaster == null) {
+            return;
+        }
+        synchronized (tenantBroadcaster) {
+            tenantBroadcaster.send(new SolverEventView(tenantId, SolverStatus.NOT_SOLVING, Collections.emptyList(),
+                    Collections.emptyList()), true);
+        }
+    }
+
+    private static final class TenantBroadcaster {
+
+        private final Sse sse;
+        private final Set<SseEventSink> sseEventSinkSet = ConcurrentHashMap.newKeySet();
+        private Map<Long, ShiftView> lastShiftIdToShiftViewMap = Collections.emptyMap();
+
+        private TenantBroadcaster(Sse sse) {
+            this.sse = sse;
+        }
+
+        private void send(SolverEventView solverEventView, boolean close) {
+            OutboundSseEvent event = sse.newEventBuilder()
+                    .name(SOLVER_EVENT_NAME)
+                    .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                    .data(SolverEventView.class, solverEventView)
+                    .build();
+            for (SseEventSink sseEventSink : sseEventSinkSet) {
+                if (sseEventSink.isClosed()) {
+                    sseEventSinkSet.remove(sseEventSink);
+                    continue;
+                }
+                sseEventSink.send(event).whenComplete((result, exception) -> {
+                    if (close || exception != null) {
+                        sseEventSinkSet.remove(sseEventSink);
+                        sseEventSink.close();
+                    }
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,423 @@
+package org.optaweb.employeerostering.service.roster;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.optaplanner.core.api.solver.SolverStatus;
+import org.optaplanner.core.config.solver.SolverManagerConfig;
+import org.optaweb.employeerostering.domain.roster.SolverQueueStatus;
+import org.optaweb.employeerostering.domain.tenant.SolverProfile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Queues the solves of all tenants, so no more of them solve at the same time than the parallel solver count
+ * of the solver manager config (by default derived from the available processors),
+ * and their solver and move threads together don't exceed {@value #THREAD_LIMIT_PROPERTY}
+ * (by default the available processors), unless a single job needs more on its own.
+ * <p>
+ * The waiting {@link JobType#INTERACTIVE} jobs start before the waiting {@link JobType#BATCH} jobs,
+ * then the jobs of the tenants with a higher {@link SolverProfile#getPriority() priority}, then the oldest.
+ * When no solver is free, a waiting interactive job preempts a running batch job right away,
+ * and a waiting batch job preempts a running batch job that solved longer than its time slice:
+ * {@value #TIME_SLICE_PROPERTY} times the priority of its tenant.
+ * A preempted job terminates early, and once its best solution is written it waits again at the back of the queue,
+ * to continue from that solution.
+ * It continues with its {@link SolverProfile#getSecondsSpentLimit() seconds spent limit} and
+ * {@link SolverProfile#getUnimprovedSecondsSpentLimit() unimproved seconds spent limit} lowered by the time
+ * it already solved and solved without improving, see {@link #bestSolutionChanged(Integer)},
+ * and it ends instead if either is used up by then.
+ * Since the lowered unimproved limit still applies after the continued job improves, it can end sooner
+ * than a job that was never preempted.
+ * <p>
+ * A job holds its solver until {@link #finish(Integer)}, so the next job of the same tenant reads its written roster.
+ */
+@ApplicationScoped
+public class SolverJobScheduler {
+
+    public static final String TIME_SLICE_PROPERTY = "optaweb.solver.scheduler.time-slice";
+    public static final String THREAD_LIMIT_PROPERTY = "optaweb.solver.scheduler.thread-limit";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SolverJobScheduler.class);
+
+    private static final Comparator<SolverJob> QUEUE_COMPARATOR = Comparator
+            .comparing((SolverJob job) -> job.jobType)
+            .thenComparing(job -> job.priority, Comparator.reverseOrder())
+            .thenComparingLong(job -> job.sequence);
+
+    public enum JobType {
+        /**
+         * A user waits for it, such as a replan after a last minute change.
+         */
+        INTERACTIVE,
+        /**
+         * Nobody waits for it, such as solving the next draft, so it yields to the other jobs over time.
+         */
+        BATCH
+    }
+
+    private final TenantSolverManager solverManager;
+    private final int concurrentSolveLimit;
+    private final int threadLimit;
+    private final long timeSliceNanos;
+    private final ScheduledExecutorService executorService;
+
+    // Guarded by this
+    private final List<SolverJob> queue = new ArrayList<>();
+    private final Map<Integer, SolverJob> tenantIdToRunningJobMap = new HashMap<>();
+    private long nextSequence = 0L;
+
+    @Inject
+    public SolverJobScheduler(TenantSolverManager solverManager, SolverManagerConfig solverManagerConfig,
+            @ConfigProperty(name = TIME_SLICE_PROPERTY, defaultValue = "5m") Duration timeSlice,
+            @ConfigProperty(name = THREAD_LIMIT_PROPERTY) Optional<Integer> threadLimit) {
+        if (timeSlice.isNegative() || timeSlice.isZero()) {
+            throw new IllegalStateException("The property (" + TIME_SLICE_PROPERTY + ") has an invalid value ("
+                    + timeSlice + ").");
+        }
+        if (threadLimit.isPresent() && threadLimit.get() < 1) {
+            throw new IllegalStateException("The property (" + THREAD_LIMIT_PROPERTY + ") has an invalid value ("
+                    + threadLimit.get() + ").");
+        }
+        this.solverManager = solverManager;
+        // Every solver manager of the TenantSolverManager has that many solver threads, so none of them queues
+        this.concurrentSolveLimit = solverManagerConfig.resolveParallelSolverCount();
+        this.threadLimit = threadLimit.orElseGet(() -> Runtime.getRuntime().availableProcessors());
+        this.timeSliceNanos = timeSlice.toNanos();
+        this.executorService = new ScheduledThreadPoolExecutor(1,
+                runnable -> {
+                    Thread thread = new Thread(runnable, "SolverJobScheduler");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executorService.shutdownNow();
+    }
+
+    /**
+     * @param tenantId never null
+     * @param jobType never null
+     * @param solverProfile sometimes null, the profile the job solves with
+     * @param starter never null, starts solving with the {@link TenantSolverManager} with the profile it is given,
+     *        which is null if the solver profile is null, otherwise a copy with the time limits left to the job.
+     *        Called once per slice of the job, from any thread, and must lead to {@link #finish(Integer)}
+     * @throws IllegalStateException if the tenant is already solving or waiting to
+     */
+    public void submit(Integer tenantId, JobType jobType, SolverProfile solverProfile,
+            Consumer<SolverProfile> starter) {
+        synchronized (this) {
+            SolverJob runningJob = tenantIdToRunningJobMap.get(tenantId);
+            // A job that stopped solving but is still writing its roster lets the next one wait for it
+            if (queue.stream().anyMatch(job -> job.tenantId.equals(tenantId)) || (runningJob != null
+                    && (runningJob.preempted || solverManager.getSolverStatus(tenantId) != SolverStatus.NOT_SOLVING))) {
+                throw new IllegalStateException("The tenantId (" + tenantId + ") is already solving.");
+            }
+            SolverJob job = new SolverJob(tenantId, jobType, solverProfile,
+                    1 + solverManager.resolveMoveThreadNumber(solverProfile), starter);
+            job.sequence = nextSequence++;
+            queue.add(job);
+        }
+        dispatch();
+    }
+
+    /**
+     * Counts the time since the job of the tenant last solved without improving from now.
+     * @param tenantId never null
+     */
+    public synchronized void bestSolutionChanged(Integer tenantId) {
+        SolverJob runningJob = tenantIdToRunningJobMap.get(tenantId);
+        if (runningJob != null) {
+            runningJob.unimprovedSinceNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Frees the solver of the tenant's running job, and queues the job again if it was preempted
+     * and it has time left.
+     * @param tenantId never null
+     */
+    public void finish(Integer tenantId) {
+        synchronized (this) {
+            SolverJob job = tenantIdToRunningJobMap.remove(tenantId);
+            if (job == null) {
+                return;
+            }
+            if (isPreempted(job)) {
+                long nowNanos = System.nanoTime();
+                job.spentNanos += nowNanos - job.startNanos;
+                job.unimprovedNanos = nowNanos - job.unimprovedSinceNanos;
+                job.preempted = false;
+                job.sequence = nextSequence++;
+                queue.add(job);
+            }
+        }
+        dispatch();
+    }
+
+    /**
+     * @param tenantId never null
+     * @return true if the tenant's job was waiting, so it never started and will not end by itself
+     */
+    public boolean terminateEarly(Integer tenantId) {
+        synchronized (this) {
+            if (queue.removeIf(job -> job.tenantId.equals(tenantId))) {
+                return true;
+            }
+            SolverJob runningJob = tenantIdToRunningJobMap.get(tenantId);
+            if (runningJob != null) {
+                runningJob.preempted = false;
+            }
+        }
+        solverManager.terminateEarly(tenantId);
+        return false;
+    }
+
+    /**
+     * @param tenantId never null
+     * @return true if the tenant's running job terminates to let others solve, so it will continue later
+     */
+    public synchronized boolean isPreempted(Integer tenantId) {
+        SolverJob runningJob = tenantIdToRunningJobMap.get(tenantId);
+        return runningJob != null && isPreempted(runningJob);
+    }
+
+    // Must be called while holding the lock of this.
+    // Once a preempted job has used up its time, it ends instead, so its best solution is final.
+    private boolean isPreempted(SolverJob runningJob) {
+        if (runningJob.preempted) {
+            long nowNanos = System.nanoTime();
+            if (isUsedUp(runningJob.secondsSpentLimit, runningJob.spentNanos + nowNanos - runningJob.startNanos)
+                    || isUsedUp(runningJob.unimprovedSecondsSpentLimit, nowNanos - runningJob.unimprovedSinceNanos)) {
+                runningJob.preempted = false;
+            }
+        }
+        return runningJob.preempted;
+    }
+
+    /**
+     * @param tenantId never null
+     * @return never null, {@link SolverStatus#SOLVING_SCHEDULED} while the tenant's job waits or is preempted
+     */
+    public SolverStatus getSolverStatus(Integer tenantId) {
+        synchronized (this) {
+            if (isPreempted(tenantId) || queue.stream().anyMatch(job -> job.tenantId.equals(tenantId))) {
+                return SolverStatus.SOLVING_SCHEDULED;
+            }
+        }
+        return solverManager.getSolverStatus(tenantId);
+    }
+
+    /**
+     * The estimated start assumes every job ahead solves for its full time slice,
+     * or its seconds spent limit if that is shorter, and that no interactive job comes in between.
+     * @param tenantId never null
+     * @return never null
+     */
+    public SolverQueueStatus getSolverQueueStatus(Integer tenantId) {
+        synchronized (this) {
+            List<SolverJob> sortedQueue = sortedQueue();
+            int index = 0;
+            while (index < sortedQueue.size() && !sortedQueue.get(index).tenantId.equals(tenantId)) {
+                index++;
+            }
+            if (index < sortedQueue.size()) {
+                long nowNanos = System.nanoTime();
+                long[] freeNanos = new long[concurrentSolveLimit];
+                Arrays.fill(freeNanos, nowNanos);
+                int slot = 0;
+                for (SolverJob runningJob : tenantIdToRunningJobMap.values()) {
+                    if (slot < freeNanos.length) {
+                        freeNanos[slot++] = Math.max(nowNanos, runningJob.startNanos + estimateSliceNanos(runningJob));
+                    }
+                }
+                for (SolverJob jobAhead : sortedQueue.subList(0, index)) {
+                    int earliestSlot = earliestSlot(freeNanos);
+                    freeNanos[earliestSlot] += estimateSliceNanos(jobAhead);
+                }
+                long startNanos = freeNanos[earliestSlot(freeNanos)];
+                return new SolverQueueStatus(SolverStatus.SOLVING_SCHEDULED, index + 1,
+                        OffsetDateTime.now().plusNanos(startNanos - nowNanos));
+            }
+        }
+        return new SolverQueueStatus(getSolverStatus(tenantId), null, null);
+    }
+
+    // Starts the waiting jobs while solvers are free, then preempts a running job for each job that still waits
+    private void dispatch() {
+        List<SolverJob> startedJobList = new ArrayList<>();
+        List<SolverJob> preemptedJobList = new ArrayList<>();
+        synchronized (this) {
+            long nowNanos = System.nanoTime();
+            List<SolverJob> waitingJobList = new ArrayList<>();
+            int runningThreadCount = tenantIdToRunningJobMap.values().stream().mapToInt(job -> job.threadCount).sum();
+            // Once a job doesn't fit, the jobs after it wait too, so fewer threads don't starve it
+            boolean fits = true;
+            for (SolverJob job : sortedQueue()) {
+                if (tenantIdToRunningJobMap.containsKey(job.tenantId)) {
+                    waitingJobList.add(job);
+                    continue;
+                }
+                fits = fits && tenantIdToRunningJobMap.size() < concurrentSolveLimit
+                        && (tenantIdToRunningJobMap.isEmpty() || runningThreadCount + job.threadCount <= threadLimit);
+                if (fits) {
+                    queue.remove(job);
+                    job.startNanos = nowNanos;
+                    // As if the unimproved time of its previous slices just passed
+                    job.unimprovedSinceNanos = nowNanos - job.unimprovedNanos;
+                    tenantIdToRunningJobMap.put(job.tenantId, job);
+                    runningThreadCount += job.threadCount;
+                    startedJobList.add(job);
+                } else {
+                    waitingJobList.add(job);
+                }
+            }
+            // The jobs already preempted free a solver soon, the jobs after them need one preempted each
+            long preemptedCount = tenantIdToRunningJobMap.values().stream().filter(job -> job.preempted).count();
+            for (SolverJob waitingJob : waitingJobList.subList((int) Math.min(preemptedCount, waitingJobList.size()),
+                    waitingJobList.size())) {
+                SolverJob preemptedJob = null;
+                for (SolverJob runningJob : tenantIdToRunningJobMap.values()) {
+                    if (runningJob.preempted || runningJob.jobType != JobType.BATCH
+                            || runningJob.tenantId.equals(waitingJob.tenantId)
+                            || (waitingJob.jobType == JobType.BATCH
+                                    && nowNanos - runningJob.startNanos < sliceNanos(runningJob))) {
+                        continue;
+                    }
+                    // The one that used the most of its slice
+                    if (preemptedJob == null || (nowNanos - runningJob.startNanos) / runningJob.priority
+                            > (nowNanos - preemptedJob.startNanos) / preemptedJob.priority) {
+                        preemptedJob = runningJob;
+                    }
+                }
+                if (preemptedJob == null) {
+                    break;
+                }
+                preemptedJob.preempted = true;
+                preemptedJobList.add(preemptedJob);
+            }
+        }
+        for (SolverJob job : startedJobList) {
+            if (job.jobType == JobType.BATCH) {
+                executorService.schedule(this::dispatch, sliceNanos(job), TimeUnit.NANOSECONDS);
+            }
+            try {
+                job.starter.accept(job.buildSliceSolverProfile());
+            } catch (RuntimeException e) {
+                LOGGER.error("Failed to start solving the roster with tenantId ({}).", job.tenantId, e);
+                finish(job.tenantId);
+            }
+        }
+        for (SolverJob job : preemptedJobList) {
+            LOGGER.info("Preempting the solver of the roster with tenantId ({}).", job.tenantId);
+            solverManager.terminateEarly(job.tenantId);
+        }
+    }
+
+    // Must be called while holding the lock of this
+    private List<SolverJob> sortedQueue() {
+        List<SolverJob> sortedQueue = new ArrayList<>(queue);
+        sortedQueue.sort(QUEUE_COMPARATOR);
+        return sortedQueue;
+    }
+
+    private long sliceNanos(SolverJob job) {
+        return timeSliceNanos * job.priority;
+    }
+
+    private long estimateSliceNanos(SolverJob job) {
+        long sliceNanos = sliceNanos(job);
+        if (job.secondsSpentLimit != null) {
+            sliceNanos = Math.min(sliceNanos, TimeUnit.SECONDS.toNanos(job.secondsSpentLimit) - job.spentNanos);
+        }
+        return sliceNanos;
+    }
+
+    private static boolean isUsedUp(Long secondsLimit, long usedNanos) {
+        return secondsLimit != null && remainingSeconds(secondsLimit, usedNanos) < 1L;
+    }
+
+    // Rounded down, so a continued job never solves longer than its limit
+    private static Long remainingSeconds(Long secondsLimit, long usedNanos) {
+        return (secondsLimit == null) ? null
+                : TimeUnit.NANOSECONDS.toSeconds(TimeUnit.SECONDS.toNanos(secondsLimit) - usedNanos);
+    }
+
+    private static int earliestSlot(long[] freeNanos) {
+        int earliestSlot = 0;
+        for (int i = 1; i < freeNanos.length; i++) {
+            if (freeNanos[i] < freeNanos[earliestSlot]) {
+                earliestSlot = i;
+            }
+        }
+        return earliestSlot;
+    }
+
+    private static final class SolverJob {
+
+        private final Integer tenantId;
+        private final JobType jobType;
+        private final int priority;
+        private final Long secondsSpentLimit;
+        private final Long unimprovedSecondsSpentLimit;
+        private final SolverProfile solverProfile;
+        // Its solver thread and its move threads
+        private final int threadCount;
+        private final Consumer<SolverProfile> starter;
+        // Guarded by the lock of the scheduler
+        private long sequence;
+        private long startNanos;
+        private boolean preempted = false;
+        // The time solved in its previous slices, and the time solved without improving at the end of them
+        private long spentNanos = 0L;
+        private long unimprovedNanos = 0L;
+        private long unimprovedSinceNanos;
+
+        private SolverJob(Integer tenantId, JobType jobType, SolverProfile solverProfile, int threadCount,
+                Consumer<SolverProfile> starter) {
+            this.tenantId = tenantId;
+            this.jobType = jobType;
+            this.priority = (solverProfile == null) ? 1 : solverProfile.getPriority();
+            this.secondsSpentLimit = (solverProfile == null) ? null : solverProfile.getSecondsSpentLimit();
+            this.unimprovedSecondsSpentLimit = (solverProfile == null) ? null
+                    : solverProfile.getUnimprovedSecondsSpentLimit();
+            this.solverProfile = solverProfile;
+            this.threadCount = threadCount;
+            this.starter = starter;
+        }
+
+        // The time it used only changes between its slices, so this is called without the lock of the scheduler
+        private SolverProfile buildSliceSolverProfile() {
+            if (solverProfile == null) {
+                return null;
+            }
+            SolverProfile sliceSolverProfile = new SolverProfile(tenantId);
+            sliceSolverProfile.setSecondsSpentLimit(remainingSeconds(secondsSpentLimit, spentNanos));
+            sliceSolverProfile.setUnimprovedSecondsSpentLimit(remainingSeconds(unimprovedSecondsSpentLimit,
+                    unimprovedNanos));
+            sliceSolverProfile.setBestScoreLimit(solverProfile.getBestScoreLimit());
+            sliceSolverProfile.setMoveThreadCount(solverProfile.getMoveThreadCount());
+            sliceSolverProfile.setPriority(solverProfile.getPriority());
+            sliceSolverProfile.setPhaseList(new ArrayList<>(solverProfile.getPhaseList()));
+            return sliceSolverProfile;
+        }
+    }
+}
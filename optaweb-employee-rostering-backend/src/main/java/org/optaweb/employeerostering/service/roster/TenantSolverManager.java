@@ -0,0 +1,252 @@
+package org.optaweb.employeerostering.service.roster;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.optaplanner.core.api.solver.SolverManager;
+import org.optaplanner.core.api.solver.SolverStatus;
+import org.optaplanner.core.api.solver.change.ProblemChange;
+import org.optaplanner.core.config.constructionheuristic.ConstructionHeuristicPhaseConfig;
+import org.optaplanner.core.config.localsearch.LocalSearchPhaseConfig;
+import org.optaplanner.core.config.partitionedsearch.PartitionedSearchPhaseConfig;
+import org.optaplanner.core.config.phase.PhaseConfig;
+import org.optaplanner.core.config.phase.custom.CustomPhaseConfig;
+import org.optaplanner.core.config.solver.SolverConfig;
+import org.optaplanner.core.config.solver.SolverManagerConfig;
+import org.optaplanner.core.config.solver.termination.TerminationConfig;
+import org.optaweb.employeerostering.domain.roster.Roster;
+import org.optaweb.employeerostering.domain.tenant.SolverPhase;
+import org.optaweb.employeerostering.domain.tenant.SolverProfile;
+
+/**
+ * Solves each tenant with its own {@link SolverProfile}, resolved into an override of the application's solver config:
+ * <ul>
+ * <li>Its termination replaces the application's one, if it has any termination property.</li>
+ * <li>Its move thread count replaces the {@value #MOVE_THREAD_COUNT_PROPERTY} of the application.</li>
+ * <li>Its phase list replaces the phases, each phase configured as the one of the same kind in the application's
+ * solver config, or for a partitioned search in {@value #PARTITIONED_SOLVER_CONFIG_RESOURCE}.</li>
+ * </ul>
+ * Every distinct resolved profile in use gets its own {@link SolverManager}, so tenants with the same profile share it.
+ * Once no tenant uses a solver manager anymore, because they all solved with another profile since, it is closed,
+ * so editing profiles doesn't leave idle solver threads behind.
+ */
+@ApplicationScoped
+public class TenantSolverManager {
+
+    public static final String MOVE_THREAD_COUNT_PROPERTY = "optaweb.solver.move-thread-count";
+    public static final String PARTITIONED_SOLVER_CONFIG_RESOURCE = "partitionedSolverConfig.xml";
+
+    private static final Pattern MOVE_THREAD_COUNT_PATTERN = Pattern.compile(SolverProfile.MOVE_THREAD_COUNT_REGEX);
+
+    private final SolverConfig solverConfig;
+    private final SolverManagerConfig solverManagerConfig;
+    private final String defaultMoveThreadCount;
+    private final List<PhaseConfig> partitionedPhaseConfigList;
+
+    // Keyed by the resolved profile, see solverProfileKey(SolverProfile)
+    private final Map<List<Object>, SolverManager<Roster, Integer>> solverProfileKeyToSolverManagerMap =
+            new ConcurrentHashMap<>();
+    // The solver manager each tenant was last solved with, so its solver can be reached while it is solving
+    private final Map<Integer, SolverManager<Roster, Integer>> tenantIdToSolverManagerMap = new ConcurrentHashMap<>();
+
+    @Inject
+    public TenantSolverManager(SolverConfig solverConfig, SolverManagerConfig solverManagerConfig,
+            @ConfigProperty(name = MOVE_THREAD_COUNT_PROPERTY, defaultValue = "NONE") String defaultMoveThreadCount) {
+        if (!MOVE_THREAD_COUNT_PATTERN.matcher(defaultMoveThreadCount).matches()) {
+            throw new IllegalStateException("The property (" + MOVE_THREAD_COUNT_PROPERTY
+                    + ") has an invalid value (" + defaultMoveThreadCount + ").");
+        }
+        this.solverConfig = solverConfig;
+        this.solverManagerConfig = solverManagerConfig;
+        this.defaultMoveThreadCount = defaultMoveThreadCount;
+        partitionedPhaseConfigList = SolverConfig.createFromXmlResource(PARTITIONED_SOLVER_CONFIG_RESOURCE,
+                getClass().getClassLoader()).getPhaseConfigList();
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        solverProfileKeyToSolverManagerMap.values().forEach(SolverManager::close);
+    }
+
+    /**
+     * @param moveThreadCount sometimes null, see {@link SolverProfile#getMoveThreadCount()}
+     * @return never null, the move thread count a tenant with that override solves with
+     */
+    public String resolveMoveThreadCount(String moveThreadCount) {
+        return (moveThreadCount == null) ? defaultMoveThreadCount : moveThreadCount;
+    }
+
+    /**
+     * @param solverProfile sometimes null
+     * @return at least 0, the number of move threads a tenant with that profile solves with, besides its solver thread
+     */
+    public int resolveMoveThreadNumber(SolverProfile solverProfile) {
+        String moveThreadCount = resolveMoveThreadCount((solverProfile == null) ? null
+                : solverProfile.getMoveThreadCount());
+        if (moveThreadCount.equals(SolverConfig.MOVE_THREAD_COUNT_NONE)) {
+            return 0;
+        }
+        if (moveThreadCount.equals(SolverConfig.MOVE_THREAD_COUNT_AUTO)) {
+            // As OptaPlanner resolves it: one processor for the operating system, one for the solver thread, at most 4
+            int autoMoveThreadCount = Math.min(Runtime.getRuntime().availableProcessors() - 2, 4);
+            return (autoMoveThreadCount <= 1) ? 0 : autoMoveThreadCount;
+        }
+        return Integer.parseInt(moveThreadCount);
+    }
+
+    /**
+     * As {@link SolverManager#solveAndListen(Object, Function, Consumer, Consumer, BiConsumer)}.
+     * @param tenantId never null
+     * @param solverProfile sometimes null, then the tenant solves with the application's solver config
+     * @param problemFinder never null
+     * @param bestSolutionConsumer never null
+     * @param finalBestSolutionConsumer never null
+     * @param exceptionHandler never null
+     * @throws IllegalStateException if the tenant is already solving
+     */
+    public synchronized void solveAndListen(Integer tenantId, SolverProfile solverProfile,
+            Function<Integer, Roster> problemFinder, Consumer<Roster> bestSolutionConsumer,
+            Consumer<Roster> finalBestSolutionConsumer, BiConsumer<Integer, Throwable> exceptionHandler) {
+        SolverManager<Roster, Integer> solverManager = solverProfileKeyToSolverManagerMap.computeIfAbsent(
+                solverProfileKey(solverProfile),
+                key -> SolverManager.create(buildSolverConfig(solverProfile), solverManagerConfig));
+        SolverManager<Roster, Integer> oldSolverManager = tenantIdToSolverManagerMap.get(tenantId);
+        // The same solver manager refuses a second solve itself, another one would not know about the first
+        if (oldSolverManager != null && oldSolverManager != solverManager
+                && oldSolverManager.getSolverStatus(tenantId) != SolverStatus.NOT_SOLVING) {
+            closeIfUnused(solverManager);
+            throw new IllegalStateException("The tenantId (" + tenantId + ") is already solving.");
+        }
+        try {
+            solverManager.solveAndListen(tenantId, problemFinder, bestSolutionConsumer, finalBestSolutionConsumer,
+                    exceptionHandler);
+        } catch (RuntimeException e) {
+            closeIfUnused(solverManager);
+            throw e;
+        }
+        tenantIdToSolverManagerMap.put(tenantId, solverManager);
+        if (oldSolverManager != null && oldSolverManager != solverManager) {
+            closeIfUnused(oldSolverManager);
+        }
+    }
+
+    // Must be called while holding the lock of this, so no solve picks it up in the meantime
+    private void closeIfUnused(SolverManager<Roster, Integer> solverManager) {
+        if (!tenantIdToSolverManagerMap.containsValue(solverManager)) {
+            solverProfileKeyToSolverManagerMap.values().remove(solverManager);
+            solverManager.close();
+        }
+    }
+
+    /**
+     * As {@link SolverManager#getSolverStatus(Object)}.
+     * @param tenantId never null
+     * @return never null
+     */
+    public SolverStatus getSolverStatus(Integer tenantId) {
+        SolverManager<Roster, Integer> solverManager = tenantIdToSolverManagerMap.get(tenantId);
+        return (solverManager == null) ? SolverStatus.NOT_SOLVING : solverManager.getSolverStatus(tenantId);
+    }
+
+    /**
+     * As {@link SolverManager#addProblemChange(Object, ProblemChange)}.
+     * @param tenantId never null
+     * @param problemChange never null
+     * @return never null
+     * @throws IllegalStateException if the tenant is not solving
+     */
+    public CompletableFuture<Void> addProblemChange(Integer tenantId, ProblemChange<Roster> problemChange) {
+        SolverManager<Roster, Integer> solverManager = tenantIdToSolverManagerMap.get(tenantId);
+        if (solverManager == null) {
+            throw new IllegalStateException("The tenantId (" + tenantId + ") is not solving.");
+        }
+        return solverManager.addProblemChange(tenantId, problemChange);
+    }
+
+    /**
+     * As {@link SolverManager#terminateEarly(Object)}.
+     * @param tenantId never null
+     */
+    public void terminateEarly(Integer tenantId) {
+        SolverManager<Roster, Integer> solverManager = tenantIdToSolverManagerMap.get(tenantId);
+        if (solverManager != null) {
+            solverManager.terminateEarly(tenantId);
+        }
+    }
+
+    // Equal for the profiles that build the same solver config, whatever their tenant
+    private List<Object> solverProfileKey(SolverProfile solverProfile) {
+        if (solverProfile == null) {
+            return Arrays.asList(defaultMoveThreadCount, null, null, null, Collections.emptyList());
+        }
+        return Arrays.asList(resolveMoveThreadCount(solverProfile.getMoveThreadCount()),
+                solverProfile.getSecondsSpentLimit(), solverProfile.getUnimprovedSecondsSpentLimit(),
+                solverProfile.getBestScoreLimit(), new ArrayList<>(solverProfile.getPhaseList()));
+    }
+
+    private SolverConfig buildSolverConfig(SolverProfile solverProfile) {
+        if (solverProfile == null) {
+            return solverConfig.copyConfig().withMoveThreadCount(defaultMoveThreadCount);
+        }
+        SolverConfig tenantSolverConfig = solverConfig.copyConfig()
+                .withMoveThreadCount(resolveMoveThreadCount(solverProfile.getMoveThreadCount()));
+        if (solverProfile.getSecondsSpentLimit() != null || solverProfile.getUnimprovedSecondsSpentLimit() != null
+                || solverProfile.getBestScoreLimit() != null) {
+            tenantSolverConfig.setTerminationConfig(new TerminationConfig()
+                    .withSecondsSpentLimit(solverProfile.getSecondsSpentLimit())
+                    .withUnimprovedSecondsSpentLimit(solverProfile.getUnimprovedSecondsSpentLimit())
+                    .withBestScoreLimit(solverProfile.getBestScoreLimit()));
+        }
+        if (!solverProfile.getPhaseList().isEmpty()) {
+            List<PhaseConfig> phaseConfigList = new ArrayList<>(solverProfile.getPhaseList().size());
+            for (SolverPhase phase : solverProfile.getPhaseList()) {
+                phaseConfigList.add(resolvePhaseConfig(phase));
+            }
+            tenantSolverConfig.setPhaseConfigList(phaseConfigList);
+        }
+        return tenantSolverConfig;
+    }
+
+    private PhaseConfig resolvePhaseConfig(SolverPhase phase) {
+        switch (phase) {
+            case ROTATION_EMPLOYEE_SEEDING:
+                return findPhaseConfig(solverConfig.getPhaseConfigList(), CustomPhaseConfig.class, phase);
+            case CONSTRUCTION_HEURISTIC:
+                return findPhaseConfig(solverConfig.getPhaseConfigList(), ConstructionHeuristicPhaseConfig.class,
+                        phase);
+            case PARTITIONED_SEARCH:
+                return findPhaseConfig(partitionedPhaseConfigList, PartitionedSearchPhaseConfig.class, phase);
+            case LOCAL_SEARCH:
+                return findPhaseConfig(solverConfig.getPhaseConfigList(), LocalSearchPhaseConfig.class, phase);
+            default:
+                throw new IllegalStateException("The phase (" + phase + ") is not implemented.");
+        }
+    }
+
+    private static PhaseConfig findPhaseConfig(List<PhaseConfig> phaseConfigList,
+            Class<? extends PhaseConfig> phaseConfigClass, SolverPhase phase) {
+        if (phaseConfigList != null) {
+            for (PhaseConfig phaseConfig : phaseConfigList) {
+                if (phaseConfigClass.isInstance(phaseConfig)) {
+                    return phaseConfig.copyConfig();
+                }
+            }
+        }
+        throw new IllegalStateException("The phase (" + phase + ") has no " + phaseConfigClass.getSimpleName()
+                + " in the solver config to configure it with.");
+    }
+}
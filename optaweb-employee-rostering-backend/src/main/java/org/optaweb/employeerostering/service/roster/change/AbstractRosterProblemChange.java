@@ -0,0 +1,91 @@
+package org.optaweb.employeerostering.service.roster.change;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.optaplanner.core.api.solver.change.ProblemChange;
+import org.optaplanner.core.api.solver.change.ProblemChangeDirector;
+import org.optaweb.employeerostering.domain.employee.Employee;
+import org.optaweb.employeerostering.domain.employee.EmployeeAvailabilityIndex;
+import org.optaweb.employeerostering.domain.roster.HistoricWorkingTime;
+import org.optaweb.employeerostering.domain.roster.Roster;
+import org.optaweb.employeerostering.domain.skill.Skill;
+import org.optaweb.employeerostering.domain.spot.Spot;
+
+/**
+ * Base class of the changes submitted to a running solver when a shift or an availability is edited.
+ * The changed objects are detached copies in the tenant's time zone, so any reference they hold must be replaced by
+ * its working object before it is put in the working solution.
+ * The problem facts and fact lists of the working solution are shared with the best solution clones,
+ * so a change replaces them instead of modifying them.
+ * Every change is idempotent, since the solver might have loaded the roster after the edit was committed.
+ */
+abstract class AbstractRosterProblemChange implements ProblemChange<Roster> {
+
+    /**
+     * @param workingSolution never null
+     * @param problemChangeDirector never null
+     * @param employee sometimes null
+     * @return null if employee is null, otherwise the working employee, which is added to the employee list
+     * (and hence to the value range) if the employee was created after solving started
+     */
+    protected static Employee lookUpOrAddEmployee(Roster workingSolution, ProblemChangeDirector problemChangeDirector,
+            Employee employee) {
+        if (employee == null) {
+            return null;
+        }
+        return problemChangeDirector.lookUpWorkingObject(employee).orElseGet(() -> {
+            problemChangeDirector.addProblemFact(employee, workingEmployee -> {
+                // The employee list might be shared with best solution clones, so never modify it
+                List<Employee> employeeList = new ArrayList<>(workingSolution.getEmployeeList());
+                employeeList.add(workingEmployee);
+                workingSolution.setEmployeeList(employeeList);
+            });
+            return employee;
+        });
+    }
+
+    /**
+     * Replaces the availability index of the working solution with one of its current availabilities,
+     * so the availability constraints see the availabilities that were added, changed or removed.
+     * @param workingSolution never null
+     * @param problemChangeDirector never null
+     */
+    protected static void reindexEmployeeAvailabilities(Roster workingSolution,
+            ProblemChangeDirector problemChangeDirector) {
+        problemChangeDirector.removeProblemFact(workingSolution.getEmployeeAvailabilityIndex(),
+                removedEmployeeAvailabilityIndex -> workingSolution.setEmployeeAvailabilityIndex(null));
+        problemChangeDirector.addProblemFact(
+                new EmployeeAvailabilityIndex(workingSolution.getEmployeeAvailabilityList()),
+                workingSolution::setEmployeeAvailabilityIndex);
+    }
+
+    /**
+     * Replaces the historic working time of the working solution with a modified copy.
+     * @param workingSolution never null
+     * @param problemChangeDirector never null
+     * @param modifier never null, applied to the copy
+     */
+    protected static void replaceHistoricWorkingTime(Roster workingSolution,
+            ProblemChangeDirector problemChangeDirector, Consumer<HistoricWorkingTime> modifier) {
+        HistoricWorkingTime historicWorkingTime = new HistoricWorkingTime(workingSolution.getHistoricWorkingTime());
+        modifier.accept(historicWorkingTime);
+        problemChangeDirector.removeProblemFact(workingSolution.getHistoricWorkingTime(),
+                removedHistoricWorkingTime -> workingSolution.setHistoricWorkingTime(null));
+        problemChangeDirector.addProblemFact(historicWorkingTime, workingSolution::setHistoricWorkingTime);
+    }
+
+    protected static Spot lookUpSpot(ProblemChangeDirector problemChangeDirector, Spot spot) {
+        // Spots are compared by id, so a spot created after solving started can be used as is
+        return problemChangeDirector.lookUpWorkingObject(spot).orElse(spot);
+    }
+
+    protected static Set<Skill> lookUpSkillSet(ProblemChangeDirector problemChangeDirector, Set<Skill> skillSet) {
+        return skillSet.stream()
+                .map(skill -> problemChangeDirector.lookUpWorkingObject(skill).orElse(skill))
+                .collect(Collectors.toSet());
+    }
+}
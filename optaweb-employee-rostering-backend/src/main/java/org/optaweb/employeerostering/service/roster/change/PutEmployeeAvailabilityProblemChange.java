@@ -0,0 +1,50 @@
+package org.optaweb.employeerostering.service.roster.change;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.optaplanner.core.api.solver.change.ProblemChangeDirector;
+import org.optaweb.employeerostering.domain.employee.Employee;
+import org.optaweb.employeerostering.domain.employee.EmployeeAvailability;
+import org.optaweb.employeerostering.domain.roster.Roster;
+
+/**
+ * Adds a created availability to the working solution, or replaces an updated one.
+ */
+public class PutEmployeeAvailabilityProblemChange extends AbstractRosterProblemChange {
+
+    private final EmployeeAvailability employeeAvailability;
+
+    /**
+     * @param employeeAvailability never null, a copy already converted to the tenant's time zone,
+     * it must not be modified afterwards
+     */
+    public PutEmployeeAvailabilityProblemChange(EmployeeAvailability employeeAvailability) {
+        this.employeeAvailability = employeeAvailability;
+    }
+
+    @Override
+    public void doChange(Roster workingSolution, ProblemChangeDirector problemChangeDirector) {
+        Employee employee = lookUpOrAddEmployee(workingSolution, problemChangeDirector,
+                employeeAvailability.getEmployee());
+
+        // The working availability is replaced instead of changed, since it is shared with the best solution clones
+        problemChangeDirector.lookUpWorkingObject(employeeAvailability)
+                .ifPresent(workingEmployeeAvailability -> problemChangeDirector.removeProblemFact(
+                        workingEmployeeAvailability, removedEmployeeAvailability -> {
+                            List<EmployeeAvailability> employeeAvailabilityList =
+                                    new ArrayList<>(workingSolution.getEmployeeAvailabilityList());
+                            employeeAvailabilityList.remove(removedEmployeeAvailability);
+                            workingSolution.setEmployeeAvailabilityList(employeeAvailabilityList);
+                        }));
+        employeeAvailability.setEmployee(employee);
+        problemChangeDirector.addProblemFact(employeeAvailability, newEmployeeAvailability -> {
+            // The fact list might be shared with best solution clones, so never modify it
+            List<EmployeeAvailability> employeeAvailabilityList =
+                    new ArrayList<>(workingSolution.getEmployeeAvailabilityList());
+            employeeAvailabilityList.add(newEmployeeAvailability);
+            workingSolution.setEmployeeAvailabilityList(employeeAvailabilityList);
+        });
+        reindexEmployeeAvailabilities(workingSolution, problemChangeDirector);
+    }
+}
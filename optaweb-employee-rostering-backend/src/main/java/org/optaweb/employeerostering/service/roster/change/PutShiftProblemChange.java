@@ -0,0 +1,104 @@
+package org.optaweb.employeerostering.service.roster.change;
+
+import java.util.Objects;
+import java.util.Optional;
+
+import org.optaplanner.core.api.solver.change.ProblemChangeDirector;
+import org.optaweb.employeerostering.domain.employee.Employee;
+import org.optaweb.employeerostering.domain.roster.HistoricWorkingTime;
+import org.optaweb.employeerostering.domain.roster.Roster;
+import org.optaweb.employeerostering.domain.shift.Shift;
+
+/**
+ * Adds a created shift to the working solution, or applies the edits of an updated one.
+ * A shift that is moved across the horizon of the working solution is moved between its shift list
+ * and its {@link HistoricWorkingTime}.
+ * The minutes of a shift that stays outside the horizon are not updated, since the change cannot tell
+ * whether the solver loaded the roster before or after the edit was committed.
+ */
+public class PutShiftProblemChange extends AbstractRosterProblemChange {
+
+    private final Shift shift;
+    private final Shift previousShift;
+
+    /**
+     * @param shift never null, a copy of a created shift already converted to the tenant's time zone,
+     * it must not be modified afterwards
+     */
+    public PutShiftProblemChange(Shift shift) {
+        this(shift, null);
+    }
+
+    /**
+     * @param shift never null, a copy already converted to the tenant's time zone, it must not be modified afterwards
+     * @param previousShift null if the shift is created, otherwise a copy of the shift before the edit,
+     * converted to the tenant's time zone
+     */
+    public PutShiftProblemChange(Shift shift, Shift previousShift) {
+        this.shift = shift;
+        this.previousShift = previousShift;
+    }
+
+    @Override
+    public void doChange(Roster workingSolution, ProblemChangeDirector problemChangeDirector) {
+        Employee employee = lookUpOrAddEmployee(workingSolution, problemChangeDirector, shift.getEmployee());
+        Employee rotationEmployee = lookUpOrAddEmployee(workingSolution, problemChangeDirector,
+                shift.getRotationEmployee());
+        Employee originalEmployee = lookUpOrAddEmployee(workingSolution, problemChangeDirector,
+                shift.getOriginalEmployee());
+
+        Optional<Shift> workingShift = problemChangeDirector.lookUpWorkingObject(shift);
+        boolean isOutsideHorizon = workingSolution.getHistoricWorkingTime().isOutsideHorizon(shift);
+        if (!workingShift.isPresent() && isOutsideHorizon) {
+            // Left out of the working solution with the other shifts outside its horizon
+            return;
+        }
+        if (workingShift.isPresent() && isOutsideHorizon) {
+            // Moved out of the horizon, so only its minutes are left in the working solution
+            problemChangeDirector.removeEntity(workingShift.get(),
+                    removedShift -> workingSolution.getShiftList().remove(removedShift));
+            if (employee != null) {
+                replaceHistoricWorkingTime(workingSolution, problemChangeDirector,
+                        historicWorkingTime -> historicWorkingTime.addShift(employee.getId(),
+                                shift.getStartDateTime(), shift.getEndDateTime()));
+            }
+            return;
+        }
+        if (!workingShift.isPresent()) {
+            if (previousShift != null && previousShift.getEmployee() != null
+                    && workingSolution.getHistoricWorkingTime().isOutsideHorizon(previousShift)) {
+                // Moved into the horizon, so its previous minutes are no longer historic
+                replaceHistoricWorkingTime(workingSolution, problemChangeDirector,
+                        historicWorkingTime -> historicWorkingTime.removeShift(previousShift.getEmployee().getId(),
+                                previousShift.getStartDateTime(), previousShift.getEndDateTime()));
+            }
+            shift.setSpot(lookUpSpot(problemChangeDirector, shift.getSpot()));
+            shift.setRequiredSkillSet(lookUpSkillSet(problemChangeDirector, shift.getRequiredSkillSet()));
+            shift.setRotationEmployee(rotationEmployee);
+            shift.setOriginalEmployee(originalEmployee);
+            shift.setEmployee(employee);
+            shift.setWeekStartDay(workingSolution.getRosterConstraintConfiguration().getWeekStartDay());
+            problemChangeDirector.addEntity(shift, newShift -> workingSolution.getShiftList().add(newShift));
+            return;
+        }
+
+        problemChangeDirector.changeProblemProperty(workingShift.get(), changedShift -> {
+            changedShift.setSpot(lookUpSpot(problemChangeDirector, shift.getSpot()));
+            changedShift.setStartDateTime(shift.getStartDateTime());
+            changedShift.setEndDateTime(shift.getEndDateTime());
+            changedShift.setRequiredSkillSet(lookUpSkillSet(problemChangeDirector, shift.getRequiredSkillSet()));
+            changedShift.setRotationEmployee(rotationEmployee);
+            changedShift.setOriginalEmployee(originalEmployee);
+            changedShift.setPinnedByUser(shift.isPinnedByUser());
+            changedShift.setVersion(shift.getVersion());
+        });
+        if (!Objects.equals(getId(workingShift.get().getEmployee()), getId(employee))) {
+            problemChangeDirector.changeVariable(workingShift.get(), "employee",
+                    changedShift -> changedShift.setEmployee(employee));
+        }
+    }
+
+    private static Long getId(Employee employee) {
+        return (employee == null) ? null : employee.getId();
+    }
+}
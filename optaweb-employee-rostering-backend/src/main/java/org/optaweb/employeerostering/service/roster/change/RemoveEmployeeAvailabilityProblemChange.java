@@ -0,0 +1,39 @@
+package org.optaweb.employeerostering.service.roster.change;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.optaplanner.core.api.solver.change.ProblemChangeDirector;
+import org.optaweb.employeerostering.domain.employee.EmployeeAvailability;
+import org.optaweb.employeerostering.domain.roster.Roster;
+
+/**
+ * Removes a deleted availability from the working solution.
+ */
+public class RemoveEmployeeAvailabilityProblemChange extends AbstractRosterProblemChange {
+
+    private final EmployeeAvailability employeeAvailability;
+
+    /**
+     * @param employeeAvailability never null, only its id is used
+     */
+    public RemoveEmployeeAvailabilityProblemChange(EmployeeAvailability employeeAvailability) {
+        this.employeeAvailability = employeeAvailability;
+    }
+
+    @Override
+    public void doChange(Roster workingSolution, ProblemChangeDirector problemChangeDirector) {
+        problemChangeDirector.lookUpWorkingObject(employeeAvailability)
+                .ifPresent(workingEmployeeAvailability -> {
+                    problemChangeDirector.removeProblemFact(workingEmployeeAvailability,
+                            removedEmployeeAvailability -> {
+                                // The fact list might be shared with best solution clones, so never modify it
+                                List<EmployeeAvailability> employeeAvailabilityList =
+                                        new ArrayList<>(workingSolution.getEmployeeAvailabilityList());
+                                employeeAvailabilityList.remove(removedEmployeeAvailability);
+                                workingSolution.setEmployeeAvailabilityList(employeeAvailabilityList);
+                            });
+                    reindexEmployeeAvailabilities(workingSolution, problemChangeDirector);
+                });
+    }
+}
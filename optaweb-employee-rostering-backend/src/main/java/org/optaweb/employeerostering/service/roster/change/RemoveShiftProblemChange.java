@@ -0,0 +1,27 @@
+package org.optaweb.employeerostering.service.roster.change;
+
+import org.optaplanner.core.api.solver.change.ProblemChangeDirector;
+import org.optaweb.employeerostering.domain.roster.Roster;
+import org.optaweb.employeerostering.domain.shift.Shift;
+
+/**
+ * Removes a deleted shift from the working solution.
+ */
+public class RemoveShiftProblemChange extends AbstractRosterProblemChange {
+
+    private final Shift shift;
+
+    /**
+     * @param shift never null, only its id is used
+     */
+    public RemoveShiftProblemChange(Shift shift) {
+        this.shift = shift;
+    }
+
+    @Override
+    public void doChange(Roster workingSolution, ProblemChangeDirector problemChangeDirector) {
+        problemChangeDirector.lookUpWorkingObject(shift)
+                .ifPresent(workingShift -> problemChangeDirector.removeEntity(workingShift,
+                        removedShift -> workingSolution.getShiftList().remove(removedShift)));
+    }
+}
@@ -1,8 +1,12 @@
 package org.optaweb.employeerostering.service.shift;
 
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.enterprise.context.ApplicationScoped;
@@ -34,6 +38,67 @@ public class ShiftRepository implements PanacheRepository<Shift> {
                 tenantId, startDateTime, endDateTime).list();
     }
 
+    /**
+     * @return never null, the id of the employee of each shift of the tenant, or null if the shift is unassigned
+     */
+    public Map<Long, Long> findShiftIdToEmployeeIdMapByTenantId(Integer tenantId) {
+        List<Object[]> shiftIdAndEmployeeIdList = getEntityManager()
+                .createQuery("select s.id, e.id from Shift s left join s.employee e where s.tenantId = ?1",
+                        Object[].class)
+                .setParameter(1, tenantId)
+                .getResultList();
+        Map<Long, Long> out = new HashMap<>(shiftIdAndEmployeeIdList.size());
+        for (Object[] shiftIdAndEmployeeId : shiftIdAndEmployeeIdList) {
+            out.put((Long) shiftIdAndEmployeeId[0], (Long) shiftIdAndEmployeeId[1]);
+        }
+        return out;
+    }
+
+    /**
+     * @return never null, the start and end date time of each assigned shift of the employees that starts in the
+     * interval, without loading the shifts
+     */
+    public Map<Long, List<OffsetDateTime[]>> findEmployeeIdToShiftIntervalListMapByTenantIdStartingBetween(
+            Integer tenantId, OffsetDateTime fromDateTime, OffsetDateTime toDateTime) {
+        List<Object[]> employeeIdAndIntervalList = getEntityManager()
+                .createQuery("select e.id, s.startDateTime, s.endDateTime from Shift s join s.employee e"
+                        + " where s.tenantId = ?1 and s.startDateTime >= ?2 and s.startDateTime < ?3",
+                        Object[].class)
+                .setParameter(1, tenantId)
+                .setParameter(2, fromDateTime)
+                .setParameter(3, toDateTime)
+                .getResultList();
+        Map<Long, List<OffsetDateTime[]>> out = new HashMap<>();
+        for (Object[] employeeIdAndInterval : employeeIdAndIntervalList) {
+            out.computeIfAbsent((Long) employeeIdAndInterval[0], k -> new ArrayList<>())
+                    .add(new OffsetDateTime[] { (OffsetDateTime) employeeIdAndInterval[1],
+                            (OffsetDateTime) employeeIdAndInterval[2] });
+        }
+        return out;
+    }
+
+    public List<Shift> findAllByTenantIdStartingFrom(Integer tenantId, OffsetDateTime fromDateTime) {
+        return find("tenantId = ?1 and startDateTime >= ?2", Sort.ascending("startDateTime", "spot.name"),
+                tenantId, fromDateTime).list();
+    }
+
+    public List<Shift> findAllByTenantIdStartingBetween(Integer tenantId, OffsetDateTime fromDateTime,
+            OffsetDateTime toDateTime) {
+        return find("tenantId = ?1 and startDateTime >= ?2 and startDateTime < ?3",
+                Sort.ascending("startDateTime", "spot.name"), tenantId, fromDateTime, toDateTime).list();
+    }
+
+    /**
+     * @return sorted by id, so flushing changes to them sends the updates in a consistent order
+     */
+    public List<Shift> findAllByTenantIdAndIds(Integer tenantId, Collection<Long> idCollection) {
+        // Panache doesn't like empty parameters
+        if (idCollection.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return find("tenantId = ?1 and id in ?2", Sort.ascending("id"), tenantId, idCollection).list();
+    }
+
     public void deleteForTenant(Integer tenantId) {
         delete("tenantId", tenantId);
     }
@@ -1,8 +1,8 @@
 package org.optaweb.employeerostering.service.shift;
 
+import java.time.ZoneId;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -13,8 +13,6 @@ import javax.persistence.EntityNotFoundException;
 import javax.transaction.Transactional;
 import javax.validation.Validator;
 
-import org.optaplanner.core.api.score.buildin.hardmediumsoftlong.HardMediumSoftLongScore;
-import org.optaplanner.core.api.score.constraint.Indictment;
 import org.optaweb.employeerostering.domain.employee.Employee;
 import org.optaweb.employeerostering.domain.shift.Shift;
 import org.optaweb.employeerostering.domain.shift.view.ShiftView;
@@ -22,9 +20,13 @@ import org.optaweb.employeerostering.domain.skill.Skill;
 import org.optaweb.employeerostering.domain.spot.Spot;
 import org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration;
 import org.optaweb.employeerostering.service.common.AbstractRestService;
+import org.optaweb.employeerostering.service.common.IndictmentIndex;
 import org.optaweb.employeerostering.service.common.IndictmentUtils;
 import org.optaweb.employeerostering.service.employee.EmployeeRepository;
+import org.optaweb.employeerostering.service.roster.RosterCache;
 import org.optaweb.employeerostering.service.roster.RosterService;
+import org.optaweb.employeerostering.service.roster.change.PutShiftProblemChange;
+import org.optaweb.employeerostering.service.roster.change.RemoveShiftProblemChange;
 import org.optaweb.employeerostering.service.skill.SkillService;
 import org.optaweb.employeerostering.service.spot.SpotRepository;
 import org.optaweb.employeerostering.service.tenant.RosterConstraintConfigurationRepository;
@@ -46,13 +48,16 @@ public class ShiftService extends AbstractRestService {
 
     IndictmentUtils indictmentUtils;
 
+    RosterCache rosterCache;
+
     @Inject
     public ShiftService(Validator validator,
             ShiftRepository shiftRepository, SpotRepository spotRepository,
             SkillService skillService, EmployeeRepository employeeRepository,
             RosterService rosterService,
             RosterConstraintConfigurationRepository rosterConstraintConfigurationRepository,
-            IndictmentUtils indictmentUtils) {
+            IndictmentUtils indictmentUtils,
+            RosterCache rosterCache) {
         super(validator);
         this.shiftRepository = shiftRepository;
         this.spotRepository = spotRepository;
@@ -61,16 +66,15 @@ public class ShiftService extends AbstractRestService {
         this.rosterService = rosterService;
         this.rosterConstraintConfigurationRepository = rosterConstraintConfigurationRepository;
         this.indictmentUtils = indictmentUtils;
+        this.rosterCache = rosterCache;
     }
 
     public List<ShiftView> getShiftList(Integer tenantId) {
-        Map<Object, Indictment<HardMediumSoftLongScore>> indictmentMap = indictmentUtils.getIndictmentMapForRoster(
-                rosterService.buildRoster(tenantId));
+        IndictmentIndex indictmentIndex = rosterService.getRosterIndictmentIndex(tenantId);
         RosterConstraintConfiguration configuration = rosterConstraintConfigurationRepository.findByTenantId(tenantId).get();
         return getAllShifts(tenantId).stream()
                 .map(s -> indictmentUtils.getShiftViewWithIndictment(
-                        rosterService.getRosterState(tenantId).getTimeZone(), s, configuration, indictmentMap.get(s),
-                        (s.getEmployee() != null) ? indictmentMap.get(s.getEmployee()) : null))
+                        rosterService.getRosterState(tenantId).getTimeZone(), s, configuration, indictmentIndex))
                 .collect(Collectors.toList());
     }
 
@@ -85,15 +89,11 @@ public class ShiftService extends AbstractRestService {
                 .orElseThrow(() -> new EntityNotFoundException("No Shift entity found with ID (" + id + ")."));
 
         validateBean(tenantId, shift);
-        Map<Object, Indictment<HardMediumSoftLongScore>> indictmentMap = indictmentUtils.getIndictmentMapForRoster(
-                rosterService.buildRoster(tenantId));
+        IndictmentIndex indictmentIndex = rosterService.getRosterIndictmentIndex(tenantId);
         RosterConstraintConfiguration configuration = rosterConstraintConfigurationRepository.findByTenantId(tenantId).get();
-        Indictment<HardMediumSoftLongScore> shiftIndictment = indictmentMap.get(shift);
-        Indictment<HardMediumSoftLongScore> employeeIndictment =
-                (shift.getEmployee() != null) ? indictmentMap.get(shift.getEmployee()) : null;
 
         return indictmentUtils.getShiftViewWithIndictment(rosterService.getRosterState(tenantId).getTimeZone(), shift,
-                configuration, shiftIndictment, employeeIndictment);
+                configuration, indictmentIndex);
     }
 
     private Shift convertFromView(Integer tenantId, ShiftView shiftView) {
@@ -157,15 +157,14 @@ public class ShiftService extends AbstractRestService {
     public ShiftView createShift(Integer tenantId, ShiftView shiftView) {
         Shift shift = convertFromView(tenantId, shiftView);
         shiftRepository.persist(shift);
+        ZoneId zoneId = rosterService.getRosterState(tenantId).getTimeZone();
+        rosterCache.putShift(tenantId, shift.inTimeZone(zoneId));
+        rosterService.addShiftProblemChange(tenantId, shift.getId(), new PutShiftProblemChange(shift.inTimeZone(zoneId)));
 
-        Map<Object, Indictment<HardMediumSoftLongScore>> indictmentMap = indictmentUtils.getIndictmentMapForRoster(
-                rosterService.buildRoster(tenantId));
+        IndictmentIndex indictmentIndex = rosterService.getShiftIndictmentIndex(tenantId, shift);
         RosterConstraintConfiguration configuration = rosterConstraintConfigurationRepository.findByTenantId(tenantId).get();
-        Indictment<HardMediumSoftLongScore> shiftIndictment = indictmentMap.get(shift);
-        Indictment<HardMediumSoftLongScore> employeeIndictment =
-                (shift.getEmployee() != null) ? indictmentMap.get(shift.getEmployee()) : null;
         return indictmentUtils.getShiftViewWithIndictment(rosterService.getRosterState(tenantId).getTimeZone(),
-                shift, configuration, shiftIndictment, employeeIndictment);
+                shift, configuration, indictmentIndex);
     }
 
     @Transactional
@@ -181,6 +180,8 @@ public class ShiftService extends AbstractRestService {
                     + ") cannot change tenants.");
         }
 
+        ZoneId zoneId = rosterService.getRosterState(tenantId).getTimeZone();
+        Shift previousShift = oldShift.inTimeZone(zoneId);
         oldShift.setRotationEmployee(newShift.getRotationEmployee());
         oldShift.setOriginalEmployee(newShift.getOriginalEmployee());
         oldShift.setSpot(newShift.getSpot());
@@ -192,15 +193,14 @@ public class ShiftService extends AbstractRestService {
 
         // Flush to increase version number before we duplicate it to ShiftView
         shiftRepository.persistAndFlush(oldShift);
+        rosterCache.putShift(tenantId, oldShift.inTimeZone(zoneId));
+        rosterService.addShiftProblemChange(tenantId, oldShift.getId(),
+                new PutShiftProblemChange(oldShift.inTimeZone(zoneId), previousShift));
 
-        Map<Object, Indictment<HardMediumSoftLongScore>> indictmentMap = indictmentUtils.getIndictmentMapForRoster(
-                rosterService.buildRoster(tenantId));
+        IndictmentIndex indictmentIndex = rosterService.getShiftIndictmentIndex(tenantId, oldShift);
         RosterConstraintConfiguration configuration = rosterConstraintConfigurationRepository.findByTenantId(tenantId).get();
-        Indictment<HardMediumSoftLongScore> shiftIndictment = indictmentMap.get(newShift);
-        Indictment<HardMediumSoftLongScore> employeeIndictment =
-                (newShift.getEmployee() != null) ? indictmentMap.get(newShift.getEmployee()) : null;
         return indictmentUtils.getShiftViewWithIndictment(rosterService.getRosterState(tenantId).getTimeZone(),
-                oldShift, configuration, shiftIndictment, employeeIndictment);
+                oldShift, configuration, indictmentIndex);
     }
 
     @Transactional
@@ -211,6 +211,8 @@ public class ShiftService extends AbstractRestService {
         }
         validateBean(tenantId, shiftOptional.get());
         shiftRepository.deleteById(id);
+        rosterCache.removeShift(tenantId, id);
+        rosterService.addProblemChange(tenantId, new RemoveShiftProblemChange(shiftOptional.get()));
         return true;
     }
 }
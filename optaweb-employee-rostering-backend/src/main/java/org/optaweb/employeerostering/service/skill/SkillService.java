@@ -12,16 +12,20 @@ import javax.validation.Validator;
 import org.optaweb.employeerostering.domain.skill.Skill;
 import org.optaweb.employeerostering.domain.skill.view.SkillView;
 import org.optaweb.employeerostering.service.common.AbstractRestService;
+import org.optaweb.employeerostering.service.roster.RosterCache;
 
 @ApplicationScoped
 public class SkillService extends AbstractRestService {
 
     SkillRepository skillRepository;
 
+    RosterCache rosterCache;
+
     @Inject
-    public SkillService(Validator validator, SkillRepository skillRepository) {
+    public SkillService(Validator validator, SkillRepository skillRepository, RosterCache rosterCache) {
         super(validator);
         this.skillRepository = skillRepository;
+        this.rosterCache = rosterCache;
     }
 
     public Skill convertFromView(Integer tenantId, SkillView skillView) {
@@ -58,6 +62,7 @@ public class SkillService extends AbstractRestService {
 
         validateBean(tenantId, skillOptional.get());
         skillRepository.deleteById(id);
+        rosterCache.invalidate(tenantId);
         return true;
     }
 
@@ -65,6 +70,7 @@ public class SkillService extends AbstractRestService {
     public Skill createSkill(Integer tenantId, SkillView skillView) {
         Skill skill = convertFromView(tenantId, skillView);
         skillRepository.persist(skill);
+        rosterCache.invalidate(tenantId);
         return skill;
     }
 
@@ -83,6 +89,7 @@ public class SkillService extends AbstractRestService {
 
         oldSkill.setName(newSkill.getName());
         skillRepository.persist(oldSkill);
+        rosterCache.invalidate(tenantId);
         return oldSkill;
     }
 }
@@ -1,7 +1,6 @@
 package org.optaweb.employeerostering.service.solver;
 
-import static java.time.Duration.between;
-import static org.optaplanner.core.api.score.stream.ConstraintCollectors.sumDuration;
+import static org.optaplanner.core.api.score.stream.ConstraintCollectors.sumLong;
 import static org.optaplanner.core.api.score.stream.Joiners.equal;
 import static org.optaplanner.core.api.score.stream.Joiners.greaterThan;
 import static org.optaplanner.core.api.score.stream.Joiners.lessThan;
@@ -10,6 +9,7 @@ import static org.optaweb.employeerostering.domain.employee.EmployeeAvailability
 import static org.optaweb.employeerostering.domain.employee.EmployeeAvailabilityState.UNAVAILABLE;
 import static org.optaweb.employeerostering.domain.employee.EmployeeAvailabilityState.UNDESIRED;
 import static org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration.CONSTRAINT_ASSIGN_EVERY_SHIFT;
+import static org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration.CONSTRAINT_BALANCE_EMPLOYEE_WORKLOAD;
 import static org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration.CONSTRAINT_BREAK_BETWEEN_NON_CONSECUTIVE_SHIFTS;
 import static org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration.CONSTRAINT_DAILY_MINUTES_MUST_NOT_EXCEED_CONTRACT_MAXIMUM;
 import static org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration.CONSTRAINT_DESIRED_TIME_SLOT_FOR_AN_EMPLOYEE;
@@ -23,15 +23,11 @@ import static org.optaweb.employeerostering.domain.tenant.RosterConstraintConfig
 import static org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration.CONSTRAINT_UNDESIRED_TIME_SLOT_FOR_AN_EMPLOYEE;
 import static org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration.CONSTRAINT_WEEKLY_MINUTES_MUST_NOT_EXCEED_CONTRACT_MAXIMUM;
 import static org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration.CONSTRAINT_YEARLY_MINUTES_MUST_NOT_EXCEED_CONTRACT_MAXIMUM;
+import static org.optaweb.employeerostering.domain.violation.ContractMinutesViolation.Type.MONTH;
+import static org.optaweb.employeerostering.domain.violation.ContractMinutesViolation.Type.WEEK;
+import static org.optaweb.employeerostering.domain.violation.ContractMinutesViolation.Type.YEAR;
 
-import java.time.DayOfWeek;
-import java.time.LocalDate;
-import java.time.OffsetDateTime;
-import java.time.YearMonth;
-import java.time.temporal.ChronoUnit;
-import java.time.temporal.TemporalAdjusters;
 import java.util.Objects;
-import java.util.function.Function;
 
 import org.optaplanner.core.api.score.stream.Constraint;
 import org.optaplanner.core.api.score.stream.ConstraintFactory;
@@ -39,9 +35,11 @@ import org.optaplanner.core.api.score.stream.ConstraintProvider;
 import org.optaplanner.core.api.score.stream.bi.BiConstraintStream;
 import org.optaweb.employeerostering.domain.employee.Employee;
 import org.optaweb.employeerostering.domain.employee.EmployeeAvailability;
+import org.optaweb.employeerostering.domain.employee.EmployeeAvailabilityIndex;
 import org.optaweb.employeerostering.domain.employee.EmployeeAvailabilityState;
+import org.optaweb.employeerostering.domain.roster.HistoricWorkingTime;
 import org.optaweb.employeerostering.domain.shift.Shift;
-import org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration;
+import org.optaweb.employeerostering.domain.violation.ContractMinutesViolation;
 
 /**
  * Designed to match the DRL exactly.
@@ -49,18 +47,31 @@ import org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration
  */
 public final class EmployeeRosteringConstraintProvider implements ConstraintProvider {
 
-    private static BiConstraintStream<EmployeeAvailability, Shift> getConstraintStreamWithAvailabilityIntersections(
+    // One lookup in the availability index per shift instead of a join of every availability with every shift.
+    // The groupBy keeps the shift as the key, so each match is still justified by a shift and an availability.
+    private static BiConstraintStream<Shift, EmployeeAvailability> getConstraintStreamWithAvailabilityIntersections(
             ConstraintFactory constraintFactory, EmployeeAvailabilityState employeeAvailabilityState) {
-        return constraintFactory.forEach(EmployeeAvailability.class)
-                .filter(employeeAvailability -> employeeAvailability.getState() == employeeAvailabilityState)
-                .join(Shift.class,
-                        equal(EmployeeAvailability::getEmployee, Shift::getEmployee),
-                        lessThan(EmployeeAvailability::getStartDateTime, Shift::getEndDateTime),
-                        greaterThan(EmployeeAvailability::getEndDateTime, Shift::getStartDateTime));
+        return constraintFactory.forEach(Shift.class)
+                .join(EmployeeAvailabilityIndex.class)
+                .filter((shift, employeeAvailabilityIndex) -> employeeAvailabilityIndex.hasOverlappingAvailability(
+                        shift.getEmployee(), employeeAvailabilityState, shift.getStartEpochMinute(),
+                        shift.getEndEpochMinute()))
+                .groupBy((shift, employeeAvailabilityIndex) -> shift,
+                        (shift, employeeAvailabilityIndex) -> employeeAvailabilityIndex.getOverlappingAvailabilityList(
+                                shift.getEmployee(), employeeAvailabilityState, shift.getStartEpochMinute(),
+                                shift.getEndEpochMinute()))
+                .flattenLast(employeeAvailabilityList -> employeeAvailabilityList);
     }
 
-    public static LocalDate extractFirstDayOfWeek(DayOfWeek weekStarting, OffsetDateTime date) {
-        return date.with(TemporalAdjusters.previousOrSame(weekStarting)).toLocalDate();
+    // Employees are joined by id, since their equality compares their contract and skills
+    private static Long getEmployeeId(Shift shift) {
+        return shift.getEmployee().getId();
+    }
+
+    // The minutes of the shifts before the horizon of the roster are added to the minutes of its shifts
+    private static long getTotalMinutes(Employee employee, ContractMinutesViolation.Type type, int period,
+            long totalMinutes, HistoricWorkingTime historicWorkingTime) {
+        return totalMinutes + historicWorkingTime.getMinutes(employee, type, period);
     }
 
     @Override
@@ -79,7 +90,8 @@ public final class EmployeeRosteringConstraintProvider implements ConstraintProv
                 employeeIsNotOriginalEmployee(constraintFactory),
                 undesiredEmployeeTimeSlot(constraintFactory),
                 desiredEmployeeTimeSlot(constraintFactory),
-                employeeNotRotationEmployee(constraintFactory)
+                employeeNotRotationEmployee(constraintFactory),
+                balanceEmployeeWorkload(constraintFactory)
         };
     }
 
@@ -92,13 +104,13 @@ public final class EmployeeRosteringConstraintProvider implements ConstraintProv
     Constraint unavailableEmployeeTimeSlot(ConstraintFactory constraintFactory) {
         return getConstraintStreamWithAvailabilityIntersections(constraintFactory, UNAVAILABLE)
                 .penalizeConfigurableLong(CONSTRAINT_UNAVAILABLE_TIME_SLOT_FOR_AN_EMPLOYEE,
-                        ((employeeAvailability, shift) -> shift.getLengthInMinutes()));
+                        ((shift, employeeAvailability) -> shift.getLengthInMinutes()));
     }
 
     Constraint noOverlappingShifts(ConstraintFactory constraintFactory) {
         return constraintFactory.forEachUniquePair(Shift.class,
-                equal(Shift::getEmployee),
-                overlapping(Shift::getStartDateTime, Shift::getEndDateTime))
+                equal(EmployeeRosteringConstraintProvider::getEmployeeId),
+                overlapping(Shift::getStartEpochMinute, Shift::getEndEpochMinute))
                 .penalizeConfigurableLong(CONSTRAINT_NO_OVERLAPPING_SHIFTS,
                         (shift, otherShift) -> otherShift.getLengthInMinutes());
     }
@@ -106,24 +118,25 @@ public final class EmployeeRosteringConstraintProvider implements ConstraintProv
     Constraint noMoreThanTwoConsecutiveShifts(ConstraintFactory constraintFactory) {
         return constraintFactory.forEach(Shift.class)
                 .join(Shift.class,
-                        equal(Shift::getEmployee),
-                        equal(Shift::getEndDateTime, Shift::getStartDateTime))
+                        equal(EmployeeRosteringConstraintProvider::getEmployeeId),
+                        equal(Shift::getEndEpochMinute, Shift::getStartEpochMinute))
                 .join(Shift.class,
-                        equal((s1, s2) -> s2.getEmployee(), Shift::getEmployee),
-                        equal((s1, s2) -> s2.getEndDateTime(), Shift::getStartDateTime))
+                        equal((s1, s2) -> getEmployeeId(s2), EmployeeRosteringConstraintProvider::getEmployeeId),
+                        equal((s1, s2) -> s2.getEndEpochMinute(), Shift::getStartEpochMinute))
                 .penalizeConfigurableLong(CONSTRAINT_NO_MORE_THAN_2_CONSECUTIVE_SHIFTS,
                         (s1, s2, s3) -> s3.getLengthInMinutes());
     }
 
     Constraint breakBetweenNonConsecutiveShiftsIsAtLeastTenHours(ConstraintFactory constraintFactory) {
         return constraintFactory.forEach(Shift.class)
+                // Only the later shifts that start less than 10 hours after the end, so the number of pairs
+                // grows with the shifts per employee, not with their square
                 .join(Shift.class,
-                        equal(Shift::getEmployee),
-                        lessThan(Shift::getEndDateTime, Shift::getStartDateTime))
-                .filter((s1, s2) -> !Objects.equals(s1, s2))
-                .filter((s1, s2) -> s1.getEndDateTime().until(s2.getStartDateTime(), ChronoUnit.HOURS) < 10)
+                        equal(EmployeeRosteringConstraintProvider::getEmployeeId),
+                        lessThan(Shift::getEndEpochMinute, Shift::getStartEpochMinute),
+                        greaterThan(shift -> shift.getEndEpochMinute() + (10 * 60), Shift::getStartEpochMinute))
                 .penalizeConfigurableLong(CONSTRAINT_BREAK_BETWEEN_NON_CONSECUTIVE_SHIFTS, (s1, s2) -> {
-                    long breakLength = s1.getEndDateTime().until(s2.getStartDateTime(), ChronoUnit.MINUTES);
+                    long breakLength = s2.getStartEpochMinute() - s1.getEndEpochMinute();
                     return (10 * 60) - breakLength;
                 });
     }
@@ -131,59 +144,65 @@ public final class EmployeeRosteringConstraintProvider implements ConstraintProv
     Constraint dailyMinutesMustNotExceedContractMaximum(ConstraintFactory constraintFactory) {
         return constraintFactory.forEach(Employee.class)
                 .filter(employee -> employee.getContract().getMaximumMinutesPerDay() != null)
-                .join(Shift.class, equal(Function.identity(), Shift::getEmployee))
+                .join(Shift.class, equal(Employee::getId, EmployeeRosteringConstraintProvider::getEmployeeId))
                 .groupBy((employee, shift) -> employee,
-                        (employee, shift) -> shift.getStartDateTime().toLocalDate(),
-                        sumDuration((employee, shift) -> between(shift.getStartDateTime(), shift.getEndDateTime())))
-                .filter((employee, firstDayOfWeek,
-                        totalWorkingTime) -> totalWorkingTime.toMinutes() > employee.getContract().getMaximumMinutesPerDay())
+                        (employee, shift) -> shift.getStartDayKey(),
+                        sumLong((employee, shift) -> shift.getLengthInMinutes()))
+                .filter((employee, day,
+                        totalMinutes) -> totalMinutes > employee.getContract().getMaximumMinutesPerDay())
                 .penalizeConfigurableLong(CONSTRAINT_DAILY_MINUTES_MUST_NOT_EXCEED_CONTRACT_MAXIMUM,
-                        (employee, firstDayOfWeek, totalWorkingTime) -> totalWorkingTime.toMinutes()
+                        (employee, day, totalMinutes) -> totalMinutes
                                 - employee.getContract().getMaximumMinutesPerDay());
     }
 
     Constraint weeklyMinutesMustNotExceedContractMaximum(ConstraintFactory constraintFactory) {
-        return constraintFactory.forEach(RosterConstraintConfiguration.class)
-                .join(Employee.class)
-                .filter((configuration, employee) -> employee.getContract().getMaximumMinutesPerWeek() != null)
-                .join(Shift.class, equal((configuration, employee) -> employee, Shift::getEmployee))
-                .groupBy((configuration, employee, shift) -> employee,
-                        (configuration, employee, shift) -> extractFirstDayOfWeek(configuration.getWeekStartDay(),
-                                shift.getStartDateTime()),
-                        sumDuration(
-                                (configuration, employee, shift) -> between(shift.getStartDateTime(), shift.getEndDateTime())))
-                .filter((employee, firstDayOfWeek,
-                        totalWorkingTime) -> totalWorkingTime.toMinutes() > employee.getContract().getMaximumMinutesPerWeek())
+        return constraintFactory.forEach(Employee.class)
+                .filter(employee -> employee.getContract().getMaximumMinutesPerWeek() != null)
+                .join(Shift.class, equal(Employee::getId, EmployeeRosteringConstraintProvider::getEmployeeId))
+                .groupBy((employee, shift) -> employee,
+                        (employee, shift) -> shift.getStartWeekKey(),
+                        sumLong((employee, shift) -> shift.getLengthInMinutes()))
+                .join(HistoricWorkingTime.class)
+                .filter((employee, week, totalMinutes,
+                        historicWorkingTime) -> getTotalMinutes(employee, WEEK, week, totalMinutes,
+                                historicWorkingTime) > employee.getContract().getMaximumMinutesPerWeek())
                 .penalizeConfigurableLong(CONSTRAINT_WEEKLY_MINUTES_MUST_NOT_EXCEED_CONTRACT_MAXIMUM,
-                        (employee, firstDayOfWeek, totalWorkingTime) -> totalWorkingTime.toMinutes()
+                        (employee, week, totalMinutes, historicWorkingTime) -> getTotalMinutes(employee,
+                                WEEK, week, totalMinutes, historicWorkingTime)
                                 - employee.getContract().getMaximumMinutesPerWeek());
     }
 
     Constraint monthlyMinutesMustNotExceedContractMaximum(ConstraintFactory constraintFactory) {
         return constraintFactory.forEach(Employee.class)
                 .filter(employee -> employee.getContract().getMaximumMinutesPerMonth() != null)
-                .join(Shift.class, equal(Function.identity(), Shift::getEmployee))
+                .join(Shift.class, equal(Employee::getId, EmployeeRosteringConstraintProvider::getEmployeeId))
                 .groupBy((employee, shift) -> employee,
-                        (employee, shift) -> YearMonth.from(shift.getStartDateTime()),
-                        sumDuration((employee, shift) -> between(shift.getStartDateTime(), shift.getEndDateTime())))
-                .filter((employee, firstDayOfWeek,
-                        totalWorkingTime) -> totalWorkingTime.toMinutes() > employee.getContract().getMaximumMinutesPerMonth())
+                        (employee, shift) -> shift.getStartMonthKey(),
+                        sumLong((employee, shift) -> shift.getLengthInMinutes()))
+                .join(HistoricWorkingTime.class)
+                .filter((employee, month, totalMinutes,
+                        historicWorkingTime) -> getTotalMinutes(employee, MONTH, month, totalMinutes,
+                                historicWorkingTime) > employee.getContract().getMaximumMinutesPerMonth())
                 .penalizeConfigurableLong(CONSTRAINT_MONTHLY_MINUTES_MUST_NOT_EXCEED_CONTRACT_MAXIMUM,
-                        (employee, firstDayOfWeek, totalWorkingTime) -> totalWorkingTime.toMinutes()
+                        (employee, month, totalMinutes, historicWorkingTime) -> getTotalMinutes(employee,
+                                MONTH, month, totalMinutes, historicWorkingTime)
                                 - employee.getContract().getMaximumMinutesPerMonth());
     }
 
     Constraint yearlyMinutesMustNotExceedContractMaximum(ConstraintFactory constraintFactory) {
         return constraintFactory.forEach(Employee.class)
                 .filter(employee -> employee.getContract().getMaximumMinutesPerYear() != null)
-                .join(Shift.class, equal(Function.identity(), Shift::getEmployee))
+                .join(Shift.class, equal(Employee::getId, EmployeeRosteringConstraintProvider::getEmployeeId))
                 .groupBy((employee, shift) -> employee,
-                        (employee, shift) -> shift.getStartDateTime().getYear(),
-                        sumDuration((employee, shift) -> between(shift.getStartDateTime(), shift.getEndDateTime())))
-                .filter((employee, firstDayOfWeek,
-                        totalWorkingTime) -> totalWorkingTime.toMinutes() > employee.getContract().getMaximumMinutesPerYear())
+                        (employee, shift) -> shift.getStartYearKey(),
+                        sumLong((employee, shift) -> shift.getLengthInMinutes()))
+                .join(HistoricWorkingTime.class)
+                .filter((employee, year, totalMinutes,
+                        historicWorkingTime) -> getTotalMinutes(employee, YEAR, year, totalMinutes,
+                                historicWorkingTime) > employee.getContract().getMaximumMinutesPerYear())
                 .penalizeConfigurableLong(CONSTRAINT_YEARLY_MINUTES_MUST_NOT_EXCEED_CONTRACT_MAXIMUM,
-                        (employee, firstDayOfWeek, totalWorkingTime) -> totalWorkingTime.toMinutes()
+                        (employee, year, totalMinutes, historicWorkingTime) -> getTotalMinutes(employee,
+                                YEAR, year, totalMinutes, historicWorkingTime)
                                 - employee.getContract().getMaximumMinutesPerYear());
     }
 
@@ -203,13 +222,13 @@ public final class EmployeeRosteringConstraintProvider implements ConstraintProv
     Constraint undesiredEmployeeTimeSlot(ConstraintFactory constraintFactory) {
         return getConstraintStreamWithAvailabilityIntersections(constraintFactory, UNDESIRED)
                 .penalizeConfigurableLong(CONSTRAINT_UNDESIRED_TIME_SLOT_FOR_AN_EMPLOYEE,
-                        (employeeAvailability, shift) -> employeeAvailability.getDuration().toMinutes());
+                        (shift, employeeAvailability) -> employeeAvailability.getDuration().toMinutes());
     }
 
     Constraint desiredEmployeeTimeSlot(ConstraintFactory constraintFactory) {
         return getConstraintStreamWithAvailabilityIntersections(constraintFactory, DESIRED)
                 .rewardConfigurableLong(CONSTRAINT_DESIRED_TIME_SLOT_FOR_AN_EMPLOYEE,
-                        (employeeAvailability, shift) -> employeeAvailability.getDuration().toMinutes());
+                        (shift, employeeAvailability) -> employeeAvailability.getDuration().toMinutes());
     }
 
     Constraint employeeNotRotationEmployee(ConstraintFactory constraintFactory) {
@@ -217,4 +236,10 @@ public final class EmployeeRosteringConstraintProvider implements ConstraintProv
                 .filter(shift -> shift.getRotationEmployee() != null && shift.getRotationEmployee() != shift.getEmployee())
                 .penalizeConfigurableLong(CONSTRAINT_EMPLOYEE_IS_NOT_ROTATION_EMPLOYEE, Shift::getLengthInMinutes);
     }
+
+    Constraint balanceEmployeeWorkload(ConstraintFactory constraintFactory) {
+        return constraintFactory.forEach(Shift.class)
+                .groupBy(LoadBalancingHourCounter.collector())
+                .penalizeConfigurableLong(CONSTRAINT_BALANCE_EMPLOYEE_WORKLOAD, loadBalance -> loadBalance);
+    }
 }
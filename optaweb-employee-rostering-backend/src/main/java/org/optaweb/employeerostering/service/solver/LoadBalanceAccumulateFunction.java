@@ -0,0 +1,72 @@
+package org.optaweb.employeerostering.service.solver;
+
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.kie.api.runtime.rule.AccumulateFunction;
+import org.optaweb.employeerostering.domain.shift.Shift;
+
+/**
+ * The DRL counterpart of {@link LoadBalancingHourCounter#collector()}: accumulates assigned shifts
+ * into the {@link LoadBalancingHourCounter#getLoadBalance() load balance}.
+ */
+public class LoadBalanceAccumulateFunction
+        implements AccumulateFunction<LoadBalanceAccumulateFunction.LoadBalanceContext> {
+
+    protected static class LoadBalanceContext implements Serializable {
+
+        private LoadBalancingHourCounter counter;
+        // The shift might have changed by the time it is reversed, so its increase is undone instead
+        private Map<Shift, Runnable> shiftToUndoMap;
+    }
+
+    @Override
+    public LoadBalanceContext createContext() {
+        return new LoadBalanceContext();
+    }
+
+    @Override
+    public void init(LoadBalanceContext context) {
+        context.counter = new LoadBalancingHourCounter();
+        context.shiftToUndoMap = new IdentityHashMap<>();
+    }
+
+    @Override
+    public void accumulate(LoadBalanceContext context, Object value) {
+        Shift shift = (Shift) value;
+        context.shiftToUndoMap.put(shift, context.counter.increaseHourlyCount(shift));
+    }
+
+    @Override
+    public void reverse(LoadBalanceContext context, Object value) {
+        context.shiftToUndoMap.remove(value).run();
+    }
+
+    @Override
+    public Object getResult(LoadBalanceContext context) {
+        return context.counter.getLoadBalance();
+    }
+
+    @Override
+    public boolean supportsReverse() {
+        return true;
+    }
+
+    @Override
+    public Class<?> getResultType() {
+        return Long.class;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) {
+        // No state
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) {
+        // No state
+    }
+}
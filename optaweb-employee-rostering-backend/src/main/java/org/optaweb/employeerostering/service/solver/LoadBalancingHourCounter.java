@@ -1,50 +1,83 @@
 package org.optaweb.employeerostering.service.solver;
 
-import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
+import org.optaplanner.core.api.score.stream.uni.UniConstraintCollector;
 import org.optaweb.employeerostering.domain.shift.Shift;
 
 /**
- * Designed to be thread-safe for multi-threaded solving.
+ * The hours each employee works and the sum of their squares, kept up to date in O(1) per assigned or unassigned
+ * shift, as collected by the {@link #collector()} of a groupBy.
+ * The square root of that sum grows as the hours of the employees drift apart, so the workload balance constraint
+ * penalizes it instead of recalculating a variance.
+ * <p>
+ * Not thread-safe and needs no locks: each score director has its own counters,
+ * also under multi-threaded incremental solving.
  */
 public final class LoadBalancingHourCounter {
 
-    private final Map<Instant, Integer> hourlyCountsMap = new HashMap<>(0);
-    private volatile long sumOfSquares = 0;
+    private static final UniConstraintCollector<Shift, ?, Long> COLLECTOR =
+            new UniConstraintCollector<Shift, LoadBalancingHourCounter, Long>() {
+                @Override
+                public Supplier<LoadBalancingHourCounter> supplier() {
+                    return LoadBalancingHourCounter::new;
+                }
 
-    private synchronized void adjustHourlyCount(Shift shift, boolean increase) {
-        long hourCount = (long) Math.ceil(shift.getLengthInMinutes() / 60.0d);
-        Instant baseHour = shift.getStartDateTime().truncatedTo(ChronoUnit.HOURS).toInstant();
-        for (int hour = 0; hour < hourCount; hour++) {
-            Instant actualHour = baseHour.plus(1, ChronoUnit.HOURS);
-            // The hourly count will change, therefore its contribution of sumOfSquares needs to disappear.
-            int currentHourlyCount = hourlyCountsMap.getOrDefault(actualHour, 0);
-            if (currentHourlyCount > 0) {
-                sumOfSquares -= currentHourlyCount * currentHourlyCount;
-            }
-            // Calculate new number of times that this hour is used.
-            int newHourlyCount = increase ? currentHourlyCount + 1 : currentHourlyCount - 1;
-            if (newHourlyCount == 0) { // Reduce size of the map, instead of storing a useless 0 in there.
-                hourlyCountsMap.remove(actualHour);
-            } else { // Store new hourly count, add its contribution to sumOfSquares.
-                hourlyCountsMap.put(actualHour, newHourlyCount);
-                sumOfSquares += newHourlyCount * newHourlyCount;
-            }
-        }
+                @Override
+                public BiFunction<LoadBalancingHourCounter, Shift, Runnable> accumulator() {
+                    return LoadBalancingHourCounter::increaseHourlyCount;
+                }
+
+                @Override
+                public Function<LoadBalancingHourCounter, Long> finisher() {
+                    return LoadBalancingHourCounter::getLoadBalance;
+                }
+            };
+
+    private final Map<Long, Long> employeeIdToHourCountMap = new HashMap<>();
+    private long sumOfSquares = 0L;
+
+    /**
+     * @return never null, the same instance every time, collects the {@link #getLoadBalance() load balance}
+     * of the assigned shifts
+     */
+    public static UniConstraintCollector<Shift, ?, Long> collector() {
+        return COLLECTOR;
     }
 
-    public void increaseHourlyCount(Shift shift) {
-        adjustHourlyCount(shift, true);
+    /**
+     * @param shift never null, with an employee
+     * @return never null, undoes the increase, even if the employee or times of the shift changed since
+     */
+    public Runnable increaseHourlyCount(Shift shift) {
+        // Started hours count as whole hours
+        long hourCount = (long) Math.ceil(shift.getLengthInMinutes() / 60.0d);
+        Long employeeId = shift.getEmployee().getId();
+        adjustHourCount(employeeId, hourCount);
+        return () -> adjustHourCount(employeeId, -hourCount);
     }
 
-    public void decreaseHourlyCount(Shift shift) {
-        adjustHourlyCount(shift, false);
+    private void adjustHourCount(Long employeeId, long hourCountDelta) {
+        // The hour count will change, therefore its contribution of sumOfSquares needs to disappear.
+        long currentHourCount = employeeIdToHourCountMap.getOrDefault(employeeId, 0L);
+        sumOfSquares -= currentHourCount * currentHourCount;
+        long newHourCount = currentHourCount + hourCountDelta;
+        if (newHourCount == 0L) { // Reduce size of the map, instead of storing a useless 0 in there.
+            employeeIdToHourCountMap.remove(employeeId);
+        } else { // Store new hour count, add its contribution to sumOfSquares.
+            employeeIdToHourCountMap.put(employeeId, newHourCount);
+            sumOfSquares += newHourCount * newHourCount;
+        }
     }
 
-    public synchronized long getLoadBalance() {
+    /**
+     * @return at least 0, the square root of the sum of the squared hours of each employee, in thousandths
+     */
+    public long getLoadBalance() {
         return Math.round(Math.sqrt(sumOfSquares) * 1000);
     }
 
@@ -0,0 +1,198 @@
+package org.optaweb.employeerostering.service.solver;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.optaplanner.core.api.score.director.ScoreDirector;
+import org.optaplanner.core.impl.partitionedsearch.partitioner.SolutionPartitioner;
+import org.optaweb.employeerostering.domain.common.AbstractPersistable;
+import org.optaweb.employeerostering.domain.employee.Employee;
+import org.optaweb.employeerostering.domain.employee.EmployeeAvailability;
+import org.optaweb.employeerostering.domain.roster.Roster;
+import org.optaweb.employeerostering.domain.shift.PinningShiftFilter;
+import org.optaweb.employeerostering.domain.shift.Shift;
+import org.optaweb.employeerostering.domain.spot.Spot;
+
+/**
+ * Splits a roster into one part per time window of {@link #setWeekCount(int) weekCount} weeks
+ * and spot group, so a partitioned search solves the parts in parallel.
+ * <p>
+ * The spots that require the same skills form a spot group, and the smallest groups are merged
+ * until there are at most {@link #setSpotGroupCount(int) spotGroupCount}.
+ * Within a time window, every employee goes to the part of one spot group they are qualified for,
+ * so the parts rarely compete for the same employee.
+ * The employee of an assigned shift always goes to the part of the shift as well.
+ * <p>
+ * The constraints between parts, such as a break between the shifts of two weeks, are not seen by the parts,
+ * so a global local search phase must follow.
+ */
+public class RosterPartitioner implements SolutionPartitioner<Roster> {
+
+    private int weekCount = 1;
+    private int spotGroupCount = 4;
+
+    /**
+     * @param weekCount at least 1, the length of the time window of each part
+     */
+    @SuppressWarnings("unused")
+    public void setWeekCount(int weekCount) {
+        if (weekCount < 1) {
+            throw new IllegalArgumentException("The weekCount (" + weekCount + ") must be at least 1.");
+        }
+        this.weekCount = weekCount;
+    }
+
+    /**
+     * @param spotGroupCount at least 1, the maximum number of parts per time window
+     */
+    @SuppressWarnings("unused")
+    public void setSpotGroupCount(int spotGroupCount) {
+        if (spotGroupCount < 1) {
+            throw new IllegalArgumentException("The spotGroupCount (" + spotGroupCount + ") must be at least 1.");
+        }
+        this.spotGroupCount = spotGroupCount;
+    }
+
+    @Override
+    public List<Roster> splitWorkingSolution(ScoreDirector<Roster> scoreDirector, Integer runnablePartThreadLimit) {
+        Roster roster = scoreDirector.getWorkingSolution();
+        DayOfWeek weekStartDay = roster.getRosterConstraintConfiguration().getWeekStartDay();
+        Map<Spot, Integer> spotToGroupMap = groupSpots(roster);
+        PinningShiftFilter pinningShiftFilter = new PinningShiftFilter();
+
+        // Only the parts with a movable shift are solved, the pinned shifts of other parts would just sit there
+        int firstWeekKey = roster.getShiftList().stream()
+                .mapToInt(shift -> shift.getStartWeekKey(weekStartDay))
+                .min().orElse(0);
+        Map<Integer, Map<Integer, List<Shift>>> windowToGroupToShiftListMap = new TreeMap<>();
+        Map<Integer, Set<Integer>> windowToMovableGroupSetMap = new HashMap<>();
+        for (Shift shift : roster.getShiftList()) {
+            int window = (shift.getStartWeekKey(weekStartDay) - firstWeekKey) / (7 * weekCount);
+            int group = spotToGroupMap.get(shift.getSpot());
+            windowToGroupToShiftListMap.computeIfAbsent(window, k -> new TreeMap<>())
+                    .computeIfAbsent(group, k -> new ArrayList<>())
+                    .add(shift);
+            if (!pinningShiftFilter.accept(roster, shift)) {
+                windowToMovableGroupSetMap.computeIfAbsent(window, k -> new HashSet<>()).add(group);
+            }
+        }
+
+        List<Roster> partList = new ArrayList<>();
+        windowToGroupToShiftListMap.forEach((window, groupToShiftListMap) -> {
+            Set<Integer> movableGroupSet = windowToMovableGroupSetMap.get(window);
+            if (movableGroupSet == null) {
+                return;
+            }
+            groupToShiftListMap.keySet().retainAll(movableGroupSet);
+            Map<Integer, Set<Employee>> groupToEmployeeSetMap =
+                    distributeEmployees(roster.getEmployeeList(), groupToShiftListMap);
+            groupToShiftListMap.forEach((group, shiftList) -> partList.add(createPart(roster, shiftList,
+                    groupToEmployeeSetMap.get(group))));
+        });
+        return partList;
+    }
+
+    private Map<Spot, Integer> groupSpots(Roster roster) {
+        Map<Set<Long>, List<Spot>> requiredSkillIdSetToSpotListMap = new LinkedHashMap<>();
+        roster.getSpotList().stream()
+                .sorted(Comparator.comparing(AbstractPersistable::getId))
+                .forEach(spot -> requiredSkillIdSetToSpotListMap.computeIfAbsent(
+                        spot.getRequiredSkillSet().stream().map(AbstractPersistable::getId).collect(Collectors.toSet()),
+                        k -> new ArrayList<>()).add(spot));
+        // Merges the largest skill groups first, each into the spot group with the fewest spots so far
+        List<List<Spot>> skillGroupList = new ArrayList<>(requiredSkillIdSetToSpotListMap.values());
+        skillGroupList.sort(Comparator.<List<Spot>>comparingInt(List::size).reversed());
+        int[] groupSpotCounts = new int[Math.min(spotGroupCount, Math.max(skillGroupList.size(), 1))];
+        Map<Spot, Integer> spotToGroupMap = new HashMap<>();
+        for (List<Spot> skillGroup : skillGroupList) {
+            int group = 0;
+            for (int i = 1; i < groupSpotCounts.length; i++) {
+                if (groupSpotCounts[i] < groupSpotCounts[group]) {
+                    group = i;
+                }
+            }
+            groupSpotCounts[group] += skillGroup.size();
+            for (Spot spot : skillGroup) {
+                spotToGroupMap.put(spot, group);
+            }
+        }
+        return spotToGroupMap;
+    }
+
+    private Map<Integer, Set<Employee>> distributeEmployees(List<Employee> employeeList,
+            Map<Integer, List<Shift>> groupToShiftListMap) {
+        Map<Integer, Set<Employee>> groupToEmployeeSetMap = new HashMap<>();
+        groupToShiftListMap.forEach((group, shiftList) -> {
+            Set<Employee> employeeSet = new LinkedHashSet<>();
+            for (Shift shift : shiftList) {
+                if (shift.getEmployee() != null) {
+                    employeeSet.add(shift.getEmployee());
+                }
+            }
+            groupToEmployeeSetMap.put(group, employeeSet);
+        });
+        List<Employee> sortedEmployeeList = new ArrayList<>(employeeList);
+        sortedEmployeeList.sort(Comparator.comparing(AbstractPersistable::getId));
+        for (Employee employee : sortedEmployeeList) {
+            if (groupToEmployeeSetMap.values().stream().anyMatch(employeeSet -> employeeSet.contains(employee))) {
+                continue;
+            }
+            // The group with the most shifts per employee, preferably one with a shift the employee is qualified for
+            Integer bestGroup = null;
+            boolean bestQualified = false;
+            double bestLoad = -1.0;
+            for (Map.Entry<Integer, List<Shift>> entry : groupToShiftListMap.entrySet()) {
+                boolean qualified = entry.getValue().stream().anyMatch(shift -> shift.hasRequiredSkills(employee));
+                double load = (double) entry.getValue().size() / (groupToEmployeeSetMap.get(entry.getKey()).size() + 1);
+                if (bestGroup == null || (qualified && !bestQualified)
+                        || (qualified == bestQualified && load > bestLoad)) {
+                    bestGroup = entry.getKey();
+                    bestQualified = qualified;
+                    bestLoad = load;
+                }
+            }
+            groupToEmployeeSetMap.get(bestGroup).add(employee);
+        }
+        return groupToEmployeeSetMap;
+    }
+
+    private static Roster createPart(Roster roster, List<Shift> shiftList, Set<Employee> employeeSet) {
+        // The parts are solved at the same time, so each one needs its own shifts, the facts are only read
+        List<Shift> partShiftList = new ArrayList<>(shiftList.size());
+        Set<Spot> partSpotSet = new LinkedHashSet<>();
+        for (Shift shift : shiftList) {
+            Shift partShift = new Shift(shift.getTenantId(), shift.getSpot(), shift.getStartDateTime(),
+                    shift.getEndDateTime(), shift.getRotationEmployee(), shift.getRequiredSkillSet(),
+                    shift.getOriginalEmployee());
+            partShift.setId(shift.getId());
+            partShift.setVersion(shift.getVersion());
+            partShift.setPinnedByUser(shift.isPinnedByUser());
+            partShift.setRequiredSkillMask(shift.getRequiredSkillMask());
+            partShift.setWeekStartDay(shift.getWeekStartDay());
+            partShift.setEmployee(shift.getEmployee());
+            partShiftList.add(partShift);
+            partSpotSet.add(shift.getSpot());
+        }
+        List<EmployeeAvailability> partEmployeeAvailabilityList = roster.getEmployeeAvailabilityList().stream()
+                .filter(employeeAvailability -> employeeSet.contains(employeeAvailability.getEmployee()))
+                .collect(Collectors.toList());
+        Roster part = new Roster(roster.getId(), roster.getTenantId(), roster.getRosterConstraintConfiguration(),
+                roster.getSkillList(), new ArrayList<>(partSpotSet), new ArrayList<>(employeeSet),
+                partEmployeeAvailabilityList, roster.getRosterState(), partShiftList, roster.isNondisruptivePlanning(),
+                roster.getNondisruptiveReplanFrom());
+        part.setHistoricWorkingTime(roster.getHistoricWorkingTime());
+        part.setPlanningWindowStartDateTime(roster.getPlanningWindowStartDateTime());
+        part.setPlanningWindowEndDateTime(roster.getPlanningWindowEndDateTime());
+        return part;
+    }
+}
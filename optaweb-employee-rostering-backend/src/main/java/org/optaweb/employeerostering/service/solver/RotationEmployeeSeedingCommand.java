@@ -0,0 +1,63 @@
+package org.optaweb.employeerostering.service.solver;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.optaplanner.core.api.score.buildin.hardmediumsoftlong.HardMediumSoftLongScore;
+import org.optaplanner.core.api.score.director.ScoreDirector;
+import org.optaplanner.core.impl.phase.custom.CustomPhaseCommand;
+import org.optaplanner.core.impl.score.director.InnerScoreDirector;
+import org.optaweb.employeerostering.domain.employee.Employee;
+import org.optaweb.employeerostering.domain.employee.EmployeeAvailabilityIndex;
+import org.optaweb.employeerostering.domain.roster.Roster;
+import org.optaweb.employeerostering.domain.shift.PinningShiftFilter;
+import org.optaweb.employeerostering.domain.shift.Shift;
+
+/**
+ * Assigns each unassigned shift that the solver may change to its rotation employee,
+ * unless that breaks a hard constraint, so the construction heuristic only has to fill the rest.
+ * The shifts keep the employees of the persisted roster, so solving starts from the last assignment.
+ */
+public class RotationEmployeeSeedingCommand implements CustomPhaseCommand<Roster> {
+
+    private static final String EMPLOYEE_VARIABLE = "employee";
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void changeWorkingSolution(ScoreDirector<Roster> scoreDirector) {
+        InnerScoreDirector<Roster, HardMediumSoftLongScore> innerScoreDirector =
+                (InnerScoreDirector<Roster, HardMediumSoftLongScore>) scoreDirector;
+        Roster roster = scoreDirector.getWorkingSolution();
+        EmployeeAvailabilityIndex employeeAvailabilityIndex = roster.getEmployeeAvailabilityIndex();
+        PinningShiftFilter pinningShiftFilter = new PinningShiftFilter();
+        Set<Employee> employeeSet = new HashSet<>(roster.getEmployeeList());
+        long hardScore = innerScoreDirector.calculateScore().getHardScore();
+        for (Shift shift : roster.getShiftList()) {
+            Employee rotationEmployee = shift.getRotationEmployee();
+            if (shift.getEmployee() != null || rotationEmployee == null || pinningShiftFilter.accept(roster, shift)
+                    || !employeeSet.contains(rotationEmployee)) {
+                continue;
+            }
+            // The cheap checks first, the score catches the rest, such as overlaps and contract maximums
+            if (!shift.hasRequiredSkills(rotationEmployee) || (employeeAvailabilityIndex != null
+                    && employeeAvailabilityIndex.isUnavailable(rotationEmployee, shift.getStartEpochMinute(),
+                            shift.getEndEpochMinute()))) {
+                continue;
+            }
+            changeEmployee(scoreDirector, shift, rotationEmployee);
+            long newHardScore = innerScoreDirector.calculateScore().getHardScore();
+            if (newHardScore < hardScore) {
+                changeEmployee(scoreDirector, shift, null);
+            } else {
+                hardScore = newHardScore;
+            }
+        }
+    }
+
+    private static void changeEmployee(ScoreDirector<Roster> scoreDirector, Shift shift, Employee employee) {
+        scoreDirector.beforeVariableChanged(shift, EMPLOYEE_VARIABLE);
+        shift.setEmployee(employee);
+        scoreDirector.afterVariableChanged(shift, EMPLOYEE_VARIABLE);
+        scoreDirector.triggerVariableListeners();
+    }
+}
@@ -16,6 +16,17 @@ public class SpotRepository implements PanacheRepository<Spot> {
         return find("tenantId", Sort.ascending("name"), tenantId).list();
     }
 
+    /**
+     * @param tenantId never null
+     * @param afterSpotId never null, only spots with a greater id are returned
+     * @param numberOfSpots at least 1
+     * @return never null, at most numberOfSpots spots, sorted by id
+     */
+    public List<Spot> findPageByTenantIdAfterId(Integer tenantId, Long afterSpotId, int numberOfSpots) {
+        return find("tenantId = ?1 and id > ?2", Sort.ascending("id"), tenantId, afterSpotId)
+                .page(0, numberOfSpots).list();
+    }
+
     public void deleteForTenant(Integer tenantId) {
         delete("tenantId", tenantId);
     }
@@ -0,0 +1,21 @@
+package org.optaweb.employeerostering.service.tenant;
+
+import java.util.Optional;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import org.optaweb.employeerostering.domain.tenant.SolverProfile;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+
+@ApplicationScoped
+public class SolverProfileRepository implements PanacheRepository<SolverProfile> {
+
+    public Optional<SolverProfile> findByTenantId(Integer tenantId) {
+        return find("tenantId", tenantId).singleResultOptional();
+    }
+
+    public void deleteForTenant(Integer tenantId) {
+        delete("tenantId", tenantId);
+    }
+}
@@ -16,8 +16,10 @@ import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 import org.optaweb.employeerostering.domain.roster.view.RosterStateView;
 import org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration;
+import org.optaweb.employeerostering.domain.tenant.SolverProfile;
 import org.optaweb.employeerostering.domain.tenant.Tenant;
 import org.optaweb.employeerostering.domain.tenant.view.RosterConstraintConfigurationView;
+import org.optaweb.employeerostering.domain.tenant.view.SolverProfileView;
 
 @Path("/rest/tenant")
 @ApplicationScoped
@@ -83,6 +85,25 @@ public class TenantController {
         return tenantService.updateRosterConstraintConfiguration(rosterConstraintConfigurationView);
     }
 
+    // ************************************************************************
+    // SolverProfile
+    // ************************************************************************
+
+    @GET
+    @Path("/{tenantId}/config/solver")
+    @Operation(summary = "Get Solver Profile", description = "Gets how the solver solves a tenant roster")
+    public SolverProfile getSolverProfile(@PathParam("tenantId") @Min(0) Integer tenantId) {
+        return tenantService.getSolverProfile(tenantId);
+    }
+
+    @POST
+    @Path("/{tenantId}/config/solver/update")
+    @Operation(summary = "Update Solver Profile",
+            description = "Updates how the solver solves a tenant roster, from the next time it solves")
+    public SolverProfile updateSolverProfile(@Valid SolverProfileView solverProfileView) {
+        return tenantService.updateSolverProfile(solverProfileView);
+    }
+
     // TODO: Where should this be?
     @GET
     @Path("/supported/timezones")
@@ -13,11 +13,14 @@ import javax.validation.Validator;
 import org.optaweb.employeerostering.domain.roster.RosterState;
 import org.optaweb.employeerostering.domain.roster.view.RosterStateView;
 import org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration;
+import org.optaweb.employeerostering.domain.tenant.SolverProfile;
 import org.optaweb.employeerostering.domain.tenant.Tenant;
 import org.optaweb.employeerostering.domain.tenant.view.RosterConstraintConfigurationView;
+import org.optaweb.employeerostering.domain.tenant.view.SolverProfileView;
 import org.optaweb.employeerostering.service.common.AbstractRestService;
 import org.optaweb.employeerostering.service.employee.EmployeeAvailabilityRepository;
 import org.optaweb.employeerostering.service.employee.EmployeeRepository;
+import org.optaweb.employeerostering.service.roster.RosterCache;
 import org.optaweb.employeerostering.service.roster.RosterStateRepository;
 import org.optaweb.employeerostering.service.rotation.TimeBucketRepository;
 import org.optaweb.employeerostering.service.shift.ShiftRepository;
@@ -31,6 +34,8 @@ public class TenantService extends AbstractRestService {
 
     RosterConstraintConfigurationRepository rosterConstraintConfigurationRepository;
 
+    SolverProfileRepository solverProfileRepository;
+
     RosterStateRepository rosterStateRepository;
 
     ShiftRepository shiftRepository;
@@ -45,20 +50,25 @@ public class TenantService extends AbstractRestService {
 
     SkillRepository skillRepository;
 
+    RosterCache rosterCache;
+
     @Inject
     public TenantService(Validator validator,
             TenantRepository tenantRepository,
             RosterConstraintConfigurationRepository rosterConstraintConfigurationRepository,
+            SolverProfileRepository solverProfileRepository,
             RosterStateRepository rosterStateRepository,
             ShiftRepository shiftRepository,
             EmployeeAvailabilityRepository employeeAvailabilityRepository,
             TimeBucketRepository timeBucketRepository,
             EmployeeRepository employeeRepository,
             SpotRepository spotRepository,
-            SkillRepository skillRepository) {
+            SkillRepository skillRepository,
+            RosterCache rosterCache) {
         super(validator);
         this.tenantRepository = tenantRepository;
         this.rosterConstraintConfigurationRepository = rosterConstraintConfigurationRepository;
+        this.solverProfileRepository = solverProfileRepository;
         this.rosterStateRepository = rosterStateRepository;
         this.shiftRepository = shiftRepository;
         this.employeeAvailabilityRepository = employeeAvailabilityRepository;
@@ -66,6 +76,7 @@ public class TenantService extends AbstractRestService {
         this.employeeRepository = employeeRepository;
         this.spotRepository = spotRepository;
         this.skillRepository = skillRepository;
+        this.rosterCache = rosterCache;
     }
 
     // ************************************************************************
@@ -109,9 +120,11 @@ public class TenantService extends AbstractRestService {
 
         RosterConstraintConfiguration rosterConstraintConfiguration = new RosterConstraintConfiguration();
         rosterConstraintConfiguration.setTenantId(databaseTenant.getId());
+        SolverProfile solverProfile = new SolverProfile(databaseTenant.getId());
 
         rosterStateRepository.persist(initialRosterState);
         rosterConstraintConfigurationRepository.persist(rosterConstraintConfiguration);
+        solverProfileRepository.persist(solverProfile);
         return databaseTenant;
     }
 
@@ -119,7 +132,7 @@ public class TenantService extends AbstractRestService {
     public Boolean deleteTenant(Integer id) {
         // Dependency order: Shift, EmployeeAvailability, ShiftTemplate,
         // Employee, Spot, Skill,
-        // RosterConstraintConfiguration, RosterState
+        // RosterConstraintConfiguration, SolverProfile, RosterState
 
         shiftRepository.deleteForTenant(id);
         employeeAvailabilityRepository.deleteForTenant(id);
@@ -128,8 +141,10 @@ public class TenantService extends AbstractRestService {
         spotRepository.deleteForTenant(id);
         skillRepository.deleteForTenant(id);
         rosterConstraintConfigurationRepository.deleteForTenant(id);
+        solverProfileRepository.deleteForTenant(id);
         rosterStateRepository.deleteForTenant(id);
         tenantRepository.delete("id", id);
+        rosterCache.invalidate(id);
         return true;
     }
 
@@ -187,10 +202,52 @@ public class TenantService extends AbstractRestService {
                 .getDesiredTimeSlot());
         oldRosterConstraintConfiguration.setNotRotationEmployee(rosterConstraintConfigurationView
                 .getNotRotationEmployee());
+        oldRosterConstraintConfiguration.setEmployeeWorkloadBalance(rosterConstraintConfigurationView
+                .getEmployeeWorkloadBalance());
         rosterConstraintConfigurationRepository.persist(oldRosterConstraintConfiguration);
+        rosterCache.invalidate(oldRosterConstraintConfiguration.getTenantId());
         return oldRosterConstraintConfiguration;
     }
 
+    // ************************************************************************
+    // SolverProfile
+    // ************************************************************************
+
+    /**
+     * @param tenantId never null
+     * @return never null, an unsaved profile with the defaults if the tenant has none
+     */
+    @Transactional
+    public SolverProfile getSolverProfile(Integer tenantId) {
+        return findOrBuildSolverProfile(tenantId);
+    }
+
+    /**
+     * Takes effect from the next time the tenant solves, a solver that is running keeps its profile.
+     * @param solverProfileView never null
+     * @return never null
+     */
+    @Transactional
+    public SolverProfile updateSolverProfile(SolverProfileView solverProfileView) {
+        SolverProfile oldSolverProfile = findOrBuildSolverProfile(solverProfileView.getTenantId());
+
+        oldSolverProfile.setSecondsSpentLimit(solverProfileView.getSecondsSpentLimit());
+        oldSolverProfile.setUnimprovedSecondsSpentLimit(solverProfileView.getUnimprovedSecondsSpentLimit());
+        oldSolverProfile.setBestScoreLimit(solverProfileView.getBestScoreLimit());
+        oldSolverProfile.setMoveThreadCount(solverProfileView.getMoveThreadCount());
+        oldSolverProfile.setPriority(solverProfileView.getPriority());
+        oldSolverProfile.getPhaseList().clear();
+        oldSolverProfile.getPhaseList().addAll(solverProfileView.getPhaseList());
+        solverProfileRepository.persist(oldSolverProfile);
+        return oldSolverProfile;
+    }
+
+    // The tenants created before solver profiles were added have none, so they solve with the defaults
+    private SolverProfile findOrBuildSolverProfile(Integer tenantId) {
+        return solverProfileRepository.findByTenantId(tenantId)
+                .orElseGet(() -> new SolverProfile(getTenant(tenantId).getId()));
+    }
+
     public List<ZoneId> getSupportedTimezones() {
         return ZoneId.getAvailableZoneIds().stream()
                 .sorted().map(ZoneId::of)
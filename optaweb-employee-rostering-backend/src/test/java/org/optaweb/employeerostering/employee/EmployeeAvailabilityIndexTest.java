@@ -0,0 +1,92 @@
+package org.optaweb.employeerostering.employee;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.optaweb.employeerostering.domain.employee.Employee;
+import org.optaweb.employeerostering.domain.employee.EmployeeAvailability;
+import org.optaweb.employeerostering.domain.employee.EmployeeAvailabilityIndex;
+import org.optaweb.employeerostering.domain.employee.EmployeeAvailabilityState;
+
+public class EmployeeAvailabilityIndexTest {
+
+    private static final Integer TENANT_ID = 0;
+    private static final OffsetDateTime START = OffsetDateTime.of(2000, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    @Test
+    public void testIsUnavailable() {
+        Employee employeeA = new Employee(TENANT_ID, "Amy", null, Collections.emptySet());
+        employeeA.setId(1L);
+        Employee employeeB = new Employee(TENANT_ID, "Beth", null, Collections.emptySet());
+        employeeB.setId(2L);
+
+        EmployeeAvailabilityIndex index = new EmployeeAvailabilityIndex(Arrays.asList(
+                availability(employeeA, 10, 20, EmployeeAvailabilityState.UNAVAILABLE),
+                availability(employeeA, 15, 30, EmployeeAvailabilityState.UNAVAILABLE),
+                availability(employeeA, 50, 60, EmployeeAvailabilityState.UNAVAILABLE),
+                availability(employeeA, 35, 45, EmployeeAvailabilityState.UNDESIRED),
+                availability(employeeB, 100, 200, EmployeeAvailabilityState.DESIRED)));
+
+        assertThat(isUnavailable(index, employeeA, 0, 10)).isFalse();
+        assertThat(isUnavailable(index, employeeA, 0, 11)).isTrue();
+        assertThat(isUnavailable(index, employeeA, 25, 26)).isTrue();
+        assertThat(isUnavailable(index, employeeA, 30, 50)).isFalse();
+        assertThat(isUnavailable(index, employeeA, 59, 70)).isTrue();
+        assertThat(isUnavailable(index, employeeA, 60, 70)).isFalse();
+        assertThat(isUnavailable(index, employeeA, 0, 100)).isTrue();
+        assertThat(isUnavailable(index, employeeB, 100, 200)).isFalse();
+    }
+
+    @Test
+    public void testGetOverlappingAvailabilityList() {
+        Employee employeeA = new Employee(TENANT_ID, "Amy", null, Collections.emptySet());
+        employeeA.setId(1L);
+
+        EmployeeAvailability longUndesired = availability(employeeA, 0, 100, EmployeeAvailabilityState.UNDESIRED);
+        EmployeeAvailability shortUndesired = availability(employeeA, 10, 20, EmployeeAvailabilityState.UNDESIRED);
+        EmployeeAvailability laterUndesired = availability(employeeA, 40, 50, EmployeeAvailabilityState.UNDESIRED);
+        EmployeeAvailability desired = availability(employeeA, 30, 60, EmployeeAvailabilityState.DESIRED);
+        EmployeeAvailabilityIndex index = new EmployeeAvailabilityIndex(Arrays.asList(laterUndesired, desired,
+                shortUndesired, longUndesired));
+
+        assertThat(getOverlappingAvailabilityList(index, employeeA, EmployeeAvailabilityState.UNDESIRED, 25, 35))
+                .containsExactly(longUndesired);
+        assertThat(getOverlappingAvailabilityList(index, employeeA, EmployeeAvailabilityState.UNDESIRED, 15, 45))
+                .containsExactly(longUndesired, shortUndesired, laterUndesired);
+        assertThat(getOverlappingAvailabilityList(index, employeeA, EmployeeAvailabilityState.UNDESIRED, 100, 110))
+                .isEmpty();
+        assertThat(getOverlappingAvailabilityList(index, employeeA, EmployeeAvailabilityState.DESIRED, 55, 65))
+                .containsExactly(desired);
+        assertThat(getOverlappingAvailabilityList(index, employeeA, EmployeeAvailabilityState.UNAVAILABLE, 0, 100))
+                .isEmpty();
+        assertThat(index.hasOverlappingAvailability(employeeA, EmployeeAvailabilityState.UNDESIRED,
+                START.toEpochSecond() / 60 + 99, START.toEpochSecond() / 60 + 100)).isTrue();
+    }
+
+    private static EmployeeAvailability availability(Employee employee, int startMinute, int endMinute,
+            EmployeeAvailabilityState state) {
+        EmployeeAvailability employeeAvailability = new EmployeeAvailability(TENANT_ID, employee,
+                START.plusMinutes(startMinute), START.plusMinutes(endMinute));
+        employeeAvailability.setState(state);
+        return employeeAvailability;
+    }
+
+    private static List<EmployeeAvailability> getOverlappingAvailabilityList(EmployeeAvailabilityIndex index,
+            Employee employee, EmployeeAvailabilityState state, int startMinute, int endMinute) {
+        long startEpochMinute = START.toEpochSecond() / 60;
+        return index.getOverlappingAvailabilityList(employee, state, startEpochMinute + startMinute,
+                startEpochMinute + endMinute);
+    }
+
+    private static boolean isUnavailable(EmployeeAvailabilityIndex index, Employee employee, int startMinute,
+            int endMinute) {
+        long startEpochMinute = START.toEpochSecond() / 60;
+        return index.isUnavailable(employee, startEpochMinute + startMinute, startEpochMinute + endMinute);
+    }
+}
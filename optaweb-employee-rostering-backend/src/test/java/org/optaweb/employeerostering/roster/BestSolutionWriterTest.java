@@ -0,0 +1,97 @@
+package org.optaweb.employeerostering.roster;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.optaweb.employeerostering.domain.roster.Roster;
+import org.optaweb.employeerostering.service.roster.BestSolutionWriter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class BestSolutionWriterTest {
+
+    private MeterRegistry meterRegistry;
+    private BestSolutionWriter bestSolutionWriter;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        bestSolutionWriter = new BestSolutionWriter(meterRegistry, 1, Duration.ZERO);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        bestSolutionWriter.shutdown();
+    }
+
+    private static Roster roster(Integer tenantId) {
+        Roster roster = new Roster();
+        roster.setTenantId(tenantId);
+        return roster;
+    }
+
+    @Test
+    public void onlyLatestRosterIsWrittenTest() throws InterruptedException {
+        CountDownLatch firstWriteStarted = new CountDownLatch(1);
+        CountDownLatch firstWriteReleased = new CountDownLatch(1);
+        CountDownLatch allWritesDone = new CountDownLatch(2);
+        List<Roster> writtenRosterList = new CopyOnWriteArrayList<>();
+
+        Roster first = roster(1);
+        Roster latest = roster(1);
+        bestSolutionWriter.write(first, roster -> {
+            firstWriteStarted.countDown();
+            try {
+                firstWriteReleased.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            writtenRosterList.add(roster);
+            allWritesDone.countDown();
+        });
+        assertThat(firstWriteStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+        bestSolutionWriter.write(roster(1), roster -> {
+            writtenRosterList.add(roster);
+            allWritesDone.countDown();
+        });
+        bestSolutionWriter.write(roster(1), roster -> {
+            writtenRosterList.add(roster);
+            allWritesDone.countDown();
+        });
+        bestSolutionWriter.write(latest, roster -> {
+            writtenRosterList.add(roster);
+            allWritesDone.countDown();
+        });
+        assertThat(meterRegistry.get(BestSolutionWriter.QUEUED_METRIC).gauge().value()).isEqualTo(1.0);
+        firstWriteReleased.countDown();
+
+        assertThat(allWritesDone.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(writtenRosterList).containsExactly(first, latest);
+        assertThat(meterRegistry.get(BestSolutionWriter.DROPPED_METRIC).counter().count()).isEqualTo(2.0);
+        assertThat(meterRegistry.get(BestSolutionWriter.LATENCY_METRIC).timer().count()).isGreaterThanOrEqualTo(1L);
+    }
+
+    @Test
+    public void failedWriteIsCountedTest() throws InterruptedException {
+        CountDownLatch nextWriteDone = new CountDownLatch(1);
+
+        bestSolutionWriter.write(roster(2), roster -> {
+            throw new IllegalStateException("Failed write");
+        });
+        bestSolutionWriter.write(roster(3), roster -> nextWriteDone.countDown());
+
+        assertThat(nextWriteDone.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(meterRegistry.get(BestSolutionWriter.FAILED_METRIC).counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get(BestSolutionWriter.DROPPED_METRIC).counter().count()).isEqualTo(0.0);
+    }
+}
@@ -0,0 +1,304 @@
+package org.optaweb.employeerostering.roster;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.inject.Inject;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.optaplanner.core.api.solver.Solver;
+import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.core.api.solver.change.ProblemChange;
+import org.optaplanner.core.config.score.director.ScoreDirectorFactoryConfig;
+import org.optaplanner.core.config.solver.SolverConfig;
+import org.optaplanner.core.config.solver.termination.TerminationConfig;
+import org.optaweb.employeerostering.domain.contract.Contract;
+import org.optaweb.employeerostering.domain.employee.Employee;
+import org.optaweb.employeerostering.domain.employee.EmployeeAvailability;
+import org.optaweb.employeerostering.domain.employee.EmployeeAvailabilityState;
+import org.optaweb.employeerostering.domain.roster.HistoricWorkingTime;
+import org.optaweb.employeerostering.domain.roster.Roster;
+import org.optaweb.employeerostering.domain.roster.RosterState;
+import org.optaweb.employeerostering.domain.shift.Shift;
+import org.optaweb.employeerostering.domain.spot.Spot;
+import org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration;
+import org.optaweb.employeerostering.domain.violation.ContractMinutesViolation;
+import org.optaweb.employeerostering.service.roster.change.PutEmployeeAvailabilityProblemChange;
+import org.optaweb.employeerostering.service.roster.change.PutShiftProblemChange;
+import org.optaweb.employeerostering.service.roster.change.RemoveEmployeeAvailabilityProblemChange;
+import org.optaweb.employeerostering.service.roster.change.RemoveShiftProblemChange;
+import org.optaweb.employeerostering.service.solver.EmployeeRosteringConstraintProvider;
+
+import io.quarkus.test.junit.QuarkusTest;
+
+@QuarkusTest
+public class RosterProblemChangeTest {
+
+    private static final int TENANT_ID = 0;
+    private static final LocalDate START_DATE = LocalDate.of(2019, 5, 13);
+    private static final OffsetDateTime HORIZON_START_DATE_TIME = START_DATE.atStartOfDay().atOffset(ZoneOffset.UTC);
+    private static final OffsetDateTime HORIZON_END_DATE_TIME = HORIZON_START_DATE_TIME.plusDays(7);
+    private static final long AVAILABILITY_ID = 100L;
+
+    @Inject
+    SolverConfig solverConfig;
+
+    private ExecutorService executorService;
+    private Employee employeeA;
+    private Employee employeeB;
+    private Spot spot;
+    private Roster roster;
+
+    @BeforeEach
+    public void setup() {
+        executorService = Executors.newSingleThreadExecutor();
+
+        Contract contract = new Contract(TENANT_ID, "Default Contract", null, null, null, null);
+        contract.setId(1L);
+        employeeA = new Employee(TENANT_ID, "Amy", contract, Collections.emptySet());
+        employeeA.setId(2L);
+        employeeB = new Employee(TENANT_ID, "Beth", contract, Collections.emptySet());
+        employeeB.setId(3L);
+        spot = new Spot(TENANT_ID, "Spot", Collections.emptySet());
+        spot.setId(4L);
+
+        RosterState rosterState = new RosterState(TENANT_ID, 7, START_DATE, 7, 14, 0, 7, START_DATE.minusDays(7),
+                ZoneOffset.UTC);
+        rosterState.setId(5L);
+        RosterConstraintConfiguration rosterConstraintConfiguration = new RosterConstraintConfiguration();
+        rosterConstraintConfiguration.setTenantId(TENANT_ID);
+        rosterConstraintConfiguration.setId(6L);
+        rosterConstraintConfiguration.setWeekStartDay(DayOfWeek.MONDAY);
+
+        List<Shift> shiftList = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            shiftList.add(newShift(10L + i, HORIZON_START_DATE_TIME.plusDays(i).plusHours(9)));
+        }
+        EmployeeAvailability employeeAvailability = newEmployeeAvailability(HORIZON_START_DATE_TIME.plusDays(1));
+
+        roster = new Roster();
+        roster.setTenantId(TENANT_ID);
+        roster.setRosterState(rosterState);
+        roster.setRosterConstraintConfiguration(rosterConstraintConfiguration);
+        roster.setSkillList(Collections.emptyList());
+        roster.setSpotList(Collections.singletonList(spot));
+        roster.setEmployeeList(Arrays.asList(employeeA, employeeB));
+        roster.setEmployeeAvailabilityList(Collections.singletonList(employeeAvailability));
+        roster.setHistoricWorkingTime(new HistoricWorkingTime(DayOfWeek.MONDAY, HORIZON_START_DATE_TIME,
+                HORIZON_END_DATE_TIME));
+        roster.setShiftList(shiftList);
+        roster.indexSkills();
+        roster.indexWeekStartDay();
+        roster.indexEmployeeAvailabilities();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        executorService.shutdownNow();
+    }
+
+    private Shift newShift(Long id, OffsetDateTime startDateTime) {
+        Shift shift = new Shift(TENANT_ID, spot, startDateTime, startDateTime.plusHours(8));
+        shift.setId(id);
+        return shift;
+    }
+
+    private EmployeeAvailability newEmployeeAvailability(OffsetDateTime startDateTime) {
+        EmployeeAvailability employeeAvailability = new EmployeeAvailability(TENANT_ID, employeeA, startDateTime,
+                startDateTime.plusDays(1));
+        employeeAvailability.setId(AVAILABILITY_ID);
+        employeeAvailability.setState(EmployeeAvailabilityState.UNAVAILABLE);
+        return employeeAvailability;
+    }
+
+    /**
+     * Submits the problem change once the solver found its first best solution.
+     * @return the first best solution after the problem change was applied
+     */
+    private Roster solveWithProblemChange(ProblemChange<Roster> problemChange) throws Exception {
+        return solveWithProblemChange(problemChange, new CompletableFuture<>());
+    }
+
+    private Roster solveWithProblemChange(ProblemChange<Roster> problemChange,
+            CompletableFuture<Roster> firstBestSolution) throws Exception {
+        Solver<Roster> solver = SolverFactory.<Roster> create(solverConfig.copyConfig()
+                .withDaemon(true)
+                .withScoreDirectorFactory(new ScoreDirectorFactoryConfig()
+                        .withConstraintProviderClass(EmployeeRosteringConstraintProvider.class))
+                .withTerminationConfig(new TerminationConfig()))
+                .buildSolver();
+        CountDownLatch solvingLatch = new CountDownLatch(1);
+        AtomicBoolean isChanged = new AtomicBoolean(false);
+        CompletableFuture<Roster> changedBestSolution = new CompletableFuture<>();
+        solver.addEventListener(event -> {
+            firstBestSolution.complete(event.getNewBestSolution());
+            solvingLatch.countDown();
+            // Fired by the solver thread, so the flag is set before the events of the changed solution
+            if (isChanged.get() && event.isEveryProblemChangeProcessed()) {
+                changedBestSolution.complete(event.getNewBestSolution());
+            }
+        });
+        Future<Roster> solvingFuture = executorService.submit(() -> solver.solve(roster));
+        try {
+            assertThat(solvingLatch.await(1L, TimeUnit.MINUTES)).isTrue();
+            solver.addProblemChange((workingSolution, problemChangeDirector) -> {
+                problemChange.doChange(workingSolution, problemChangeDirector);
+                isChanged.set(true);
+            });
+            return changedBestSolution.get(1L, TimeUnit.MINUTES);
+        } finally {
+            solver.terminateEarly();
+            solvingFuture.get(1L, TimeUnit.MINUTES);
+        }
+    }
+
+    private static Optional<Shift> findShift(Roster roster, Long id) {
+        return roster.getShiftList().stream()
+                .filter(shift -> shift.getId().equals(id))
+                .findFirst();
+    }
+
+    @Test
+    @Timeout(60)
+    public void putCreatedShiftTest() throws Exception {
+        Shift createdShift = newShift(20L, HORIZON_START_DATE_TIME.plusDays(3).plusHours(9));
+
+        Roster bestSolution = solveWithProblemChange(new PutShiftProblemChange(createdShift));
+        assertThat(bestSolution.getShiftList()).hasSize(4);
+        assertThat(findShift(bestSolution, 20L)).hasValueSatisfying(shift -> assertThat(shift.getStartDateTime())
+                .isEqualTo(HORIZON_START_DATE_TIME.plusDays(3).plusHours(9)));
+    }
+
+    @Test
+    @Timeout(60)
+    public void putMovedShiftTest() throws Exception {
+        Shift movedShift = newShift(10L, HORIZON_START_DATE_TIME.plusDays(4).plusHours(12));
+        movedShift.setEmployee(employeeB);
+        movedShift.setPinnedByUser(true);
+
+        Roster bestSolution = solveWithProblemChange(new PutShiftProblemChange(movedShift,
+                newShift(10L, HORIZON_START_DATE_TIME.plusHours(9))));
+        assertThat(bestSolution.getShiftList()).hasSize(3);
+        assertThat(findShift(bestSolution, 10L)).hasValueSatisfying(shift -> {
+            assertThat(shift.getStartDateTime()).isEqualTo(HORIZON_START_DATE_TIME.plusDays(4).plusHours(12));
+            assertThat(shift.getEndDateTime()).isEqualTo(HORIZON_START_DATE_TIME.plusDays(4).plusHours(20));
+            assertThat(shift.getEmployee()).isEqualTo(employeeB);
+            assertThat(shift.isPinnedByUser()).isTrue();
+        });
+    }
+
+    @Test
+    @Timeout(60)
+    public void putShiftMovedOutsideHorizonTest() throws Exception {
+        OffsetDateTime startDateTime = HORIZON_END_DATE_TIME.plusHours(9);
+        Shift movedShift = newShift(10L, startDateTime);
+        movedShift.setEmployee(employeeA);
+
+        Roster bestSolution = solveWithProblemChange(new PutShiftProblemChange(movedShift,
+                newShift(10L, HORIZON_START_DATE_TIME.plusHours(9))));
+        assertThat(bestSolution.getShiftList()).hasSize(2);
+        assertThat(findShift(bestSolution, 10L)).isEmpty();
+        assertThat(bestSolution.getHistoricWorkingTime().getMinutesOfPeriodContaining(employeeA,
+                ContractMinutesViolation.Type.WEEK, startDateTime)).isEqualTo(Duration.ofHours(8).toMinutes());
+        // The historic working time of the roster is replaced, not modified
+        assertThat(roster.getHistoricWorkingTime().getMinutesOfPeriodContaining(employeeA,
+                ContractMinutesViolation.Type.WEEK, startDateTime)).isZero();
+    }
+
+    @Test
+    @Timeout(60)
+    public void putShiftMovedIntoHorizonTest() throws Exception {
+        Shift historicShift = newShift(20L, HORIZON_END_DATE_TIME.plusHours(9));
+        historicShift.setEmployee(employeeA);
+        HistoricWorkingTime historicWorkingTime = roster.getHistoricWorkingTime();
+        historicWorkingTime.addShift(employeeA.getId(), historicShift.getStartDateTime(),
+                historicShift.getEndDateTime());
+        Shift movedShift = newShift(20L, HORIZON_START_DATE_TIME.plusDays(3).plusHours(9));
+        movedShift.setEmployee(employeeA);
+
+        Roster bestSolution = solveWithProblemChange(new PutShiftProblemChange(movedShift, historicShift));
+        assertThat(bestSolution.getShiftList()).hasSize(4);
+        assertThat(findShift(bestSolution, 20L)).isPresent();
+        assertThat(bestSolution.getHistoricWorkingTime().getMinutesOfPeriodContaining(employeeA,
+                ContractMinutesViolation.Type.WEEK, historicShift.getStartDateTime())).isZero();
+    }
+
+    @Test
+    @Timeout(60)
+    public void removeShiftTest() throws Exception {
+        Roster bestSolution = solveWithProblemChange(new RemoveShiftProblemChange(newShift(11L,
+                HORIZON_START_DATE_TIME.plusDays(1).plusHours(9))));
+        assertThat(bestSolution.getShiftList()).extracting(Shift::getId).containsExactlyInAnyOrder(10L, 12L);
+    }
+
+    @Test
+    @Timeout(60)
+    public void putCreatedEmployeeAvailabilityTest() throws Exception {
+        EmployeeAvailability createdEmployeeAvailability =
+                newEmployeeAvailability(HORIZON_START_DATE_TIME.plusDays(2));
+        createdEmployeeAvailability.setId(AVAILABILITY_ID + 1);
+
+        Roster bestSolution =
+                solveWithProblemChange(new PutEmployeeAvailabilityProblemChange(createdEmployeeAvailability));
+        assertThat(bestSolution.getEmployeeAvailabilityList()).extracting(EmployeeAvailability::getId)
+                .containsExactlyInAnyOrder(AVAILABILITY_ID, AVAILABILITY_ID + 1);
+        assertThat(bestSolution.getEmployeeAvailabilityIndex().isUnavailable(employeeA,
+                createdEmployeeAvailability.getStartEpochMinute(), createdEmployeeAvailability.getEndEpochMinute()))
+                        .isTrue();
+    }
+
+    @Test
+    @Timeout(60)
+    public void putMovedEmployeeAvailabilityTest() throws Exception {
+        OffsetDateTime startDateTime = HORIZON_START_DATE_TIME.plusDays(4);
+        EmployeeAvailability movedEmployeeAvailability = newEmployeeAvailability(startDateTime);
+        CompletableFuture<Roster> firstBestSolution = new CompletableFuture<>();
+
+        Roster bestSolution = solveWithProblemChange(
+                new PutEmployeeAvailabilityProblemChange(movedEmployeeAvailability), firstBestSolution);
+        assertThat(bestSolution.getEmployeeAvailabilityList()).hasSize(1);
+        assertThat(bestSolution.getEmployeeAvailabilityList().get(0).getId()).isEqualTo(AVAILABILITY_ID);
+        assertThat(bestSolution.getEmployeeAvailabilityList().get(0).getStartDateTime()).isEqualTo(startDateTime);
+        assertThat(bestSolution.getEmployeeAvailabilityIndex().isUnavailable(employeeA,
+                movedEmployeeAvailability.getStartEpochMinute(), movedEmployeeAvailability.getEndEpochMinute()))
+                        .isTrue();
+        // The availability is shared with the best solutions before the change, so it must be replaced
+        assertThat(firstBestSolution.get().getEmployeeAvailabilityList()).hasSize(1);
+        assertThat(firstBestSolution.get().getEmployeeAvailabilityList().get(0).getStartDateTime())
+                .isEqualTo(HORIZON_START_DATE_TIME.plusDays(1));
+    }
+
+    @Test
+    @Timeout(60)
+    public void removeEmployeeAvailabilityTest() throws Exception {
+        EmployeeAvailability removedEmployeeAvailability =
+                newEmployeeAvailability(HORIZON_START_DATE_TIME.plusDays(1));
+
+        Roster bestSolution =
+                solveWithProblemChange(new RemoveEmployeeAvailabilityProblemChange(removedEmployeeAvailability));
+        assertThat(bestSolution.getEmployeeAvailabilityList()).isEmpty();
+        assertThat(bestSolution.getEmployeeAvailabilityIndex().isUnavailable(employeeA,
+                removedEmployeeAvailability.getStartEpochMinute(), removedEmployeeAvailability.getEndEpochMinute()))
+                        .isFalse();
+    }
+}
@@ -90,6 +90,18 @@ public class RosterRestControllerTest extends AbstractEntityRequireTenantRestSer
                 .get();
     }
 
+    private Response getShiftRosterViewPage(Long afterSpotId, Integer numberOfSpots, String startDateString,
+            String endDateString) {
+        return RestAssured.given()
+                .basePath(rosterPathURI + "shiftRosterView/page")
+                .pathParam("tenantId", TENANT_ID)
+                .queryParam("afterSpotId", afterSpotId)
+                .queryParam("n", numberOfSpots)
+                .queryParam("startDate", startDateString)
+                .queryParam("endDate", endDateString)
+                .get();
+    }
+
     private Response getShiftRosterViewFor(String startDateString,
             String endDateString, List<Spot> spots) {
         return RestAssured.given().basePath(rosterPathURI + "shiftRosterView/for")
@@ -334,6 +346,44 @@ public class RosterRestControllerTest extends AbstractEntityRequireTenantRestSer
         assertThat(shiftRosterView.getTenantId()).isEqualTo(TENANT_ID);
     }
 
+    @Test
+    public void testGetShiftRosterViewPage() {
+        createTestRoster();
+
+        LocalDate startDate = LocalDate.of(2000, 1, 1);
+        LocalDate endDate = LocalDate.of(2000, 1, 2);
+        Response shiftRosterViewResponse = getShiftRosterViewPage(null, 1, startDate.toString(), endDate.toString());
+        ShiftRosterView shiftRosterView = shiftRosterViewResponse.as(ShiftRosterView.class);
+        assertThat(shiftRosterViewResponse.getStatusCode()).isEqualTo(Status.OK.getStatusCode());
+        assertThat(shiftRosterView.getSpotList()).containsExactlyElementsOf(spotList.subList(0, 1));
+        assertThat(shiftRosterView.getEmployeeList()).isEmpty();
+        assertThat(shiftRosterView.getSpotIdToShiftViewListMap()).containsOnly(
+                entry(spotList.get(0).getId(), Arrays.asList(shiftViewList.get(0))));
+
+        shiftRosterViewResponse = getShiftRosterViewPage(spotList.get(0).getId(), 1, startDate.toString(),
+                endDate.toString());
+        shiftRosterView = shiftRosterViewResponse.as(ShiftRosterView.class);
+        assertThat(shiftRosterViewResponse.getStatusCode()).isEqualTo(Status.OK.getStatusCode());
+        assertThat(shiftRosterView.getSpotList()).containsExactlyElementsOf(spotList.subList(1, 2));
+        // Only the employees of the shifts in the page
+        assertThat(shiftRosterView.getEmployeeList()).containsExactly(employeeList.get(1));
+        assertThat(shiftRosterView.getSpotIdToShiftViewListMap()).containsOnly(
+                entry(spotList.get(1).getId(), Arrays.asList(shiftViewList.get(1))));
+        assertThat(shiftRosterView.getTenantId()).isEqualTo(TENANT_ID);
+
+        shiftRosterViewResponse = getShiftRosterViewPage(spotList.get(1).getId(), 1, startDate.toString(),
+                endDate.toString());
+        shiftRosterView = shiftRosterViewResponse.as(ShiftRosterView.class);
+        assertThat(shiftRosterView.getSpotList()).isEmpty();
+        assertThat(shiftRosterView.getSpotIdToShiftViewListMap()).isEmpty();
+
+        shiftRosterViewResponse = getShiftRosterViewPage(null, 0, startDate.toString(), endDate.toString());
+        assertThat(shiftRosterViewResponse.getStatusCode()).isEqualTo(Status.BAD_REQUEST.getStatusCode());
+
+        shiftRosterViewResponse = getShiftRosterViewPage(null, null, startDate.toString(), endDate.toString());
+        assertThat(shiftRosterViewResponse.getStatusCode()).isEqualTo(Status.BAD_REQUEST.getStatusCode());
+    }
+
     @Test
     public void testGetShiftRosterViewFor() {
         createTestRoster();
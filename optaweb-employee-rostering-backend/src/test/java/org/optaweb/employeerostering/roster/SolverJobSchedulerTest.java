@@ -0,0 +1,178 @@
+package org.optaweb.employeerostering.roster;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.optaplanner.core.api.solver.SolverStatus;
+import org.optaplanner.core.config.solver.SolverManagerConfig;
+import org.optaweb.employeerostering.domain.roster.SolverQueueStatus;
+import org.optaweb.employeerostering.domain.tenant.SolverProfile;
+import org.optaweb.employeerostering.service.roster.SolverJobScheduler;
+import org.optaweb.employeerostering.service.roster.SolverJobScheduler.JobType;
+import org.optaweb.employeerostering.service.roster.TenantSolverManager;
+
+public class SolverJobSchedulerTest {
+
+    private TenantSolverManager solverManager;
+    private SolverJobScheduler solverJobScheduler;
+    private List<Integer> startedTenantIdList;
+    private List<SolverProfile> startedSolverProfileList;
+
+    @BeforeEach
+    public void setup() {
+        solverManager = mock(TenantSolverManager.class);
+        when(solverManager.getSolverStatus(any())).thenReturn(SolverStatus.SOLVING_ACTIVE);
+        when(solverManager.resolveMoveThreadNumber(any())).thenAnswer(invocation -> {
+            SolverProfile solverProfile = invocation.getArgument(0);
+            return (solverProfile.getMoveThreadCount() == null) ? 0
+                    : Integer.parseInt(solverProfile.getMoveThreadCount());
+        });
+        solverJobScheduler = new SolverJobScheduler(solverManager,
+                new SolverManagerConfig().withParallelSolverCount("1"), Duration.ofHours(1), Optional.empty());
+        startedTenantIdList = new CopyOnWriteArrayList<>();
+        startedSolverProfileList = new CopyOnWriteArrayList<>();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        solverJobScheduler.shutdown();
+    }
+
+    private void submit(Integer tenantId, JobType jobType, int priority) {
+        submit(tenantId, jobType, priority, null);
+    }
+
+    private void submit(Integer tenantId, JobType jobType, int priority, String moveThreadCount) {
+        SolverProfile solverProfile = new SolverProfile(tenantId);
+        solverProfile.setPriority(priority);
+        solverProfile.setMoveThreadCount(moveThreadCount);
+        submit(tenantId, jobType, solverProfile);
+    }
+
+    private void submit(Integer tenantId, JobType jobType, SolverProfile solverProfile) {
+        solverJobScheduler.submit(tenantId, jobType, solverProfile, sliceSolverProfile -> {
+            startedTenantIdList.add(tenantId);
+            startedSolverProfileList.add(sliceSolverProfile);
+        });
+    }
+
+    @Test
+    public void interactiveJobPreemptsBatchJobTest() {
+        submit(1, JobType.BATCH, 1);
+        submit(2, JobType.BATCH, 1);
+        assertThat(startedTenantIdList).containsExactly(1);
+        assertThat(solverJobScheduler.getSolverStatus(2)).isEqualTo(SolverStatus.SOLVING_SCHEDULED);
+        // Its time slice is not over yet
+        verify(solverManager, never()).terminateEarly(1);
+
+        submit(3, JobType.INTERACTIVE, 1);
+        verify(solverManager).terminateEarly(1);
+        assertThat(solverJobScheduler.isPreempted(1)).isTrue();
+        assertThat(solverJobScheduler.getSolverQueueStatus(3).getQueuePosition()).isEqualTo(1);
+        assertThat(solverJobScheduler.getSolverQueueStatus(2).getQueuePosition()).isEqualTo(2);
+        assertThatIllegalStateException().isThrownBy(() -> submit(1, JobType.BATCH, 1));
+
+        solverJobScheduler.finish(1);
+        assertThat(startedTenantIdList).containsExactly(1, 3);
+        // The preempted job waits at the back of the queue
+        assertThat(solverJobScheduler.getSolverQueueStatus(2).getQueuePosition()).isEqualTo(1);
+        SolverQueueStatus queueStatus = solverJobScheduler.getSolverQueueStatus(1);
+        assertThat(queueStatus.getSolverStatus()).isEqualTo(SolverStatus.SOLVING_SCHEDULED);
+        assertThat(queueStatus.getQueuePosition()).isEqualTo(2);
+        // After the interactive job and the slice of the other batch job
+        assertThat(queueStatus.getEstimatedStartDateTime()).isAfter(OffsetDateTime.now().plusMinutes(119));
+
+        solverJobScheduler.finish(3);
+        solverJobScheduler.finish(2);
+        assertThat(startedTenantIdList).containsExactly(1, 3, 2, 1);
+        assertThat(solverJobScheduler.getSolverQueueStatus(1).getQueuePosition()).isNull();
+    }
+
+    @Test
+    public void preemptedJobContinuesWithItsRemainingTimeTest() {
+        SolverProfile solverProfile = new SolverProfile(1);
+        solverProfile.setSecondsSpentLimit(3600L);
+        solverProfile.setUnimprovedSecondsSpentLimit(600L);
+        submit(1, JobType.BATCH, solverProfile);
+        assertThat(startedSolverProfileList.get(0).getSecondsSpentLimit()).isEqualTo(3600L);
+        assertThat(startedSolverProfileList.get(0).getUnimprovedSecondsSpentLimit()).isEqualTo(600L);
+
+        submit(2, JobType.INTERACTIVE, 1);
+        assertThat(solverJobScheduler.isPreempted(1)).isTrue();
+        solverJobScheduler.finish(1);
+        solverJobScheduler.finish(2);
+        assertThat(startedTenantIdList).containsExactly(1, 2, 1);
+        // Rounded down, so the time it solved lowers them
+        SolverProfile sliceSolverProfile = startedSolverProfileList.get(2);
+        assertThat(sliceSolverProfile.getSecondsSpentLimit()).isBetween(3500L, 3599L);
+        assertThat(sliceSolverProfile.getUnimprovedSecondsSpentLimit()).isBetween(500L, 599L);
+    }
+
+    @Test
+    public void preemptedJobThatUsedUpItsTimeEndsTest() throws InterruptedException {
+        SolverProfile solverProfile = new SolverProfile(1);
+        solverProfile.setSecondsSpentLimit(1L);
+        submit(1, JobType.BATCH, solverProfile);
+        Thread.sleep(1100L);
+
+        submit(2, JobType.INTERACTIVE, 1);
+        verify(solverManager).terminateEarly(1);
+        // Its best solution is final
+        assertThat(solverJobScheduler.isPreempted(1)).isFalse();
+        solverJobScheduler.finish(1);
+        solverJobScheduler.finish(2);
+        assertThat(startedTenantIdList).containsExactly(1, 2);
+        assertThat(solverJobScheduler.getSolverQueueStatus(1).getQueuePosition()).isNull();
+    }
+
+    @Test
+    public void higherPriorityStartsFirstTest() {
+        submit(1, JobType.BATCH, 1);
+        submit(2, JobType.BATCH, 1);
+        submit(3, JobType.BATCH, 2);
+
+        solverJobScheduler.finish(1);
+        assertThat(startedTenantIdList).containsExactly(1, 3);
+    }
+
+    @Test
+    public void terminateWaitingJobTest() {
+        submit(1, JobType.BATCH, 1);
+        submit(2, JobType.BATCH, 1);
+
+        assertThat(solverJobScheduler.terminateEarly(2)).isTrue();
+        assertThat(solverJobScheduler.terminateEarly(1)).isFalse();
+        verify(solverManager).terminateEarly(1);
+        solverJobScheduler.finish(1);
+        assertThat(startedTenantIdList).containsExactly(1);
+    }
+
+    @Test
+    public void moveThreadsCountAgainstThreadLimitTest() {
+        solverJobScheduler.shutdown();
+        solverJobScheduler = new SolverJobScheduler(solverManager,
+                new SolverManagerConfig().withParallelSolverCount("3"), Duration.ofHours(1), Optional.of(4));
+        submit(1, JobType.BATCH, 1, "2");
+        submit(2, JobType.BATCH, 1);
+        // A solver is free, but its thread would exceed the limit
+        submit(3, JobType.BATCH, 1);
+        assertThat(startedTenantIdList).containsExactly(1, 2);
+        assertThat(solverJobScheduler.getSolverStatus(3)).isEqualTo(SolverStatus.SOLVING_SCHEDULED);
+
+        solverJobScheduler.finish(2);
+        assertThat(startedTenantIdList).containsExactly(1, 2, 3);
+    }
+}
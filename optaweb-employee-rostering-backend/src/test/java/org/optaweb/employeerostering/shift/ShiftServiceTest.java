@@ -17,14 +17,21 @@ import org.optaweb.employeerostering.domain.contract.Contract;
 import org.optaweb.employeerostering.domain.contract.view.ContractView;
 import org.optaweb.employeerostering.domain.employee.Employee;
 import org.optaweb.employeerostering.domain.employee.view.EmployeeView;
+import org.optaweb.employeerostering.domain.roster.Roster;
 import org.optaweb.employeerostering.domain.shift.view.ShiftView;
+import org.optaweb.employeerostering.domain.skill.Skill;
+import org.optaweb.employeerostering.domain.skill.view.SkillView;
 import org.optaweb.employeerostering.domain.spot.Spot;
 import org.optaweb.employeerostering.domain.spot.view.SpotView;
 import org.optaweb.employeerostering.service.contract.ContractService;
 import org.optaweb.employeerostering.service.employee.EmployeeService;
+import org.optaweb.employeerostering.service.roster.RosterService;
 import org.optaweb.employeerostering.service.shift.ShiftService;
+import org.optaweb.employeerostering.service.skill.SkillService;
 import org.optaweb.employeerostering.service.spot.SpotService;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.quarkus.test.junit.QuarkusTest;
 import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
@@ -44,6 +51,15 @@ public class ShiftServiceTest extends AbstractEntityRequireTenantRestServiceTest
     @Inject
     EmployeeService employeeService;
 
+    @Inject
+    SkillService skillService;
+
+    @Inject
+    RosterService rosterService;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
     private Spot createSpot(Integer tenantId, String name) {
         SpotView spotView = new SpotView(tenantId, name, Collections.emptySet());
         return spotService.createSpot(tenantId, spotView);
@@ -234,4 +250,66 @@ public class ShiftServiceTest extends AbstractEntityRequireTenantRestServiceTest
                 .body("exceptionMessage", equalTo(exceptionMessage))
                 .body("exceptionClass", equalTo(exceptionClass));
     }
+
+    @Test
+    public void shiftIndictmentsFollowEmployeeUpdatesTest() {
+        Skill skill = skillService.createSkill(TENANT_ID, new SkillView(TENANT_ID, "skill"));
+        Spot spot = spotService.createSpot(TENANT_ID, new SpotView(TENANT_ID, "spot", Collections.singleton(skill)));
+        Contract contract = createContract(TENANT_ID, "contract");
+        Employee employee = createEmployee(TENANT_ID, "employee", contract);
+
+        LocalDateTime startDateTime = LocalDateTime.of(2000, 1, 1, 0, 0, 0, 0);
+        LocalDateTime endDateTime = startDateTime.plusHours(8);
+        ShiftView shiftView = new ShiftView(TENANT_ID, spot, startDateTime, endDateTime);
+        shiftView.setEmployeeId(employee.getId());
+        ShiftView persistedShift = shiftService.createShift(TENANT_ID, shiftView);
+        assertThat(persistedShift.getRequiredSkillViolationList()).hasSize(1);
+        assertThat(shiftService.getShift(TENANT_ID, persistedShift.getId()).getRequiredSkillViolationList())
+                .hasSize(1);
+
+        EmployeeView employeeView = new EmployeeView(TENANT_ID, "employee", contract, Collections.singleton(skill));
+        employeeView.setId(employee.getId());
+        employeeService.updateEmployee(TENANT_ID, employeeView);
+        assertThat(shiftService.getShift(TENANT_ID, persistedShift.getId()).getRequiredSkillViolationList())
+                .isEmpty();
+
+        persistedShift.setEmployeeId(null);
+        ShiftView unassignedShift = shiftService.updateShift(TENANT_ID, persistedShift);
+        assertThat(unassignedShift.getUnassignedShiftPenaltyList()).hasSize(1);
+        assertThat(shiftService.getShift(TENANT_ID, persistedShift.getId()).getUnassignedShiftPenaltyList())
+                .hasSize(1);
+    }
+
+    @Test
+    public void updateShiftsOfRosterOnlyWritesChangedShiftsTest() {
+        Spot spot = createSpot(TENANT_ID, "spot");
+        Contract contract = createContract(TENANT_ID, "contract");
+        Employee employee = createEmployee(TENANT_ID, "employee", contract);
+
+        LocalDateTime startDateTime = LocalDateTime.of(2000, 1, 1, 0, 0, 0, 0);
+        ShiftView assignedShift = new ShiftView(TENANT_ID, spot, startDateTime, startDateTime.plusHours(8));
+        assignedShift.setEmployeeId(employee.getId());
+        assignedShift = shiftService.createShift(TENANT_ID, assignedShift);
+        ShiftView unassignedShift = shiftService.createShift(TENANT_ID,
+                new ShiftView(TENANT_ID, spot, startDateTime.plusDays(1), startDateTime.plusDays(1).plusHours(8)));
+
+        Counter shiftsWrittenCounter = meterRegistry.counter(RosterService.BEST_SOLUTION_SHIFTS_WRITTEN_METRIC,
+                "tenantId", TENANT_ID.toString());
+        double shiftsWrittenBefore = shiftsWrittenCounter.count();
+
+        Roster roster = rosterService.buildRoster(TENANT_ID);
+        Long unassignedShiftId = unassignedShift.getId();
+        roster.getShiftList().stream()
+                .filter(shift -> shift.getId().equals(unassignedShiftId))
+                .forEach(shift -> shift.setEmployee(roster.getEmployeeList().get(0)));
+        rosterService.updateShiftsOfRoster(roster);
+        assertThat(shiftsWrittenCounter.count() - shiftsWrittenBefore).isEqualTo(1.0);
+        assertThat(shiftService.getShift(TENANT_ID, unassignedShiftId).getEmployeeId()).isEqualTo(employee.getId());
+        assertThat(shiftService.getShift(TENANT_ID, assignedShift.getId()).getEmployeeId())
+                .isEqualTo(employee.getId());
+
+        // Nothing changed since the last write
+        rosterService.updateShiftsOfRoster(roster);
+        assertThat(shiftsWrittenCounter.count() - shiftsWrittenBefore).isEqualTo(1.0);
+    }
 }
@@ -5,6 +5,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration.CONSTRAINT_ASSIGN_EVERY_SHIFT;
+import static org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration.CONSTRAINT_BALANCE_EMPLOYEE_WORKLOAD;
 import static org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration.CONSTRAINT_BREAK_BETWEEN_NON_CONSECUTIVE_SHIFTS;
 import static org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration.CONSTRAINT_DAILY_MINUTES_MUST_NOT_EXCEED_CONTRACT_MAXIMUM;
 import static org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration.CONSTRAINT_DESIRED_TIME_SLOT_FOR_AN_EMPLOYEE;
@@ -46,6 +47,7 @@ import org.optaweb.employeerostering.domain.contract.Contract;
 import org.optaweb.employeerostering.domain.employee.Employee;
 import org.optaweb.employeerostering.domain.employee.EmployeeAvailability;
 import org.optaweb.employeerostering.domain.employee.EmployeeAvailabilityState;
+import org.optaweb.employeerostering.domain.roster.HistoricWorkingTime;
 import org.optaweb.employeerostering.domain.roster.Roster;
 import org.optaweb.employeerostering.domain.roster.RosterState;
 import org.optaweb.employeerostering.domain.shift.Shift;
@@ -154,6 +156,7 @@ public abstract class AbstractSolverTest {
         roster.setRosterConstraintConfiguration(constraintConfiguration);
         roster.setEmployeeAvailabilityList(Collections.emptyList());
         roster.setShiftList(shiftList);
+        roster.indexWeekStartDay();
 
         roster = solver.solve(roster);
         assertThat(roster.getShiftList())
@@ -164,6 +167,71 @@ public abstract class AbstractSolverTest {
                 .allMatch(s -> s.getEmployee().equals(employeeB));
     }
 
+    // A solver "integration" test that verify it moves only the draft shifts in the planning window
+    @Test
+    @Timeout(600000)
+    public void testMoveOnlyShiftsInPlanningWindow() {
+        Solver<Roster> solver = getSolverFactory().buildSolver();
+
+        AtomicLong idGenerator = new AtomicLong(1L);
+
+        Roster roster = new Roster();
+        RosterState rosterState = getRosterState(idGenerator);
+        RosterConstraintConfiguration constraintConfiguration = getRosterConstraintConfiguration(idGenerator);
+
+        Contract contract = getDefaultContract(idGenerator);
+
+        Skill skill = new Skill(TENANT_ID, "Skill");
+        skill.setId(idGenerator.getAndIncrement());
+
+        Employee employeeA = new Employee(TENANT_ID, "Bill", contract, Collections.emptySet());
+        employeeA.setId(idGenerator.getAndIncrement());
+
+        Employee employeeB = new Employee(TENANT_ID, "Bill", contract, Collections.singleton(skill));
+        employeeB.setId(idGenerator.getAndIncrement());
+
+        Spot spotA = new Spot(TENANT_ID, "Spot", Collections.singleton(skill));
+        spotA.setId(idGenerator.getAndIncrement());
+
+        OffsetDateTime firstDateTime = OffsetDateTime.of(rosterState.getFirstPublishedDate().atTime(9, 0),
+                ZoneOffset.UTC);
+        ShiftBuilder shiftBuilder = new ShiftBuilder(idGenerator)
+                .forSpot(spotA)
+                .startingAtDate(firstDateTime)
+                .withShiftLength(Duration.ofHours(8))
+                .withTimeBetweenShifts(Duration.ofDays(1));
+
+        List<Shift> shiftList = shiftBuilder.generateShifts(14);
+        shiftList.forEach(s -> s.setEmployee(employeeA));
+
+        roster.setTenantId(TENANT_ID);
+        roster.setRosterState(rosterState);
+        roster.setSpotList(Collections.singletonList(spotA));
+        roster.setEmployeeList(Arrays.asList(employeeA, employeeB));
+        roster.setSkillList(Collections.singletonList(skill));
+        roster.setRosterConstraintConfiguration(constraintConfiguration);
+        roster.setEmployeeAvailabilityList(Collections.emptyList());
+        roster.setShiftList(shiftList);
+        roster.indexWeekStartDay();
+        OffsetDateTime windowStartDateTime = OffsetDateTime.of(rosterState.getFirstDraftDate().plusDays(2),
+                LocalTime.MIDNIGHT, ZoneOffset.UTC);
+        OffsetDateTime windowEndDateTime = windowStartDateTime.plusDays(2);
+        roster.setPlanningWindowStartDateTime(windowStartDateTime);
+        roster.setPlanningWindowEndDateTime(windowEndDateTime);
+
+        roster = solver.solve(roster);
+        assertThat(roster.getShiftList())
+                .filteredOn(s -> s.getStartDateTime().isBefore(windowStartDateTime)
+                        || !s.getStartDateTime().isBefore(windowEndDateTime))
+                .hasSize(12)
+                .allMatch(s -> s.getEmployee().equals(employeeA));
+        assertThat(roster.getShiftList())
+                .filteredOn(s -> !s.getStartDateTime().isBefore(windowStartDateTime)
+                        && s.getStartDateTime().isBefore(windowEndDateTime))
+                .hasSize(2)
+                .allMatch(s -> s.getEmployee().equals(employeeB));
+    }
+
     private void testContractConstraint(ContractField contractField) {
         HardMediumSoftLongScoreVerifier<Roster> scoreVerifier = getScoreVerifier();
 
@@ -200,6 +268,7 @@ public abstract class AbstractSolverTest {
         roster.setRosterConstraintConfiguration(rosterConstraintConfiguration);
         roster.setEmployeeAvailabilityList(Collections.emptyList());
         roster.setShiftList(shiftList);
+        roster.indexWeekStartDay();
 
         shiftList.get(0).setEmployee(employeeA);
         shiftList.get(1).setEmployee(employeeA);
@@ -233,9 +302,84 @@ public abstract class AbstractSolverTest {
         }
     }
 
+    @Test
+    @Timeout(600000)
+    public void testContractConstraintWithHistoricWorkingTime() {
+        HardMediumSoftLongScoreVerifier<Roster> scoreVerifier = getScoreVerifier();
+
+        AtomicLong idGenerator = new AtomicLong(1L);
+
+        Roster roster = new Roster();
+        RosterState rosterState = getRosterState(idGenerator);
+        RosterConstraintConfiguration rosterConstraintConfiguration = getRosterConstraintConfiguration(idGenerator);
+
+        Contract contract = ContractField.WEEKLY.getContract(idGenerator);
+        Employee employeeA = new Employee(TENANT_ID, "Bill", contract, Collections.emptySet());
+        employeeA.setId(idGenerator.getAndIncrement());
+        Spot spotA = new Spot(TENANT_ID, "Spot", Collections.emptySet());
+        spotA.setId(idGenerator.getAndIncrement());
+
+        LocalDate firstDayOfWeek = START_DATE.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        OffsetDateTime firstDateTime = OffsetDateTime.of(firstDayOfWeek, LocalTime.MIDNIGHT, ZoneOffset.UTC);
+        OffsetDateTime horizonStartDateTime = firstDateTime.plusDays(1);
+
+        List<Shift> shiftList = new ShiftBuilder(idGenerator)
+                .forSpot(spotA)
+                .startingAtDate(horizonStartDateTime)
+                .withShiftLength(Duration.ofHours(1))
+                .withTimeBetweenShifts(Duration.ofDays(1))
+                .generateShifts(2);
+        shiftList.forEach(shift -> shift.setEmployee(employeeA));
+        roster.setTenantId(TENANT_ID);
+        roster.setRosterState(rosterState);
+        roster.setSpotList(Collections.singletonList(spotA));
+        roster.setEmployeeList(Collections.singletonList(employeeA));
+        roster.setSkillList(Collections.emptyList());
+        roster.setRosterConstraintConfiguration(rosterConstraintConfiguration);
+        roster.setEmployeeAvailabilityList(Collections.emptyList());
+        roster.setShiftList(shiftList);
+        roster.indexWeekStartDay();
+
+        Constraints.WEEKLY_MINUTES_MUST_NOT_EXCEED_CONTRACT_MAXIMUM.verifyNumOfInstances(scoreVerifier, roster, 0);
+
+        // A shift of the same week before the horizon
+        HistoricWorkingTime historicWorkingTime = new HistoricWorkingTime(DayOfWeek.MONDAY, horizonStartDateTime);
+        historicWorkingTime.addShift(employeeA.getId(), firstDateTime, firstDateTime.plusHours(1));
+        roster.setHistoricWorkingTime(historicWorkingTime);
+
+        Constraints.WEEKLY_MINUTES_MUST_NOT_EXCEED_CONTRACT_MAXIMUM.verifyNumOfInstances(scoreVerifier, roster, 60);
+
+        // A shift of the previous week before the horizon
+        historicWorkingTime = new HistoricWorkingTime(DayOfWeek.MONDAY, horizonStartDateTime);
+        historicWorkingTime.addShift(employeeA.getId(), firstDateTime.minusDays(1), firstDateTime.minusDays(1)
+                .plusHours(1));
+        roster.setHistoricWorkingTime(historicWorkingTime);
+
+        Constraints.WEEKLY_MINUTES_MUST_NOT_EXCEED_CONTRACT_MAXIMUM.verifyNumOfInstances(scoreVerifier, roster, 0);
+
+        // A shift of the same week after the horizon
+        OffsetDateTime horizonEndDateTime = horizonStartDateTime.plusDays(2);
+        historicWorkingTime = new HistoricWorkingTime(DayOfWeek.MONDAY, horizonStartDateTime, horizonEndDateTime);
+        historicWorkingTime.addShift(employeeA.getId(), horizonEndDateTime.plusDays(1), horizonEndDateTime.plusDays(1)
+                .plusHours(1));
+        roster.setHistoricWorkingTime(historicWorkingTime);
+
+        Constraints.WEEKLY_MINUTES_MUST_NOT_EXCEED_CONTRACT_MAXIMUM.verifyNumOfInstances(scoreVerifier, roster, 60);
+    }
+
     @Test
     @Timeout(600000)
     public void testRequiredSkillForShiftConstraint() {
+        testRequiredSkillForShiftConstraint(false);
+    }
+
+    @Test
+    @Timeout(600000)
+    public void testRequiredSkillForShiftConstraintWithSkillMasks() {
+        testRequiredSkillForShiftConstraint(true);
+    }
+
+    private void testRequiredSkillForShiftConstraint(boolean indexSkills) {
         HardMediumSoftLongScoreVerifier<Roster> scoreVerifier = getScoreVerifier();
 
         AtomicLong idGenerator = new AtomicLong(1L);
@@ -272,19 +416,32 @@ public abstract class AbstractSolverTest {
         roster.setRosterConstraintConfiguration(rosterConstraintConfiguration);
         roster.setEmployeeAvailabilityList(Collections.emptyList());
         roster.setShiftList(Collections.singletonList(shift));
+        roster.indexWeekStartDay();
 
         final Constraints constraint = Constraints.REQUIRED_SKILL_FOR_A_SHIFT;
+        if (indexSkills) {
+            roster.indexSkills();
+        }
         constraint.verifyNumOfInstances(scoreVerifier, roster, 540);
 
         employeeA.setSkillProficiencySet(new HashSet<>(Collections.singleton(skillA)));
+        if (indexSkills) {
+            roster.indexSkills();
+        }
 
         constraint.verifyNumOfInstances(scoreVerifier, roster, 540);
 
         employeeA.setSkillProficiencySet(new HashSet<>(Collections.singleton(skillB)));
+        if (indexSkills) {
+            roster.indexSkills();
+        }
 
         constraint.verifyNumOfInstances(scoreVerifier, roster, 540);
 
         employeeA.setSkillProficiencySet(new HashSet<>(Arrays.asList(skillA, skillB)));
+        if (indexSkills) {
+            roster.indexSkills();
+        }
 
         constraint.verifyNumOfInstances(scoreVerifier, roster, 0);
     }
@@ -327,6 +484,7 @@ public abstract class AbstractSolverTest {
         roster.setRosterConstraintConfiguration(rosterConstraintConfiguration);
         roster.setEmployeeAvailabilityList(Collections.singletonList(availability));
         roster.setShiftList(Collections.singletonList(shift));
+        roster.indexWeekStartDay();
 
         Constraints constraint;
 
@@ -413,6 +571,7 @@ public abstract class AbstractSolverTest {
         roster.setRosterConstraintConfiguration(rosterConstraintConfiguration);
         roster.setEmployeeAvailabilityList(Collections.emptyList());
         roster.setShiftList(shiftList);
+        roster.indexWeekStartDay();
 
         final Constraints constraint = Constraints.NO_MORE_THAN_2_CONSECUTIVE_SHIFTS;
         constraint.verifyNumOfInstances(scoreVerifier, roster, 0);
@@ -473,6 +632,7 @@ public abstract class AbstractSolverTest {
         roster.setRosterConstraintConfiguration(rosterConstraintConfiguration);
         roster.setEmployeeAvailabilityList(Collections.emptyList());
         roster.setShiftList(shiftList);
+        roster.indexWeekStartDay();
 
         final Constraints constraint = Constraints.BREAKS_AT_LEAST_10_HOURS;
         constraint.verifyNumOfInstances(scoreVerifier, roster, 540); // Only 1 hour of break.
@@ -499,6 +659,19 @@ public abstract class AbstractSolverTest {
         roster.setShiftList(shiftList);
 
         constraint.verifyNumOfInstances(scoreVerifier, roster, 540);
+
+        // Two later shifts that start at the same time each have a break with the first shift
+        shiftBuilder.withTimeBetweenShifts(Duration.ofHours(2));
+        shiftList = new ArrayList<>(shiftBuilder.generateShifts(2));
+        Shift sameStartShift = new Shift(TENANT_ID, spotA, shiftList.get(1).getStartDateTime(),
+                shiftList.get(1).getEndDateTime());
+        sameStartShift.setId(idGenerator.getAndIncrement());
+        shiftList.add(sameStartShift);
+        shiftList.forEach(s -> s.setEmployee(employeeA));
+        roster.setShiftList(shiftList);
+        roster.indexWeekStartDay();
+
+        constraint.verifyNumOfInstances(scoreVerifier, roster, 540 * 2);
     }
 
     @Test
@@ -540,6 +713,7 @@ public abstract class AbstractSolverTest {
         roster.setRosterConstraintConfiguration(rosterConstraintConfiguration);
         roster.setEmployeeAvailabilityList(Collections.emptyList());
         roster.setShiftList(shiftList);
+        roster.indexWeekStartDay();
 
         final Constraints constraint = Constraints.ASSIGN_EVERY_SHIFT;
         constraint.verifyNumOfInstances(scoreVerifier, roster, 3);
@@ -594,6 +768,7 @@ public abstract class AbstractSolverTest {
         roster.setRosterConstraintConfiguration(rosterConstraintConfiguration);
         roster.setEmployeeAvailabilityList(Collections.emptyList());
         roster.setShiftList(Collections.singletonList(shift));
+        roster.indexWeekStartDay();
 
         final Constraints constraint = Constraints.EMPLOYEE_IS_NOT_ROTATION_EMPLOYEE;
         constraint.verifyNumOfInstances(scoreVerifier, roster, (int) shift.getLengthInMinutes());
@@ -606,6 +781,65 @@ public abstract class AbstractSolverTest {
         constraint.verifyNumOfInstances(scoreVerifier, roster, 0);
     }
 
+    @Test
+    @Timeout(600000)
+    public void testBalanceEmployeeWorkload() {
+        HardMediumSoftLongScoreVerifier<Roster> scoreVerifier = getScoreVerifier();
+
+        AtomicLong idGenerator = new AtomicLong(1L);
+
+        Roster roster = new Roster();
+        RosterState rosterState = getRosterState(idGenerator);
+        RosterConstraintConfiguration rosterConstraintConfiguration = getRosterConstraintConfiguration(idGenerator);
+
+        Spot spotA = new Spot(TENANT_ID, "Spot A", Collections.emptySet());
+        spotA.setId(idGenerator.getAndIncrement());
+
+        Contract contract = getDefaultContract(idGenerator);
+        Employee employeeA = new Employee(TENANT_ID, "Bill", contract, Collections.emptySet());
+        employeeA.setId(idGenerator.getAndIncrement());
+        Employee employeeB = new Employee(TENANT_ID, "Anna", contract, Collections.emptySet());
+        employeeB.setId(idGenerator.getAndIncrement());
+
+        OffsetDateTime firstDateTime = OffsetDateTime.of(START_DATE, LocalTime.MIDNIGHT, ZoneOffset.UTC);
+        List<Shift> shiftList = new ShiftBuilder(idGenerator)
+                .forSpot(spotA)
+                .startingAtDate(firstDateTime)
+                .withShiftLength(Duration.ofHours(3))
+                .withTimeBetweenShifts(Duration.ofDays(1))
+                .generateShifts(4);
+
+        roster.setTenantId(TENANT_ID);
+        roster.setRosterState(rosterState);
+        roster.setSpotList(Collections.singletonList(spotA));
+        roster.setEmployeeList(Arrays.asList(employeeA, employeeB));
+        roster.setSkillList(Collections.emptyList());
+        roster.setRosterConstraintConfiguration(rosterConstraintConfiguration);
+        roster.setEmployeeAvailabilityList(Collections.emptyList());
+        roster.setShiftList(shiftList);
+        roster.indexWeekStartDay();
+
+        final Constraints constraint = Constraints.BALANCE_EMPLOYEE_WORKLOAD;
+        constraint.verifyNumOfInstances(scoreVerifier, roster, 0);
+
+        // The square root of the sum of the squared hours of each employee, in thousandths
+        shiftList.forEach(shift -> shift.setEmployee(employeeA));
+        constraint.verifyNumOfInstances(scoreVerifier, roster, 12000); // sqrt(12 * 12)
+
+        shiftList.get(3).setEmployee(employeeB);
+        constraint.verifyNumOfInstances(scoreVerifier, roster, 9487); // sqrt(9 * 9 + 3 * 3)
+
+        shiftList.get(2).setEmployee(employeeB);
+        constraint.verifyNumOfInstances(scoreVerifier, roster, 8485); // sqrt(6 * 6 + 6 * 6)
+
+        shiftList.get(2).setEmployee(null);
+        constraint.verifyNumOfInstances(scoreVerifier, roster, 6708); // sqrt(6 * 6 + 3 * 3)
+
+        // Started hours count as whole hours
+        shiftList.get(3).setEndDateTime(shiftList.get(3).getStartDateTime().plusMinutes(61));
+        constraint.verifyNumOfInstances(scoreVerifier, roster, 6325); // sqrt(6 * 6 + 2 * 2)
+    }
+
     protected RosterGenerator buildRosterGenerator() {
         EntityManager entityManager = mock(EntityManager.class);
         AtomicInteger tenantIdGenerator = new AtomicInteger(0);
@@ -688,7 +922,9 @@ public abstract class AbstractSolverTest {
         DESIRED_TIME_SLOT_FOR_AN_EMPLOYEE(CONSTRAINT_DESIRED_TIME_SLOT_FOR_AN_EMPLOYEE,
                 ROSTER_CONSTRAINT_CONFIGURATION.getDesiredTimeSlot()),
         EMPLOYEE_IS_NOT_ROTATION_EMPLOYEE(CONSTRAINT_EMPLOYEE_IS_NOT_ROTATION_EMPLOYEE,
-                ROSTER_CONSTRAINT_CONFIGURATION.getNotRotationEmployee().negate());
+                ROSTER_CONSTRAINT_CONFIGURATION.getNotRotationEmployee().negate()),
+        BALANCE_EMPLOYEE_WORKLOAD(CONSTRAINT_BALANCE_EMPLOYEE_WORKLOAD,
+                ROSTER_CONSTRAINT_CONFIGURATION.getEmployeeWorkloadBalance().negate());
 
         String constraintName;
         HardMediumSoftLongScore constraintWeight;
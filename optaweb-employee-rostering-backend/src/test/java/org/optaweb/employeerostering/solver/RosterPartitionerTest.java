@@ -0,0 +1,100 @@
+package org.optaweb.employeerostering.solver;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.optaplanner.core.api.score.director.ScoreDirector;
+import org.optaweb.employeerostering.domain.common.AbstractPersistable;
+import org.optaweb.employeerostering.domain.employee.Employee;
+import org.optaweb.employeerostering.domain.roster.Roster;
+import org.optaweb.employeerostering.domain.roster.RosterState;
+import org.optaweb.employeerostering.domain.shift.Shift;
+import org.optaweb.employeerostering.domain.skill.Skill;
+import org.optaweb.employeerostering.domain.spot.Spot;
+import org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration;
+import org.optaweb.employeerostering.service.solver.RosterPartitioner;
+
+public class RosterPartitionerTest {
+
+    private static final Integer TENANT_ID = 0;
+    // A Monday
+    private static final LocalDate FIRST_DRAFT_DATE = LocalDate.of(2019, 5, 6);
+
+    private final AtomicLong idGenerator = new AtomicLong(0L);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSplitWorkingSolution() {
+        Skill cook = withId(new Skill(TENANT_ID, "Cook"));
+        Skill waiter = withId(new Skill(TENANT_ID, "Waiter"));
+        Spot kitchenA = withId(new Spot(TENANT_ID, "Kitchen A", Collections.singleton(cook)));
+        Spot kitchenB = withId(new Spot(TENANT_ID, "Kitchen B", Collections.singleton(cook)));
+        Spot bar = withId(new Spot(TENANT_ID, "Bar", Collections.singleton(waiter)));
+        Employee amy = withId(new Employee(TENANT_ID, "Amy", null, Collections.singleton(cook)));
+        Employee beth = withId(new Employee(TENANT_ID, "Beth", null, Collections.singleton(waiter)));
+        Employee carl = withId(new Employee(TENANT_ID, "Carl", null, Collections.singleton(cook)));
+
+        // Published, so its part is left out
+        Shift publishedShift = shift(kitchenA, FIRST_DRAFT_DATE.minusDays(7));
+        Shift kitchenAShift1 = shift(kitchenA, FIRST_DRAFT_DATE);
+        Shift kitchenBShift1 = shift(kitchenB, FIRST_DRAFT_DATE.plusDays(1));
+        Shift barShift1 = shift(bar, FIRST_DRAFT_DATE.plusDays(6));
+        Shift kitchenAShift2 = shift(kitchenA, FIRST_DRAFT_DATE.plusDays(7));
+        Shift barShift2 = shift(bar, FIRST_DRAFT_DATE.plusDays(8));
+        barShift2.setEmployee(carl);
+
+        RosterConstraintConfiguration rosterConstraintConfiguration =
+                withId(new RosterConstraintConfiguration(TENANT_ID, DayOfWeek.MONDAY));
+        RosterState rosterState = withId(new RosterState(TENANT_ID, 7, FIRST_DRAFT_DATE, 7, 14, 0, 7,
+                FIRST_DRAFT_DATE.minusDays(14), ZoneOffset.UTC));
+        Roster roster = new Roster(0L, TENANT_ID, rosterConstraintConfiguration, Arrays.asList(cook, waiter),
+                Arrays.asList(kitchenA, kitchenB, bar), Arrays.asList(amy, beth, carl), new ArrayList<>(),
+                rosterState, Arrays.asList(publishedShift, kitchenAShift1, kitchenBShift1, barShift1, kitchenAShift2,
+                        barShift2));
+        ScoreDirector<Roster> scoreDirector = mock(ScoreDirector.class);
+        when(scoreDirector.getWorkingSolution()).thenReturn(roster);
+
+        List<Roster> partList = new RosterPartitioner().splitWorkingSolution(scoreDirector, null);
+
+        assertThat(partList).hasSize(4);
+        assertPart(partList.get(0), Arrays.asList(kitchenAShift1, kitchenBShift1), amy, carl);
+        assertPart(partList.get(1), Collections.singletonList(barShift1), beth);
+        assertPart(partList.get(2), Collections.singletonList(kitchenAShift2), amy);
+        // The employee of an assigned shift goes with it, even if the spot group does not suit them
+        assertPart(partList.get(3), Collections.singletonList(barShift2), carl, beth);
+        assertThat(partList.get(3).getShiftList().get(0).getEmployee()).isSameAs(carl);
+    }
+
+    private static void assertPart(Roster part, List<Shift> shiftList, Employee... employees) {
+        assertThat(part.getShiftList()).extracting(AbstractPersistable::getId)
+                .containsExactlyElementsOf(shiftList.stream().map(AbstractPersistable::getId)
+                        .collect(Collectors.toList()));
+        // The parts are solved at the same time, so they must not share the shifts of the roster
+        assertThat(part.getShiftList()).allSatisfy(partShift -> assertThat(shiftList).noneMatch(
+                shift -> shift == partShift));
+        assertThat(part.getEmployeeList()).containsExactly(employees);
+    }
+
+    private Shift shift(Spot spot, LocalDate date) {
+        OffsetDateTime startDateTime = OffsetDateTime.of(date.atTime(9, 0), ZoneOffset.UTC);
+        return withId(new Shift(TENANT_ID, spot, startDateTime, startDateTime.plusHours(8)));
+    }
+
+    private <T extends AbstractPersistable> T withId(T persistable) {
+        persistable.setId(idGenerator.getAndIncrement());
+        return persistable;
+    }
+}
@@ -0,0 +1,107 @@
+package org.optaweb.employeerostering.solver;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.optaweb.employeerostering.domain.common.AbstractPersistable;
+import org.optaweb.employeerostering.domain.contract.Contract;
+import org.optaweb.employeerostering.domain.employee.Employee;
+import org.optaweb.employeerostering.domain.employee.EmployeeAvailability;
+import org.optaweb.employeerostering.domain.employee.EmployeeAvailabilityState;
+import org.optaweb.employeerostering.domain.employee.EmployeeStrengthWeightFactory;
+import org.optaweb.employeerostering.domain.roster.Roster;
+import org.optaweb.employeerostering.domain.shift.Shift;
+import org.optaweb.employeerostering.domain.shift.ShiftDifficultyWeightFactory;
+import org.optaweb.employeerostering.domain.skill.Skill;
+import org.optaweb.employeerostering.domain.spot.Spot;
+
+public class SorterWeightFactoryTest {
+
+    private static final Integer TENANT_ID = 0;
+    private static final OffsetDateTime START = OffsetDateTime.of(2019, 5, 13, 9, 0, 0, 0, ZoneOffset.UTC);
+
+    private final AtomicLong idGenerator = new AtomicLong(0L);
+
+    @Test
+    public void testShiftDifficulty() {
+        Skill skill = withId(new Skill(TENANT_ID, "Skill"));
+        Spot easySpot = withId(new Spot(TENANT_ID, "Easy", Collections.emptySet()));
+        Spot hardSpot = withId(new Spot(TENANT_ID, "Hard", Collections.singleton(skill)));
+        Employee employeeA = withId(new Employee(TENANT_ID, "Amy", null, Collections.singleton(skill)));
+        Employee employeeB = withId(new Employee(TENANT_ID, "Beth", null, Collections.emptySet()));
+
+        Shift laterEasyShift = shift(easySpot, 2);
+        Shift earlierEasyShift = shift(easySpot, 1);
+        Shift hardShift = shift(hardSpot, 3);
+        // Beth is unavailable, so only Amy is qualified
+        Shift unavailableEasyShift = shift(easySpot, 4);
+        EmployeeAvailability unavailability = new EmployeeAvailability(TENANT_ID, employeeB,
+                unavailableEasyShift.getStartDateTime(), unavailableEasyShift.getEndDateTime());
+        unavailability.setState(EmployeeAvailabilityState.UNAVAILABLE);
+
+        List<Shift> shiftList = Arrays.asList(laterEasyShift, earlierEasyShift, hardShift, unavailableEasyShift);
+        Roster roster = roster(Arrays.asList(employeeA, employeeB), Collections.singletonList(unavailability),
+                shiftList);
+
+        ShiftDifficultyWeightFactory weightFactory = new ShiftDifficultyWeightFactory();
+        // The most difficult first, as a construction heuristic sorts them
+        assertThat(shiftList.stream()
+                .sorted(Comparator.comparing((Shift shift) -> weightFactory.createSorterWeight(roster, shift))
+                        .reversed())
+                .collect(Collectors.toList()))
+                .containsExactly(hardShift, unavailableEasyShift, earlierEasyShift, laterEasyShift);
+    }
+
+    @Test
+    public void testEmployeeStrength() {
+        Spot spot = withId(new Spot(TENANT_ID, "Spot", Collections.emptySet()));
+        Employee unlimitedEmployee = withId(new Employee(TENANT_ID, "Amy", null, Collections.emptySet()));
+        Employee partTimeEmployee = withId(new Employee(TENANT_ID, "Beth",
+                withId(new Contract(TENANT_ID, "Part time", null, 20 * 60, null, null)), Collections.emptySet()));
+        Employee fullTimeEmployee = withId(new Employee(TENANT_ID, "Carl",
+                withId(new Contract(TENANT_ID, "Full time", 8 * 60, 40 * 60, null, null)), Collections.emptySet()));
+        Employee busyFullTimeEmployee = withId(new Employee(TENANT_ID, "Dan",
+                fullTimeEmployee.getContract(), Collections.emptySet()));
+
+        Shift shift = shift(spot, 0);
+        shift.setEmployee(busyFullTimeEmployee);
+        List<Employee> employeeList = Arrays.asList(partTimeEmployee, unlimitedEmployee, busyFullTimeEmployee,
+                fullTimeEmployee);
+        Roster roster = roster(employeeList, Collections.emptyList(), Collections.singletonList(shift));
+
+        EmployeeStrengthWeightFactory weightFactory = new EmployeeStrengthWeightFactory();
+        assertThat(employeeList.stream()
+                .sorted(Comparator.comparing((Employee employee) -> weightFactory.createSorterWeight(roster, employee))
+                        .reversed())
+                .collect(Collectors.toList()))
+                .containsExactly(unlimitedEmployee, fullTimeEmployee, busyFullTimeEmployee, partTimeEmployee);
+    }
+
+    private Roster roster(List<Employee> employeeList, List<EmployeeAvailability> employeeAvailabilityList,
+            List<Shift> shiftList) {
+        Roster roster = new Roster();
+        roster.setEmployeeList(employeeList);
+        roster.setEmployeeAvailabilityList(employeeAvailabilityList);
+        roster.setShiftList(shiftList);
+        return roster;
+    }
+
+    private Shift shift(Spot spot, int dayOffset) {
+        OffsetDateTime startDateTime = START.plusDays(dayOffset);
+        return withId(new Shift(TENANT_ID, spot, startDateTime, startDateTime.plusHours(8)));
+    }
+
+    private <T extends AbstractPersistable> T withId(T persistable) {
+        persistable.setId(idGenerator.getAndIncrement());
+        return persistable;
+    }
+}
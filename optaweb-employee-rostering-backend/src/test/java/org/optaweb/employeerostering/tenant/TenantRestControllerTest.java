@@ -5,8 +5,11 @@ import static org.assertj.core.api.Assertions.assertThat;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.util.Arrays;
 import java.util.List;
 
+import javax.inject.Inject;
+import javax.transaction.UserTransaction;
 import javax.ws.rs.core.Response.Status;
 
 import org.junit.jupiter.api.AfterEach;
@@ -15,8 +18,11 @@ import org.junit.jupiter.api.Test;
 import org.optaplanner.core.api.score.buildin.hardmediumsoftlong.HardMediumSoftLongScore;
 import org.optaweb.employeerostering.AbstractEntityRequireTenantRestServiceTest;
 import org.optaweb.employeerostering.domain.roster.view.RosterStateView;
+import org.optaweb.employeerostering.domain.tenant.SolverPhase;
 import org.optaweb.employeerostering.domain.tenant.Tenant;
 import org.optaweb.employeerostering.domain.tenant.view.RosterConstraintConfigurationView;
+import org.optaweb.employeerostering.domain.tenant.view.SolverProfileView;
+import org.optaweb.employeerostering.service.tenant.SolverProfileRepository;
 
 import io.quarkus.test.junit.QuarkusTest;
 import io.restassured.RestAssured;
@@ -27,6 +33,12 @@ public class TenantRestControllerTest extends AbstractEntityRequireTenantRestSer
 
     private final String tenantPathURI = "/rest/tenant/";
 
+    @Inject
+    SolverProfileRepository solverProfileRepository;
+
+    @Inject
+    UserTransaction userTransaction;
+
     private Response getTenant(Integer id) {
         return RestAssured.get(tenantPathURI + id);
     }
@@ -52,6 +64,16 @@ public class TenantRestControllerTest extends AbstractEntityRequireTenantRestSer
                 .post(tenantPathURI + tenantId + "/config/constraint/update");
     }
 
+    private Response getSolverProfile(Integer tenantId) {
+        return RestAssured.get(tenantPathURI + tenantId + "/config/solver");
+    }
+
+    private Response updateSolverProfile(Integer tenantId, SolverProfileView solverProfileView) {
+        return RestAssured.given()
+                .body(solverProfileView)
+                .post(tenantPathURI + tenantId + "/config/solver/update");
+    }
+
     private Response getSupportedTimezones() {
         return RestAssured.get(tenantPathURI + "supported/timezones");
     }
@@ -114,6 +136,58 @@ public class TenantRestControllerTest extends AbstractEntityRequireTenantRestSer
         assertThat(updateBody.getNotRotationEmployee()).isEqualTo(HardMediumSoftLongScore.ofSoft(1));
     }
 
+    @Test
+    public void solverProfileCrudTest() {
+        Response getResponse = getSolverProfile(TENANT_ID);
+        assertThat(getResponse.getStatusCode()).isEqualTo(Status.OK.getStatusCode());
+        SolverProfileView getBody = getResponse.as(SolverProfileView.class);
+        assertThat(getBody.getSecondsSpentLimit()).isNull();
+        assertThat(getBody.getMoveThreadCount()).isNull();
+        assertThat(getBody.getPhaseList()).isEmpty();
+
+        SolverProfileView solverProfileView = new SolverProfileView(TENANT_ID);
+        solverProfileView.setUnimprovedSecondsSpentLimit(20L);
+        solverProfileView.setBestScoreLimit("0hard/0medium/0soft");
+        solverProfileView.setMoveThreadCount("2");
+        solverProfileView.setPriority(2);
+        solverProfileView.setPhaseList(Arrays.asList(SolverPhase.ROTATION_EMPLOYEE_SEEDING,
+                SolverPhase.PARTITIONED_SEARCH, SolverPhase.LOCAL_SEARCH));
+        Response updateResponse = updateSolverProfile(TENANT_ID, solverProfileView);
+        assertThat(updateResponse.statusCode()).isEqualTo(Status.OK.getStatusCode());
+        SolverProfileView updateBody = updateResponse.as(SolverProfileView.class);
+        assertThat(updateBody.getSecondsSpentLimit()).isNull();
+        assertThat(updateBody.getUnimprovedSecondsSpentLimit()).isEqualTo(20L);
+        assertThat(updateBody.getBestScoreLimit()).isEqualTo("0hard/0medium/0soft");
+        assertThat(updateBody.getMoveThreadCount()).isEqualTo("2");
+        assertThat(updateBody.getPriority()).isEqualTo(2);
+        assertThat(updateBody.getPhaseList()).containsExactly(SolverPhase.ROTATION_EMPLOYEE_SEEDING,
+                SolverPhase.PARTITIONED_SEARCH, SolverPhase.LOCAL_SEARCH);
+    }
+
+    @Test
+    public void solverProfileOfTenantWithoutOneTest() throws Exception {
+        // As a tenant created before solver profiles were added
+        userTransaction.begin();
+        solverProfileRepository.deleteForTenant(TENANT_ID);
+        userTransaction.commit();
+
+        Response getResponse = getSolverProfile(TENANT_ID);
+        assertThat(getResponse.getStatusCode()).isEqualTo(Status.OK.getStatusCode());
+        SolverProfileView getBody = getResponse.as(SolverProfileView.class);
+        assertThat(getBody.getSecondsSpentLimit()).isNull();
+        assertThat(getBody.getPriority()).isEqualTo(1);
+        assertThat(getBody.getPhaseList()).isEmpty();
+
+        SolverProfileView solverProfileView = new SolverProfileView(TENANT_ID);
+        solverProfileView.setSecondsSpentLimit(60L);
+        Response updateResponse = updateSolverProfile(TENANT_ID, solverProfileView);
+        assertThat(updateResponse.statusCode()).isEqualTo(Status.OK.getStatusCode());
+
+        getResponse = getSolverProfile(TENANT_ID);
+        assertThat(getResponse.getStatusCode()).isEqualTo(Status.OK.getStatusCode());
+        assertThat(getResponse.as(SolverProfileView.class).getSecondsSpentLimit()).isEqualTo(60L);
+    }
+
     @Test
     public void getSupportedTimezonesTest() {
         Response getResponse = getSupportedTimezones();
@@ -2,6 +2,7 @@ package org.optaweb.employeerostering;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
@@ -15,7 +16,12 @@ import javax.transaction.UserTransaction;
 
 import org.optaplanner.benchmark.api.PlannerBenchmark;
 import org.optaplanner.benchmark.api.PlannerBenchmarkFactory;
+import org.optaplanner.core.api.solver.Solver;
+import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.core.config.solver.SolverConfig;
+import org.optaplanner.core.config.solver.termination.TerminationConfig;
 import org.optaweb.employeerostering.domain.roster.Roster;
+import org.optaweb.employeerostering.domain.shift.Shift;
 import org.optaweb.employeerostering.service.admin.SystemPropertiesRetriever;
 import org.optaweb.employeerostering.service.roster.RosterGenerator;
 import org.slf4j.Logger;
@@ -34,6 +40,8 @@ public class OptaWebEmployeeRosteringBenchmarkApplication implements QuarkusAppl
     @Inject
     UserTransaction userTransaction;
 
+    private static final long TIME_TO_FIRST_FEASIBLE_SECONDS_LIMIT = 60L;
+
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
     public static void main(String[] args) {
@@ -48,9 +56,44 @@ public class OptaWebEmployeeRosteringBenchmarkApplication implements QuarkusAppl
                 "employeeRosteringBenchmarkConfig.xml", getClass().getClassLoader());
         PlannerBenchmark plannerBenchmark = benchmarkFactory.buildPlannerBenchmark(rosterList);
         plannerBenchmark.benchmark();
+
+        // The move thread counts only make a difference on the 80-spot roster
+        PlannerBenchmarkFactory moveThreadBenchmarkFactory = PlannerBenchmarkFactory.createFromXmlResource(
+                "employeeRosteringMoveThreadBenchmarkConfig.xml", getClass().getClassLoader());
+        moveThreadBenchmarkFactory.buildPlannerBenchmark(rosterList.get(1)).benchmark();
+
+        rosterList.forEach(this::reportTimeToFirstFeasible);
         return 0;
     }
 
+    /**
+     * Solves with the backend's solver config until the best solution is feasible
+     * and logs how long that took, which is how long a planner watches a hard-infeasible roster.
+     */
+    private void reportTimeToFirstFeasible(Roster roster) {
+        SolverConfig solverConfig = SolverConfig.createFromXmlResource("solverConfig.xml", getClass().getClassLoader())
+                .withSolutionClass(Roster.class)
+                .withEntityClasses(Shift.class)
+                .withTerminationConfig(new TerminationConfig()
+                        .withBestScoreFeasible(true)
+                        .withSecondsSpentLimit(TIME_TO_FIRST_FEASIBLE_SECONDS_LIMIT));
+        Solver<Roster> solver = SolverFactory.<Roster>create(solverConfig).buildSolver();
+        AtomicLong timeMillisToFirstFeasible = new AtomicLong(-1L);
+        solver.addEventListener(event -> {
+            if (event.getNewBestScore().isFeasible()) {
+                timeMillisToFirstFeasible.compareAndSet(-1L, event.getTimeMillisSpent());
+            }
+        });
+        solver.solve(roster);
+        if (timeMillisToFirstFeasible.get() < 0L) {
+            logger.info("The roster with {} spots is not feasible after {} seconds.", roster.getSpotList().size(),
+                    TIME_TO_FIRST_FEASIBLE_SECONDS_LIMIT);
+        } else {
+            logger.info("The roster with {} spots is feasible after {} ms.", roster.getSpotList().size(),
+                    timeMillisToFirstFeasible.get());
+        }
+    }
+
     private List<Roster> generateRosters() {
         try {
             userTransaction.begin();
@@ -0,0 +1,182 @@
+package org.optaweb.employeerostering.jmh;
+
+import static org.optaplanner.core.api.score.stream.Joiners.equal;
+import static org.optaplanner.core.api.score.stream.Joiners.greaterThan;
+import static org.optaplanner.core.api.score.stream.Joiners.lessThan;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.optaplanner.core.api.score.ScoreManager;
+import org.optaplanner.core.api.score.buildin.hardmediumsoftlong.HardMediumSoftLongScore;
+import org.optaplanner.core.api.score.stream.Constraint;
+import org.optaplanner.core.api.score.stream.ConstraintFactory;
+import org.optaplanner.core.api.score.stream.ConstraintProvider;
+import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.core.config.solver.SolverConfig;
+import org.optaweb.employeerostering.domain.contract.Contract;
+import org.optaweb.employeerostering.domain.employee.Employee;
+import org.optaweb.employeerostering.domain.roster.Roster;
+import org.optaweb.employeerostering.domain.roster.RosterState;
+import org.optaweb.employeerostering.domain.shift.Shift;
+import org.optaweb.employeerostering.domain.spot.Spot;
+import org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration;
+
+/**
+ * Compares the break between non consecutive shifts constraint joined on every later shift of the employee,
+ * as it used to be, against joined only on the shifts that start within 10 hours of the end,
+ * by scoring a 3 month roster from scratch, which builds every tuple of the join.
+ * <p>
+ * The roster is built in memory, so no database is needed. Run it with
+ * {@code mvn exec:java -Dexec.mainClass=org.optaweb.employeerostering.jmh.BreakConstraintBenchmark
+ * -Dexec.classpathScope=compile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BreakConstraintBenchmark {
+
+    private static final int TENANT_ID = 0;
+    private static final int SPOT_COUNT = 20;
+    private static final int EMPLOYEE_COUNT = 30;
+    private static final int DAY_COUNT = 91;
+    private static final LocalDate START_DATE = LocalDate.of(2019, 5, 13);
+
+    @Param({ "UNBOUNDED", "BOUNDED" })
+    public String join;
+
+    private Roster roster;
+    private ScoreManager<Roster, HardMediumSoftLongScore> scoreManager;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BreakConstraintBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        roster = generateRoster(new Random(37));
+        Class<? extends ConstraintProvider> constraintProviderClass = join.equals("BOUNDED")
+                ? BoundedBreakConstraintProvider.class
+                : UnboundedBreakConstraintProvider.class;
+        scoreManager = ScoreManager.create(SolverFactory.create(new SolverConfig()
+                .withSolutionClass(Roster.class)
+                .withEntityClasses(Shift.class)
+                .withConstraintProviderClass(constraintProviderClass)));
+    }
+
+    @Benchmark
+    public HardMediumSoftLongScore updateScore() {
+        return scoreManager.updateScore(roster);
+    }
+
+    public static class UnboundedBreakConstraintProvider implements ConstraintProvider {
+
+        @Override
+        public Constraint[] defineConstraints(ConstraintFactory constraintFactory) {
+            return new Constraint[] {
+                    constraintFactory.forEach(Shift.class)
+                            .filter(shift -> shift.getEmployee() != null)
+                            .join(Shift.class,
+                                    equal(shift -> shift.getEmployee().getId()),
+                                    lessThan(Shift::getEndEpochMinute, Shift::getStartEpochMinute))
+                            .filter((s1, s2) -> !Objects.equals(s1, s2))
+                            .filter((s1, s2) -> s2.getStartEpochMinute() - s1.getEndEpochMinute() < 10 * 60)
+                            .penalizeLong("Break", HardMediumSoftLongScore.ONE_HARD,
+                                    (s1, s2) -> (10 * 60) - (s2.getStartEpochMinute() - s1.getEndEpochMinute()))
+            };
+        }
+    }
+
+    // As in EmployeeRosteringConstraintProvider
+    public static class BoundedBreakConstraintProvider implements ConstraintProvider {
+
+        @Override
+        public Constraint[] defineConstraints(ConstraintFactory constraintFactory) {
+            return new Constraint[] {
+                    constraintFactory.forEach(Shift.class)
+                            .filter(shift -> shift.getEmployee() != null)
+                            .join(Shift.class,
+                                    equal(shift -> shift.getEmployee().getId()),
+                                    lessThan(Shift::getEndEpochMinute, Shift::getStartEpochMinute),
+                                    greaterThan(shift -> shift.getEndEpochMinute() + (10 * 60),
+                                            Shift::getStartEpochMinute))
+                            .penalizeLong("Break", HardMediumSoftLongScore.ONE_HARD,
+                                    (s1, s2) -> (10 * 60) - (s2.getStartEpochMinute() - s1.getEndEpochMinute()))
+            };
+        }
+    }
+
+    private static Roster generateRoster(Random random) {
+        AtomicLong idGenerator = new AtomicLong(1L);
+
+        RosterConstraintConfiguration configuration = new RosterConstraintConfiguration(TENANT_ID, DayOfWeek.MONDAY);
+        configuration.setId(idGenerator.getAndIncrement());
+        RosterState rosterState = new RosterState(TENANT_ID, 7, START_DATE.minusDays(7), 7, 14, 0, 7,
+                START_DATE.minusDays(14), ZoneOffset.UTC);
+        rosterState.setId(idGenerator.getAndIncrement());
+
+        Contract contract = new Contract(TENANT_ID, "Contract");
+        contract.setId(idGenerator.getAndIncrement());
+
+        List<Spot> spotList = new ArrayList<>();
+        for (int i = 0; i < SPOT_COUNT; i++) {
+            Spot spot = new Spot(TENANT_ID, "Spot " + i, Collections.emptySet());
+            spot.setId(idGenerator.getAndIncrement());
+            spotList.add(spot);
+        }
+        List<Employee> employeeList = new ArrayList<>();
+        for (int i = 0; i < EMPLOYEE_COUNT; i++) {
+            Employee employee = new Employee(TENANT_ID, "Employee " + i, contract, Collections.emptySet());
+            employee.setId(idGenerator.getAndIncrement());
+            employeeList.add(employee);
+        }
+
+        List<Shift> shiftList = new ArrayList<>();
+        for (int day = 0; day < DAY_COUNT; day++) {
+            for (Spot spot : spotList) {
+                for (int startHour : new int[] { 6, 14, 22 }) {
+                    OffsetDateTime startDateTime = START_DATE.plusDays(day).atTime(startHour, 0)
+                            .atOffset(ZoneOffset.UTC);
+                    Shift shift = new Shift(TENANT_ID, spot, startDateTime, startDateTime.plusHours(8));
+                    shift.setId(idGenerator.getAndIncrement());
+                    shift.setEmployee(employeeList.get(random.nextInt(employeeList.size())));
+                    shiftList.add(shift);
+                }
+            }
+        }
+
+        Roster roster = new Roster((long) TENANT_ID, TENANT_ID, configuration, Collections.emptyList(), spotList,
+                employeeList, Collections.emptyList(), rosterState, shiftList);
+        roster.indexWeekStartDay();
+        return roster;
+    }
+}
@@ -0,0 +1,226 @@
+package org.optaweb.employeerostering.jmh;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.optaplanner.core.api.score.ScoreExplanation;
+import org.optaplanner.core.api.score.ScoreManager;
+import org.optaplanner.core.api.score.buildin.hardmediumsoftlong.HardMediumSoftLongScore;
+import org.optaplanner.core.api.score.constraint.ConstraintMatch;
+import org.optaplanner.core.api.score.constraint.Indictment;
+import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.core.config.solver.SolverConfig;
+import org.optaweb.employeerostering.domain.contract.Contract;
+import org.optaweb.employeerostering.domain.employee.Employee;
+import org.optaweb.employeerostering.domain.employee.EmployeeAvailability;
+import org.optaweb.employeerostering.domain.employee.EmployeeAvailabilityState;
+import org.optaweb.employeerostering.domain.roster.Roster;
+import org.optaweb.employeerostering.domain.roster.RosterState;
+import org.optaweb.employeerostering.domain.shift.Shift;
+import org.optaweb.employeerostering.domain.skill.Skill;
+import org.optaweb.employeerostering.domain.spot.Spot;
+import org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration;
+import org.optaweb.employeerostering.service.common.IndictmentIndex;
+import org.optaweb.employeerostering.service.common.IndictmentUtils;
+import org.optaweb.employeerostering.service.solver.EmployeeRosteringConstraintProvider;
+
+/**
+ * Compares building the {@link org.optaweb.employeerostering.domain.shift.view.ShiftView}s of an 80 spot roster
+ * from an {@link IndictmentIndex} against scanning the indictments of every shift and employee once per constraint,
+ * which is what {@link IndictmentUtils} used to do.
+ * <p>
+ * The roster is built in memory, so no database is needed. Run it with
+ * {@code mvn exec:java -Dexec.mainClass=org.optaweb.employeerostering.jmh.IndictmentBenchmark
+ * -Dexec.classpathScope=compile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IndictmentBenchmark {
+
+    private static final int TENANT_ID = 0;
+    private static final int SPOT_COUNT = 80;
+    private static final int EMPLOYEE_COUNT = 120;
+    private static final int DAY_COUNT = 28;
+    private static final LocalDate START_DATE = LocalDate.of(2019, 5, 13);
+
+    // The constraints the per shift lists were built from, in the order IndictmentUtils used to scan them
+    private static final List<List<String>> SCANNED_CONSTRAINT_NAME_LISTS = Arrays.asList(
+            Collections.singletonList(RosterConstraintConfiguration.CONSTRAINT_REQUIRED_SKILL_FOR_A_SHIFT),
+            Collections.singletonList(RosterConstraintConfiguration.CONSTRAINT_UNAVAILABLE_TIME_SLOT_FOR_AN_EMPLOYEE),
+            Arrays.asList(RosterConstraintConfiguration.CONSTRAINT_BREAK_BETWEEN_NON_CONSECUTIVE_SHIFTS,
+                    RosterConstraintConfiguration.CONSTRAINT_NO_OVERLAPPING_SHIFTS),
+            Collections.singletonList(RosterConstraintConfiguration.CONSTRAINT_DESIRED_TIME_SLOT_FOR_AN_EMPLOYEE),
+            Collections.singletonList(RosterConstraintConfiguration.CONSTRAINT_UNDESIRED_TIME_SLOT_FOR_AN_EMPLOYEE),
+            Collections.singletonList(RosterConstraintConfiguration.CONSTRAINT_EMPLOYEE_IS_NOT_ROTATION_EMPLOYEE),
+            Collections.singletonList(RosterConstraintConfiguration.CONSTRAINT_ASSIGN_EVERY_SHIFT),
+            Collections.singletonList(RosterConstraintConfiguration.CONSTRAINT_NO_MORE_THAN_2_CONSECUTIVE_SHIFTS),
+            Collections.singletonList(RosterConstraintConfiguration.CONSTRAINT_EMPLOYEE_IS_NOT_ORIGINAL_EMPLOYEE));
+    private static final List<String> CONTRACT_MINUTES_CONSTRAINT_NAME_LIST = Arrays.asList(
+            RosterConstraintConfiguration.CONSTRAINT_DAILY_MINUTES_MUST_NOT_EXCEED_CONTRACT_MAXIMUM,
+            RosterConstraintConfiguration.CONSTRAINT_WEEKLY_MINUTES_MUST_NOT_EXCEED_CONTRACT_MAXIMUM,
+            RosterConstraintConfiguration.CONSTRAINT_MONTHLY_MINUTES_MUST_NOT_EXCEED_CONTRACT_MAXIMUM,
+            RosterConstraintConfiguration.CONSTRAINT_YEARLY_MINUTES_MUST_NOT_EXCEED_CONTRACT_MAXIMUM);
+
+    private final IndictmentUtils indictmentUtils = new IndictmentUtils();
+
+    private Roster roster;
+    private ScoreExplanation<Roster, HardMediumSoftLongScore> scoreExplanation;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(IndictmentBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        roster = generateRoster(new Random(37));
+        SolverFactory<Roster> solverFactory = SolverFactory.create(new SolverConfig()
+                .withSolutionClass(Roster.class)
+                .withEntityClasses(Shift.class)
+                .withConstraintProviderClass(EmployeeRosteringConstraintProvider.class));
+        scoreExplanation = ScoreManager.create(solverFactory).explainScore(roster);
+    }
+
+    @Benchmark
+    public void indexedShiftViews(Blackhole blackhole) {
+        // The index is built once per explanation, so its cost is part of every view refresh
+        IndictmentIndex indictmentIndex = new IndictmentIndex(scoreExplanation);
+        for (Shift shift : roster.getShiftList()) {
+            blackhole.consume(indictmentUtils.getShiftViewWithIndictment(ZoneOffset.UTC, shift,
+                    roster.getRosterConstraintConfiguration(), indictmentIndex));
+        }
+    }
+
+    @Benchmark
+    public void scannedShiftViews(Blackhole blackhole) {
+        Map<Object, Indictment<HardMediumSoftLongScore>> indictmentMap = scoreExplanation.getIndictmentMap();
+        for (Shift shift : roster.getShiftList()) {
+            Indictment<HardMediumSoftLongScore> shiftIndictment = indictmentMap.get(shift);
+            for (List<String> constraintNameList : SCANNED_CONSTRAINT_NAME_LISTS) {
+                blackhole.consume(scan(shiftIndictment, constraintNameList));
+            }
+            if (shift.getEmployee() != null) {
+                blackhole.consume(scan(indictmentMap.get(shift.getEmployee()), CONTRACT_MINUTES_CONSTRAINT_NAME_LIST));
+            }
+        }
+    }
+
+    private static List<ConstraintMatch<HardMediumSoftLongScore>> scan(Indictment<HardMediumSoftLongScore> indictment,
+            List<String> constraintNameList) {
+        if (indictment == null) {
+            return Collections.emptyList();
+        }
+        return indictment.getConstraintMatchSet().stream()
+                .filter(constraintMatch -> constraintMatch.getConstraintPackage()
+                        .equals(IndictmentUtils.CONSTRAINT_MATCH_PACKAGE) &&
+                        constraintNameList.contains(constraintMatch.getConstraintName()))
+                .collect(Collectors.toList());
+    }
+
+    private static Roster generateRoster(Random random) {
+        AtomicLong idGenerator = new AtomicLong(1L);
+
+        RosterConstraintConfiguration configuration = new RosterConstraintConfiguration(TENANT_ID, DayOfWeek.MONDAY);
+        configuration.setId(idGenerator.getAndIncrement());
+        RosterState rosterState = new RosterState(TENANT_ID, 7, START_DATE.minusDays(7), 7, 14, 0, 7,
+                START_DATE.minusDays(14), ZoneOffset.UTC);
+        rosterState.setId(idGenerator.getAndIncrement());
+
+        List<Skill> skillList = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Skill skill = new Skill(TENANT_ID, "Skill " + i);
+            skill.setId(idGenerator.getAndIncrement());
+            skillList.add(skill);
+        }
+        Contract contract = new Contract(TENANT_ID, "Contract", 8 * 60, 40 * 60, 160 * 60, null);
+        contract.setId(idGenerator.getAndIncrement());
+
+        List<Spot> spotList = new ArrayList<>();
+        for (int i = 0; i < SPOT_COUNT; i++) {
+            Spot spot = new Spot(TENANT_ID, "Spot " + i,
+                    Collections.singleton(skillList.get(random.nextInt(skillList.size()))));
+            spot.setId(idGenerator.getAndIncrement());
+            spotList.add(spot);
+        }
+        List<Employee> employeeList = new ArrayList<>();
+        for (int i = 0; i < EMPLOYEE_COUNT; i++) {
+            Set<Skill> skillSet = new HashSet<>();
+            skillSet.add(skillList.get(random.nextInt(skillList.size())));
+            skillSet.add(skillList.get(random.nextInt(skillList.size())));
+            Employee employee = new Employee(TENANT_ID, "Employee " + i, contract, skillSet);
+            employee.setId(idGenerator.getAndIncrement());
+            employeeList.add(employee);
+        }
+
+        List<EmployeeAvailability> employeeAvailabilityList = new ArrayList<>();
+        EmployeeAvailabilityState[] states = EmployeeAvailabilityState.values();
+        for (Employee employee : employeeList) {
+            for (int i = 0; i < 4; i++) {
+                OffsetDateTime startDateTime = START_DATE.plusDays(random.nextInt(DAY_COUNT)).atStartOfDay()
+                        .atOffset(ZoneOffset.UTC);
+                EmployeeAvailability employeeAvailability = new EmployeeAvailability(TENANT_ID, employee,
+                        startDateTime, startDateTime.plusDays(1));
+                employeeAvailability.setState(states[random.nextInt(states.length)]);
+                employeeAvailability.setId(idGenerator.getAndIncrement());
+                employeeAvailabilityList.add(employeeAvailability);
+            }
+        }
+
+        List<Shift> shiftList = new ArrayList<>();
+        for (int day = 0; day < DAY_COUNT; day++) {
+            for (Spot spot : spotList) {
+                for (int startHour : new int[] { 6, 14 }) {
+                    OffsetDateTime startDateTime = START_DATE.plusDays(day).atTime(startHour, 0)
+                            .atOffset(ZoneOffset.UTC);
+                    Employee rotationEmployee = employeeList.get(random.nextInt(employeeList.size()));
+                    Shift shift = new Shift(TENANT_ID, spot, startDateTime, startDateTime.plusHours(8),
+                            rotationEmployee, new HashSet<>(spot.getRequiredSkillSet()), null);
+                    shift.setId(idGenerator.getAndIncrement());
+                    // Leave some shifts unassigned
+                    if (random.nextInt(10) != 0) {
+                        shift.setEmployee(employeeList.get(random.nextInt(employeeList.size())));
+                    }
+                    shiftList.add(shift);
+                }
+            }
+        }
+
+        Roster roster = new Roster((long) TENANT_ID, TENANT_ID, configuration, skillList, spotList, employeeList,
+                employeeAvailabilityList, rosterState, shiftList);
+        roster.indexWeekStartDay();
+        return roster;
+    }
+}
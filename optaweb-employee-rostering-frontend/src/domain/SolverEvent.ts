@@ -0,0 +1,17 @@
+import { SolverStatus } from 'store/roster/types';
+import { ShiftView } from './ShiftView';
+import { HardMediumSoftScore } from './HardMediumSoftScore';
+import { IndictmentSummary } from './indictment/IndictmentSummary';
+
+export interface SolverEvent {
+  tenantId: number;
+  solverStatus: SolverStatus;
+  // Only the shifts that were added, or whose times, spot, employee, version or indictment changed
+  // since the previous event
+  shiftViewList: ShiftView[];
+  // The shifts that were removed since the previous event
+  removedShiftIdList: number[];
+  // null if the event has no new best solution
+  score: HardMediumSoftScore | null;
+  indictmentSummary: IndictmentSummary | null;
+}
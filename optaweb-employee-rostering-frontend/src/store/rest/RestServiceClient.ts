@@ -12,6 +12,8 @@ const typeJsonRegex = new RegExp('application/json.*');
 export default class RestServiceClient {
   restClient: AxiosInstance;
 
+  baseURL: string;
+
   pollForServerTimeout: number | null;
 
   dispatch: ThunkDispatch<AppState, any, any> | null;
@@ -21,6 +23,7 @@ export default class RestServiceClient {
       baseURL,
       validateStatus: () => true,
     });
+    this.baseURL = baseURL;
     this.dispatch = null;
     this.pollForServerTimeout = null;
     this.handleResponse = this.handleResponse.bind(this);
@@ -65,6 +68,10 @@ export default class RestServiceClient {
       });
   }
 
+  eventSource(url: string): EventSource {
+    return new EventSource(this.baseURL + url);
+  }
+
   handleResponse<T>(res: AxiosResponse<T>): Promise<T> {
     if (res.status >= 200 && res.status < 300) {
       if (this.dispatch) {
@@ -42,12 +42,15 @@ export const mockUploadFile = jest.fn().mockImplementation((url, file) => {
   return Promise.resolve(response);
 });
 
+export const mockEventSource = jest.fn();
+
 const mock = jest.fn().mockImplementation(() => ({
   get: mockGet,
   post: mockPost,
   put: mockPut,
   delete: mockDelete,
   uploadFile: mockUploadFile,
+  eventSource: mockEventSource,
 }));
 
 export default mock;
@@ -1,5 +1,6 @@
 
 import { RosterState } from 'domain/RosterState';
+import { SolverEvent } from 'domain/SolverEvent';
 import { ShiftRosterView } from 'domain/ShiftRosterView';
 import { AvailabilityRosterView } from 'domain/AvailabilityRosterView';
 import {
@@ -7,7 +8,7 @@ import {
   SetRosterStateIsLoadingAction, SetRosterStateAction, SetShiftRosterIsLoadingAction,
   SetShiftRosterViewAction, SolveRosterAction, TerminateSolvingRosterEarlyAction, PublishResult,
   SetAvailabilityRosterIsLoadingAction, SetAvailabilityRosterViewAction,
-  AvailabilityRosterViewActionType, CurrentSolverState, UpdateSolverStatusAction,
+  AvailabilityRosterViewActionType, CurrentSolverState, UpdateSolverStatusAction, ApplySolverEventAction,
 } from './types';
 import { ActionFactory } from '../types';
 
@@ -63,3 +64,8 @@ ActionFactory<CurrentSolverState, UpdateSolverStatusAction> = (solverStatus: Cur
   type: SolverActionType.UPDATE_SOLVER_STATUS,
   solverStatus: solverStatus.solverStatus,
 });
+
+export const applySolverEvent: ActionFactory<SolverEvent, ApplySolverEventAction> = solverEvent => ({
+  type: SolverActionType.APPLY_SOLVER_EVENT,
+  solverEvent,
+});
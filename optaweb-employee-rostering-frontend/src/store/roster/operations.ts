@@ -17,6 +17,7 @@ import { spotSelectors } from 'store/spot';
 import { serializeLocalDate } from 'store/rest/DataSerialization';
 import { getHardMediumSoftScoreFromString } from 'domain/HardMediumSoftScore';
 import { TimeBucket } from 'domain/TimeBucket';
+import { SolverEvent } from 'domain/SolverEvent';
 import {
   SetRosterStateIsLoadingAction, SetRosterStateAction,
   SetShiftRosterIsLoadingAction, SetShiftRosterViewAction, SolveRosterAction,
@@ -58,6 +59,15 @@ interface KindaAvailabilityRosterView extends Omit<AvailabilityRosterView,
   };
 }
 
+interface KindaSolverEvent extends Omit<SolverEvent, 'shiftViewList' | 'score' | 'indictmentSummary'> {
+  shiftViewList: KindaShiftView[];
+  score: string | null;
+  indictmentSummary: {
+    constraintToCountMap: Record<string, number>;
+    constraintToScoreImpactMap: Record<string, string>;
+  } | null;
+}
+
 let lastCalledShiftRosterArgs: any | null;
 let lastCalledShiftRoster:
 ThunkCommandFactory<any, SetShiftRosterIsLoadingAction | SetShiftRosterViewAction> | null = null;
@@ -68,8 +78,17 @@ SetAvailabilityRosterViewAction> | null = null;
 
 let stopSolvingRosterTimeout: NodeJS.Timeout|null = null;
 let autoRefreshShiftRosterDuringSolvingIntervalTimeout: NodeJS.Timeout|null = null;
+let solverEventSource: EventSource|null = null;
+
+function closeSolverEventSource() {
+  if (solverEventSource !== null) {
+    solverEventSource.close();
+    solverEventSource = null;
+  }
+}
 
 export function resetSolverStatus() {
+  closeSolverEventSource();
   lastCalledShiftRosterArgs = null;
   lastCalledShiftRoster = null;
   lastCalledAvailabilityRosterArgs = null;
@@ -78,6 +97,7 @@ export function resetSolverStatus() {
 
 function stopSolvingRoster(dispatch: ThunkDispatch<AppState, RestServiceClient,
 AddAlertAction | TerminateSolvingRosterEarlyAction>) {
+  closeSolverEventSource();
   if (stopSolvingRosterTimeout !== null) {
     clearTimeout(stopSolvingRosterTimeout);
     stopSolvingRosterTimeout = null;
@@ -105,6 +125,52 @@ function refresh(dispatch: ThunkDispatch<AppState, RestServiceClient, any>) {
   ]);
 }
 
+function convertKindaSolverEventToSolverEvent(newSolverEvent: KindaSolverEvent): SolverEvent {
+  return {
+    ...newSolverEvent,
+    shiftViewList: newSolverEvent.shiftViewList.map(kindaShiftViewAdapter),
+    score: (newSolverEvent.score !== null) ? getHardMediumSoftScoreFromString(newSolverEvent.score) : null,
+    indictmentSummary: (newSolverEvent.indictmentSummary !== null) ? {
+      constraintToCountMap: newSolverEvent.indictmentSummary.constraintToCountMap,
+      constraintToScoreImpactMap: mapObjectStringMap(newSolverEvent.indictmentSummary
+        .constraintToScoreImpactMap, getHardMediumSoftScoreFromString),
+    } : null,
+  };
+}
+
+// Applies the shifts changed by each best solution to the roster views, instead of reloading them every second.
+// Falls back to reloading them if the browser has no Server-Sent Events support or the event stream fails.
+function listenToSolver(dispatch: ThunkDispatch<AppState, RestServiceClient, any>, tenantId: number,
+  client: RestServiceClient) {
+  if (solverEventSource !== null) {
+    return;
+  }
+  if (typeof EventSource === 'undefined') {
+    autoRefreshShiftRosterDuringSolvingIntervalTimeout = setTimeout(() => refresh(dispatch), updateInterval);
+    return;
+  }
+  const eventSource = client.eventSource(`/tenant/${tenantId}/roster/solverEvents`);
+  solverEventSource = eventSource;
+  eventSource.onopen = () => {
+    // Reloaded after subscribing, so no change is missed in between
+    dispatch(operations.refreshShiftRoster());
+    dispatch(operations.refreshAvailabilityRoster());
+  };
+  eventSource.addEventListener('solverEvent', (event) => {
+    const solverEvent = convertKindaSolverEventToSolverEvent(JSON.parse((event as MessageEvent).data));
+    dispatch(actions.applySolverEvent(solverEvent));
+    if (solverEvent.solverStatus === 'NOT_SOLVING') {
+      stopSolvingRoster(dispatch);
+    }
+  });
+  eventSource.onerror = () => {
+    if (solverEventSource === eventSource) {
+      closeSolverEventSource();
+      autoRefreshShiftRosterDuringSolvingIntervalTimeout = setTimeout(() => refresh(dispatch), updateInterval);
+    }
+  };
+}
+
 export const solveRoster:
 ThunkCommandFactory<void, AddAlertAction | SolveRosterAction> = () => (dispatch, state, client) => {
   const tenantId = state().tenantData.currentTenantId;
@@ -117,7 +183,7 @@ ThunkCommandFactory<void, AddAlertAction | SolveRosterAction> = () => (dispatch,
     dispatch(alert.showInfoMessage('startSolvingRoster', {
       startSolvingTime: moment(solvingStartTime).format('LLL'),
     }));
-    autoRefreshShiftRosterDuringSolvingIntervalTimeout = setTimeout(() => refresh(dispatch), updateInterval);
+    listenToSolver(dispatch, tenantId, client);
   });
 };
 
@@ -130,7 +196,7 @@ ThunkCommandFactory<void, AddAlertAction | SolveRosterAction> = () => (dispatch,
     dispatch(alert.showInfoMessage('startSolvingRoster', {
       startSolvingTime: moment(solvingStartTime).format('LLL'),
     }));
-    autoRefreshShiftRosterDuringSolvingIntervalTimeout = setTimeout(() => refresh(dispatch), updateInterval);
+    listenToSolver(dispatch, tenantId, client);
   });
 };
 
@@ -149,7 +215,7 @@ ThunkCommandFactory<void, AddAlertAction | UpdateSolverStatusAction> = () => (di
     if (status === 'NOT_SOLVING' && autoRefreshShiftRosterDuringSolvingIntervalTimeout !== null) {
       stopSolvingRoster(dispatch);
     } else if (status === 'SOLVING_ACTIVE' && autoRefreshShiftRosterDuringSolvingIntervalTimeout === null) {
-      autoRefreshShiftRosterDuringSolvingIntervalTimeout = setTimeout(() => refresh(dispatch), updateInterval);
+      listenToSolver(dispatch, tenantId, client);
     }
   });
 };
@@ -1,5 +1,11 @@
 
 import moment from 'moment';
+import { ShiftRosterView } from 'domain/ShiftRosterView';
+import { AvailabilityRosterView } from 'domain/AvailabilityRosterView';
+import { ShiftView } from 'domain/ShiftView';
+import { RosterView } from 'domain/RosterView';
+import { SolverEvent } from 'domain/SolverEvent';
+import { ObjectNumberMap } from 'types';
 import {
   RosterStateActionType, SolverAction, ShiftRosterViewActionType, RosterStateAction,
   ShiftRosterViewAction, CurrentSolverState, CurrentRosterState, CurrentShiftRoster, SolverActionType,
@@ -25,6 +31,85 @@ export const initialAvailabilityRosterState: CurrentAvailabilityRoster = {
   availabilityRosterView: null,
 };
 
+function getChangedShiftViewMap(solverEvent: SolverEvent): ObjectNumberMap<ShiftView> {
+  const changedShiftViewMap: ObjectNumberMap<ShiftView> = {};
+  solverEvent.shiftViewList.forEach((shiftView) => {
+    changedShiftViewMap[shiftView.id as number] = shiftView;
+  });
+  return changedShiftViewMap;
+}
+
+// Matches the shifts that must leave their current list, since they changed or were removed
+function getIsUnchanged(solverEvent: SolverEvent) {
+  const changedShiftViewMap = getChangedShiftViewMap(solverEvent);
+  const removedShiftIdSet = new Set(solverEvent.removedShiftIdList);
+  return (shiftView: ShiftView) => changedShiftViewMap[shiftView.id as number] === undefined
+    && !removedShiftIdSet.has(shiftView.id as number);
+}
+
+function isInDates(rosterView: RosterView, shiftView: ShiftView) {
+  return !moment(shiftView.endDateTime).isBefore(moment(rosterView.startDate))
+    && moment(shiftView.startDateTime).isBefore(moment(rosterView.endDate));
+}
+
+function getScoreOf(solverEvent: SolverEvent) {
+  return (solverEvent.score !== null && solverEvent.indictmentSummary !== null)
+    ? { score: solverEvent.score, indictmentSummary: solverEvent.indictmentSummary } : {};
+}
+
+export function applySolverEventToShiftRosterView(shiftRosterView: ShiftRosterView,
+  solverEvent: SolverEvent): ShiftRosterView {
+  const isUnchanged = getIsUnchanged(solverEvent);
+
+  // A changed shift leaves the list of its previous spot and joins the list of its new spot,
+  // if that spot is in the view and the shift is in the view's dates
+  const spotIdToShiftViewListMap: ObjectNumberMap<ShiftView[]> = {};
+  shiftRosterView.spotList.forEach((spot) => {
+    const spotId = spot.id as number;
+    const shiftViewList = (shiftRosterView.spotIdToShiftViewListMap[spotId] || [])
+      .filter(isUnchanged)
+      .concat(solverEvent.shiftViewList.filter(shiftView => shiftView.spotId === spotId
+        && isInDates(shiftRosterView, shiftView)))
+      .sort((a, b) => moment(a.startDateTime).diff(b.startDateTime));
+    if (shiftViewList.length > 0 || shiftRosterView.spotIdToShiftViewListMap[spotId] !== undefined) {
+      spotIdToShiftViewListMap[spotId] = shiftViewList;
+    }
+  });
+
+  return {
+    ...shiftRosterView,
+    ...getScoreOf(solverEvent),
+    spotIdToShiftViewListMap,
+  };
+}
+
+export function applySolverEventToAvailabilityRosterView(availabilityRosterView: AvailabilityRosterView,
+  solverEvent: SolverEvent): AvailabilityRosterView {
+  const isUnchanged = getIsUnchanged(solverEvent);
+
+  // A changed shift leaves the list of its previous employee and joins the list of its new employee,
+  // if that employee is in the view and the shift is in the view's dates
+  const employeeIdToShiftViewListMap: ObjectNumberMap<ShiftView[]> = {};
+  availabilityRosterView.employeeList.forEach((employee) => {
+    const employeeId = employee.id as number;
+    const shiftViewList = (availabilityRosterView.employeeIdToShiftViewListMap[employeeId] || [])
+      .filter(isUnchanged)
+      .concat(solverEvent.shiftViewList.filter(shiftView => shiftView.employeeId === employeeId
+        && isInDates(availabilityRosterView, shiftView)))
+      .sort((a, b) => moment(a.startDateTime).diff(b.startDateTime));
+    if (shiftViewList.length > 0 || availabilityRosterView.employeeIdToShiftViewListMap[employeeId] !== undefined) {
+      employeeIdToShiftViewListMap[employeeId] = shiftViewList;
+    }
+  });
+
+  return {
+    ...availabilityRosterView,
+    ...getScoreOf(solverEvent),
+    employeeIdToShiftViewListMap,
+    unassignedShiftViewList: availabilityRosterView.unassignedShiftViewList.filter(isUnchanged),
+  };
+}
+
 export const rosterStateReducer = (state = initialRosterState, action: RosterStateAction): CurrentRosterState => {
   switch (action.type) {
     case RosterStateActionType.SET_ROSTER_STATE_IS_LOADING: {
@@ -62,6 +147,13 @@ export const shiftRosterViewReducer = (state = initialShiftRosterState,
     case ShiftRosterViewActionType.SET_SHIFT_ROSTER_VIEW: {
       return { ...state, shiftRosterView: action.shiftRoster };
     }
+    case SolverActionType.APPLY_SOLVER_EVENT: {
+      if (state.shiftRosterView === null) {
+        return state;
+      }
+      return { ...state,
+        shiftRosterView: applySolverEventToShiftRosterView(state.shiftRosterView, action.solverEvent) };
+    }
     default:
       return state;
   }
@@ -76,6 +168,14 @@ export const availabilityRosterReducer = (state = initialAvailabilityRosterState
     case AvailabilityRosterViewActionType.SET_AVAILABILITY_ROSTER_VIEW: {
       return { ...state, availabilityRosterView: action.availabilityRoster };
     }
+    case SolverActionType.APPLY_SOLVER_EVENT: {
+      if (state.availabilityRosterView === null) {
+        return state;
+      }
+      return { ...state,
+        availabilityRosterView: applySolverEventToAvailabilityRosterView(state.availabilityRosterView,
+          action.solverEvent) };
+    }
     default:
       return state;
   }
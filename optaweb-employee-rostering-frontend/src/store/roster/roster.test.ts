@@ -985,6 +985,53 @@ describe('Roster operations', () => {
     + `&startDate=${serializeLocalDate(fromDate)}&`
     + `endDate=${serializeLocalDate(moment(toDate).add(1, 'day').toDate())}`, []);
   });
+
+  it('should apply solver events instead of polling if the browser supports them', async () => {
+    const listenerMap: Record<string, (event: { data: string }) => void> = {};
+    const mockEventSource = {
+      close: jest.fn(),
+      addEventListener: jest.fn((name: string, listener: (event: { data: string }) => void) => {
+        listenerMap[name] = listener;
+      }),
+    };
+    (global as any).EventSource = jest.fn();
+    jest.spyOn(rosterOperations, 'refreshShiftRoster').mockImplementation(() => doNothing);
+
+    const { store, client } = mockStore(state);
+    const tenantId = store.getState().tenantData.currentTenantId;
+    (client.eventSource as jest.Mock).mockReturnValue(mockEventSource);
+
+    onPost(`/tenant/${tenantId}/roster/solve`, {}, {});
+    await store.dispatch(rosterOperations.solveRoster());
+    expect(client.eventSource).toHaveBeenCalledWith(`/tenant/${tenantId}/roster/solverEvents`);
+
+    store.clearActions();
+    listenerMap.solverEvent({
+      data: JSON.stringify({
+        tenantId,
+        solverStatus: 'NOT_SOLVING',
+        shiftViewList: [],
+        removedShiftIdList: [],
+        score: null,
+        indictmentSummary: null,
+      }),
+    });
+    expect(store.getActions()).toEqual([
+      actions.applySolverEvent({
+        tenantId,
+        solverStatus: 'NOT_SOLVING',
+        shiftViewList: [],
+        removedShiftIdList: [],
+        score: null,
+        indictmentSummary: null,
+      }),
+      actions.terminateSolvingRosterEarly(),
+    ]);
+    expect(mockEventSource.close).toBeCalled();
+
+    (client.eventSource as jest.Mock).mockReset();
+    delete (global as any).EventSource;
+  });
 });
 
 describe('Roster reducers', () => {
@@ -1051,6 +1098,100 @@ describe('Roster reducers', () => {
       } });
   });
 
+  it('apply solver event to shift roster', () => {
+    const shiftView = { ...mockShiftRoster.spotIdToShiftViewListMap[10][0], id: 40 };
+    const changedShiftView = { ...shiftView, employeeId: null, indictmentScore: {
+      hardScore: 0, mediumScore: -1, softScore: 0,
+    } };
+    const shiftRosterView = {
+      ...mockShiftRoster,
+      endDate: moment('2018-01-02', 'YYYY-MM-DD').toISOString(),
+      spotIdToShiftViewListMap: { 10: [shiftView] },
+    };
+    const newScore = { hardScore: 0, mediumScore: -1, softScore: 0 };
+    expect(
+      shiftRosterViewReducer({
+        ...state.shiftRoster,
+        shiftRosterView,
+      }, actions.applySolverEvent({
+        tenantId: 0,
+        solverStatus: 'SOLVING_ACTIVE',
+        shiftViewList: [changedShiftView],
+        removedShiftIdList: [],
+        score: newScore,
+        indictmentSummary: mockShiftRoster.indictmentSummary,
+      })),
+    ).toEqual({ ...state.shiftRoster,
+      shiftRosterView: {
+        ...shiftRosterView,
+        spotIdToShiftViewListMap: { 10: [changedShiftView] },
+        score: newScore,
+      } });
+  });
+
+  it('apply solver event with moved and removed shifts to shift roster', () => {
+    const shiftView = { ...mockShiftRoster.spotIdToShiftViewListMap[10][0], id: 40 };
+    const removedShiftView = { ...shiftView, id: 41 };
+    const movedShiftView = { ...shiftView, spotId: 11 };
+    const shiftRosterView = {
+      ...mockShiftRoster,
+      endDate: moment('2018-01-02', 'YYYY-MM-DD').toISOString(),
+      spotList: [...mockShiftRoster.spotList, { ...mockShiftRoster.spotList[0], id: 11 }],
+      spotIdToShiftViewListMap: { 10: [shiftView, removedShiftView] },
+    };
+    expect(
+      shiftRosterViewReducer({
+        ...state.shiftRoster,
+        shiftRosterView,
+      }, actions.applySolverEvent({
+        tenantId: 0,
+        solverStatus: 'SOLVING_ACTIVE',
+        shiftViewList: [movedShiftView],
+        removedShiftIdList: [41],
+        score: null,
+        indictmentSummary: null,
+      })),
+    ).toEqual({ ...state.shiftRoster,
+      shiftRosterView: {
+        ...shiftRosterView,
+        spotIdToShiftViewListMap: { 10: [], 11: [movedShiftView] },
+      } });
+  });
+
+  it('apply solver event to availability roster', () => {
+    const shiftView = { ...mockAvailabilityRoster.employeeIdToShiftViewListMap[20][0], id: 40 };
+    const unassignedShiftView = { ...shiftView, employeeId: null };
+    const assignedShiftView = { ...shiftView, id: 41 };
+    const outOfRangeShiftView = {
+      ...shiftView,
+      id: 42,
+      startDateTime: moment('2018-01-05', 'YYYY-MM-DD').toDate(),
+      endDateTime: moment('2018-01-05', 'YYYY-MM-DD').toDate(),
+    };
+    const availabilityRosterView = {
+      ...mockAvailabilityRoster,
+      endDate: moment('2018-01-02', 'YYYY-MM-DD').toISOString(),
+      employeeIdToShiftViewListMap: { 20: [shiftView] },
+    };
+    expect(
+      availabilityRosterReducer({
+        ...state.availabilityRoster,
+        availabilityRosterView,
+      }, actions.applySolverEvent({
+        tenantId: 0,
+        solverStatus: 'SOLVING_ACTIVE',
+        shiftViewList: [unassignedShiftView, assignedShiftView, outOfRangeShiftView],
+        removedShiftIdList: [],
+        score: null,
+        indictmentSummary: null,
+      })),
+    ).toEqual({ ...state.availabilityRoster,
+      availabilityRosterView: {
+        ...availabilityRosterView,
+        employeeIdToShiftViewListMap: { 20: [assignedShiftView] },
+      } });
+  });
+
   it('set solving during solving', () => {
     expect(
       solverReducer(state.solverState, actions.solveRoster()),
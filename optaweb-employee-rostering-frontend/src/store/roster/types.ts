@@ -3,6 +3,7 @@ import { Action } from 'redux';
 import { ShiftRosterView } from 'domain/ShiftRosterView';
 import { AvailabilityRosterView } from 'domain/AvailabilityRosterView';
 import { RosterState } from 'domain/RosterState';
+import { SolverEvent } from 'domain/SolverEvent';
 
 export enum RosterStateActionType {
   SET_ROSTER_STATE_IS_LOADING = 'SET_ROSTER_STATE_IS_LOADING',
@@ -24,6 +25,7 @@ export enum SolverActionType {
   SOLVE_ROSTER = 'SOLVE_ROSTER',
   TERMINATE_SOLVING_ROSTER_EARLY = 'TERMINATE_SOLVING_ROSTER_EARLY',
   UPDATE_SOLVER_STATUS = 'UPDATE_SOLVER_STATUS',
+  APPLY_SOLVER_EVENT = 'APPLY_SOLVER_EVENT',
 }
 
 export interface SetRosterStateIsLoadingAction extends Action<RosterStateActionType.SET_ROSTER_STATE_IS_LOADING> {
@@ -67,9 +69,15 @@ export interface UpdateSolverStatusAction extends Action<SolverActionType.UPDATE
   readonly solverStatus: SolverStatus;
 }
 
+export interface ApplySolverEventAction extends Action<SolverActionType.APPLY_SOLVER_EVENT> {
+  readonly solverEvent: SolverEvent;
+}
+
 export type RosterStateAction = SetRosterStateIsLoadingAction | SetRosterStateAction | PublishRosterAction;
-export type ShiftRosterViewAction = SetShiftRosterIsLoadingAction | SetShiftRosterViewAction;
-export type AvailabilityRosterViewAction = SetAvailabilityRosterIsLoadingAction | SetAvailabilityRosterViewAction;
+export type ShiftRosterViewAction = SetShiftRosterIsLoadingAction | SetShiftRosterViewAction |
+ApplySolverEventAction;
+export type AvailabilityRosterViewAction = SetAvailabilityRosterIsLoadingAction | SetAvailabilityRosterViewAction |
+ApplySolverEventAction;
 export type SolverAction = SolveRosterAction | TerminateSolvingRosterEarlyAction | UpdateSolverStatusAction;
 
 export interface PublishResult {